@@ -34,6 +34,8 @@ tasks.withType<JavaCompile>().configureEach {
     options.encoding = "UTF-8"
     // Чтобы компилировать preview-фичи (например pattern matching/switch preview, string templates и т.д.)
     options.compilerArgs.add("--enable-preview")
+    // Vector API (jdk.incubator.vector) для колоночной аналитики
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
     // Фиксируем релиз, чтобы компиляция была строго под Java 26
     options.release.set(26)
 }
@@ -45,13 +47,13 @@ tasks.withType<Test>().configureEach {
 }
 
 tasks.withType<JavaExec>().configureEach {
-    jvmArgs("--enable-preview", "-Dfile.encoding=UTF-8")
+    jvmArgs("--enable-preview", "-Dfile.encoding=UTF-8", "--add-modules", "jdk.incubator.vector")
     standardInput = System.`in`
 }
 
 tasks.withType<Test>().configureEach {
     useJUnitPlatform()
-    jvmArgs("--enable-preview", "-Dfile.encoding=UTF-8")
+    jvmArgs("--enable-preview", "-Dfile.encoding=UTF-8", "--add-modules", "jdk.incubator.vector")
 }
 
 tasks.withType<JavaCompile>().configureEach {
@@ -63,3 +65,18 @@ tasks.withType<JavaExec>().configureEach {
     // Чтобы `gradlew run` запускал приложение с preview-фичами
     jvmArgs("--enable-preview")
 }
+
+// Бенчмарки: ./gradlew bench [-PbenchMain=<класс>] [--args="..."]; по умолчанию — кодеки хранилища
+sourceSets {
+    create("bench") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+tasks.register<JavaExec>("bench") {
+    group = "verification"
+    description = "Runs storage micro-benchmarks (-PbenchMain selects the class)"
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set(providers.gradleProperty("benchMain").orElse("org.lab.bench.CodecBenchmark"))
+}
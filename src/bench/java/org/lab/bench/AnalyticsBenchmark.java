@@ -0,0 +1,86 @@
+package org.lab.bench;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.TicketRepository;
+import org.lab.infra.analytics.AnalyticsStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+/**
+ * Скорость отчётов AnalyticsStore на N тикетах и N/4 багах.
+ * Запуск: ./gradlew bench -PbenchMain=org.lab.bench.AnalyticsBenchmark [--args="<тикетов>"]
+ * Печатает время одного скана и скорость по строкам; для ticketStatusCounts читается 1 байт статуса на строку.
+ */
+public final class AnalyticsBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ROUNDS = 2_000;
+
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        var tickets = new TicketRepository();
+        var bugs = new BugReportRepository();
+        var analytics = new AnalyticsStore();
+        analytics.attach(tickets, bugs);
+
+        var rnd = new Random(42);
+        var projects = new ProjectId[50];
+        var milestones = new MilestoneId[500];
+        for (int i = 0; i < projects.length; i++) {
+            projects[i] = ProjectId.newId();
+        }
+        for (int i = 0; i < milestones.length; i++) {
+            milestones[i] = MilestoneId.newId();
+        }
+        var user = UserId.newId();
+        var now = Instant.now();
+        for (int i = 0; i < count; i++) {
+            int m = rnd.nextInt(milestones.length);
+            tickets.upsert(new Ticket(TicketId.newId(), projects[m % projects.length], milestones[m],
+                    new Title("t"), new Description(""), TicketStatus.values()[rnd.nextInt(4)], Set.of(),
+                    user, now, now));
+            if ((i & 3) == 0) {
+                var created = now.minus(Duration.ofDays(rnd.nextInt(60)));
+                bugs.upsert(new BugReport(BugReportId.newId(), projects[rnd.nextInt(projects.length)],
+                        new Title("b"), new Description(""), BugStatus.values()[rnd.nextInt(4)],
+                        user, null, null, null, created, created));
+            }
+        }
+
+        measure("ticketStatusCounts(all)", count, () -> analytics.ticketStatusCounts(null).total());
+        measure("ticketStatusCounts(project)", count, () -> analytics.ticketStatusCounts(projects[7]).total());
+        measure("ticketStatusByMilestone(all)", count, () -> analytics.ticketStatusByMilestone(null).size());
+        measure("bugsOpenLongerThan(30d)", count / 4, () -> analytics.bugsOpenLongerThan(Duration.ofDays(30), now).size());
+        System.out.println("(blackhole " + blackhole + ")");
+    }
+
+    private static void measure(String name, int rows, IntSupplier op) {
+        for (int i = 0; i < WARMUP; i++) {
+            blackhole += op.getAsInt();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            blackhole += op.getAsInt();
+        }
+        double nanos = (System.nanoTime() - started) / (double) ROUNDS;
+        System.out.printf(Locale.ROOT, "%-32s %10.1f us/scan %8.2f rows/ns%n", name, nanos / 1e3, rows / nanos);
+    }
+}
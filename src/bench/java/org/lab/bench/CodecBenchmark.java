@@ -0,0 +1,154 @@
+package org.lab.bench;
+
+import org.lab.domain.BugReportId;
+import org.lab.domain.DateRange;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.infra.storage.BinaryCodec;
+import org.lab.infra.storage.ByteSink;
+
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntSupplier;
+
+/**
+ * Пропускная способность BinaryCodec: кодирование/декодирование Ticket и целого Project
+ * в переиспользуемый direct ByteSink и в off-heap MemorySegment.
+ * Запуск: ./gradlew bench [--args="<тикетов в проекте>"]
+ * Печатает медиану по замерам (операций/с и МБ/с); результат каждой операции "потребляется",
+ * чтобы JIT не выбросил работу.
+ */
+public final class CodecBenchmark {
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long ROUND_NANOS = 1_000_000_000L;
+    private static final int ROUNDS = 5;
+
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int ticketCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        var project = sampleProject(ticketCount);
+        var ticket = project.tickets().values().iterator().next();
+
+        var sink = new ByteSink(1 << 16);
+        BinaryCodec.writeTicket(sink, ticket);
+        int ticketBytes = sink.size();
+        var ticketEncoded = copyOf(sink.written());
+
+        sink.clear();
+        BinaryCodec.writeProject(sink, project);
+        int projectBytes = sink.size();
+        var projectEncoded = copyOf(sink.written());
+
+        System.out.printf(Locale.ROOT, "Ticket: %d bytes, Project(%d tickets): %d bytes%n",
+                ticketBytes, ticketCount, projectBytes);
+
+        measure("encode Ticket -> ByteSink", ticketBytes, () -> {
+            sink.clear();
+            BinaryCodec.writeTicket(sink, ticket);
+            return sink.size();
+        });
+
+        try (var arena = Arena.ofConfined()) {
+            var segment = arena.allocate(ticketBytes * 2L);
+            measure("encode Ticket -> MemorySegment", ticketBytes, () -> {
+                var out = ByteSink.over(segment);
+                BinaryCodec.writeTicket(out, ticket);
+                return out.size();
+            });
+        }
+
+        measure("decode Ticket", ticketBytes, () -> {
+            var t = BinaryCodec.readTicket(ticketEncoded.duplicate());
+            return t.assignees().size();
+        });
+
+        measure("encode Project -> ByteSink", projectBytes, () -> {
+            sink.clear();
+            BinaryCodec.writeProject(sink, project);
+            return sink.size();
+        });
+
+        measure("decode Project", projectBytes, () -> {
+            var p = BinaryCodec.readProject(projectEncoded.duplicate());
+            return p.tickets().size();
+        });
+
+        System.out.println("(blackhole " + blackhole + ")");
+    }
+
+    private static void measure(String name, int bytesPerOp, IntSupplier op) {
+        runFor(WARMUP_NANOS, op);
+        var opsPerSec = new double[ROUNDS];
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            long ops = runFor(ROUND_NANOS, op);
+            opsPerSec[r] = ops * 1e9 / (System.nanoTime() - start);
+        }
+        Arrays.sort(opsPerSec);
+        double median = opsPerSec[ROUNDS / 2];
+        System.out.printf(Locale.ROOT, "%-32s %14.0f ops/s %10.1f MB/s%n",
+                name, median, median * bytesPerOp / (1024.0 * 1024.0));
+    }
+
+    private static long runFor(long nanos, IntSupplier op) {
+        long deadline = System.nanoTime() + nanos;
+        long ops = 0;
+        long acc = 0;
+        do {
+            for (int i = 0; i < 64; i++) {
+                acc += op.getAsInt();
+            }
+            ops += 64;
+        } while (System.nanoTime() < deadline);
+        blackhole += acc;
+        return ops;
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer src) {
+        var copy = ByteBuffer.allocate(src.remaining());
+        copy.put(src.duplicate()).flip();
+        return copy.asReadOnlyBuffer();
+    }
+
+    private static Project sampleProject(int ticketCount) {
+        var now = Instant.parse("2025-12-14T10:00:00Z");
+        var manager = UserId.newId();
+        var dev = UserId.newId();
+        var milestone = MilestoneId.newId();
+
+        var p = Project.create(ProjectId.newId(), "PRJ-000001", "Benchmark project", "Codec throughput", manager, now)
+                .flatMap(x -> x.addDeveloper(dev, now))
+                .flatMap(x -> x.createMilestone(milestone, "Milestone 1",
+                        DateRange.of(LocalDate.of(2025, 12, 14), LocalDate.of(2025, 12, 28)).orElseThrow(), now))
+                .orElseThrow();
+
+        for (int i = 0; i < ticketCount; i++) {
+            var id = TicketId.newId();
+            p = p.createTicket(id, milestone,
+                            Title.of("Ticket #" + i + ": implement feature").orElseThrow(),
+                            Description.of("Описание задачи " + i + " — with some non-ASCII text").orElseThrow(),
+                            manager, now)
+                    .flatMap(x -> x.assignDeveloperToTicket(id, dev, now))
+                    .orElseThrow();
+        }
+        for (int i = 0; i < ticketCount / 10; i++) {
+            p = p.createBugReport(BugReportId.newId(),
+                    Title.of("Bug #" + i).orElseThrow(),
+                    Description.of("Steps to reproduce " + i).orElseThrow(),
+                    dev, now).orElseThrow();
+        }
+        return p;
+    }
+}
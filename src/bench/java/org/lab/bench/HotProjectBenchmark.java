@@ -0,0 +1,85 @@
+package org.lab.bench;
+
+import org.lab.domain.DateRange;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.infra.ProjectRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пропускная способность ProjectRepository.update на одном горячем проекте по режимам UpdateMode.
+ * Запуск: ./gradlew bench -PbenchMain=org.lab.bench.HotProjectBenchmark [--args="<потоков> <обновлений на поток>"]
+ * Каждое обновление создаёт тикет; к ленте изменений подписан пустой обработчик (в приложении её читают проекции).
+ */
+public final class HotProjectBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        System.out.printf(Locale.ROOT, "%-12s %8s %12s %10s %12s%n", "mode", "threads", "updates/s", "versions", "failures");
+        for (int round = 0; round < 2; round++) {
+            for (var mode : ProjectRepository.UpdateMode.values()) {
+                run(mode, threads, perThread, round == 1);
+            }
+        }
+    }
+
+    private static void run(ProjectRepository.UpdateMode mode, int threads, int perThread, boolean print)
+            throws InterruptedException {
+        var repo = new ProjectRepository(mode);
+        repo.changes().subscribe("bench-" + mode, change -> { }, change -> { });
+        var manager = UserId.newId();
+        var now = Instant.now();
+        var milestone = MilestoneId.newId();
+        var project = Project.create(ProjectId.newId(), repo.nextProjectKey(), "Hot", "", manager, now)
+                .flatMap(p -> p.createMilestone(milestone, "M1",
+                        DateRange.of(LocalDate.now(), LocalDate.now().plusDays(30)).orElseThrow(), now))
+                .orElseThrow();
+        repo.insert(project).orElseThrow();
+
+        var failures = new LongAdder();
+        var start = new CountDownLatch(1);
+        var workers = new ArrayList<Thread>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                var title = new Title("Hot ticket");
+                var description = new Description("");
+                for (int i = 0; i < perThread; i++) {
+                    var tid = TicketId.newId();
+                    var res = repo.update(project.id(), p -> p.createTicket(tid, milestone, title, description, manager, now));
+                    if (res.isFailure()) {
+                        failures.increment();
+                    }
+                }
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (var w : workers) {
+            w.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        if (print) {
+            var last = repo.findById(project.id()).orElseThrow();
+            System.out.printf(Locale.ROOT, "%-12s %8d %12.0f %10d %12d%n",
+                    mode, threads, threads * (double) perThread / seconds, last.version(), failures.sum());
+        }
+    }
+}
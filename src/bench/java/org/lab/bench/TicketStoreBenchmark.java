@@ -0,0 +1,89 @@
+package org.lab.bench;
+
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.TicketRepository;
+import org.lab.infra.offheap.OffHeapTicketStore;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Heap и GC при росте числа тикетов: heap-хранилище против OffHeapTicketStore.
+ * Запуск: ./gradlew bench -PbenchMain=org.lab.bench.TicketStoreBenchmark [--args="<тикетов> <шагов>"]
+ * На каждом шаге добавляется count/steps тикетов (с назначением), затем печатается занятый heap после GC,
+ * суммарные число/время сборок и off-heap память.
+ */
+public final class TicketStoreBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        run("heap", new TicketRepository(), null, count, steps);
+        try (var offHeap = new OffHeapTicketStore()) {
+            run("offheap", new TicketRepository(offHeap), offHeap, count, steps);
+        }
+    }
+
+    private static void run(String name, TicketRepository repo, OffHeapTicketStore offHeap, int count, int steps) {
+        var users = new UserId[64];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = UserId.newId();
+        }
+        var project = ProjectId.newId();
+        var milestone = MilestoneId.newId();
+        var now = Instant.now();
+
+        System.out.printf(Locale.ROOT, "%n[%s]%n", name);
+        System.out.printf(Locale.ROOT, "%12s %12s %10s %10s %12s %12s%n",
+                "tickets", "heap MB", "gc count", "gc ms", "off-heap MB", "insert/s");
+        long gcCount0 = gcCount();
+        long gcMillis0 = gcMillis();
+        int perStep = count / steps;
+        int n = 0;
+        for (int step = 0; step < steps; step++) {
+            long started = System.nanoTime();
+            for (int i = 0; i < perStep; i++, n++) {
+                var t = new Ticket(TicketId.newId(), project, milestone,
+                        new Title("Ticket #" + n), new Description("Generated ticket number " + n),
+                        TicketStatus.NEW, Set.of(),
+                        users[n % users.length], now, now)
+                        .assign(users[(n * 7) % users.length], now);
+                repo.insert(t);
+            }
+            double rate = perStep / ((System.nanoTime() - started) / 1e9);
+            System.gc();
+            var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            System.out.printf(Locale.ROOT, "%12d %12.1f %10d %10d %12.1f %12.0f%n",
+                    n, heap / 1e6, gcCount() - gcCount0, gcMillis() - gcMillis0,
+                    offHeap == null ? 0.0 : offHeap.offHeapBytes() / 1e6, rate);
+        }
+        System.out.printf(Locale.ROOT, "findByAssignee: %d tickets%n", repo.findByAssignee(users[0]).size());
+    }
+
+    private static long gcCount() {
+        long sum = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sum += Math.max(0, gc.getCollectionCount());
+        }
+        return sum;
+    }
+
+    private static long gcMillis() {
+        long sum = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sum += Math.max(0, gc.getCollectionTime());
+        }
+        return sum;
+    }
+}
@@ -15,7 +15,9 @@ public final class AccessControl {
             Operation.CREATE_TICKET,
             Operation.ASSIGN_TICKET_DEVELOPER,
             Operation.CHECK_TICKET_COMPLETION,
-            Operation.CLOSE_BUG_REPORT
+            Operation.CLOSE_BUG_REPORT,
+            Operation.BULK_IMPORT,
+            Operation.BULK_EXPORT
     );
 
     private static final Set<Operation> TEAM_LEAD = EnumSet.of(
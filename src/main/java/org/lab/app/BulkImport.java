@@ -0,0 +1,495 @@
+package org.lab.app;
+
+import org.lab.domain.BugReportId;
+import org.lab.domain.DateRange;
+import org.lab.domain.Description;
+import org.lab.domain.DomainError;
+import org.lab.domain.DomainResult;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.ProjectKey;
+import org.lab.domain.TicketDraft;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.ProjectRole;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Массовый импорт из старого трекера (CSV или JSONL, поле type: user | project | member | milestone | ticket | bug).
+ * Файл читается пачками по CHUNK записей; записи пачки разбираются и проверяются параллельно
+ * (User.register, ProjectKey/Title/Description/DateRange), затем применяются: пользователи и проекты —
+ * вставками, участники, milestones, тикеты и баги — одним projects.update на проект за пачку
+ * (подряд идущие тикеты одного milestone и автора — одним createTickets). Проекты разных групп обновляются параллельно.
+ * Ошибка строки не останавливает импорт: она попадает в отчёт с номером строки.
+ * <p>
+ * Ссылки: проект — по key, пользователь — по login (в том числе уже существующие), milestone — по ref,
+ * заданному в его строке этого же файла. Строка должна идти не раньше пачки, в которой создаётся то, на что она ссылается;
+ * внутри пачки пользователи применяются до проектов, проекты — до остального.
+ * Поля: user(login, name), project(key, name, description, manager), member(project, login, role:
+ * developer|tester|team_lead|manager — manager только для менеджера из строки project, как пишет export),
+ * milestone(project, ref, name, start, end), ticket(project, milestone, title, description, author),
+ * bug(project, title, description, author).
+ * <p>
+ * Импорт идёт от имени актора (зарегистрированного пользователя). Строки user открыты, как и register;
+ * в строке project менеджером должен быть сам актор (как в createProject, где менеджер — создатель), иначе строка отклоняется.
+ * Группа проекта применяется, только если роль актора в нём разрешает Operation.BULK_IMPORT (AccessControl):
+ * роль проверяется внутри того же projects.update, что применяет группу, и при отказе все строки группы
+ * попадают в отчёт с AccessDenied, а проект не меняется. author строк ticket/bug — атрибуция, не права:
+ * домен лишь требует, чтобы автор был участником проекта.
+ */
+public final class BulkImport {
+
+    public static final int CHUNK = 4096;
+    private static final int MAX_ERRORS = 50;
+
+    public enum Format {
+        CSV, JSONL;
+
+        public static Format of(Path file) {
+            var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return JSONL;
+            }
+            throw new IllegalArgumentException("Unknown import format (expected .csv or .jsonl): " + file);
+        }
+    }
+
+    public record Progress(long rows, long failed, Duration elapsed) {
+        public double rowsPerSecond() {
+            long ms = elapsed.toMillis();
+            return ms == 0 ? rows : rows * 1000.0 / ms;
+        }
+    }
+
+    public record RowError(long line, String message) { }
+
+    /**
+     * errors — первые MAX_ERRORS ошибок по возрастанию номера строки; всего ошибок — progress.failed().
+     */
+    public record Report(Progress progress, List<RowError> errors) { }
+
+    private sealed interface Row permits Invalid, UserRow, ProjectRow, MemberRow, MilestoneRow, TicketRow, BugRow {
+        long line();
+    }
+
+    private record Invalid(long line, String message) implements Row { }
+
+    private record UserRow(long line, User user) implements Row { }
+
+    private record ProjectRow(long line, ProjectKey key, String name, String description, String manager) implements Row { }
+
+    private record MemberRow(long line, String project, String login, ProjectRole role) implements Row { }
+
+    private record MilestoneRow(long line, String project, String ref, String name, DateRange range) implements Row { }
+
+    private record TicketRow(long line, String project, String milestone, TicketDraft draft, String author) implements Row { }
+
+    private record BugRow(long line, String project, BugReportId id, Title title, Description description, String author) implements Row { }
+
+    /**
+     * Строка, у которой разрешены ссылки: шаг свёртки внутри projects.update.
+     */
+    private sealed interface Step permits AddMember, AddMilestone, AddTickets, AddBug { }
+
+    private record AddMember(long line, UserId user, ProjectRole role) implements Step { }
+
+    private record AddMilestone(long line, MilestoneRef ref, MilestoneId id, String name, DateRange range) implements Step { }
+
+    private record AddTickets(List<Long> lines, MilestoneId milestone, UserId author, List<TicketDraft> drafts) implements Step { }
+
+    private record AddBug(long line, BugReportId id, Title title, Description description, UserId author) implements Step { }
+
+    private record MilestoneRef(ProjectId project, String ref) { }
+
+    private final UserRepository users;
+    private final ProjectRepository projects;
+
+    public BulkImport(UserRepository users, ProjectRepository projects) {
+        this.users = Objects.requireNonNull(users, "users");
+        this.projects = Objects.requireNonNull(projects, "projects");
+    }
+
+    /**
+     * Формат — по расширению файла; progress вызывается после каждой пачки.
+     *
+     * @throws IllegalArgumentException если актора нет среди пользователей
+     */
+    public Report run(UserId actorId, Path file, Consumer<Progress> progress) throws IOException {
+        Objects.requireNonNull(file, "file");
+        var format = Format.of(file);
+        try (var in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return run(actorId, in, format, progress);
+        }
+    }
+
+    public Report run(UserId actorId, BufferedReader in, Format format, Consumer<Progress> progress) throws IOException {
+        Objects.requireNonNull(actorId, "actorId");
+        Objects.requireNonNull(in, "in");
+        Objects.requireNonNull(format, "format");
+        Objects.requireNonNull(progress, "progress");
+        if (users.findById(actorId).isEmpty()) {
+            throw new IllegalArgumentException("user not found: " + actorId);
+        }
+        return new Run(actorId, new ImportRecords(in, format), progress).execute();
+    }
+
+    /**
+     * Состояние одного импорта: счётчики, ошибки и milestone ref -> id (единственное, что растёт с размером файла).
+     */
+    private final class Run {
+
+        private final UserId actor;
+        private final ImportRecords records;
+        private final Consumer<Progress> progress;
+        private final Map<MilestoneRef, MilestoneId> milestones = new ConcurrentHashMap<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private final long started = System.nanoTime();
+        private long rows;
+        private long failed;
+
+        Run(UserId actor, ImportRecords records, Consumer<Progress> progress) {
+            this.actor = actor;
+            this.records = records;
+            this.progress = progress;
+        }
+
+        Report execute() throws IOException {
+            List<ImportRecords.Raw> chunk;
+            while (!(chunk = records.next(CHUNK)).isEmpty()) {
+                var now = Instant.now();
+                var parsed = chunk.parallelStream().map(r -> parse(r, now)).toList();
+                apply(parsed, now);
+                rows += chunk.size();
+                progress.accept(progress());
+            }
+            synchronized (this) {
+                errors.sort(Comparator.comparingLong(RowError::line));
+                return new Report(progress(), List.copyOf(errors));
+            }
+        }
+
+        private synchronized Progress progress() {
+            return new Progress(rows, failed, Duration.ofNanos(System.nanoTime() - started));
+        }
+
+        private synchronized void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        private void check(long line, DomainResult<?> res) {
+            if (res.isFailure()) {
+                fail(line, res.errorOrNull().userMessage());
+            }
+        }
+
+        // ---------- разбор (параллельно) ----------
+
+        private Row parse(ImportRecords.Raw raw, Instant now) {
+            long line = raw.line();
+            try {
+                var f = records.fields(raw);
+                var type = required(f, "type").toLowerCase(Locale.ROOT);
+                return switch (type) {
+                    case "user" -> valid(line, User.register(users.nextId(), f.get("login"), f.get("name"), now),
+                            u -> new UserRow(line, u));
+                    case "project" -> {
+                        var manager = required(f, "manager");
+                        yield valid(line, ProjectKey.of(f.get("key")),
+                                k -> new ProjectRow(line, k, f.get("name"), f.get("description"), manager));
+                    }
+                    case "member" -> new MemberRow(line, required(f, "project"), required(f, "login"), role(f));
+                    case "milestone" -> {
+                        var project = required(f, "project");
+                        var ref = required(f, "ref");
+                        yield valid(line, DateRange.of(date(f, "start"), date(f, "end")),
+                                r -> new MilestoneRow(line, project, ref, f.get("name"), r));
+                    }
+                    case "ticket" -> {
+                        var project = required(f, "project");
+                        var milestone = required(f, "milestone");
+                        var author = required(f, "author");
+                        yield valid(line, Title.of(f.get("title")).flatMap(t -> Description.of(f.get("description"))
+                                        .map(d -> new TicketDraft(TicketId.newId(), t, d))),
+                                d -> new TicketRow(line, project, milestone, d, author));
+                    }
+                    case "bug" -> {
+                        var project = required(f, "project");
+                        var author = required(f, "author");
+                        var title = Title.of(f.get("title"));
+                        yield valid(line, title.flatMap(t -> Description.of(f.get("description"))),
+                                d -> new BugRow(line, project, BugReportId.newId(), title.orElseThrow(), d, author));
+                    }
+                    default -> new Invalid(line, "unknown row type: " + type);
+                };
+            } catch (IllegalArgumentException e) {
+                return new Invalid(line, e.getMessage());
+            }
+        }
+
+        private static <T> Row valid(long line, DomainResult<T> res, Function<T, Row> row) {
+            return res.isSuccess() ? row.apply(res.orElseThrow()) : new Invalid(line, res.errorOrNull().userMessage());
+        }
+
+        private static String required(Map<String, String> f, String field) {
+            var v = f.get(field);
+            if (v == null || v.isBlank()) {
+                throw new IllegalArgumentException("missing field: " + field);
+            }
+            return v.trim();
+        }
+
+        private static LocalDate date(Map<String, String> f, String field) {
+            var raw = required(f, field);
+            try {
+                return LocalDate.parse(raw);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("invalid date for " + field + ": " + raw + " (expected yyyy-mm-dd)");
+            }
+        }
+
+        private static ProjectRole role(Map<String, String> f) {
+            var raw = required(f, "role");
+            return switch (raw.toUpperCase(Locale.ROOT)) {
+                case "DEVELOPER" -> ProjectRole.DEVELOPER;
+                case "TESTER" -> ProjectRole.TESTER;
+                case "TEAM_LEAD" -> ProjectRole.TEAM_LEAD;
+                case "MANAGER" -> ProjectRole.MANAGER;
+                default -> throw new IllegalArgumentException(
+                        "invalid role: " + raw + " (expected developer, tester, team_lead or manager)");
+            };
+        }
+
+        // ---------- применение ----------
+
+        private void apply(List<Row> parsed, Instant now) {
+            var rest = new ArrayList<Row>(parsed.size());
+            for (var r : parsed) {
+                switch (r) {
+                    case Invalid(var line, var message) -> fail(line, message);
+                    case UserRow(var line, var user) -> check(line, users.insert(user));
+                    default -> rest.add(r);
+                }
+            }
+            var groups = new LinkedHashMap<ProjectId, List<Step>>();
+            for (var r : rest) {
+                if (r instanceof ProjectRow p) {
+                    insertProject(p, now);
+                }
+            }
+            for (var r : rest) {
+                if (!(r instanceof ProjectRow)) {
+                    route(r, groups);
+                }
+            }
+            groups.entrySet().parallelStream().forEach(g -> applyGroup(g.getKey(), g.getValue(), now));
+        }
+
+        private void insertProject(ProjectRow p, Instant now) {
+            var manager = users.findByLogin(p.manager());
+            if (manager.isEmpty()) {
+                fail(p.line(), "user not found: " + p.manager());
+                return;
+            }
+            if (!manager.get().id().equals(actor)) {
+                fail(p.line(), "project manager must be the importing user: " + p.manager());
+                return;
+            }
+            check(p.line(), Project.create(projects.nextId(), p.key().value(), p.name(), p.description(), manager.get().id(), now)
+                    .flatMap(projects::insert));
+        }
+
+        /**
+         * Разрешает ссылки строки и добавляет её шаг в группу проекта; тикет, продолжающий
+         * серию тикетов того же milestone и автора, дописывается в её AddTickets.
+         */
+        private void route(Row r, Map<ProjectId, List<Step>> groups) {
+            var key = switch (r) {
+                case MemberRow m -> m.project();
+                case MilestoneRow m -> m.project();
+                case TicketRow t -> t.project();
+                case BugRow b -> b.project();
+                default -> throw new IllegalStateException("unexpected row: " + r);
+            };
+            var projectId = projects.findIdByKey(key).orElse(null);
+            if (projectId == null) {
+                fail(r.line(), "project not found: " + key);
+                return;
+            }
+            var steps = groups.computeIfAbsent(projectId, id -> new ArrayList<>());
+            switch (r) {
+                case MemberRow m -> user(m.line(), m.login())
+                        .ifPresent(u -> steps.add(new AddMember(m.line(), u, m.role())));
+                case MilestoneRow m -> {
+                    var ref = new MilestoneRef(projectId, m.ref());
+                    var id = MilestoneId.newId();
+                    if (milestones.putIfAbsent(ref, id) != null) {
+                        fail(m.line(), "duplicate milestone ref: " + m.ref());
+                        return;
+                    }
+                    steps.add(new AddMilestone(m.line(), ref, id, m.name(), m.range()));
+                }
+                case TicketRow t -> {
+                    var milestone = milestones.get(new MilestoneRef(projectId, t.milestone()));
+                    if (milestone == null) {
+                        fail(t.line(), "milestone not found: " + t.milestone());
+                        return;
+                    }
+                    user(t.line(), t.author()).ifPresent(author -> {
+                        if (!steps.isEmpty() && steps.getLast() instanceof AddTickets run
+                                && run.milestone().equals(milestone) && run.author().equals(author)) {
+                            run.lines().add(t.line());
+                            run.drafts().add(t.draft());
+                        } else {
+                            steps.add(new AddTickets(new ArrayList<>(List.of(t.line())), milestone, author,
+                                    new ArrayList<>(List.of(t.draft()))));
+                        }
+                    });
+                }
+                case BugRow b -> user(b.line(), b.author())
+                        .ifPresent(u -> steps.add(new AddBug(b.line(), b.id(), b.title(), b.description(), u)));
+                default -> throw new IllegalStateException("unexpected row: " + r);
+            }
+        }
+
+        private Optional<UserId> user(long line, String login) {
+            var u = users.findByLogin(login).map(User::id);
+            if (u.isEmpty()) {
+                fail(line, "user not found: " + login);
+            }
+            return u;
+        }
+
+        /**
+         * Одна новая версия проекта на группу. Роль актора и ошибки шагов определяются заново на каждый вызов
+         * updater'а (при OPTIMISTIC он может повториться) и учитываются по последнему.
+         */
+        private void applyGroup(ProjectId projectId, List<Step> steps, Instant now) {
+            var denied = new AtomicReference<AccessDenied>();
+            var stepErrors = new AtomicReference<List<RowError>>(List.of());
+            var res = projects.update(projectId, p -> {
+                var role = ActorRole.from(p.roleOf(actor));
+                if (!AccessControl.isAllowed(role, Operation.BULK_IMPORT)) {
+                    denied.set(new AccessDenied(actor, projectId, Operation.BULK_IMPORT.name(), role.name()));
+                    return DomainResult.ok(p);
+                }
+                denied.set(null);
+                var errs = new ArrayList<RowError>();
+                var cur = p;
+                for (var s : steps) {
+                    cur = applyStep(cur, s, now, errs);
+                }
+                stepErrors.set(errs);
+                return DomainResult.ok(cur);
+            });
+            var refused = denied.get();
+            if (res.isFailure() || refused != null) {
+                var message = res.isFailure() ? res.errorOrNull().userMessage() : refused.message();
+                for (var s : steps) {
+                    for (var line : lines(s)) {
+                        fail(line, message);
+                    }
+                    if (s instanceof AddMilestone m) {
+                        milestones.remove(m.ref(), m.id());
+                    }
+                }
+                return;
+            }
+            var failedLines = new HashSet<Long>();
+            for (var e : stepErrors.get()) {
+                fail(e.line(), e.message());
+                failedLines.add(e.line());
+            }
+            for (var s : steps) {
+                if (s instanceof AddMilestone m && failedLines.contains(m.line())) {
+                    milestones.remove(m.ref(), m.id());
+                }
+            }
+        }
+
+        private static Project applyStep(Project p, Step step, Instant now, List<RowError> errs) {
+            return switch (step) {
+                case AddMember(var line, var user, var role) -> fold(p, line, switch (role) {
+                    case DEVELOPER -> p.addDeveloper(user, now);
+                    case TESTER -> p.addTester(user, now);
+                    case TEAM_LEAD -> p.assignTeamLead(user, now);
+                    // менеджер задаётся строкой project; строка member с ним (как в выгрузке export) — подтверждение
+                    case MANAGER -> user.equals(p.managerId())
+                            ? DomainResult.ok(p)
+                            : DomainResult.err(new DomainError.InvalidValue("role", "manager is set by the project row"));
+                }, errs);
+                case AddMilestone(var line, var ref, var id, var name, var range) ->
+                        fold(p, line, p.createMilestone(id, name, range, now), errs);
+                case AddBug(var line, var id, var title, var description, var author) ->
+                        fold(p, line, p.createBugReport(id, title, description, author, now), errs);
+                case AddTickets(var lines, var milestone, var author, var drafts) -> {
+                    var res = p.createTickets(milestone, drafts, author, now);
+                    if (res.isFailure()) {
+                        var message = res.errorOrNull().userMessage();
+                        for (var line : lines) {
+                            errs.add(new RowError(line, message));
+                        }
+                        yield p;
+                    }
+                    var outcome = res.orElseThrow();
+                    for (int i = 0; i < lines.size(); i++) {
+                        var r = outcome.results().get(i);
+                        if (r.isFailure()) {
+                            errs.add(new RowError(lines.get(i), r.errorOrNull().userMessage()));
+                        }
+                    }
+                    yield outcome.project();
+                }
+            };
+        }
+
+        private static Project fold(Project p, long line, DomainResult<Project> res, List<RowError> errs) {
+            if (res.isSuccess()) {
+                return res.orElseThrow();
+            }
+            errs.add(new RowError(line, res.errorOrNull().userMessage()));
+            return p;
+        }
+
+        private static List<Long> lines(Step s) {
+            return switch (s) {
+                case AddMember m -> List.of(m.line());
+                case AddMilestone m -> List.of(m.line());
+                case AddTickets t -> t.lines();
+                case AddBug b -> List.of(b.line());
+            };
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.lab.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Потоковое чтение файла импорта: next(max) отдаёт очередные записи сырым текстом с номером первой строки,
+ * не держа в памяти больше одной пачки. Разбор записи в поля (fields) не зависит от соседних записей,
+ * поэтому BulkImport выполняет его параллельно.
+ * CSV — заголовок с именами полей, кавычки по RFC 4180 (в том числе переводы строк внутри кавычек);
+ * JSONL — по плоскому объекту на строку, значения — строки, числа, true/false или null (= поля нет).
+ */
+final class ImportRecords {
+
+    record Raw(long line, String text) { }
+
+    private final BufferedReader in;
+    private final BulkImport.Format format;
+    private final List<String> header;
+    private long lineNo;
+
+    ImportRecords(BufferedReader in, BulkImport.Format format) throws IOException {
+        this.in = in;
+        this.format = format;
+        this.header = format == BulkImport.Format.CSV ? readHeader() : List.of();
+    }
+
+    /**
+     * До max записей; пустой список — конец файла. Пустые строки пропускаются.
+     */
+    List<Raw> next(int max) throws IOException {
+        var out = new ArrayList<Raw>(Math.min(max, 1024));
+        String line;
+        while (out.size() < max && (line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            long start = lineNo;
+            if (format == BulkImport.Format.CSV && quotes(line) % 2 != 0) {
+                var sb = new StringBuilder(line);
+                int open = quotes(line);
+                String more;
+                while (open % 2 != 0 && (more = in.readLine()) != null) {
+                    lineNo++;
+                    sb.append('\n').append(more);
+                    open += quotes(more);
+                }
+                line = sb.toString();
+            }
+            out.add(new Raw(start, line));
+        }
+        return out;
+    }
+
+    /**
+     * Поля записи; пустые значения не попадают в результат. Битая запись — IllegalArgumentException.
+     */
+    Map<String, String> fields(Raw raw) {
+        return switch (format) {
+            case CSV -> csvFields(raw.text());
+            case JSONL -> new JsonObject(raw.text()).parse();
+        };
+    }
+
+    private List<String> readHeader() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+            var names = new ArrayList<String>();
+            for (var n : splitCsv(line)) {
+                names.add(n.trim().toLowerCase(Locale.ROOT));
+            }
+            if (!names.contains("type")) {
+                throw new IllegalArgumentException("CSV header must contain a 'type' column");
+            }
+            return List.copyOf(names);
+        }
+        throw new IllegalArgumentException("CSV file has no header");
+    }
+
+    private Map<String, String> csvFields(String text) {
+        var values = splitCsv(text);
+        if (values.size() > header.size()) {
+            throw new IllegalArgumentException("expected at most " + header.size() + " columns, got " + values.size());
+        }
+        var out = new HashMap<String, String>(values.size() * 2);
+        for (int i = 0; i < values.size(); i++) {
+            var v = values.get(i);
+            if (!v.isEmpty()) {
+                out.put(header.get(i), v);
+            }
+        }
+        return out;
+    }
+
+    private static List<String> splitCsv(String s) {
+        var out = new ArrayList<String>();
+        var sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    sb.append(c);
+                } else if (i + 1 < s.length() && s.charAt(i + 1) == '"') {
+                    sb.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        out.add(sb.toString());
+        return out;
+    }
+
+    private static int quotes(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Разбор одного плоского JSON-объекта; вложенные объекты и массивы не поддерживаются.
+     */
+    private static final class JsonObject {
+
+        private final String s;
+        private int i;
+
+        JsonObject(String s) {
+            this.s = s;
+        }
+
+        Map<String, String> parse() {
+            var out = new HashMap<String, String>();
+            expect('{');
+            if (peek() == '}') {
+                i++;
+            } else {
+                while (true) {
+                    var name = string().toLowerCase(Locale.ROOT);
+                    expect(':');
+                    var value = value();
+                    if (value != null && !value.isEmpty()) {
+                        out.put(name, value);
+                    }
+                    var c = peek();
+                    i++;
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw error("expected ',' or '}'");
+                    }
+                }
+            }
+            if (peek() != 0) {
+                throw error("unexpected trailing content");
+            }
+            return out;
+        }
+
+        private String value() {
+            var c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("nested values are not supported");
+            }
+            int start = i;
+            while (i < s.length() && ",}".indexOf(s.charAt(i)) < 0 && !Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            var literal = s.substring(start, i);
+            if (literal.isEmpty()) {
+                throw error("value expected");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String string() {
+            expect('"');
+            var sb = new StringBuilder();
+            while (i < s.length()) {
+                char c = s.charAt(i++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (i >= s.length()) {
+                    break;
+                }
+                char e = s.charAt(i++);
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (i + 4 > s.length()) {
+                            throw error("bad \\u escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(s, i, i + 4, 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("bad \\u escape");
+                        }
+                        i += 4;
+                    }
+                    default -> throw error("bad escape \\" + e);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            i++;
+        }
+
+        /**
+         * Следующий значимый символ (пробелы пропускаются) или 0 в конце строки.
+         */
+        private char peek() {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            return i < s.length() ? s.charAt(i) : 0;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("malformed JSON at column " + (i + 1) + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.lab.app;
+
+import java.util.Objects;
+
+/**
+ * Входные данные тикета для пакетного создания (createTickets); description может быть null.
+ */
+public record NewTicket(String title, String description) {
+
+    public NewTicket {
+        Objects.requireNonNull(title, "title");
+    }
+}
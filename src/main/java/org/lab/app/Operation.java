@@ -25,5 +25,9 @@ public enum Operation {
     CREATE_BUG_REPORT,
     FIX_BUG_REPORT,
     TEST_BUG_REPORT,
-    CLOSE_BUG_REPORT
+    CLOSE_BUG_REPORT,
+
+    // Bulk import of members/milestones/tickets/bugs into a project, export of a project's data
+    BULK_IMPORT,
+    BULK_EXPORT
 }
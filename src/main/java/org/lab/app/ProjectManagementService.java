@@ -3,15 +3,22 @@ package org.lab.app;
 import org.lab.domain.*;
 import org.lab.domain.enums.BugStatus;
 import org.lab.infra.BugReportRepository;
+import org.lab.infra.ColdStore;
 import org.lab.infra.ProjectRepository;
 import org.lab.infra.TicketRepository;
 import org.lab.infra.UserRepository;
 
+import java.io.UncheckedIOException;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.concurrent.StructuredTaskScope;
@@ -22,24 +29,35 @@ public final class ProjectManagementService {
     private final ProjectRepository projects;
     private final TicketRepository tickets;
     private final BugReportRepository bugs;
+    private final ColdStore cold;
     private final Clock clock;
 
     public ProjectManagementService(UserRepository users,
                                     ProjectRepository projects,
                                     TicketRepository tickets,
-                                    BugReportRepository bugs) {
-        this(users, projects, tickets, bugs, Clock.systemUTC());
+                                    BugReportRepository bugs,
+                                    ColdStore cold) {
+        this(users, projects, tickets, bugs, cold, Clock.systemUTC());
     }
 
+    /**
+     * cold — куда уходят тикеты закрытых milestones и закрытые баги; поиск по id проходит в него,
+     * если сущности уже нет в агрегате. Это должно быть то же хранилище, что передано EntityProjections.follow:
+     * из него проекции берут вынесенную версию сущности, удалённой из агрегата.
+     * tickets/bugs сервис только читает: это проекции ProjectRepository (EntityProjections), их поддерживает
+     * лента изменений, а команды меняют один агрегат.
+     */
     public ProjectManagementService(UserRepository users,
                                     ProjectRepository projects,
                                     TicketRepository tickets,
                                     BugReportRepository bugs,
+                                    ColdStore cold,
                                     Clock clock) {
         this.users = Objects.requireNonNull(users, "users");
         this.projects = Objects.requireNonNull(projects, "projects");
         this.tickets = Objects.requireNonNull(tickets, "tickets");
         this.bugs = Objects.requireNonNull(bugs, "bugs");
+        this.cold = Objects.requireNonNull(cold, "cold");
         this.clock = Objects.requireNonNull(clock, "clock");
     }
 
@@ -247,21 +265,17 @@ public final class ProjectManagementService {
     }
 
     public Result<ProjectView> addDeveloper(UserId actorId, ProjectId projectId, UserId developerId) {
-        return withProjectAndPermission(actorId, projectId, Operation.ADD_DEVELOPER)
-                .flatMap(ctx -> ensureUserExists(developerId)
-                        .flatMap(ignored ->
-                                fromDomain(projects.update(projectId, p -> p.addDeveloper(developerId, now())))
-                                        .map(updated -> toProjectView(updated, actorId))
-                        ));
+        Objects.requireNonNull(developerId, "developerId");
+        return command(actorId, projectId, Operation.ADD_DEVELOPER,
+                p -> ifUserExists(developerId, () -> p.addDeveloper(developerId, now())),
+                updated -> Result.ok(toProjectView(updated, actorId)));
     }
 
     public Result<ProjectView> addTester(UserId actorId, ProjectId projectId, UserId testerId) {
-        return withProjectAndPermission(actorId, projectId, Operation.ADD_TESTER)
-                .flatMap(ctx -> ensureUserExists(testerId)
-                        .flatMap(ignored ->
-                                fromDomain(projects.update(projectId, p -> p.addTester(testerId, now())))
-                                        .map(updated -> toProjectView(updated, actorId))
-                        ));
+        Objects.requireNonNull(testerId, "testerId");
+        return command(actorId, projectId, Operation.ADD_TESTER,
+                p -> ifUserExists(testerId, () -> p.addTester(testerId, now())),
+                updated -> Result.ok(toProjectView(updated, actorId)));
     }
 
     public Result<MilestoneView> createMilestone(UserId actorId,
@@ -272,45 +286,32 @@ public final class ProjectManagementService {
         Objects.requireNonNull(start, "start");
         Objects.requireNonNull(end, "end");
 
-        return withProjectAndPermission(actorId, projectId, Operation.CREATE_MILESTONE)
-                .flatMap(ctx -> fromDomain(DateRange.of(start, end))
-                        .flatMap(range -> {
-                            var mid = MilestoneId.newId();
-                            return fromDomain(projects.update(projectId, p -> p.createMilestone(mid, milestoneName, range, now())))
-                                    .flatMap(updated -> {
-                                        var ms = updated.milestones().get(mid);
-                                        if (ms == null) {
-                                            return Result.fail(new FailureCause.Domain(
-                                                    new DomainError.InvariantViolation("milestone.created", "milestone not found after creation")
-                                            ));
-                                        }
-                                        return Result.ok(toMilestoneView(ms));
-                                    });
-                        }));
-    }
-
-    public Result<MilestoneView> activateMilestone(UserId actorId, ProjectId projectId, MilestoneId milestoneId) {
-        return withProjectAndPermission(actorId, projectId, Operation.ACTIVATE_MILESTONE)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.activateMilestone(milestoneId, now()))))
-                .flatMap(updated -> {
-                    var ms = updated.milestones().get(milestoneId);
+        var mid = MilestoneId.newId();
+        return command(actorId, projectId, Operation.CREATE_MILESTONE,
+                p -> DateRange.of(start, end).flatMap(range -> p.createMilestone(mid, milestoneName, range, now())),
+                updated -> {
+                    var ms = updated.milestones().get(mid);
                     if (ms == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Milestone", milestoneId.toString())));
+                        return Result.fail(new FailureCause.Domain(
+                                new DomainError.InvariantViolation("milestone.created", "milestone not found after creation")
+                        ));
                     }
                     return Result.ok(toMilestoneView(ms));
                 });
     }
 
+    public Result<MilestoneView> activateMilestone(UserId actorId, ProjectId projectId, MilestoneId milestoneId) {
+        return command(actorId, projectId, Operation.ACTIVATE_MILESTONE,
+                p -> p.activateMilestone(milestoneId, now()),
+                updated -> milestoneView(updated, milestoneId));
+    }
+
     public Result<MilestoneView> closeMilestone(UserId actorId, ProjectId projectId, MilestoneId milestoneId) {
-        return withProjectAndPermission(actorId, projectId, Operation.CLOSE_MILESTONE)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.closeMilestone(milestoneId, now()))))
-                .flatMap(updated -> {
-                    var ms = updated.milestones().get(milestoneId);
-                    if (ms == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Milestone", milestoneId.toString())));
-                    }
-                    return Result.ok(toMilestoneView(ms));
-                });
+        return command(actorId, projectId, Operation.CLOSE_MILESTONE,
+                p -> p.closeMilestone(milestoneId, now()),
+                Result::ok)
+                .flatMap(closed -> archiveMilestone(closed, milestoneId))
+                .flatMap(updated -> milestoneView(updated, milestoneId));
     }
 
     public Result<TicketView> createTicket(UserId actorId,
@@ -318,108 +319,97 @@ public final class ProjectManagementService {
                                            MilestoneId milestoneId,
                                            String title,
                                            String description) {
-        return withProjectAndPermission(actorId, projectId, Operation.CREATE_TICKET)
-                .flatMap(ctx -> fromDomain(Title.of(title))
-                        .flatMap(t -> fromDomain(Description.of(description))
-                                .flatMap(d -> {
-                                    var tid = tickets.nextId();
-                                    return fromDomain(projects.update(projectId, p -> p.createTicket(tid, milestoneId, t, d, actorId, now())))
-                                            .flatMap(updated -> {
-                                                var ticket = updated.tickets().get(tid);
-                                                if (ticket == null) {
-                                                    return Result.fail(new FailureCause.Domain(
-                                                            new DomainError.InvariantViolation("ticket.created", "ticket not found after creation")
-                                                    ));
-                                                }
-                                                var up = fromDomain(tickets.upsert(ticket));
-                                                if (up.isFailure()) {
-                                                    return Result.fail(up.failureOrNull());
-                                                }
-                                                return Result.ok(toTicketView(ticket));
-                                            });
-                                })));
+        var tid = tickets.nextId();
+        return command(actorId, projectId, Operation.CREATE_TICKET,
+                p -> Title.of(title).flatMap(t -> Description.of(description)
+                        .flatMap(d -> p.createTicket(tid, milestoneId, t, d, actorId, now()))),
+                updated -> {
+                    var ticket = updated.tickets().get(tid);
+                    if (ticket == null) {
+                        return Result.fail(new FailureCause.Domain(
+                                new DomainError.InvariantViolation("ticket.created", "ticket not found after creation")
+                        ));
+                    }
+                    return Result.ok(toTicketView(ticket));
+                });
+    }
+
+    /**
+     * Пакетное создание тикетов (импорт спринта): доступ проверяется один раз, все тикеты попадают в проект
+     * одним projects.update — одна новая версия, одна запись в журнал и в ленту.
+     * Внешний Result — отказ всему пакету (доступ, milestone, автор), внутренние — по элементам в порядке входа.
+     */
+    public Result<List<Result<TicketView>>> createTickets(UserId actorId,
+                                                          ProjectId projectId,
+                                                          MilestoneId milestoneId,
+                                                          List<NewTicket> items) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        Objects.requireNonNull(items, "items");
+
+        // title/description проверяются до захвата проекта; null в invalid — элемент ушёл в drafts
+        var drafts = new ArrayList<TicketDraft>(items.size());
+        var invalid = new ArrayList<DomainError>(items.size());
+        for (var item : items) {
+            var draft = Title.of(item.title())
+                    .flatMap(t -> Description.of(item.description()).map(d -> new TicketDraft(tickets.nextId(), t, d)));
+            invalid.add(draft.errorOrNull());
+            draft.toOptional().ifPresent(drafts::add);
+        }
+
+        var outcome = new AtomicReference<BatchOutcome<Ticket>>();
+        return command(actorId, projectId, Operation.CREATE_TICKET,
+                p -> p.createTickets(milestoneId, drafts, actorId, now()).map(b -> {
+                    outcome.set(b);
+                    return b.project();
+                }),
+                updated -> {
+                    var applied = outcome.get().results().iterator();
+                    var out = new ArrayList<Result<TicketView>>(items.size());
+                    for (var err : invalid) {
+                        out.add(err != null
+                                ? Result.fail(new FailureCause.Domain(err))
+                                : fromDomain(applied.next()).map(this::toTicketView));
+                    }
+                    return Result.ok(List.copyOf(out));
+                });
     }
 
     public Result<TicketView> assignDeveloperToTicket(UserId actorId,
                                                       ProjectId projectId,
                                                       TicketId ticketId,
                                                       UserId developerId) {
-        return withProjectAndPermission(actorId, projectId, Operation.ASSIGN_TICKET_DEVELOPER)
-                .flatMap(ctx -> ensureUserExists(developerId)
-                        .flatMap(ignored ->
-                                fromDomain(projects.update(projectId, p -> p.assignDeveloperToTicket(ticketId, developerId, now())))
-                                        .flatMap(updated -> {
-                                            var ticket = updated.tickets().get(ticketId);
-                                            if (ticket == null) {
-                                                return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
-                                            }
-                                            var up = fromDomain(tickets.upsert(ticket));
-                                            if (up.isFailure()) {
-                                                return Result.fail(up.failureOrNull());
-                                            }
-                                            return Result.ok(toTicketView(ticket));
-                                        })
-                        ));
+        Objects.requireNonNull(developerId, "developerId");
+        return command(actorId, projectId, Operation.ASSIGN_TICKET_DEVELOPER,
+                p -> ifUserExists(developerId, () -> onLiveTicket(p, ticketId, q -> q.assignDeveloperToTicket(ticketId, developerId, now()))),
+                updated -> ticketView(updated, ticketId));
     }
 
     public Result<TicketCompletionView> checkTicketCompletion(UserId actorId, ProjectId projectId, TicketId ticketId) {
-        return withProjectAndPermission(actorId, projectId, Operation.CHECK_TICKET_COMPLETION)
-                .flatMap(ctx -> getProject(projectId))
-                .flatMap(p -> {
-                    var ticket = p.tickets().get(ticketId);
-                    if (ticket == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
-                    }
-                    return Result.ok(new TicketCompletionView(ticket.id(), ticket.status(), ticket.isDone()));
-                });
+        return query(actorId, projectId, Operation.CHECK_TICKET_COMPLETION, p -> {
+            var ticket = findTicket(p, ticketId);
+            if (ticket == null) {
+                return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
+            }
+            return Result.ok(new TicketCompletionView(ticket.id(), ticket.status(), ticket.isDone()));
+        });
     }
 
     public Result<TicketView> acceptTicket(UserId actorId, ProjectId projectId, TicketId ticketId) {
-        return withProjectAndPermission(actorId, projectId, Operation.TICKET_ACCEPT)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.applyTicketAction(ticketId, new TicketAction.Accept(actorId), now()))))
-                .flatMap(updated -> {
-                    var ticket = updated.tickets().get(ticketId);
-                    if (ticket == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
-                    }
-                    var up = fromDomain(tickets.upsert(ticket));
-                    if (up.isFailure()) {
-                        return Result.fail(up.failureOrNull());
-                    }
-                    return Result.ok(toTicketView(ticket));
-                });
+        return command(actorId, projectId, Operation.TICKET_ACCEPT,
+                p -> onLiveTicket(p, ticketId, q -> q.applyTicketAction(ticketId, new TicketAction.Accept(actorId), now())),
+                updated -> ticketView(updated, ticketId));
     }
 
     public Result<TicketView> startTicket(UserId actorId, ProjectId projectId, TicketId ticketId) {
-        return withProjectAndPermission(actorId, projectId, Operation.TICKET_START)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.applyTicketAction(ticketId, new TicketAction.Start(actorId), now()))))
-                .flatMap(updated -> {
-                    var ticket = updated.tickets().get(ticketId);
-                    if (ticket == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
-                    }
-                    var up = fromDomain(tickets.upsert(ticket));
-                    if (up.isFailure()) {
-                        return Result.fail(up.failureOrNull());
-                    }
-                    return Result.ok(toTicketView(ticket));
-                });
+        return command(actorId, projectId, Operation.TICKET_START,
+                p -> onLiveTicket(p, ticketId, q -> q.applyTicketAction(ticketId, new TicketAction.Start(actorId), now())),
+                updated -> ticketView(updated, ticketId));
     }
 
     public Result<TicketView> completeTicket(UserId actorId, ProjectId projectId, TicketId ticketId) {
-        return withProjectAndPermission(actorId, projectId, Operation.TICKET_COMPLETE)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.applyTicketAction(ticketId, new TicketAction.Complete(actorId), now()))))
-                .flatMap(updated -> {
-                    var ticket = updated.tickets().get(ticketId);
-                    if (ticket == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
-                    }
-                    var up = fromDomain(tickets.upsert(ticket));
-                    if (up.isFailure()) {
-                        return Result.fail(up.failureOrNull());
-                    }
-                    return Result.ok(toTicketView(ticket));
-                });
+        return command(actorId, projectId, Operation.TICKET_COMPLETE,
+                p -> onLiveTicket(p, ticketId, q -> q.applyTicketAction(ticketId, new TicketAction.Complete(actorId), now())),
+                updated -> ticketView(updated, ticketId));
     }
 
 
@@ -427,106 +417,205 @@ public final class ProjectManagementService {
                                                  ProjectId projectId,
                                                  String title,
                                                  String description) {
-        return withProjectAndPermission(actorId, projectId, Operation.CREATE_BUG_REPORT)
-                .flatMap(ctx -> fromDomain(Title.of(title))
-                        .flatMap(t -> fromDomain(Description.of(description))
-                                .flatMap(d -> {
-                                    var bid = bugs.nextId();
-                                    return fromDomain(projects.update(projectId, p -> p.createBugReport(bid, t, d, actorId, now())))
-                                            .flatMap(updated -> {
-                                                var bug = updated.bugReports().get(bid);
-                                                if (bug == null) {
-                                                    return Result.fail(new FailureCause.Domain(
-                                                            new DomainError.InvariantViolation("bug.created", "bug report not found after creation")
-                                                    ));
-                                                }
-                                                var up = fromDomain(bugs.upsert(bug));
-                                                if (up.isFailure()) {
-                                                    return Result.fail(up.failureOrNull());
-                                                }
-                                                return Result.ok(toBugView(bug));
-                                            });
-                                })));
-    }
-
-    public Result<BugReportView> fixBugReport(UserId actorId, ProjectId projectId, BugReportId bugId) {
-        return withProjectAndPermission(actorId, projectId, Operation.FIX_BUG_REPORT)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.applyBugReportAction(bugId, new BugReportAction.Fix(actorId), now()))))
-                .flatMap(updated -> {
-                    var bug = updated.bugReports().get(bugId);
+        var bid = bugs.nextId();
+        return command(actorId, projectId, Operation.CREATE_BUG_REPORT,
+                p -> Title.of(title).flatMap(t -> Description.of(description)
+                        .flatMap(d -> p.createBugReport(bid, t, d, actorId, now()))),
+                updated -> {
+                    var bug = updated.bugReports().get(bid);
                     if (bug == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("BugReport", bugId.toString())));
-                    }
-                    var up = fromDomain(bugs.upsert(bug));
-                    if (up.isFailure()) {
-                        return Result.fail(up.failureOrNull());
+                        return Result.fail(new FailureCause.Domain(
+                                new DomainError.InvariantViolation("bug.created", "bug report not found after creation")
+                        ));
                     }
                     return Result.ok(toBugView(bug));
                 });
     }
 
+    public Result<BugReportView> fixBugReport(UserId actorId, ProjectId projectId, BugReportId bugId) {
+        return command(actorId, projectId, Operation.FIX_BUG_REPORT,
+                p -> onLiveBug(p, bugId, q -> q.applyBugReportAction(bugId, new BugReportAction.Fix(actorId), now())),
+                updated -> bugView(updated, bugId));
+    }
+
     public Result<BugReportView> testBugReport(UserId actorId, ProjectId projectId, BugReportId bugId) {
-        return withProjectAndPermission(actorId, projectId, Operation.TEST_BUG_REPORT)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.applyBugReportAction(bugId, new BugReportAction.Test(actorId), now()))))
-                .flatMap(updated -> {
-                    var bug = updated.bugReports().get(bugId);
-                    if (bug == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("BugReport", bugId.toString())));
-                    }
-                    var up = fromDomain(bugs.upsert(bug));
-                    if (up.isFailure()) {
-                        return Result.fail(up.failureOrNull());
-                    }
-                    return Result.ok(toBugView(bug));
-                });
+        return command(actorId, projectId, Operation.TEST_BUG_REPORT,
+                p -> onLiveBug(p, bugId, q -> q.applyBugReportAction(bugId, new BugReportAction.Test(actorId), now())),
+                updated -> bugView(updated, bugId));
     }
 
     public Result<BugReportView> closeBugReport(UserId actorId, ProjectId projectId, BugReportId bugId) {
-        return withProjectAndPermission(actorId, projectId, Operation.CLOSE_BUG_REPORT)
-                .flatMap(ctx -> fromDomain(projects.update(projectId, p -> p.applyBugReportAction(bugId, new BugReportAction.Close(actorId), now()))))
-                .flatMap(updated -> {
-                    var bug = updated.bugReports().get(bugId);
-                    if (bug == null) {
-                        return Result.fail(new FailureCause.Domain(new DomainError.NotFound("BugReport", bugId.toString())));
-                    }
-                    var up = fromDomain(bugs.upsert(bug));
-                    if (up.isFailure()) {
-                        return Result.fail(up.failureOrNull());
-                    }
-                    return Result.ok(toBugView(bug));
-                });
+        return command(actorId, projectId, Operation.CLOSE_BUG_REPORT,
+                p -> onLiveBug(p, bugId, q -> q.applyBugReportAction(bugId, new BugReportAction.Close(actorId), now())),
+                Result::ok)
+                .flatMap(closed -> {
+                    var bug = closed.bugReports().get(bugId);
+                    return bug == null ? Result.ok(closed) : archiveBugs(closed.id(), List.of(bug));
+                })
+                .flatMap(updated -> bugView(updated, bugId));
     }
 
-    // ---------------- Internal helpers ----------------
+    // ---------------- Batch transitions ----------------
 
-    private Result<Unit> ensureUserExists(UserId userId) {
-        Objects.requireNonNull(userId, "userId");
-        return users.findById(userId)
-                .<Result<Unit>>map(u -> Result.ok(Unit.INSTANCE))
-                .orElseGet(() -> Result.fail(new FailureCause.Domain(new DomainError.NotFound("User", userId.toString()))));
+    /**
+     * Пакетные переходы: одна проверка доступа и один projects.update на пакет (одна версия проекта,
+     * одна запись в журнал и в ленту, одно обновление проекций). Внешний Result — отказ всему пакету,
+     * внутренние — результат по каждому id в порядке входа; неуспешные элементы проект не меняют.
+     */
+    public Result<List<Result<TicketView>>> assignDeveloperToTickets(UserId actorId,
+                                                                     ProjectId projectId,
+                                                                     List<TicketId> ticketIds,
+                                                                     UserId developerId) {
+        Objects.requireNonNull(developerId, "developerId");
+        return ticketBatch(actorId, projectId, Operation.ASSIGN_TICKET_DEVELOPER, ticketIds,
+                p -> users.findById(developerId).isEmpty()
+                        ? DomainResult.err(new DomainError.NotFound("User", developerId.toString()))
+                        : DomainResult.ok(p.assignDeveloperToTickets(ticketIds, developerId, now())));
     }
 
-    private Result<Project> getProject(ProjectId projectId) {
-        Objects.requireNonNull(projectId, "projectId");
-        return projects.findById(projectId)
-                .<Result<Project>>map(Result::ok)
-                .orElseGet(() -> Result.fail(new FailureCause.Domain(new DomainError.NotFound("Project", projectId.toString()))));
+    public Result<List<Result<TicketView>>> acceptTickets(UserId actorId, ProjectId projectId, List<TicketId> ticketIds) {
+        return ticketBatch(actorId, projectId, Operation.TICKET_ACCEPT, ticketIds,
+                p -> DomainResult.ok(p.applyTicketActions(ticketIds, new TicketAction.Accept(actorId), now())));
+    }
+
+    public Result<List<Result<TicketView>>> startTickets(UserId actorId, ProjectId projectId, List<TicketId> ticketIds) {
+        return ticketBatch(actorId, projectId, Operation.TICKET_START, ticketIds,
+                p -> DomainResult.ok(p.applyTicketActions(ticketIds, new TicketAction.Start(actorId), now())));
     }
 
-    private record ProjectContext(Project project, ActorRole role) { }
+    public Result<List<Result<TicketView>>> completeTickets(UserId actorId, ProjectId projectId, List<TicketId> ticketIds) {
+        return ticketBatch(actorId, projectId, Operation.TICKET_COMPLETE, ticketIds,
+                p -> DomainResult.ok(p.applyTicketActions(ticketIds, new TicketAction.Complete(actorId), now())));
+    }
 
-    private Result<ProjectContext> getContext(UserId actorId, ProjectId projectId) {
+    public Result<List<Result<BugReportView>>> fixBugReports(UserId actorId, ProjectId projectId, List<BugReportId> bugIds) {
+        return bugBatch(actorId, projectId, Operation.FIX_BUG_REPORT, bugIds,
+                p -> DomainResult.ok(p.applyBugReportActions(bugIds, new BugReportAction.Fix(actorId), now())));
+    }
+
+    public Result<List<Result<BugReportView>>> testBugReports(UserId actorId, ProjectId projectId, List<BugReportId> bugIds) {
+        return bugBatch(actorId, projectId, Operation.TEST_BUG_REPORT, bugIds,
+                p -> DomainResult.ok(p.applyBugReportActions(bugIds, new BugReportAction.Test(actorId), now())));
+    }
+
+    /**
+     * Закрытые баги пакета выносятся в cold одной записью и убираются из агрегата одной следующей версией.
+     */
+    public Result<List<Result<BugReportView>>> closeBugReports(UserId actorId, ProjectId projectId, List<BugReportId> bugIds) {
+        // updater может пройти несколько раз (OPTIMISTIC): остаётся список закрытых опубликованным проходом
+        var closed = new AtomicReference<List<BugReport>>(List.of());
+        var res = bugBatch(actorId, projectId, Operation.CLOSE_BUG_REPORT, bugIds, p -> {
+            var batch = p.applyBugReportActions(bugIds, new BugReportAction.Close(actorId), now());
+            closed.set(batch.results().stream()
+                    .filter(DomainResult::isSuccess)
+                    .map(DomainResult::orElseThrow)
+                    .toList());
+            return DomainResult.ok(batch);
+        });
+        if (res.isFailure() || closed.get().isEmpty()) {
+            return res;
+        }
+        return archiveBugs(projectId, closed.get()).flatMap(archived -> res);
+    }
+
+    private Result<List<Result<TicketView>>> ticketBatch(UserId actorId,
+                                                         ProjectId projectId,
+                                                         Operation op,
+                                                         List<TicketId> ticketIds,
+                                                         Function<Project, DomainResult<BatchOutcome<Ticket>>> transition) {
+        Objects.requireNonNull(ticketIds, "ticketIds");
+        var outcome = new AtomicReference<BatchOutcome<Ticket>>();
+        return command(actorId, projectId, op,
+                p -> transition.apply(p).map(b -> {
+                    outcome.set(b);
+                    return b.project();
+                }),
+                updated -> {
+                    var results = outcome.get().results();
+                    var out = new ArrayList<Result<TicketView>>(results.size());
+                    for (int i = 0; i < results.size(); i++) {
+                        var tid = ticketIds.get(i);
+                        var res = results.get(i);
+                        if (res.errorOrNull() instanceof DomainError.NotFound && findTicket(updated, tid) != null) {
+                            res = DomainResult.err(archivedTicket());
+                        }
+                        out.add(fromDomain(res).map(this::toTicketView));
+                    }
+                    return Result.ok(List.copyOf(out));
+                });
+    }
+
+    private Result<List<Result<BugReportView>>> bugBatch(UserId actorId,
+                                                         ProjectId projectId,
+                                                         Operation op,
+                                                         List<BugReportId> bugIds,
+                                                         Function<Project, DomainResult<BatchOutcome<BugReport>>> transition) {
+        Objects.requireNonNull(bugIds, "bugIds");
+        var outcome = new AtomicReference<BatchOutcome<BugReport>>();
+        return command(actorId, projectId, op,
+                p -> transition.apply(p).map(b -> {
+                    outcome.set(b);
+                    return b.project();
+                }),
+                updated -> {
+                    var results = outcome.get().results();
+                    var out = new ArrayList<Result<BugReportView>>(results.size());
+                    for (int i = 0; i < results.size(); i++) {
+                        var bid = bugIds.get(i);
+                        var res = results.get(i);
+                        if (res.errorOrNull() instanceof DomainError.NotFound && findBug(updated, bid) != null) {
+                            res = DomainResult.err(archivedBug());
+                        }
+                        out.add(fromDomain(res).map(this::toBugView));
+                    }
+                    return Result.ok(List.copyOf(out));
+                });
+    }
+
+    // ---------------- Internal helpers ----------------
+
+    /**
+     * Команда над проектом за один проход: проект читается один раз внутри projects.update, и под тем же
+     * замком (или в той же CAS-попытке) проверяются роль актора и выполняется переход. Роль не может
+     * смениться между проверкой и записью; при отказе updater возвращает проект без изменений (ничего не публикуется).
+     * view строит результат из опубликованной версии, без повторных обращений к репозиториям.
+     */
+    private <T> Result<T> command(UserId actorId,
+                                  ProjectId projectId,
+                                  Operation op,
+                                  Function<Project, DomainResult<Project>> transition,
+                                  Function<Project, Result<T>> view) {
         Objects.requireNonNull(actorId, "actorId");
         Objects.requireNonNull(projectId, "projectId");
+        Objects.requireNonNull(op, "op");
 
-        return getProject(projectId).map(p -> {
-            var roleOpt = p.roleOf(actorId);
-            var ar = ActorRole.from(roleOpt);
-            return new ProjectContext(p, ar);
+        var userCheck = ensureUserExists(actorId);
+        if (userCheck.isFailure()) {
+            return Result.fail(userCheck.failureOrNull());
+        }
+
+        // updater может выполниться повторно (OPTIMISTIC) или в чужом потоке (COMBINING): отказ пишется на каждом проходе
+        var denied = new AtomicReference<AccessDenied>();
+        var res = projects.update(projectId, p -> {
+            var role = ActorRole.from(p.roleOf(actorId));
+            if (!AccessControl.isAllowed(role, op)) {
+                denied.set(new AccessDenied(actorId, projectId, op.name(), role.name()));
+                return DomainResult.ok(p);
+            }
+            denied.set(null);
+            return transition.apply(p);
         });
+        var refused = denied.get();
+        if (res.isSuccess() && refused != null) {
+            return Result.fail(refused);
+        }
+        return fromDomain(res).flatMap(view);
     }
 
-    private Result<ProjectContext> withProjectAndPermission(UserId actorId, ProjectId projectId, Operation op) {
+    /**
+     * Чтение с проверкой доступа по одному прочитанному снимку проекта.
+     */
+    private <T> Result<T> query(UserId actorId, ProjectId projectId, Operation op, Function<Project, Result<T>> read) {
         Objects.requireNonNull(actorId, "actorId");
         Objects.requireNonNull(projectId, "projectId");
         Objects.requireNonNull(op, "op");
@@ -536,17 +625,157 @@ public final class ProjectManagementService {
             return Result.fail(userCheck.failureOrNull());
         }
 
-        return getContext(actorId, projectId).flatMap(ctx -> {
-            if (!AccessControl.isAllowed(ctx.role(), op)) {
-                return Result.fail(new AccessDenied(actorId, projectId, op.name(), ctx.role().name()));
-            }
-            if (ctx.role() instanceof ActorRole.Outsider) {
-                return Result.fail(new AccessDenied(actorId, projectId, op.name(), ctx.role().name()));
+        return getProject(projectId).flatMap(p -> {
+            var role = ActorRole.from(p.roleOf(actorId));
+            if (!AccessControl.isAllowed(role, op)) {
+                return Result.fail(new AccessDenied(actorId, projectId, op.name(), role.name()));
             }
-            return Result.ok(ctx);
+            return read.apply(p);
         });
     }
 
+    private DomainResult<Project> ifUserExists(UserId userId, Supplier<DomainResult<Project>> op) {
+        if (users.findById(userId).isEmpty()) {
+            return DomainResult.err(new DomainError.NotFound("User", userId.toString()));
+        }
+        return op.get();
+    }
+
+    private Result<MilestoneView> milestoneView(Project p, MilestoneId milestoneId) {
+        var ms = p.milestones().get(milestoneId);
+        if (ms == null) {
+            return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Milestone", milestoneId.toString())));
+        }
+        return Result.ok(toMilestoneView(ms));
+    }
+
+    private Result<TicketView> ticketView(Project p, TicketId ticketId) {
+        var ticket = p.tickets().get(ticketId);
+        if (ticket == null) {
+            return Result.fail(new FailureCause.Domain(new DomainError.NotFound("Ticket", ticketId.toString())));
+        }
+        return Result.ok(toTicketView(ticket));
+    }
+
+    /**
+     * Закрытый баг к этому моменту уже вынесен из агрегата, поэтому ищется и в cold.
+     */
+    private Result<BugReportView> bugView(Project p, BugReportId bugId) {
+        var bug = findBug(p, bugId);
+        if (bug == null) {
+            return Result.fail(new FailureCause.Domain(new DomainError.NotFound("BugReport", bugId.toString())));
+        }
+        return Result.ok(toBugView(bug));
+    }
+
+    /**
+     * Переносит тикеты закрытого milestone в cold и убирает их из агрегата.
+     * Вынос идёт после update, который закрыл milestone: durable-запись в cold не держит stripe-замок, не повторяется
+     * при повторе updater'а (OPTIMISTIC) и не задерживает чужие заявки пачки (COMBINING). Затем отдельная версия
+     * убирает из агрегата ровно записанные в cold тикеты. Если запись в cold упала, milestone уже закрыт,
+     * а его тикеты (DONE, read-only) остаются в агрегате: команда возвращает закрытый milestone.
+     */
+    private Result<Project> archiveMilestone(Project closed, MilestoneId milestoneId) {
+        var archived = closed.ticketsOf(milestoneId);
+        if (archived.isEmpty() || !putCold(() -> cold.putTickets(archived))) {
+            return Result.ok(closed);
+        }
+        var expected = Set.copyOf(archived);
+        return fromDomain(projects.update(closed.id(), p -> expected.equals(Set.copyOf(p.ticketsOf(milestoneId)))
+                ? p.archiveMilestoneTickets(milestoneId)
+                : DomainResult.ok(p)));
+    }
+
+    /**
+     * Как archiveMilestone, для закрытых багов: из агрегата убираются те, что не менялись после записи в cold.
+     * Если запись в cold упала, баги остаются закрытыми в агрегате, а результат — текущая версия проекта.
+     */
+    private Result<Project> archiveBugs(ProjectId projectId, List<BugReport> closed) {
+        if (!putCold(() -> cold.putBugs(closed))) {
+            return getProject(projectId);
+        }
+        return fromDomain(projects.update(projectId, p -> {
+            var ids = new ArrayList<BugReportId>(closed.size());
+            for (var b : closed) {
+                if (b.equals(p.bugReports().get(b.id()))) {
+                    ids.add(b.id());
+                }
+            }
+            return p.archiveBugReports(ids);
+        }));
+    }
+
+    /**
+     * Durable-запись в cold; false — файловое хранилище не смогло её записать (UncheckedIOException).
+     * Вынос тогда просто не происходит: закрытые сущности остаются в агрегате, где они уже read-only.
+     */
+    private static boolean putCold(Runnable write) {
+        try {
+            write.run();
+            return true;
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Тикет из агрегата, а если он уже вынесен (закрытый milestone) — из cold.
+     */
+    private Ticket findTicket(Project p, TicketId ticketId) {
+        var t = p.tickets().get(ticketId);
+        if (t != null) {
+            return t;
+        }
+        return cold.findTicket(ticketId).filter(a -> a.projectId().equals(p.id())).orElse(null);
+    }
+
+    private BugReport findBug(Project p, BugReportId bugId) {
+        var b = p.bugReports().get(bugId);
+        if (b != null) {
+            return b;
+        }
+        return cold.findBug(bugId).filter(a -> a.projectId().equals(p.id())).orElse(null);
+    }
+
+    /**
+     * Изменение тикета из агрегата; вынесенный тикет только читается, и вместо NotFound возвращается явная ошибка.
+     */
+    private DomainResult<Project> onLiveTicket(Project p, TicketId ticketId, Function<Project, DomainResult<Project>> op) {
+        if (!p.tickets().containsKey(ticketId) && findTicket(p, ticketId) != null) {
+            return DomainResult.err(archivedTicket());
+        }
+        return op.apply(p);
+    }
+
+    private DomainResult<Project> onLiveBug(Project p, BugReportId bugId, Function<Project, DomainResult<Project>> op) {
+        if (!p.bugReports().containsKey(bugId) && findBug(p, bugId) != null) {
+            return DomainResult.err(archivedBug());
+        }
+        return op.apply(p);
+    }
+
+    private static DomainError archivedTicket() {
+        return new DomainError.InvariantViolation("ticket.archived", "ticket of CLOSED milestone is archived and read-only");
+    }
+
+    private static DomainError archivedBug() {
+        return new DomainError.InvariantViolation("bug.archived", "CLOSED bug report is archived and read-only");
+    }
+
+    private Result<Unit> ensureUserExists(UserId userId) {
+        Objects.requireNonNull(userId, "userId");
+        return users.findById(userId)
+                .<Result<Unit>>map(u -> Result.ok(Unit.INSTANCE))
+                .orElseGet(() -> Result.fail(new FailureCause.Domain(new DomainError.NotFound("User", userId.toString()))));
+    }
+
+    private Result<Project> getProject(ProjectId projectId) {
+        Objects.requireNonNull(projectId, "projectId");
+        return projects.findById(projectId)
+                .<Result<Project>>map(Result::ok)
+                .orElseGet(() -> Result.fail(new FailureCause.Domain(new DomainError.NotFound("Project", projectId.toString()))));
+    }
+
     private static <T> Result<T> fromDomain(DomainResult<T> domain) {
         Objects.requireNonNull(domain, "domain");
         if (domain.isSuccess()) {
@@ -3,13 +3,29 @@ package org.lab.cli;
 import org.lab.app.ProjectManagementService;
 import org.lab.app.Result;
 import org.lab.infra.BugReportRepository;
+import org.lab.infra.ColdStore;
+import org.lab.infra.EntityProjections;
 import org.lab.infra.ProjectRepository;
 import org.lab.infra.TicketRepository;
 import org.lab.infra.UserRepository;
+import org.lab.infra.analytics.AnalyticsStore;
+import org.lab.infra.analytics.HistoryArchive;
+import org.lab.infra.offheap.OffHeapTicketStore;
+import org.lab.infra.storage.FileColdStore;
+import org.lab.infra.storage.FileJournal;
+import org.lab.infra.storage.FileProjectStore;
+import org.lab.infra.storage.FsyncPolicy;
+import org.lab.infra.storage.Recovery;
+import org.lab.infra.storage.Snapshotter;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
 
 public final class CliMain {
 
@@ -20,13 +36,24 @@ public final class CliMain {
      */
     public static void main(String[] args) throws Exception {
         var users = new UserRepository();
-        var projects = new ProjectRepository();
-        var tickets = new TicketRepository();
+        var projects = new ProjectRepository(updateMode(args));
+        var projectStore = attachProjectStore(args, projects);
+        var ticketStore = openTicketStore(args);
+        var tickets = ticketStore == null ? new TicketRepository() : new TicketRepository(ticketStore);
         var bugs = new BugReportRepository();
+        var analytics = new AnalyticsStore();
+        analytics.attach(tickets, bugs);
 
-        var service = new ProjectManagementService(users, projects, tickets, bugs);
+        var coldFile = openColdStore(args);
+        ColdStore cold = coldFile == null ? ColdStore.inMemory() : coldFile;
+        // до восстановления: хвост журнала доходит до проекций через ленту изменений
+        EntityProjections.follow(projects, tickets, bugs, cold);
+        var storage = openStorage(args, users, projects, tickets, bugs, cold, projectStore);
+        var history = openHistory(args);
+
+        var service = new ProjectManagementService(users, projects, tickets, bugs, cold);
         var state = new CliState();
-        var runner = new CliRunner(service, users, projects, state);
+        var runner = new CliRunner(service, users, projects, analytics, history, cold, state);
 
         System.out.println("=== Project Management CLI (Java 26) ===");
         System.out.println("Type: help | demo | exit");
@@ -41,11 +68,193 @@ public final class CliMain {
             }
         }
 
-        if (!ranDemo) {
+        // с журналом состояние переживает перезапуск, поэтому демо не запускается повторно без явного --demo
+        if (!ranDemo && storage == null) {
             runDemo(runner);
         }
 
-        runRepl(runner);
+        try {
+            runRepl(runner, storage);
+        } finally {
+            try {
+                if (storage != null) {
+                    storage.close();
+                }
+            } finally {
+                if (history != null) {
+                    history.close();
+                }
+                if (ticketStore != null) {
+                    ticketStore.close();
+                }
+                if (coldFile != null) {
+                    coldFile.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * --update-mode=locking|optimistic|combining — стратегия ProjectRepository.update (по умолчанию locking).
+     */
+    private static ProjectRepository.UpdateMode updateMode(String[] args) {
+        for (var a : args) {
+            if (a.startsWith("--update-mode=")) {
+                return ProjectRepository.UpdateMode.valueOf(a.substring("--update-mode=".length()).toUpperCase(Locale.ROOT));
+            }
+        }
+        return ProjectRepository.UpdateMode.LOCKING;
+    }
+
+    /**
+     * --project-store=<dir> [--project-cache=<weight>] — проекты в файлах каталога, в памяти только рабочий набор
+     * суммарного веса (1 + тикеты + баги на проект) не больше weight; статистика — команда cache stats.
+     * Требует --journal: пользователи и проекции восстанавливаются при старте вместе с хранилищем.
+     */
+    private static FileProjectStore attachProjectStore(String[] args, ProjectRepository projects) throws IOException {
+        String dir = null;
+        long capacity = 100_000;
+        for (var a : args) {
+            if (a.startsWith("--project-store=")) {
+                dir = a.substring("--project-store=".length());
+            } else if (a.startsWith("--project-cache=")) {
+                capacity = Long.parseLong(a.substring("--project-cache=".length()));
+            }
+        }
+        if (dir == null) {
+            return null;
+        }
+        if (Arrays.stream(args).noneMatch(a -> a.startsWith("--journal="))) {
+            // хранилище держит проекты, но не пользователей и не вынесенную работу: без журнала состояние распалось бы
+            throw new IllegalArgumentException("--project-store requires --journal=<path>");
+        }
+        var store = FileProjectStore.open(Path.of(dir));
+        projects.attachStore(store, capacity);
+        System.out.println("Project store: " + dir + " (projects: " + store.size() + ", cache weight: " + capacity + ")");
+        return store;
+    }
+
+    /**
+     * --cold=<path> — файл холодного хранилища (тикеты закрытых milestones и закрытые баги, вынесенные из проектов).
+     * С --journal без --cold используется <journal>.cold: иначе вынесенная работа не пережила бы перезапуск.
+     */
+    private static FileColdStore openColdStore(String[] args) throws IOException {
+        String path = null;
+        String journal = null;
+        for (var a : args) {
+            if (a.startsWith("--cold=")) {
+                path = a.substring("--cold=".length());
+            } else if (a.startsWith("--journal=")) {
+                journal = a.substring("--journal=".length());
+            }
+        }
+        if (path == null && journal != null) {
+            path = journal + ".cold";
+        }
+        return path == null ? null : FileColdStore.open(Path.of(path));
+    }
+
+    /**
+     * --history=<dir> — каталог колоночных сегментов истории (команды history export / history report).
+     */
+    private static HistoryArchive openHistory(String[] args) throws IOException {
+        for (var a : args) {
+            if (a.startsWith("--history=")) {
+                return HistoryArchive.open(Path.of(a.substring("--history=".length())));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * --ticket-store=offheap держит тикеты вне heap (OffHeapTicketStore); по умолчанию — heap.
+     */
+    private static OffHeapTicketStore openTicketStore(String[] args) {
+        for (var a : args) {
+            if (a.startsWith("--ticket-store=")) {
+                var kind = a.substring("--ticket-store=".length());
+                return switch (kind.toLowerCase(Locale.ROOT)) {
+                    case "heap" -> null;
+                    case "offheap", "off-heap" -> new OffHeapTicketStore();
+                    default -> throw new IllegalArgumentException("Unknown ticket store: " + kind + " (heap|offheap)");
+                };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Журнал и (необязательный) фоновый снимок; закрываются в обратном порядке открытия.
+     */
+    private record Storage(FileJournal journal, Snapshotter snapshots) implements AutoCloseable {
+        Snapshotter.Failure snapshotFailure() {
+            return snapshots == null ? null : snapshots.lastFailure().orElse(null);
+        }
+
+        @Override
+        public void close() throws Exception {
+            try (journal) {
+                if (snapshots != null) {
+                    snapshots.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * --journal=<path> включает write-ahead журнал (состояние восстанавливается при старте),
+     * --fsync=per-write|group[:ms]|periodic[:ms] задаёт политику fsync (по умолчанию group),
+     * --snapshot=<path> [--snapshot-interval=<sec>] — старт со снимка + хвоста журнала и периодические снимки в фоне;
+     * с --project-store снимки заменяются checkpoint'ами хранилища с тем же интервалом.
+     */
+    private static Storage openStorage(String[] args,
+                                       UserRepository users,
+                                       ProjectRepository projects,
+                                       TicketRepository tickets,
+                                       BugReportRepository bugs,
+                                       ColdStore cold,
+                                       FileProjectStore projectStore) throws Exception {
+        String path = null;
+        String fsync = "group";
+        String snapshot = null;
+        long snapshotSeconds = 60;
+        for (var a : args) {
+            if (a.startsWith("--journal=")) {
+                path = a.substring("--journal=".length());
+            } else if (a.startsWith("--fsync=")) {
+                fsync = a.substring("--fsync=".length());
+            } else if (a.startsWith("--snapshot=")) {
+                snapshot = a.substring("--snapshot=".length());
+            } else if (a.startsWith("--snapshot-interval=")) {
+                snapshotSeconds = Long.parseLong(a.substring("--snapshot-interval=".length()));
+            }
+        }
+        if (path == null) {
+            return null;
+        }
+        if (projectStore != null) {
+            // проекты читаются из --project-store; снимком служит его checkpoint (пользователи и позиция журнала)
+            if (snapshot != null) {
+                System.out.println("--snapshot is ignored with --project-store: checkpoints go to " + projectStore.checkpointPath());
+            }
+            snapshot = projectStore.checkpointPath().toString();
+        }
+
+        long started = System.nanoTime();
+        var snapshotPath = snapshot == null ? null : Path.of(snapshot);
+        var journal = Recovery.open(Path.of(path), snapshotPath, FsyncPolicy.parse(fsync), users, projects, tickets, bugs, cold);
+        System.out.println("Journal: " + path + " (records: " + journal.lastSeq() + ", fsync: " + fsync
+                + ", recovered in " + Duration.ofNanos(System.nanoTime() - started).toMillis() + " ms)");
+
+        Snapshotter snapshots;
+        if (projectStore != null) {
+            snapshots = Snapshotter.checkpoints(projectStore, Duration.ofSeconds(snapshotSeconds), journal, users, projects);
+        } else {
+            snapshots = snapshotPath == null
+                    ? null
+                    : Snapshotter.start(snapshotPath, Duration.ofSeconds(snapshotSeconds), journal, users, projects);
+        }
+        return new Storage(journal, snapshots);
     }
 
     /**
@@ -53,9 +262,16 @@ public final class CliMain {
      * - Try-with-resources: корректное управление ресурсами ввода (BufferedReader).
      * - StandardCharsets.UTF_8: явная кодировка ввода из стандартной библиотеки (важно для Windows/консоли).
      */
-    private static void runRepl(CliRunner runner) throws Exception {
+    private static void runRepl(CliRunner runner, Storage storage) throws Exception {
+        Snapshotter.Failure reported = null;
         try (var br = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
             while (true) {
+                // ошибки фоновых снимков показываются перед приглашением, по одному разу
+                var failure = storage == null ? null : storage.snapshotFailure();
+                if (failure != null && failure != reported) {
+                    System.out.println("Snapshot failed (" + failure.count() + " total, last at " + failure.at() + "): " + failure.error());
+                    reported = failure;
+                }
                 System.out.print("> ");
                 var line = br.readLine();
                 if (line == null) {
@@ -160,6 +376,7 @@ public final class CliMain {
 
               create-milestone <actorLogin> <projectRef> "Milestone Name" <start yyyy-mm-dd> <end yyyy-mm-dd>
               activate-milestone <actorLogin> <projectRef> <milestoneRef>
+              close-milestone <actorLogin> <projectRef> <milestoneRef>
                 milestoneRef: UUID | lastMilestone | last
 
               create-ticket <actorLogin> <projectRef> <milestoneRef> "Title" "Description"
@@ -176,6 +393,22 @@ public final class CliMain {
 
               dashboard <actorLogin>
 
+              report tickets [projectRef]      tickets by status (per milestone), all projects if no projectRef
+              report bugs <olderThanDays>      open bugs created more than N days ago, per project
+
+              history export                   append tickets of closed milestones and closed bugs to --history=<dir>
+              history report <from> <to> [projectRef]   tickets/bugs from history segments, dates yyyy-mm-dd (UTC)
+
+              cache stats                      project cache hits/misses/evictions (--project-store=<dir> --project-cache=<weight>)
+              feed lag                         project change feed: how far ticket/bug projections lag behind
+
+              import <actorLogin> <file.csv|file.jsonl>
+                                               bulk import of users/projects/members/milestones/tickets/bugs (column "type");
+                                               project rows must name the actor as manager, other rows need its MANAGER role
+              export <actorLogin> <file.csv|file.jsonl>
+                                               projects the actor manages incl. archived tickets/bugs, for BI; in the import
+                                               row format, but import restores structure only (no statuses/assignees/archive)
+
             Meta:
               demo | help | exit
             """);
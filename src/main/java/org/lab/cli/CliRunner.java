@@ -1,21 +1,39 @@
 package org.lab.cli;
 
+import org.lab.app.AccessControl;
+import org.lab.app.ActorRole;
+import org.lab.app.BulkImport;
+import org.lab.app.Operation;
 import org.lab.app.Presenter;
 import org.lab.app.ProjectManagementService;
 import org.lab.app.Result;
+import org.lab.domain.BugReport;
 import org.lab.domain.BugReportId;
 import org.lab.domain.DomainError;
 import org.lab.domain.MilestoneId;
 import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
 import org.lab.domain.TicketId;
+import org.lab.domain.TicketStatusCounts;
 import org.lab.domain.UserId;
 import org.lab.domain.enums.BugStatus;
 import org.lab.domain.enums.ProjectRole;
 import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.ColdStore;
 import org.lab.infra.ProjectRepository;
 import org.lab.infra.UserRepository;
-
+import org.lab.infra.analytics.AnalyticsStore;
+import org.lab.infra.analytics.HistoryArchive;
+import org.lab.infra.storage.DatasetExport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 
 public final class CliRunner {
@@ -24,12 +42,29 @@ public final class CliRunner {
     private final UserRepository users;
     private final ProjectRepository projects;
     private final CliState state;
+    private final AnalyticsStore analytics;
+    private final HistoryArchive history;
+    private final ColdStore cold;
+    private final BulkImport importer;
 
-    public CliRunner(ProjectManagementService service, UserRepository users, ProjectRepository projects, CliState state) {
+    /**
+     * history может быть null (архив истории не настроен).
+     */
+    public CliRunner(ProjectManagementService service,
+                     UserRepository users,
+                     ProjectRepository projects,
+                     AnalyticsStore analytics,
+                     HistoryArchive history,
+                     ColdStore cold,
+                     CliState state) {
         this.service = Objects.requireNonNull(service, "service");
         this.users = Objects.requireNonNull(users, "users");
         this.projects = Objects.requireNonNull(projects, "projects");
+        this.analytics = Objects.requireNonNull(analytics, "analytics");
+        this.history = history;
+        this.cold = Objects.requireNonNull(cold, "cold");
         this.state = Objects.requireNonNull(state, "state");
+        this.importer = new BulkImport(users, projects);
     }
 
     /**
@@ -52,6 +87,9 @@ public final class CliRunner {
             case Command.ActivateMilestone(var actorLogin, var projectRef, var milestoneRef) ->
                     execActivateMilestone(actorLogin, projectRef, milestoneRef);
 
+            case Command.CloseMilestone(var actorLogin, var projectRef, var milestoneRef) ->
+                    execCloseMilestone(actorLogin, projectRef, milestoneRef);
+
             case Command.CreateTicket(var actorLogin, var projectRef, var milestoneRef, var title, var description) ->
                     execCreateTicket(actorLogin, projectRef, milestoneRef, title, description);
 
@@ -78,6 +116,30 @@ public final class CliRunner {
 
             case Command.Dashboard(var actorLogin) ->
                     execDashboard(actorLogin);
+
+            case Command.ReportTickets(var projectRef) ->
+                    execReportTickets(projectRef);
+
+            case Command.ReportBugs(var days) ->
+                    execReportBugs(days);
+
+            case Command.HistoryExport() ->
+                    execHistoryExport();
+
+            case Command.HistoryReport(var from, var to, var projectRef) ->
+                    execHistoryReport(from, to, projectRef);
+
+            case Command.CacheStats() ->
+                    execCacheStats();
+
+            case Command.FeedLag() ->
+                    execFeedLag();
+
+            case Command.Import(var actorLogin, var path) ->
+                    execImport(actorLogin, path);
+
+            case Command.Export(var actorLogin, var path) ->
+                    execExport(actorLogin, path);
         };
     }
 
@@ -142,6 +204,17 @@ public final class CliRunner {
         );
     }
 
+    private Result<String> execCloseMilestone(String actorLogin, String projectRef, String milestoneRef) {
+        return resolveUser(actorLogin).flatMap(actorId ->
+                resolveProjectId(projectRef).flatMap(projectId ->
+                        resolveMilestoneId(projectId, milestoneRef).flatMap(mid ->
+                                service.closeMilestone(actorId, projectId, mid)
+                                        .map(Presenter::milestoneCreated)
+                        )
+                )
+        );
+    }
+
     private Result<String> execCreateTicket(String actorLogin, String projectRef, String milestoneRef, String title, String description) {
         return resolveUser(actorLogin).flatMap(actorId ->
                 resolveProjectId(projectRef).flatMap(projectId ->
@@ -297,6 +370,173 @@ public final class CliRunner {
                 .map(d -> Presenter.dashboard(actorLogin, d));
     }
 
+    /**
+     * Отчёты по колоночной проекции (AnalyticsStore), без обхода графа Project.
+     */
+    private Result<String> execReportTickets(String projectRef) {
+        if (projectRef == null) {
+            return Result.ok(ticketReport(null, "all projects"));
+        }
+        return resolveProjectId(projectRef).map(projectId -> ticketReport(projectId, projectRef));
+    }
+
+    private String ticketReport(ProjectId projectId, String scope) {
+        var sb = new StringBuilder("Tickets (").append(scope).append("): ")
+                .append(formatCounts(analytics.ticketStatusCounts(projectId)));
+        analytics.ticketStatusByMilestone(projectId).entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> sb.append("\n  - milestone ").append(e.getKey()).append(": ")
+                        .append(formatCounts(e.getValue())));
+        return sb.toString();
+    }
+
+    private Result<String> execReportBugs(int days) {
+        var perProject = analytics.bugsOpenLongerThan(Duration.ofDays(days), Instant.now());
+        var sb = new StringBuilder("Open bugs older than ").append(days).append(" day(s): ")
+                .append(perProject.values().stream().mapToLong(Long::longValue).sum());
+        perProject.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> sb.append("\n  - ")
+                        .append(projectLabel(e.getKey()))
+                        .append(": ").append(e.getValue()));
+        return Result.ok(sb.toString());
+    }
+
+    private Result<String> execCacheStats() {
+        return Result.ok(projects.cacheStats()
+                .map(c -> "Project cache: resident=%d weight=%d/%d hits=%d misses=%d (hit rate %.1f%%) evictions=%d"
+                        .formatted(c.resident(), c.weight(), c.capacity(), c.hits(), c.misses(), c.hitRate() * 100, c.evictions()))
+                .orElse("Project cache is off: all projects are resident (start with --project-store=<dir>)"));
+    }
+
+    private Result<String> execFeedLag() {
+        var feed = projects.changes();
+        var sb = new StringBuilder("Change feed: published=").append(feed.published());
+        for (var l : feed.lag()) {
+            sb.append("\n  - %s: applied=%d pending=%d oldest=%d ms max delay=%d ms failures=%d stalls=%d".formatted(
+                    l.subscriber(), l.applied(), l.pending(), l.oldestPending().toMillis(), l.maxDelay().toMillis(), l.failures(), l.stalls()));
+            var f = l.lastFailure();
+            if (f != null) {
+                sb.append("\n      last failure at seq %d (project %s): %s".formatted(f.seq(), f.projectId(), f.error()));
+            }
+            if (l.stoppedBy() != null) {
+                sb.append("\n      STOPPED after %d applied changes: %s".formatted(l.applied(), l.stoppedBy()));
+            }
+        }
+        return Result.ok(sb.toString());
+    }
+
+    /**
+     * Прогресс печатается после каждой пачки, итог — число строк, ошибок и первые ошибки с номерами строк.
+     */
+    private Result<String> execImport(String actorLogin, String path) {
+        var actor = resolveUser(actorLogin);
+        if (actor.isFailure()) {
+            return Result.fail(actor.failureOrNull());
+        }
+        BulkImport.Report report;
+        try {
+            report = importer.run(actor.toOptional().orElseThrow(), Path.of(path), p -> System.out.printf(Locale.ROOT,
+                    "  imported %d rows (%d failed), %.0f rows/s%n", p.rows(), p.failed(), p.rowsPerSecond()));
+        } catch (IOException | IllegalArgumentException e) {
+            return Result.fail(new org.lab.app.FailureCause.Domain(new DomainError.InvariantViolation("import", e.toString())));
+        }
+        var p = report.progress();
+        var sb = new StringBuilder("Import finished: rows=%d failed=%d in %d ms (%.0f rows/s)".formatted(
+                p.rows(), p.failed(), p.elapsed().toMillis(), p.rowsPerSecond()));
+        for (var e : report.errors()) {
+            sb.append("\n  - line ").append(e.line()).append(": ").append(e.message());
+        }
+        if (p.failed() > report.errors().size()) {
+            sb.append("\n  ... and ").append(p.failed() - report.errors().size()).append(" more");
+        }
+        return Result.ok(sb.toString());
+    }
+
+    /**
+     * Выгружаются только проекты, где роль актора разрешает BULK_EXPORT, — та же проверка, что у import.
+     */
+    private Result<String> execExport(String actorLogin, String path) {
+        var actor = resolveUser(actorLogin);
+        if (actor.isFailure()) {
+            return Result.fail(actor.failureOrNull());
+        }
+        var actorId = actor.toOptional().orElseThrow();
+        long started = System.nanoTime();
+        DatasetExport.Counts c;
+        try {
+            c = DatasetExport.write(Path.of(path), users, projects, cold,
+                    p -> AccessControl.isAllowed(ActorRole.from(p.roleOf(actorId)), Operation.BULK_EXPORT));
+        } catch (IOException | IllegalArgumentException e) {
+            return Result.fail(new org.lab.app.FailureCause.Domain(new DomainError.InvariantViolation("export", e.toString())));
+        }
+        return Result.ok("Exported to %s: users=%d projects=%d members=%d milestones=%d tickets=%d bugs=%d archived tickets=%d archived bugs=%d (%d bytes, %d ms)"
+                .formatted(path, c.users(), c.projects(), c.members(), c.milestones(), c.tickets(), c.bugs(),
+                        c.archivedTickets(), c.archivedBugs(), c.bytes(), (System.nanoTime() - started) / 1_000_000));
+    }
+
+    private Result<String> execHistoryExport() {
+        if (history == null) {
+            return historyNotConfigured();
+        }
+        try {
+            var r = history.export(projects.findAll(), cold);
+            return Result.ok("History exported: tickets=%d bugs=%d (segments: %d, rows: %d)"
+                    .formatted(r.tickets(), r.bugs(), history.segmentCount(), history.rowCount()));
+        } catch (IOException e) {
+            return Result.fail(new org.lab.app.FailureCause.Domain(new DomainError.InvariantViolation("history.export", e.toString())));
+        }
+    }
+
+    /**
+     * Отчёт за период по колоночным сегментам истории (даты включительно, UTC).
+     */
+    private Result<String> execHistoryReport(LocalDate from, LocalDate to, String projectRef) {
+        if (history == null) {
+            return historyNotConfigured();
+        }
+        var start = from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        var end = to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Result<ProjectId> scope = projectRef == null ? null : resolveProjectId(projectRef);
+        if (scope != null && scope.isFailure()) {
+            return Result.fail(scope.failureOrNull());
+        }
+        var projectId = scope == null ? null : scope.toOptional().orElseThrow();
+
+        var tickets = history.ticketStatusByMilestone(start, end, projectId);
+        var sb = new StringBuilder("History ").append(from).append("..").append(to)
+                .append(" (").append(projectRef == null ? "all projects" : projectRef).append(")")
+                .append("\nTickets by milestone (blocks scanned ").append(tickets.blocksScanned())
+                .append(", skipped ").append(tickets.blocksSkipped()).append("):");
+        tickets.value().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> sb.append("\n  - milestone ").append(e.getKey()).append(": ").append(formatCounts(e.getValue())));
+        if (projectId == null) {
+            var bugs = history.bugsClosedBetween(start, end);
+            sb.append("\nBugs closed (blocks scanned ").append(bugs.blocksScanned())
+                    .append(", skipped ").append(bugs.blocksSkipped()).append("): ")
+                    .append(bugs.value().values().stream().mapToLong(Long::longValue).sum());
+            bugs.value().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(e -> sb.append("\n  - ").append(projectLabel(e.getKey())).append(": ").append(e.getValue()));
+        }
+        return Result.ok(sb.toString());
+    }
+
+    private static Result<String> historyNotConfigured() {
+        return Result.fail(new org.lab.app.FailureCause.Domain(
+                new DomainError.InvalidValue("history", "history archive is not configured (start with --history=<dir>)")));
+    }
+
+    private String projectLabel(ProjectId id) {
+        return projects.findById(id).map(p -> p.key().value()).orElse(id.toString());
+    }
+
+    private static String formatCounts(TicketStatusCounts c) {
+        return "NEW=%d ACCEPTED=%d IN_PROGRESS=%d DONE=%d (total %d)"
+                .formatted(c.newTickets(), c.accepted(), c.inProgress(), c.done(), c.total());
+    }
+
     private Result<UserId> resolveUser(String login) {
         Objects.requireNonNull(login, "login");
 
@@ -328,6 +568,7 @@ public final class CliRunner {
         }
 
         return state.projectIdByKey(ref)
+                .or(() -> projects.findIdByKey(ref))
                 .map(Result::ok)
                 .orElseGet(() -> Result.fail(new org.lab.app.FailureCause.Domain(new DomainError.NotFound("Project(key)", ref))));
     }
@@ -390,7 +631,10 @@ public final class CliRunner {
         var p = projects.findById(projectId).orElse(null);
         if (p == null) return null;
         var t = p.tickets().get(ticketId);
-        if (t == null) return null;
+        if (t == null) {
+            // тикет закрытого milestone вынесен из проекта
+            return cold.findTicket(ticketId).filter(a -> a.projectId().equals(projectId)).map(Ticket::status).orElse(null);
+        }
         return t.status();
     }
 
@@ -398,7 +642,9 @@ public final class CliRunner {
         var p = projects.findById(projectId).orElse(null);
         if (p == null) return null;
         var b = p.bugReports().get(bugId);
-        if (b == null) return null;
+        if (b == null) {
+            return cold.findBug(bugId).filter(a -> a.projectId().equals(projectId)).map(BugReport::status).orElse(null);
+        }
         return b.status();
     }
 
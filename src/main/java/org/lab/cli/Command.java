@@ -9,6 +9,7 @@ public sealed interface Command permits
         Command.AddDev,
         Command.CreateMilestone,
         Command.ActivateMilestone,
+        Command.CloseMilestone,
         Command.CreateTicket,
         Command.AssignTicket,
         Command.StartTicket,
@@ -17,7 +18,15 @@ public sealed interface Command permits
         Command.FixBug,
         Command.TestBug,
         Command.CloseBug,
-        Command.Dashboard {
+        Command.Dashboard,
+        Command.ReportTickets,
+        Command.ReportBugs,
+        Command.HistoryExport,
+        Command.HistoryReport,
+        Command.CacheStats,
+        Command.FeedLag,
+        Command.Import,
+        Command.Export {
 
     record Register(String login, String displayName) implements Command {
         public Register {
@@ -65,6 +74,14 @@ public sealed interface Command permits
         }
     }
 
+    record CloseMilestone(String actorLogin, String projectRef, String milestoneRef) implements Command {
+        public CloseMilestone {
+            Objects.requireNonNull(actorLogin, "actorLogin");
+            Objects.requireNonNull(projectRef, "projectRef");
+            Objects.requireNonNull(milestoneRef, "milestoneRef");
+        }
+    }
+
     record CreateTicket(String actorLogin, String projectRef, String milestoneRef, String title, String description) implements Command {
         public CreateTicket {
             Objects.requireNonNull(actorLogin, "actorLogin");
@@ -138,4 +155,56 @@ public sealed interface Command permits
             Objects.requireNonNull(actorLogin, "actorLogin");
         }
     }
+
+    /**
+     * projectRef == null — по всем проектам.
+     */
+    record ReportTickets(String projectRef) implements Command { }
+
+    record ReportBugs(int olderThanDays) implements Command {
+        public ReportBugs {
+            if (olderThanDays < 0) {
+                throw new IllegalArgumentException("days must be >= 0");
+            }
+        }
+    }
+
+    record HistoryExport() implements Command { }
+
+    /**
+     * Период [from, to] по датам UTC; projectRef == null — по всем проектам.
+     */
+    record HistoryReport(LocalDate from, LocalDate to, String projectRef) implements Command {
+        public HistoryReport {
+            Objects.requireNonNull(from, "from");
+            Objects.requireNonNull(to, "to");
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("to must be >= from");
+            }
+        }
+    }
+
+    record CacheStats() implements Command { }
+
+    record FeedLag() implements Command { }
+
+    /**
+     * path — CSV или JSONL (формат по расширению); импорт идёт от имени actorLogin.
+     */
+    record Import(String actorLogin, String path) implements Command {
+        public Import {
+            Objects.requireNonNull(actorLogin, "actorLogin");
+            Objects.requireNonNull(path, "path");
+        }
+    }
+
+    /**
+     * path — CSV или JSONL (формат по расширению); выгружаются проекты, которые actorLogin может экспортировать.
+     */
+    record Export(String actorLogin, String path) implements Command {
+        public Export {
+            Objects.requireNonNull(actorLogin, "actorLogin");
+            Objects.requireNonNull(path, "path");
+        }
+    }
 }
@@ -52,6 +52,7 @@ public final class CommandParser {
 
                 case "create-milestone" -> parseCreateMilestone(tokens);
                 case "activate-milestone" -> parseActivateMilestone(tokens);
+                case "close-milestone" -> parseCloseMilestone(tokens);
 
                 case "create-ticket" -> parseCreateTicket(tokens);
                 case "assign-ticket" -> parseAssignTicket(tokens);
@@ -65,6 +66,12 @@ public final class CommandParser {
                 case "close-bug" -> parseCloseBug(tokens);
 
                 case "dashboard" -> parseDashboard(tokens);
+                case "report" -> parseReport(tokens);
+                case "history" -> parseHistory(tokens);
+                case "cache" -> parseCache(tokens);
+                case "feed" -> parseFeed(tokens);
+                case "import" -> parseImport(tokens);
+                case "export" -> parseExport(tokens);
 
                 default -> new Parsed.Error("Unknown command: " + tokens.get(0));
             };
@@ -100,6 +107,11 @@ public final class CommandParser {
         return new Parsed.Ok(new Command.ActivateMilestone(t.get(1), t.get(2), t.get(3)));
     }
 
+    private static Parsed parseCloseMilestone(List<String> t) {
+        requireSize(t, 4, "close-milestone <actorLogin> <projectRef> <milestoneRef>");
+        return new Parsed.Ok(new Command.CloseMilestone(t.get(1), t.get(2), t.get(3)));
+    }
+
     private static Parsed parseCreateTicket(List<String> t) {
         requireSize(t, 6, "create-ticket <actorLogin> <projectRef> <milestoneRef> \"Title\" \"Description\"");
         return new Parsed.Ok(new Command.CreateTicket(t.get(1), t.get(2), t.get(3), t.get(4), t.get(5)));
@@ -145,6 +157,70 @@ public final class CommandParser {
         return new Parsed.Ok(new Command.Dashboard(t.get(1)));
     }
 
+    private static Parsed parseReport(List<String> t) {
+        var usage = "report tickets [projectRef] | report bugs <olderThanDays>";
+        if (t.size() < 2) {
+            throw new IllegalArgumentException("Invalid arguments. Usage: " + usage);
+        }
+        return switch (t.get(1).toLowerCase()) {
+            case "tickets" -> {
+                if (t.size() > 3) {
+                    throw new IllegalArgumentException("Invalid arguments. Usage: " + usage);
+                }
+                yield new Parsed.Ok(new Command.ReportTickets(t.size() == 3 ? t.get(2) : null));
+            }
+            case "bugs" -> {
+                requireSize(t, 3, usage);
+                try {
+                    yield new Parsed.Ok(new Command.ReportBugs(Integer.parseInt(t.get(2))));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid days: " + t.get(2));
+                }
+            }
+            default -> throw new IllegalArgumentException("Invalid arguments. Usage: " + usage);
+        };
+    }
+
+    private static Parsed parseHistory(List<String> t) {
+        var usage = "history export | history report <from yyyy-mm-dd> <to yyyy-mm-dd> [projectRef]";
+        if (t.size() == 2 && t.get(1).equalsIgnoreCase("export")) {
+            return new Parsed.Ok(new Command.HistoryExport());
+        }
+        if ((t.size() == 4 || t.size() == 5) && t.get(1).equalsIgnoreCase("report")) {
+            return new Parsed.Ok(new Command.HistoryReport(
+                    parseDate(t.get(2), "from"),
+                    parseDate(t.get(3), "to"),
+                    t.size() == 5 ? t.get(4) : null));
+        }
+        throw new IllegalArgumentException("Invalid arguments. Usage: " + usage);
+    }
+
+    private static Parsed parseCache(List<String> t) {
+        requireSize(t, 2, "cache stats");
+        if (!t.get(1).equalsIgnoreCase("stats")) {
+            throw new IllegalArgumentException("Invalid arguments. Usage: cache stats");
+        }
+        return new Parsed.Ok(new Command.CacheStats());
+    }
+
+    private static Parsed parseFeed(List<String> t) {
+        requireSize(t, 2, "feed lag");
+        if (!t.get(1).equalsIgnoreCase("lag")) {
+            throw new IllegalArgumentException("Invalid arguments. Usage: feed lag");
+        }
+        return new Parsed.Ok(new Command.FeedLag());
+    }
+
+    private static Parsed parseImport(List<String> t) {
+        requireSize(t, 3, "import <actorLogin> <file.csv|file.jsonl>");
+        return new Parsed.Ok(new Command.Import(t.get(1), t.get(2)));
+    }
+
+    private static Parsed parseExport(List<String> t) {
+        requireSize(t, 3, "export <actorLogin> <file.csv|file.jsonl>");
+        return new Parsed.Ok(new Command.Export(t.get(1), t.get(2)));
+    }
+
     private static LocalDate parseDate(String raw, String field) {
         Objects.requireNonNull(raw, field);
         try {
@@ -0,0 +1,20 @@
+package org.lab.domain;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Итог пакетной операции над проектом: новая версия (одна на весь пакет) и результат по каждому элементу
+ * в порядке входа. Неуспешные элементы в project не попали.
+ */
+public record BatchOutcome<T>(Project project, List<DomainResult<T>> results) {
+
+    public BatchOutcome {
+        Objects.requireNonNull(project, "project");
+        results = List.copyOf(results);
+    }
+
+    public long succeeded() {
+        return results.stream().filter(DomainResult::isSuccess).count();
+    }
+}
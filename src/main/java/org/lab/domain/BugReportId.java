@@ -3,17 +3,27 @@ package org.lab.domain;
 import java.util.Objects;
 import java.util.UUID;
 
-public record BugReportId(UUID value) {
-    public BugReportId {
-        Objects.requireNonNull(value, "value");
+public record BugReportId(long msb, long lsb) implements Comparable<BugReportId> {
+
+    public BugReportId(UUID value) {
+        this(Objects.requireNonNull(value, "value").getMostSignificantBits(), value.getLeastSignificantBits());
     }
 
     public static BugReportId newId() {
-        return new BugReportId(UUID.randomUUID());
+        return new BugReportId(Ids.next());
+    }
+
+    public UUID value() {
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public int compareTo(BugReportId other) {
+        return IdGenerator.compare(msb, lsb, other.msb, other.lsb);
     }
 
     @Override
     public String toString() {
-        return value.toString();
+        return value().toString();
     }
 }
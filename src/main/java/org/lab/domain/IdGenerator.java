@@ -0,0 +1,51 @@
+package org.lab.domain;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Источник 128-битных идентификаторов для *Id.newId().
+ * Modern Java:
+ * - Функциональный интерфейс: генератор подключается лямбдой/ссылкой на метод (например, UUID::randomUUID).
+ * - По умолчанию используется timeOrdered(): монотонные UUIDv7-подобные id на per-thread состоянии,
+ *   без общего SecureRandom и без конкуренции между потоками.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    UUID next();
+
+    /**
+     * Случайные UUIDv4 (прежнее поведение): общий SecureRandom, порядок id произвольный.
+     */
+    static IdGenerator random() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * UUIDv7-подобные id: 48 бит unix-времени (мс) + счётчик внутри миллисекунды + 62 случайных бита.
+     * Строго возрастают в пределах потока, примерно упорядочены по времени между потоками.
+     */
+    static IdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.INSTANCE;
+    }
+
+    /**
+     * Порядок id, совпадающий с лексикографическим порядком UUID.toString()
+     * (беззнаковое сравнение старших, затем младших 64 бит).
+     */
+    static int compare(UUID a, UUID b) {
+        Objects.requireNonNull(a, "a");
+        Objects.requireNonNull(b, "b");
+        return compare(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+                b.getMostSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    static int compare(long msbA, long lsbA, long msbB, long lsbB) {
+        int c = Long.compareUnsigned(msbA, msbB);
+        if (c != 0) {
+            return c;
+        }
+        return Long.compareUnsigned(lsbA, lsbB);
+    }
+}
@@ -0,0 +1,22 @@
+package org.lab.domain;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Точка подключения генератора id для всех *Id.newId().
+ */
+public final class Ids {
+
+    private static volatile IdGenerator generator = IdGenerator.timeOrdered();
+
+    private Ids() { }
+
+    public static UUID next() {
+        return generator.next();
+    }
+
+    public static void use(IdGenerator next) {
+        generator = Objects.requireNonNull(next, "generator");
+    }
+}
@@ -3,17 +3,27 @@ package org.lab.domain;
 import java.util.Objects;
 import java.util.UUID;
 
-public record MilestoneId(UUID value) {
-    public MilestoneId {
-        Objects.requireNonNull(value, "value");
+public record MilestoneId(long msb, long lsb) implements Comparable<MilestoneId> {
+
+    public MilestoneId(UUID value) {
+        this(Objects.requireNonNull(value, "value").getMostSignificantBits(), value.getLeastSignificantBits());
     }
 
     public static MilestoneId newId() {
-        return new MilestoneId(UUID.randomUUID());
+        return new MilestoneId(Ids.next());
+    }
+
+    public UUID value() {
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public int compareTo(MilestoneId other) {
+        return IdGenerator.compare(msb, lsb, other.msb, other.lsb);
     }
 
     @Override
     public String toString() {
-        return value.toString();
+        return value().toString();
     }
 }
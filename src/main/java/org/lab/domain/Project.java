@@ -1,18 +1,22 @@
 package org.lab.domain;
 
+import org.lab.domain.collect.PersistentMap;
 import org.lab.domain.enums.BugStatus;
 import org.lab.domain.enums.MilestoneStatus;
 import org.lab.domain.enums.ProjectRole;
 import org.lab.domain.enums.TicketStatus;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
 
 public record Project(
         ProjectId id,
+        long version, // сразу после id: equals (и CAS в ConcurrentHashMap.replace) расходится на версии, не сравнивая коллекции
         ProjectKey key,
         String name,
         Description description,
@@ -22,6 +26,7 @@ public record Project(
         Map<MilestoneId, Milestone> milestones,
         Map<TicketId, Ticket> tickets,
         Map<BugReportId, BugReport> bugReports,
+        ProjectSummary summary,
         Instant createdAt,
         Instant updatedAt
 ) {
@@ -38,11 +43,15 @@ public record Project(
         Objects.requireNonNull(bugReports, "bugReports");
         Objects.requireNonNull(createdAt, "createdAt");
         Objects.requireNonNull(updatedAt, "updatedAt");
+        if (version < 0) {
+            throw new IllegalArgumentException("version must be >= 0");
+        }
 
-        members = Map.copyOf(members);
-        milestones = Map.copyOf(milestones);
-        tickets = Map.copyOf(tickets);
-        bugReports = Map.copyOf(bugReports);
+        // persistent HAMT: для уже persistent map это O(1) без копирования, обновления делят структуру
+        members = PersistentMap.from(members);
+        milestones = PersistentMap.from(milestones);
+        tickets = PersistentMap.from(tickets);
+        bugReports = PersistentMap.from(bugReports);
 
         var mgrRole = members.get(managerId);
         if (mgrRole != ProjectRole.MANAGER) {
@@ -56,9 +65,19 @@ public record Project(
             }
         }
 
-        long activeCount = milestones.values().stream().filter(m -> m.status() == MilestoneStatus.ACTIVE).count();
-        if (activeCount > 1) {
-            throw new IllegalStateException("Project invariant broken: only one ACTIVE milestone allowed");
+        // summary == null — проект собран не доменными методами: пересчитываем сводку полностью (O(N)).
+        // Сводке доверяем только для тех версий milestones/tickets, которые она описывает (сравнение ссылок, O(1));
+        // для чужих версий она выводится из разницы коллекций, и второй ACTIVE milestone там не пропускается.
+        if (summary == null) {
+            summary = ProjectSummary.of(milestones, tickets);
+        } else if (!summary.describes(milestones, tickets)) {
+            summary = summary.rebasedOn(PersistentMap.from(milestones), PersistentMap.from(tickets));
+        }
+        if (summary.activeMilestoneId() != null) {
+            var active = milestones.get(summary.activeMilestoneId());
+            if (active == null || active.status() != MilestoneStatus.ACTIVE) {
+                throw new IllegalStateException("Project invariant broken: summary.activeMilestoneId must reference ACTIVE milestone");
+            }
         }
     }
 
@@ -80,15 +99,16 @@ public record Project(
                                 return DomainResult.err(new DomainError.InvalidValue("projectDescription", "length must be <= 4000"));
                             }
                             return Validation.nonNullInstant("now", now).map(ts -> {
-                                var members = new HashMap<UserId, ProjectRole>();
-                                members.put(managerId, ProjectRole.MANAGER);
+                                var members = PersistentMap.<UserId, ProjectRole>empty()
+                                        .plus(managerId, ProjectRole.MANAGER);
                                 return new Project(
-                                        id, k, n, new Description(desc),
+                                        id, 0L, k, n, new Description(desc),
                                         managerId, null,
                                         members,
                                         Map.of(),
                                         Map.of(),
                                         Map.of(),
+                                        ProjectSummary.EMPTY,
                                         ts, ts
                                 );
                             });
@@ -96,6 +116,24 @@ public record Project(
                 );
     }
 
+    /**
+     * Версия агрегата: доменные методы её не меняют, репозиторий проставляет current.version() + 1
+     * при публикации нового состояния (используется для optimistic CAS в ProjectRepository).
+     */
+    public Project withVersion(long nextVersion) {
+        return new Project(
+                id, nextVersion, key, name, description,
+                managerId, teamLeadId,
+                members,
+                milestones,
+                tickets,
+                bugReports,
+                summary,
+                createdAt,
+                updatedAt
+        );
+    }
+
     public Optional<UserId> teamLeadIdOpt() {
         return Optional.ofNullable(teamLeadId);
     }
@@ -125,16 +163,16 @@ public record Project(
             return DomainResult.err(new DomainError.Conflict("Cannot promote TESTER to TEAM_LEAD in this simplified model"));
         }
 
-        var nextMembers = new HashMap<>(members);
-        nextMembers.put(userId, ProjectRole.TEAM_LEAD);
+        var nextMembers = PersistentMap.from(members).plus(userId, ProjectRole.TEAM_LEAD);
 
         return DomainResult.ok(new Project(
-                id, key, name, description,
+                id, version, key, name, description,
                 managerId, userId,
                 nextMembers,
                 milestones,
                 tickets,
                 bugReports,
+                summary,
                 createdAt,
                 now
         ));
@@ -155,16 +193,16 @@ public record Project(
             ));
         }
 
-        var next = new HashMap<>(members);
-        next.put(userId, role);
+        var next = PersistentMap.from(members).plus(userId, role);
 
         return DomainResult.ok(new Project(
-                id, key, name, description,
+                id, version, key, name, description,
                 managerId, teamLeadId,
                 next,
                 milestones,
                 tickets,
                 bugReports,
+                summary,
                 createdAt,
                 now
         ));
@@ -186,15 +224,15 @@ public record Project(
 
         return Milestone.create(milestoneId, id, milestoneName, range, now)
                 .map(ms -> {
-                    var next = new HashMap<>(milestones);
-                    next.put(milestoneId, ms);
+                    var next = PersistentMap.from(milestones).plus(milestoneId, ms);
                     return new Project(
-                            id, key, name, description,
+                            id, version, key, name, description,
                             managerId, teamLeadId,
                             members,
                             next,
                             tickets,
                             bugReports,
+                            summary.withActiveMilestone(summary.activeMilestoneId(), next),
                             createdAt,
                             now
                     );
@@ -221,8 +259,7 @@ public record Project(
             return DomainResult.ok(this); // идемпотентность
         }
 
-        boolean hasAnotherActive = milestones.values().stream()
-                .anyMatch(m -> m.status() == MilestoneStatus.ACTIVE && !m.id().equals(milestoneId));
+        boolean hasAnotherActive = summary.activeMilestoneId() != null;
         if (hasAnotherActive) {
             return DomainResult.err(new DomainError.InvariantViolation(
                     "project.singleActiveMilestone",
@@ -230,16 +267,16 @@ public record Project(
             ));
         }
 
-        var next = new HashMap<>(milestones);
-        next.put(milestoneId, ms.withStatus(MilestoneStatus.ACTIVE, now));
+        var next = PersistentMap.from(milestones).plus(milestoneId, ms.withStatus(MilestoneStatus.ACTIVE, now));
 
         return DomainResult.ok(new Project(
-                id, key, name, description,
+                id, version, key, name, description,
                 managerId, teamLeadId,
                 members,
                 next,
                 tickets,
                 bugReports,
+                summary.withActiveMilestone(milestoneId, next),
                 createdAt,
                 now
         ));
@@ -265,9 +302,7 @@ public record Project(
             ));
         }
 
-        boolean allDone = tickets.values().stream()
-                .filter(t -> t.milestoneId().equals(milestoneId))
-                .allMatch(Ticket::isDone);
+        boolean allDone = summary.countsFor(milestoneId).allDone();
 
         if (!allDone) {
             return DomainResult.err(new DomainError.InvariantViolation(
@@ -276,16 +311,16 @@ public record Project(
             ));
         }
 
-        var next = new HashMap<>(milestones);
-        next.put(milestoneId, ms.withStatus(MilestoneStatus.CLOSED, now));
+        var next = PersistentMap.from(milestones).plus(milestoneId, ms.withStatus(MilestoneStatus.CLOSED, now));
 
         return DomainResult.ok(new Project(
-                id, key, name, description,
+                id, version, key, name, description,
                 managerId, teamLeadId,
                 members,
                 next,
                 tickets,
                 bugReports,
+                summary.withActiveMilestone(null, next),
                 createdAt,
                 now
         ));
@@ -330,27 +365,146 @@ public record Project(
 
         return Ticket.create(ticketId, id, milestoneId, title, description, createdBy, now)
                 .map(t -> {
-                    var next = new HashMap<>(tickets);
-                    next.put(ticketId, t);
+                    var next = PersistentMap.from(tickets).plus(ticketId, t);
                     return new Project(
-                            id, key, name, description,
+                            id, version, key, name, this.description,
                             managerId, teamLeadId,
                             members,
                             milestones,
                             next,
                             bugReports,
+                            summary.withTicketMoved(milestoneId, null, t.status(), next),
                             createdAt,
                             now
                     );
                 });
     }
 
+    /**
+     * Пакетное создание тикетов в одном milestone: проверки milestone и автора — один раз на пакет
+     * (их нарушение отклоняет весь пакет), тикеты добавляются в одну новую версию проекта, сводка
+     * обновляется одним шагом. Черновик с уже занятым id (в проекте или раньше в пакете) получает Conflict,
+     * остальные создаются.
+     */
+    public DomainResult<BatchOutcome<Ticket>> createTickets(MilestoneId milestoneId,
+                                                            List<TicketDraft> drafts,
+                                                            UserId createdBy,
+                                                            Instant now) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        Objects.requireNonNull(drafts, "drafts");
+        Objects.requireNonNull(createdBy, "createdBy");
+        Objects.requireNonNull(now, "now");
+
+        var ms = milestones.get(milestoneId);
+        if (ms == null) {
+            return DomainResult.err(new DomainError.NotFound("Milestone", milestoneId.toString()));
+        }
+        if (ms.status() == MilestoneStatus.CLOSED) {
+            return DomainResult.err(new DomainError.InvariantViolation(
+                    "ticket.milestoneNotClosed",
+                    "cannot create ticket in CLOSED milestone"
+            ));
+        }
+        if (!isMember(createdBy)) {
+            return DomainResult.err(new DomainError.InvariantViolation(
+                    "ticket.creatorMustBeMember",
+                    "creator must be a project member"
+            ));
+        }
+
+        var next = PersistentMap.from(tickets);
+        var results = new ArrayList<DomainResult<Ticket>>(drafts.size());
+        int created = 0;
+        for (var d : drafts) {
+            if (next.containsKey(d.id())) {
+                results.add(DomainResult.err(new DomainError.Conflict("Ticket already exists: " + d.id())));
+                continue;
+            }
+            var res = Ticket.create(d.id(), id, milestoneId, d.title(), d.description(), createdBy, now);
+            if (res.isSuccess()) {
+                next = next.plus(d.id(), res.orElseThrow());
+                created++;
+            }
+            results.add(res);
+        }
+        if (created == 0) {
+            return DomainResult.ok(new BatchOutcome<>(this, results));
+        }
+        var project = new Project(
+                id, version, key, name, description,
+                managerId, teamLeadId,
+                members,
+                milestones,
+                next,
+                bugReports,
+                summary.withTicketsAdded(milestoneId, TicketStatus.NEW, created, next),
+                createdAt,
+                now
+        );
+        return DomainResult.ok(new BatchOutcome<>(project, results));
+    }
+
     public DomainResult<Project> assignDeveloperToTicket(TicketId ticketId, UserId developerId, Instant now) {
         Objects.requireNonNull(ticketId, "ticketId");
         Objects.requireNonNull(developerId, "developerId");
         Objects.requireNonNull(now, "now");
 
         var t = tickets.get(ticketId);
+        return assigned(ticketId, t, developerId, now)
+                .map(updated -> withTicket(ticketId, t, updated, now));
+    }
+
+    public DomainResult<Project> applyTicketAction(TicketId ticketId, TicketAction action, Instant now) {
+        Objects.requireNonNull(ticketId, "ticketId");
+        Objects.requireNonNull(action, "action");
+        Objects.requireNonNull(now, "now");
+
+        var t = tickets.get(ticketId);
+        return acted(ticketId, t, action, now)
+                .map(updated -> withTicket(ticketId, t, updated, now));
+    }
+
+    /**
+     * Пакетный assignDeveloperToTicket: те же проверки по каждому тикету, одна новая версия проекта на пакет.
+     */
+    public BatchOutcome<Ticket> assignDeveloperToTickets(List<TicketId> ticketIds, UserId developerId, Instant now) {
+        Objects.requireNonNull(ticketIds, "ticketIds");
+        Objects.requireNonNull(developerId, "developerId");
+        Objects.requireNonNull(now, "now");
+        return ticketBatch(ticketIds, now, (tid, t) -> assigned(tid, t, developerId, now));
+    }
+
+    /**
+     * Пакетный applyTicketAction: действие применяется к каждому тикету по очереди (повтор id видит
+     * результат предыдущего), неуспешные тикеты не меняются.
+     */
+    public BatchOutcome<Ticket> applyTicketActions(List<TicketId> ticketIds, TicketAction action, Instant now) {
+        Objects.requireNonNull(ticketIds, "ticketIds");
+        Objects.requireNonNull(action, "action");
+        Objects.requireNonNull(now, "now");
+        return ticketBatch(ticketIds, now, (tid, t) -> acted(tid, t, action, now));
+    }
+
+    private BatchOutcome<Ticket> ticketBatch(List<TicketId> ticketIds,
+                                             Instant now,
+                                             BiFunction<TicketId, Ticket, DomainResult<Ticket>> step) {
+        var next = PersistentMap.from(tickets);
+        var nextSummary = summary;
+        var results = new ArrayList<DomainResult<Ticket>>(ticketIds.size());
+        for (var tid : ticketIds) {
+            var before = next.get(tid);
+            var res = step.apply(tid, before);
+            if (res.isSuccess()) {
+                var after = res.orElseThrow();
+                next = next.plus(tid, after);
+                nextSummary = nextSummary.withTicketMoved(after.milestoneId(), before.status(), after.status(), next);
+            }
+            results.add(res);
+        }
+        return new BatchOutcome<>(next == tickets ? this : withTickets(next, nextSummary, now), results);
+    }
+
+    private DomainResult<Ticket> assigned(TicketId ticketId, Ticket t, UserId developerId, Instant now) {
         if (t == null) {
             return DomainResult.err(new DomainError.NotFound("Ticket", ticketId.toString()));
         }
@@ -368,47 +522,33 @@ public record Project(
                     "assignee must be DEVELOPER or TEAM_LEAD"
             ));
         }
+        return DomainResult.ok(t.assign(developerId, now));
+    }
+
+    private static DomainResult<Ticket> acted(TicketId ticketId, Ticket t, TicketAction action, Instant now) {
+        if (t == null) {
+            return DomainResult.err(new DomainError.NotFound("Ticket", ticketId.toString()));
+        }
+        return t.apply(action, now);
+    }
 
-        var updated = t.assign(developerId, now);
-        var next = new HashMap<>(tickets);
-        next.put(ticketId, updated);
+    private Project withTicket(TicketId ticketId, Ticket before, Ticket after, Instant now) {
+        var next = PersistentMap.from(tickets).plus(ticketId, after);
+        return withTickets(next, summary.withTicketMoved(after.milestoneId(), before.status(), after.status(), next), now);
+    }
 
-        return DomainResult.ok(new Project(
-                id, key, name, description,
+    private Project withTickets(PersistentMap<TicketId, Ticket> next, ProjectSummary nextSummary, Instant now) {
+        return new Project(
+                id, version, key, name, description,
                 managerId, teamLeadId,
                 members,
                 milestones,
                 next,
                 bugReports,
+                nextSummary,
                 createdAt,
                 now
-        ));
-    }
-
-    public DomainResult<Project> applyTicketAction(TicketId ticketId, TicketAction action, Instant now) {
-        Objects.requireNonNull(ticketId, "ticketId");
-        Objects.requireNonNull(action, "action");
-        Objects.requireNonNull(now, "now");
-
-        var t = tickets.get(ticketId);
-        if (t == null) {
-            return DomainResult.err(new DomainError.NotFound("Ticket", ticketId.toString()));
-        }
-
-        return t.apply(action, now).map(updated -> {
-            var next = new HashMap<>(tickets);
-            next.put(ticketId, updated);
-            return new Project(
-                    id, key, name, description,
-                    managerId, teamLeadId,
-                    members,
-                    milestones,
-                    next,
-                    bugReports,
-                    createdAt,
-                    now
-            );
-        });
+        );
     }
 
     // ---------- BugReports ----------
@@ -438,15 +578,15 @@ public record Project(
 
         return BugReport.create(bugId, id, title, description, createdBy, now)
                 .map(b -> {
-                    var next = new HashMap<>(bugReports);
-                    next.put(bugId, b);
+                    var next = PersistentMap.from(bugReports).plus(bugId, b);
                     return new Project(
-                            id, key, name, description,
+                            id, version, key, name, this.description,
                             managerId, teamLeadId,
                             members,
                             milestones,
                             tickets,
                             next,
+                            summary,
                             createdAt,
                             now
                     );
@@ -458,7 +598,55 @@ public record Project(
         Objects.requireNonNull(developerId, "developerId");
         Objects.requireNonNull(now, "now");
 
-        var b = bugReports.get(bugId);
+        return assigned(bugId, bugReports.get(bugId), developerId, now)
+                .map(updated -> withBugReports(PersistentMap.from(bugReports).plus(bugId, updated), now));
+    }
+
+    public DomainResult<Project> applyBugReportAction(BugReportId bugId, BugReportAction action, Instant now) {
+        Objects.requireNonNull(bugId, "bugId");
+        Objects.requireNonNull(action, "action");
+        Objects.requireNonNull(now, "now");
+
+        return acted(bugId, bugReports.get(bugId), action, now)
+                .map(updated -> withBugReports(PersistentMap.from(bugReports).plus(bugId, updated), now));
+    }
+
+    /**
+     * Пакетный assignBugToDeveloper: одна новая версия проекта на пакет, результат по каждому багу.
+     */
+    public BatchOutcome<BugReport> assignBugsToDeveloper(List<BugReportId> bugIds, UserId developerId, Instant now) {
+        Objects.requireNonNull(bugIds, "bugIds");
+        Objects.requireNonNull(developerId, "developerId");
+        Objects.requireNonNull(now, "now");
+        return bugBatch(bugIds, now, (bid, b) -> assigned(bid, b, developerId, now));
+    }
+
+    /**
+     * Пакетный applyBugReportAction (например, закрыть все TESTED баги): проверки роли и перехода — по каждому багу.
+     */
+    public BatchOutcome<BugReport> applyBugReportActions(List<BugReportId> bugIds, BugReportAction action, Instant now) {
+        Objects.requireNonNull(bugIds, "bugIds");
+        Objects.requireNonNull(action, "action");
+        Objects.requireNonNull(now, "now");
+        return bugBatch(bugIds, now, (bid, b) -> acted(bid, b, action, now));
+    }
+
+    private BatchOutcome<BugReport> bugBatch(List<BugReportId> bugIds,
+                                             Instant now,
+                                             BiFunction<BugReportId, BugReport, DomainResult<BugReport>> step) {
+        var next = PersistentMap.from(bugReports);
+        var results = new ArrayList<DomainResult<BugReport>>(bugIds.size());
+        for (var bid : bugIds) {
+            var res = step.apply(bid, next.get(bid));
+            if (res.isSuccess()) {
+                next = next.plus(bid, res.orElseThrow());
+            }
+            results.add(res);
+        }
+        return new BatchOutcome<>(next == bugReports ? this : withBugReports(next, now), results);
+    }
+
+    private DomainResult<BugReport> assigned(BugReportId bugId, BugReport b, UserId developerId, Instant now) {
         if (b == null) {
             return DomainResult.err(new DomainError.NotFound("BugReport", bugId.toString()));
         }
@@ -476,29 +664,10 @@ public record Project(
                     "assignee must be DEVELOPER or TEAM_LEAD"
             ));
         }
-
-        var updated = b.assignTo(developerId, now);
-        var next = new HashMap<>(bugReports);
-        next.put(bugId, updated);
-
-        return DomainResult.ok(new Project(
-                id, key, name, description,
-                managerId, teamLeadId,
-                members,
-                milestones,
-                tickets,
-                next,
-                createdAt,
-                now
-        ));
+        return DomainResult.ok(b.assignTo(developerId, now));
     }
 
-    public DomainResult<Project> applyBugReportAction(BugReportId bugId, BugReportAction action, Instant now) {
-        Objects.requireNonNull(bugId, "bugId");
-        Objects.requireNonNull(action, "action");
-        Objects.requireNonNull(now, "now");
-
-        var b = bugReports.get(bugId);
+    private DomainResult<BugReport> acted(BugReportId bugId, BugReport b, BugReportAction action, Instant now) {
         if (b == null) {
             return DomainResult.err(new DomainError.NotFound("BugReport", bugId.toString()));
         }
@@ -543,19 +712,127 @@ public record Project(
             }
         }
 
-        return b.apply(action, now).map(updated -> {
-            var next = new HashMap<>(bugReports);
-            next.put(bugId, updated);
-            return new Project(
-                    id, key, name, description,
-                    managerId, teamLeadId,
-                    members,
-                    milestones,
-                    tickets,
-                    next,
-                    createdAt,
-                    now
-            );
-        });
+        return b.apply(action, now);
+    }
+
+    private Project withBugReports(PersistentMap<BugReportId, BugReport> next, Instant now) {
+        return new Project(
+                id, version, key, name, description,
+                managerId, teamLeadId,
+                members,
+                milestones,
+                tickets,
+                next,
+                summary,
+                createdAt,
+                now
+        );
+    }
+
+    // ---------- Archival ----------
+
+    /**
+     * Тикеты milestone, ещё находящиеся в агрегате.
+     */
+    public List<Ticket> ticketsOf(MilestoneId milestoneId) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        if (summary.countsFor(milestoneId).total() == 0) {
+            return List.of();
+        }
+        var out = new ArrayList<Ticket>();
+        for (var t : tickets.values()) {
+            if (t.milestoneId().equals(milestoneId)) {
+                out.add(t);
+            }
+        }
+        return List.copyOf(out);
+    }
+
+    /**
+     * Выносит из агрегата тикеты CLOSED milestone: они все DONE и больше не меняются,
+     * поэтому агрегат хранит только активную работу (сами тикеты перед этим сохраняются вне Project).
+     * Запись milestone остаётся — по ней проверяются переходы и создание тикетов.
+     */
+    public DomainResult<Project> archiveMilestoneTickets(MilestoneId milestoneId) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+
+        var ms = milestones.get(milestoneId);
+        if (ms == null) {
+            return DomainResult.err(new DomainError.NotFound("Milestone", milestoneId.toString()));
+        }
+        if (ms.status() != MilestoneStatus.CLOSED) {
+            return DomainResult.err(new DomainError.InvariantViolation(
+                    "milestone.archiveRequiresClosed",
+                    "only tickets of CLOSED milestone can be archived"
+            ));
+        }
+
+        var archived = ticketsOf(milestoneId);
+        if (archived.isEmpty()) {
+            return DomainResult.ok(this); // идемпотентность
+        }
+
+        var next = PersistentMap.from(tickets);
+        for (var t : archived) {
+            next = next.minus(t.id());
+        }
+
+        return DomainResult.ok(new Project(
+                id, version, key, name, description,
+                managerId, teamLeadId,
+                members,
+                milestones,
+                next,
+                bugReports,
+                summary.withoutMilestone(milestoneId, next),
+                createdAt,
+                updatedAt
+        ));
+    }
+
+    /**
+     * Выносит из агрегата CLOSED баг (терминальный статус).
+     */
+    public DomainResult<Project> archiveBugReport(BugReportId bugId) {
+        Objects.requireNonNull(bugId, "bugId");
+        return archiveBugReports(List.of(bugId));
+    }
+
+    /**
+     * Выносит из агрегата несколько CLOSED багов одной новой версией; любой отсутствующий или незакрытый
+     * баг отклоняет весь вынос.
+     */
+    public DomainResult<Project> archiveBugReports(List<BugReportId> bugIds) {
+        Objects.requireNonNull(bugIds, "bugIds");
+
+        var next = PersistentMap.from(bugReports);
+        for (var bugId : bugIds) {
+            var b = bugReports.get(bugId);
+            if (b == null) {
+                return DomainResult.err(new DomainError.NotFound("BugReport", bugId.toString()));
+            }
+            if (b.status() != BugStatus.CLOSED) {
+                return DomainResult.err(new DomainError.InvariantViolation(
+                        "bug.archiveRequiresClosed",
+                        "only CLOSED bug report can be archived"
+                ));
+            }
+            next = next.minus(bugId);
+        }
+        if (next == bugReports) {
+            return DomainResult.ok(this);
+        }
+
+        return DomainResult.ok(new Project(
+                id, version, key, name, description,
+                managerId, teamLeadId,
+                members,
+                milestones,
+                tickets,
+                next,
+                summary,
+                createdAt,
+                updatedAt
+        ));
     }
 }
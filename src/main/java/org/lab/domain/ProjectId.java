@@ -3,17 +3,27 @@ package org.lab.domain;
 import java.util.Objects;
 import java.util.UUID;
 
-public record ProjectId(UUID value) {
-    public ProjectId {
-        Objects.requireNonNull(value, "value");
+public record ProjectId(long msb, long lsb) implements Comparable<ProjectId> {
+
+    public ProjectId(UUID value) {
+        this(Objects.requireNonNull(value, "value").getMostSignificantBits(), value.getLeastSignificantBits());
     }
 
     public static ProjectId newId() {
-        return new ProjectId(UUID.randomUUID());
+        return new ProjectId(Ids.next());
+    }
+
+    public UUID value() {
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public int compareTo(ProjectId other) {
+        return IdGenerator.compare(msb, lsb, other.msb, other.lsb);
     }
 
     @Override
     public String toString() {
-        return value.toString();
+        return value().toString();
     }
 }
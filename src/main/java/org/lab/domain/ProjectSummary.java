@@ -0,0 +1,215 @@
+package org.lab.domain;
+
+import org.lab.domain.collect.PersistentMap;
+import org.lab.domain.enums.MilestoneStatus;
+import org.lab.domain.enums.TicketStatus;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Инкрементально поддерживаемая сводка агрегата Project:
+ * - activeMilestoneId — единственный ACTIVE milestone (или null);
+ * - ticketCounts — счётчики тикетов по статусам для каждого milestone.
+ * Доменные методы Project обновляют сводку за O(1)/O(log N), поэтому проверки инвариантов
+ * (один ACTIVE milestone, закрытие только при всех DONE) не сканируют коллекции.
+ * Сводка помнит (по ссылке) версии milestones и tickets, которые описывает: Project доверяет ей только
+ * для этих версий, а для других выводит новую сводку из разницы коллекций (rebasedOn) или пересчитывает.
+ * Поэтому переходы закрыты в пакете domain, и снаружи нельзя собрать агрегат с расходящейся сводкой.
+ */
+public final class ProjectSummary {
+
+    public static final ProjectSummary EMPTY =
+            new ProjectSummary(null, PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+
+    private final MilestoneId activeMilestoneId;
+    private final PersistentMap<MilestoneId, TicketStatusCounts> ticketCounts;
+    private final PersistentMap<MilestoneId, Milestone> milestones;
+    private final PersistentMap<TicketId, Ticket> tickets;
+
+    private ProjectSummary(MilestoneId activeMilestoneId,
+                           PersistentMap<MilestoneId, TicketStatusCounts> ticketCounts,
+                           PersistentMap<MilestoneId, Milestone> milestones,
+                           PersistentMap<TicketId, Ticket> tickets) {
+        this.activeMilestoneId = activeMilestoneId;
+        this.ticketCounts = Objects.requireNonNull(ticketCounts, "ticketCounts");
+        this.milestones = Objects.requireNonNull(milestones, "milestones");
+        this.tickets = Objects.requireNonNull(tickets, "tickets");
+    }
+
+    /**
+     * Полный пересчёт сводки (O(N)) — для проектов, собранных не доменными методами
+     * (например, при восстановлении из хранилища).
+     */
+    public static ProjectSummary of(Map<MilestoneId, Milestone> milestones, Map<TicketId, Ticket> tickets) {
+        Objects.requireNonNull(milestones, "milestones");
+        Objects.requireNonNull(tickets, "tickets");
+
+        MilestoneId active = null;
+        for (var m : milestones.values()) {
+            if (m.status() == MilestoneStatus.ACTIVE) {
+                if (active != null) {
+                    throw singleActiveBroken();
+                }
+                active = m.id();
+            }
+        }
+
+        var counts = PersistentMap.<MilestoneId, TicketStatusCounts>empty();
+        for (var t : tickets.values()) {
+            counts = counts.plus(t.milestoneId(), counts.getOrDefault(t.milestoneId(), TicketStatusCounts.ZERO).plus(t.status(), 1));
+        }
+        return new ProjectSummary(active, counts, PersistentMap.from(milestones), PersistentMap.from(tickets));
+    }
+
+    public MilestoneId activeMilestoneId() {
+        return activeMilestoneId;
+    }
+
+    public Map<MilestoneId, TicketStatusCounts> ticketCounts() {
+        return ticketCounts;
+    }
+
+    public Optional<MilestoneId> activeMilestoneIdOpt() {
+        return Optional.ofNullable(activeMilestoneId);
+    }
+
+    public TicketStatusCounts countsFor(MilestoneId milestoneId) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        return ticketCounts.getOrDefault(milestoneId, TicketStatusCounts.ZERO);
+    }
+
+    /**
+     * Описывает ли сводка именно эти версии коллекций (сравнение по ссылке, O(1)).
+     */
+    boolean describes(Map<MilestoneId, Milestone> milestones, Map<TicketId, Ticket> tickets) {
+        return this.milestones == milestones && this.tickets == tickets;
+    }
+
+    /**
+     * Сводка для других версий коллекций, выведенная из этой по их разнице (PersistentMap.diff): для версий,
+     * полученных через plus/minus, стоимость пропорциональна числу изменений, а не размеру проекта.
+     *
+     * @throws IllegalStateException если в milestones больше одного ACTIVE
+     */
+    ProjectSummary rebasedOn(PersistentMap<MilestoneId, Milestone> milestones, PersistentMap<TicketId, Ticket> tickets) {
+        var activated = new ArrayList<MilestoneId>(1);
+        PersistentMap.diff(this.milestones, milestones, (mid, m) -> {
+            if (m.status() == MilestoneStatus.ACTIVE && !mid.equals(activeMilestoneId)) {
+                activated.add(mid);
+            }
+        }, mid -> { });
+        var active = activeMilestoneId;
+        if (active != null) {
+            var m = milestones.get(active);
+            if (m == null || m.status() != MilestoneStatus.ACTIVE) {
+                active = null;
+            }
+        }
+        for (var mid : activated) {
+            if (active != null) {
+                throw singleActiveBroken();
+            }
+            active = mid;
+        }
+
+        var before = this.tickets;
+        var removed = new ArrayList<Ticket>();
+        var added = new ArrayList<Ticket>();
+        PersistentMap.diff(before, tickets, (tid, t) -> {
+            var prev = before.get(tid);
+            if (prev != null) {
+                removed.add(prev);
+            }
+            added.add(t);
+        }, tid -> removed.add(before.get(tid)));
+        var counts = ticketCounts;
+        for (var t : removed) {
+            counts = moved(counts, t.milestoneId(), t.status(), null);
+        }
+        for (var t : added) {
+            counts = moved(counts, t.milestoneId(), null, t.status());
+        }
+        return new ProjectSummary(active, counts, milestones, tickets);
+    }
+
+    /**
+     * Новый ACTIVE milestone (или null после закрытия) для новой версии milestones.
+     */
+    ProjectSummary withActiveMilestone(MilestoneId milestoneId, PersistentMap<MilestoneId, Milestone> milestones) {
+        return new ProjectSummary(milestoneId, ticketCounts, milestones, tickets);
+    }
+
+    /**
+     * Убирает счётчики milestone (его тикеты вынесены из агрегата).
+     */
+    ProjectSummary withoutMilestone(MilestoneId milestoneId, PersistentMap<TicketId, Ticket> tickets) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        return new ProjectSummary(activeMilestoneId, ticketCounts.minus(milestoneId), milestones, tickets);
+    }
+
+    /**
+     * Учитывает n новых тикетов milestone в статусе status (пакетное создание) одним обновлением счётчиков.
+     */
+    ProjectSummary withTicketsAdded(MilestoneId milestoneId, TicketStatus status, int n, PersistentMap<TicketId, Ticket> tickets) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        Objects.requireNonNull(status, "status");
+        if (n == 0) {
+            return new ProjectSummary(activeMilestoneId, ticketCounts, milestones, tickets);
+        }
+        var counts = countsFor(milestoneId).plus(status, n);
+        return new ProjectSummary(activeMilestoneId, ticketCounts.plus(milestoneId, counts), milestones, tickets);
+    }
+
+    /**
+     * Учитывает переход тикета milestone из статуса from в статус to:
+     * from == null — тикет добавлен, to == null — тикет убран из агрегата.
+     */
+    ProjectSummary withTicketMoved(MilestoneId milestoneId, TicketStatus from, TicketStatus to, PersistentMap<TicketId, Ticket> tickets) {
+        Objects.requireNonNull(milestoneId, "milestoneId");
+        return new ProjectSummary(activeMilestoneId, moved(ticketCounts, milestoneId, from, to), milestones, tickets);
+    }
+
+    private static PersistentMap<MilestoneId, TicketStatusCounts> moved(PersistentMap<MilestoneId, TicketStatusCounts> ticketCounts,
+                                                                        MilestoneId milestoneId,
+                                                                        TicketStatus from,
+                                                                        TicketStatus to) {
+        if (from == to) {
+            return ticketCounts;
+        }
+        var counts = ticketCounts.getOrDefault(milestoneId, TicketStatusCounts.ZERO);
+        if (to != null) {
+            counts = counts.plus(to, 1);
+        }
+        if (from != null) {
+            counts = counts.plus(from, -1);
+        }
+        return counts.total() == 0 ? ticketCounts.minus(milestoneId) : ticketCounts.plus(milestoneId, counts);
+    }
+
+    private static IllegalStateException singleActiveBroken() {
+        return new IllegalStateException("Project invariant broken: only one ACTIVE milestone allowed");
+    }
+
+    /**
+     * Значение сводки — activeMilestoneId и счётчики; описываемые версии коллекций в равенство не входят.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ProjectSummary other
+                && Objects.equals(activeMilestoneId, other.activeMilestoneId)
+                && ticketCounts.equals(other.ticketCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(activeMilestoneId) + ticketCounts.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectSummary[activeMilestoneId=" + activeMilestoneId + ", ticketCounts=" + ticketCounts + "]";
+    }
+}
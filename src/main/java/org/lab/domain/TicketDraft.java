@@ -0,0 +1,15 @@
+package org.lab.domain;
+
+import java.util.Objects;
+
+/**
+ * Тикет для пакетного создания (Project.createTickets): id и уже проверенные title/description.
+ */
+public record TicketDraft(TicketId id, Title title, Description description) {
+
+    public TicketDraft {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(title, "title");
+        Objects.requireNonNull(description, "description");
+    }
+}
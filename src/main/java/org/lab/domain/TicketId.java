@@ -3,17 +3,27 @@ package org.lab.domain;
 import java.util.Objects;
 import java.util.UUID;
 
-public record TicketId(UUID value) {
-    public TicketId {
-        Objects.requireNonNull(value, "value");
+public record TicketId(long msb, long lsb) implements Comparable<TicketId> {
+
+    public TicketId(UUID value) {
+        this(Objects.requireNonNull(value, "value").getMostSignificantBits(), value.getLeastSignificantBits());
     }
 
     public static TicketId newId() {
-        return new TicketId(UUID.randomUUID());
+        return new TicketId(Ids.next());
+    }
+
+    public UUID value() {
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public int compareTo(TicketId other) {
+        return IdGenerator.compare(msb, lsb, other.msb, other.lsb);
     }
 
     @Override
     public String toString() {
-        return value.toString();
+        return value().toString();
     }
 }
@@ -0,0 +1,47 @@
+package org.lab.domain;
+
+import org.lab.domain.enums.TicketStatus;
+
+import java.util.Objects;
+
+/**
+ * Счётчики тикетов milestone по статусам (часть инкрементальной сводки ProjectSummary).
+ */
+public record TicketStatusCounts(int newTickets, int accepted, int inProgress, int done) {
+
+    public static final TicketStatusCounts ZERO = new TicketStatusCounts(0, 0, 0, 0);
+
+    public TicketStatusCounts {
+        if (newTickets < 0 || accepted < 0 || inProgress < 0 || done < 0) {
+            throw new IllegalStateException("ticket counts must be >= 0");
+        }
+    }
+
+    public int total() {
+        return newTickets + accepted + inProgress + done;
+    }
+
+    public boolean allDone() {
+        return done == total();
+    }
+
+    public int count(TicketStatus status) {
+        Objects.requireNonNull(status, "status");
+        return switch (status) {
+            case NEW -> newTickets;
+            case ACCEPTED -> accepted;
+            case IN_PROGRESS -> inProgress;
+            case DONE -> done;
+        };
+    }
+
+    TicketStatusCounts plus(TicketStatus status, int delta) {
+        Objects.requireNonNull(status, "status");
+        return switch (status) {
+            case NEW -> new TicketStatusCounts(newTickets + delta, accepted, inProgress, done);
+            case ACCEPTED -> new TicketStatusCounts(newTickets, accepted + delta, inProgress, done);
+            case IN_PROGRESS -> new TicketStatusCounts(newTickets, accepted, inProgress + delta, done);
+            case DONE -> new TicketStatusCounts(newTickets, accepted, inProgress, done + delta);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package org.lab.domain;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Генератор UUIDv7 (RFC 9562): unix_ts_ms(48) | ver=7(4) | counter(12) || var=10(2) | random(62).
+ * Состояние (последняя миллисекунда и счётчик) хранится per-thread, энтропия — ThreadLocalRandom,
+ * поэтому генерация не сериализуется между потоками.
+ */
+final class TimeOrderedIdGenerator implements IdGenerator {
+
+    static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator();
+
+    private static final int COUNTER_BITS = 12;
+    private static final int COUNTER_MAX = (1 << COUNTER_BITS) - 1;
+
+    private static final class State {
+        long lastMillis = -1;
+        int counter;
+    }
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TimeOrderedIdGenerator() { }
+
+    @Override
+    public UUID next() {
+        var rnd = ThreadLocalRandom.current();
+        var st = STATE.get();
+        long now = System.currentTimeMillis();
+
+        if (now > st.lastMillis) {
+            st.lastMillis = now;
+            // случайный старт в нижней половине диапазона оставляет запас под счётчик
+            st.counter = rnd.nextInt(COUNTER_MAX >>> 1);
+        } else if (st.counter < COUNTER_MAX) {
+            // та же миллисекунда или часы ушли назад: остаёмся на lastMillis, монотонность сохраняется
+            st.counter++;
+        } else {
+            st.lastMillis++;
+            st.counter = 0;
+        }
+
+        long msb = (st.lastMillis << 16) | (0x7L << COUNTER_BITS) | st.counter;
+        long lsb = (rnd.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -3,17 +3,27 @@ package org.lab.domain;
 import java.util.Objects;
 import java.util.UUID;
 
-public record UserId(UUID value) {
-    public UserId {
-        Objects.requireNonNull(value, "value");
+public record UserId(long msb, long lsb) implements Comparable<UserId> {
+
+    public UserId(UUID value) {
+        this(Objects.requireNonNull(value, "value").getMostSignificantBits(), value.getLeastSignificantBits());
     }
 
     public static UserId newId() {
-        return new UserId(UUID.randomUUID());
+        return new UserId(Ids.next());
+    }
+
+    public UUID value() {
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public int compareTo(UserId other) {
+        return IdGenerator.compare(msb, lsb, other.msb, other.lsb);
     }
 
     @Override
     public String toString() {
-        return value.toString();
+        return value().toString();
     }
 }
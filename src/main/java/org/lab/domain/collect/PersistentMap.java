@@ -0,0 +1,511 @@
+package org.lab.domain.collect;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Неизменяемая persistent hash map (HAMT, hash array mapped trie).
+ * Modern Java:
+ * - Sealed interface для узлов дерева (BitmapNode | CollisionNode) и pattern matching по ним.
+ * - plus/minus копируют только путь от корня до листа (O(log32 N)), остальные узлы разделяются
+ *   между старой и новой версией карты — обновление большого агрегата не копирует всю коллекцию.
+ * Семантика как у Map.copyOf: null-ключи и null-значения запрещены, мутирующие методы Map бросают
+ * UnsupportedOperationException, порядок итерации не определён.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Возвращает map как есть, если она уже persistent, иначе строит новую (O(N), один раз).
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> from(Map<? extends K, ? extends V> map) {
+        Objects.requireNonNull(map, "map");
+        if (map instanceof PersistentMap<?, ?> pm) {
+            return (PersistentMap<K, V>) pm;
+        }
+        PersistentMap<K, V> out = empty();
+        for (var e : map.entrySet()) {
+            out = out.plus(e.getKey(), e.getValue());
+        }
+        return out;
+    }
+
+    public PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        var added = new boolean[1];
+        var nextRoot = root.put(new Leaf<>(spread(key.hashCode()), key, value), 0, added);
+        if (nextRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(nextRoot, added[0] ? size + 1 : size);
+    }
+
+    public PersistentMap<K, V> minus(Object key) {
+        Objects.requireNonNull(key, "key");
+        var nextRoot = root.remove(spread(key.hashCode()), key, 0);
+        if (nextRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(nextRoot, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Objects.requireNonNull(key, "key");
+        var leaf = root.find(spread(key.hashCode()), key, 0);
+        return leaf == null ? null : (V) leaf.getValue();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Objects.requireNonNull(key, "key");
+        return root.find(spread(key.hashCode()), key, 0) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action, "action");
+        root.forEachLeaf(leaf -> action.accept((K) leaf.getKey(), (V) leaf.getValue()));
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new LeafIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry<?, ?> e) || e.getKey() == null) {
+                    return false;
+                }
+                var leaf = root.find(spread(e.getKey().hashCode()), e.getKey(), 0);
+                return leaf != null && leaf.getValue().equals(e.getValue());
+            }
+        };
+    }
+
+    /**
+     * Разница двух версий карты: onPut получает добавленные и изменённые (по ссылке) записи after,
+     * onRemove — ключи, которых нет в after. Общие поддеревья (одна и та же ссылка) пропускаются,
+     * поэтому для версий, полученных через plus/minus, стоимость пропорциональна числу изменений.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> void diff(PersistentMap<K, V> before,
+                                   PersistentMap<K, V> after,
+                                   BiConsumer<? super K, ? super V> onPut,
+                                   Consumer<? super K> onRemove) {
+        Objects.requireNonNull(before, "before");
+        Objects.requireNonNull(after, "after");
+        Objects.requireNonNull(onPut, "onPut");
+        Objects.requireNonNull(onRemove, "onRemove");
+        diffSlots(before.root, after.root,
+                (BiConsumer<Object, Object>) onPut,
+                (Consumer<Object>) onRemove);
+    }
+
+    private static void diffSlots(Object before,
+                                  Object after,
+                                  BiConsumer<Object, Object> onPut,
+                                  Consumer<Object> onRemove) {
+        if (before == after) {
+            return;
+        }
+        if (before instanceof BitmapNode a && after instanceof BitmapNode b) {
+            int bits = a.bitmap | b.bitmap;
+            while (bits != 0) {
+                int bit = Integer.lowestOneBit(bits);
+                bits &= ~bit;
+                var sa = (a.bitmap & bit) == 0 ? null : a.slots[Integer.bitCount(a.bitmap & (bit - 1))];
+                var sb = (b.bitmap & bit) == 0 ? null : b.slots[Integer.bitCount(b.bitmap & (bit - 1))];
+                diffSlots(sa, sb, onPut, onRemove);
+            }
+            return;
+        }
+        // разные формы (лист/узел/collision): сравниваем листья поддеревьев напрямую
+        var previous = new HashMap<Object, Object>();
+        forEachLeafOf(before, l -> previous.put(l.getKey(), l.getValue()));
+        forEachLeafOf(after, l -> {
+            var old = previous.remove(l.getKey());
+            if (old != l.getValue()) {
+                onPut.accept(l.getKey(), l.getValue());
+            }
+        });
+        previous.keySet().forEach(onRemove);
+    }
+
+    private static void forEachLeafOf(Object slot, Consumer<Leaf<?, ?>> action) {
+        switch (slot) {
+            case null -> { }
+            case Leaf<?, ?> l -> action.accept(l);
+            case Node n -> n.forEachLeaf(action);
+            default -> throw new IllegalStateException("corrupted node");
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    // ---------- Nodes ----------
+
+    private static final class Leaf<K, V> extends SimpleImmutableEntry<K, V> {
+        final int hash;
+
+        Leaf(int hash, K key, V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    private sealed interface Node permits BitmapNode, CollisionNode {
+
+        Leaf<?, ?> find(int hash, Object key, int shift);
+
+        Node put(Leaf<?, ?> leaf, int shift, boolean[] added);
+
+        Node remove(int hash, Object key, int shift);
+
+        void forEachLeaf(Consumer<Leaf<?, ?>> action);
+    }
+
+    /**
+     * Узел с битовой картой: slots[i] — либо Leaf, либо дочерний Node.
+     */
+    private static final class BitmapNode implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Leaf<?, ?> find(int hash, Object key, int shift) {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            return switch (slots[index(bit)]) {
+                case Leaf<?, ?> l -> l.hash == hash && l.getKey().equals(key) ? l : null;
+                case Node n -> n.find(hash, key, shift + BITS);
+                default -> throw new IllegalStateException("corrupted node");
+            };
+        }
+
+        @Override
+        public Node put(Leaf<?, ?> leaf, int shift, boolean[] added) {
+            int bit = 1 << fragment(leaf.hash, shift);
+            int idx = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                var next = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, next, 0, idx);
+                next[idx] = leaf;
+                System.arraycopy(slots, idx, next, idx + 1, slots.length - idx);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, next);
+            }
+
+            var slot = slots[idx];
+            Object replacement;
+            if (slot instanceof Leaf<?, ?> existing) {
+                if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+                    if (existing.getValue() == leaf.getValue()) {
+                        return this;
+                    }
+                    replacement = leaf;
+                } else {
+                    added[0] = true;
+                    replacement = merge(existing, leaf, shift + BITS);
+                }
+            } else {
+                var child = (Node) slot;
+                var nextChild = child.put(leaf, shift + BITS, added);
+                if (nextChild == child) {
+                    return this;
+                }
+                replacement = nextChild;
+            }
+
+            var next = slots.clone();
+            next[idx] = replacement;
+            return new BitmapNode(bitmap, next);
+        }
+
+        @Override
+        public Node remove(int hash, Object key, int shift) {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            var slot = slots[idx];
+
+            if (slot instanceof Leaf<?, ?> l) {
+                if (l.hash != hash || !l.getKey().equals(key)) {
+                    return this;
+                }
+                return without(idx, bit);
+            }
+
+            var child = (Node) slot;
+            var nextChild = child.remove(hash, key, shift + BITS);
+            if (nextChild == child) {
+                return this;
+            }
+            var compacted = compact(nextChild);
+            if (compacted == null) {
+                return without(idx, bit);
+            }
+            var next = slots.clone();
+            next[idx] = compacted;
+            return new BitmapNode(bitmap, next);
+        }
+
+        private BitmapNode without(int idx, int bit) {
+            if (slots.length == 1) {
+                return EMPTY;
+            }
+            var next = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, next, 0, idx);
+            System.arraycopy(slots, idx + 1, next, idx, slots.length - idx - 1);
+            return new BitmapNode(bitmap & ~bit, next);
+        }
+
+        @Override
+        public void forEachLeaf(Consumer<Leaf<?, ?>> action) {
+            for (var slot : slots) {
+                if (slot instanceof Leaf<?, ?> l) {
+                    action.accept(l);
+                } else {
+                    ((Node) slot).forEachLeaf(action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Узел для ключей с полностью совпадающим hash.
+     */
+    private static final class CollisionNode implements Node {
+
+        final int hash;
+        final Leaf<?, ?>[] leaves;
+
+        CollisionNode(int hash, Leaf<?, ?>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].getKey().equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Leaf<?, ?> find(int hash, Object key, int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int i = indexOf(key);
+            return i < 0 ? null : leaves[i];
+        }
+
+        @Override
+        public Node put(Leaf<?, ?> leaf, int shift, boolean[] added) {
+            if (leaf.hash != hash) {
+                // разные hash с общим префиксом: поднимаем развилку на текущий уровень
+                int bit = 1 << fragment(hash, shift);
+                return new BitmapNode(bit, new Object[]{this}).put(leaf, shift, added);
+            }
+            int i = indexOf(leaf.getKey());
+            if (i >= 0) {
+                if (leaves[i].getValue() == leaf.getValue()) {
+                    return this;
+                }
+                var next = leaves.clone();
+                next[i] = leaf;
+                return new CollisionNode(hash, next);
+            }
+            var next = new Leaf<?, ?>[leaves.length + 1];
+            System.arraycopy(leaves, 0, next, 0, leaves.length);
+            next[leaves.length] = leaf;
+            added[0] = true;
+            return new CollisionNode(hash, next);
+        }
+
+        @Override
+        public Node remove(int hash, Object key, int shift) {
+            if (hash != this.hash) {
+                return this;
+            }
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            var next = new Leaf<?, ?>[leaves.length - 1];
+            System.arraycopy(leaves, 0, next, 0, i);
+            System.arraycopy(leaves, i + 1, next, i, leaves.length - i - 1);
+            return new CollisionNode(hash, next);
+        }
+
+        @Override
+        public void forEachLeaf(Consumer<Leaf<?, ?>> action) {
+            for (var l : leaves) {
+                action.accept(l);
+            }
+        }
+    }
+
+    /**
+     * Узел из двух листьев с разными ключами, начиная с уровня shift.
+     */
+    private static Node merge(Leaf<?, ?> a, Leaf<?, ?> b, int shift) {
+        if (a.hash == b.hash || shift > MAX_SHIFT) {
+            return new CollisionNode(a.hash, new Leaf<?, ?>[]{a, b});
+        }
+        int fa = fragment(a.hash, shift);
+        int fb = fragment(b.hash, shift);
+        if (fa == fb) {
+            return new BitmapNode(1 << fa, new Object[]{merge(a, b, shift + BITS)});
+        }
+        var slots = fa < fb ? new Object[]{a, b} : new Object[]{b, a};
+        return new BitmapNode((1 << fa) | (1 << fb), slots);
+    }
+
+    /**
+     * После удаления: пустой узел -> null, узел из одного листа -> сам лист (поднимается к родителю).
+     */
+    private static Object compact(Node node) {
+        return switch (node) {
+            case BitmapNode bn when bn.slots.length == 0 -> null;
+            case BitmapNode bn when bn.slots.length == 1 && bn.slots[0] instanceof Leaf<?, ?> l -> l;
+            case CollisionNode cn when cn.leaves.length == 0 -> null;
+            case CollisionNode cn when cn.leaves.length == 1 -> cn.leaves[0];
+            default -> node;
+        };
+    }
+
+    // ---------- Iteration ----------
+
+    private static final class LeafIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final ArrayDeque<Object[]> arrays = new ArrayDeque<>();
+        private final ArrayDeque<int[]> positions = new ArrayDeque<>();
+        private Leaf<?, ?> next;
+
+        LeafIterator(Node root) {
+            push(root);
+            advance();
+        }
+
+        private void push(Node node) {
+            Object[] items = switch (node) {
+                case BitmapNode bn -> bn.slots;
+                case CollisionNode cn -> cn.leaves;
+            };
+            arrays.push(items);
+            positions.push(new int[]{0});
+        }
+
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                var items = arrays.peek();
+                var pos = positions.peek();
+                if (pos[0] >= items.length) {
+                    arrays.pop();
+                    positions.pop();
+                    continue;
+                }
+                var item = items[pos[0]++];
+                if (item instanceof Leaf<?, ?> l) {
+                    next = l;
+                    return;
+                }
+                push((Node) item);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            var out = (Entry<K, V>) next;
+            advance();
+            return out;
+        }
+    }
+}
@@ -8,25 +8,77 @@ import org.lab.domain.ProjectId;
 import org.lab.domain.UserId;
 import org.lab.domain.enums.BugStatus;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class BugReportRepository {
 
+    private static final Comparator<BugReportId> ID_ORDER = Comparator.naturalOrder();
+
     private final ConcurrentHashMap<BugReportId, BugReport> byId = new ConcurrentHashMap<>();
 
+    // Вторичные индексы; меняются только внутри compute по id бага (см. reindex)
+    private final SecondaryIndex<ProjectId, BugReportId> byProject = new SecondaryIndex<>(ID_ORDER);
+    private final SecondaryIndex<BugStatus, BugReportId> byStatus = new SecondaryIndex<>(ID_ORDER);
+    private final SecondaryIndex<UserId, BugReportId> byAssignee = new SecondaryIndex<>(ID_ORDER);
+    private final SecondaryIndex<AssigneeStatus, BugReportId> byAssigneeAndStatus = new SecondaryIndex<>(ID_ORDER);
+
+    private record AssigneeStatus(UserId assignee, BugStatus status) { }
+
+    private final WarmupGate warmup = new WarmupGate();
+    private final List<EntityListener<BugReport>> listeners = new CopyOnWriteArrayList<>();
+
     public BugReportId nextId() {
         return BugReportId.newId();
     }
 
+    /**
+     * Запросы ждут warmup (фоновая догрузка после старта); записи — нет.
+     */
+    public void holdQueriesUntil(CompletableFuture<?> warmup) {
+        this.warmup.holdUntil(warmup);
+    }
+
+    /**
+     * Запросы видят всё, что было опубликовано в ленту до их начала (см. EntityProjections).
+     */
+    public void followQueries(ChangeFeed.Subscription feed) {
+        this.warmup.follow(feed);
+    }
+
+    /**
+     * Ждёт того же, что и запросы репозитория (прогрев и ленту): для проекций, которые наполняются
+     * из его слушателей (AnalyticsStore). Не вызывать под замком, который берут слушатели.
+     */
+    public void awaitQueryable() {
+        warmup.await();
+    }
+
+    public void addListener(EntityListener<BugReport> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
     public DomainResult<BugReport> insert(BugReport bug) {
         Objects.requireNonNull(bug, "bug");
 
-        var prev = byId.putIfAbsent(bug.id(), bug);
-        if (prev != null) {
+        final var conflict = new AtomicBoolean(false);
+        byId.compute(bug.id(), (k, prev) -> {
+            if (prev != null) {
+                conflict.set(true);
+                return prev;
+            }
+            reindex(null, bug);
+            publish(null, bug);
+            return bug;
+        });
+        if (conflict.get()) {
             return DomainResult.err(new DomainError.Conflict("BugReport already exists: " + bug.id()));
         }
         return DomainResult.ok(bug);
@@ -34,57 +86,55 @@ public final class BugReportRepository {
 
     public DomainResult<BugReport> upsert(BugReport bug) {
         Objects.requireNonNull(bug, "bug");
-        byId.put(bug.id(), bug);
+        byId.compute(bug.id(), (k, prev) -> {
+            reindex(prev, bug);
+            publish(prev, bug);
+            return bug;
+        });
         return DomainResult.ok(bug);
     }
 
     public Optional<BugReport> findById(BugReportId id) {
         Objects.requireNonNull(id, "id");
+        warmup.await();
         return Optional.ofNullable(byId.get(id));
     }
 
     public List<BugReport> findAll() {
+        warmup.await();
         return byId.values().stream()
-                .sorted((a, b) -> a.id().toString().compareTo(b.id().toString()))
+                .sorted(Comparator.comparing(BugReport::id, ID_ORDER))
                 .collect(Collectors.toUnmodifiableList());
     }
 
     public List<BugReport> findByProject(ProjectId projectId) {
         Objects.requireNonNull(projectId, "projectId");
-        return byId.values().stream()
-                .filter(b -> b.projectId().equals(projectId))
-                .sorted((a, c) -> a.id().toString().compareTo(c.id().toString()))
-                .collect(Collectors.toUnmodifiableList());
+        warmup.await();
+        return byProject.resolve(projectId, byId::get, b -> b.projectId().equals(projectId));
     }
 
     public List<BugReport> findByStatus(BugStatus status) {
         Objects.requireNonNull(status, "status");
-        return byId.values().stream()
-                .filter(b -> b.status() == status)
-                .sorted((a, c) -> a.id().toString().compareTo(c.id().toString()))
-                .collect(Collectors.toUnmodifiableList());
+        warmup.await();
+        return byStatus.resolve(status, byId::get, b -> b.status() == status);
     }
 
     public List<BugReport> findByAssignedTo(UserId userId) {
         Objects.requireNonNull(userId, "userId");
-        return byId.values().stream()
-                .filter(b -> userId.equals(b.assignedTo()))
-                .sorted((a, c) -> a.id().toString().compareTo(c.id().toString()))
-                .collect(Collectors.toUnmodifiableList());
+        warmup.await();
+        return byAssignee.resolve(userId, byId::get, b -> userId.equals(b.assignedTo()));
     }
 
     public List<BugReport> findToFix(UserId userId) {
         Objects.requireNonNull(userId, "userId");
-        return byId.values().stream()
-                .filter(b -> b.status() == BugStatus.NEW)
-                .filter(b -> userId.equals(b.assignedTo()))
-                .sorted((a, c) -> a.id().toString().compareTo(c.id().toString()))
-                .collect(Collectors.toUnmodifiableList());
+        warmup.await();
+        return byAssigneeAndStatus.resolve(new AssigneeStatus(userId, BugStatus.NEW), byId::get,
+                b -> userId.equals(b.assignedTo()) && b.status() == BugStatus.NEW);
     }
 
     /**
      * Атомарное обновление сущности BugReport (замена record целиком).
-     * Сохраняем только при Success.
+     * Сохраняем только при Success; индексы меняются в том же compute, что и byId.
      */
     public DomainResult<BugReport> update(BugReportId id, java.util.function.Function<BugReport, DomainResult<BugReport>> updater) {
         Objects.requireNonNull(id, "id");
@@ -110,6 +160,8 @@ public final class BugReportRepository {
                 ref.set(DomainResult.err(new DomainError.InvariantViolation("bugReport.idImmutable", "bug report id cannot change")));
                 return old;
             }
+            reindex(old, updated);
+            publish(old, updated);
             ref.set(DomainResult.ok(updated));
             return updated;
         });
@@ -123,6 +175,55 @@ public final class BugReportRepository {
 
     public boolean delete(BugReportId id) {
         Objects.requireNonNull(id, "id");
-        return byId.remove(id) != null;
+        final var removed = new AtomicBoolean(false);
+        byId.computeIfPresent(id, (k, old) -> {
+            reindex(old, null);
+            publish(old, null);
+            removed.set(true);
+            return null;
+        });
+        return removed.get();
+    }
+
+    /**
+     * Переносит id бага между ключами индексов; prev/next == null означают вставку/удаление.
+     * Вызывается только внутри compute по id, поэтому для одного бага изменения не перемешиваются.
+     */
+    private void reindex(BugReport prev, BugReport next) {
+        var id = next != null ? next.id() : prev.id();
+
+        var prevProject = prev == null ? null : prev.projectId();
+        var nextProject = next == null ? null : next.projectId();
+        if (!Objects.equals(prevProject, nextProject)) {
+            if (prevProject != null) byProject.remove(prevProject, id);
+            if (nextProject != null) byProject.add(nextProject, id);
+        }
+
+        var prevStatus = prev == null ? null : prev.status();
+        var nextStatus = next == null ? null : next.status();
+        if (prevStatus != nextStatus) {
+            if (prevStatus != null) byStatus.remove(prevStatus, id);
+            if (nextStatus != null) byStatus.add(nextStatus, id);
+        }
+
+        var prevAssignee = prev == null ? null : prev.assignedTo();
+        var nextAssignee = next == null ? null : next.assignedTo();
+        if (!Objects.equals(prevAssignee, nextAssignee)) {
+            if (prevAssignee != null) byAssignee.remove(prevAssignee, id);
+            if (nextAssignee != null) byAssignee.add(nextAssignee, id);
+        }
+
+        var prevKey = prevAssignee == null || prevStatus == null ? null : new AssigneeStatus(prevAssignee, prevStatus);
+        var nextKey = nextAssignee == null || nextStatus == null ? null : new AssigneeStatus(nextAssignee, nextStatus);
+        if (!Objects.equals(prevKey, nextKey)) {
+            if (prevKey != null) byAssigneeAndStatus.remove(prevKey, id);
+            if (nextKey != null) byAssigneeAndStatus.add(nextKey, id);
+        }
+    }
+
+    private void publish(BugReport before, BugReport after) {
+        for (var l : listeners) {
+            l.changed(before, after);
+        }
     }
 }
@@ -0,0 +1,313 @@
+package org.lab.infra;
+
+import org.lab.domain.ProjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Лента изменений ProjectRepository (change data capture): каждая опубликованная версия проекта
+ * попадает сюда как ProjectChange с глобальным номером seq. Публикация без общих замков: номер — AtomicLong,
+ * событие кладётся в lock-free очередь каждого подписчика (много писателей, один читатель). Изменения одного
+ * проекта публикуются под его stripe-замком и идут в порядке версий; изменения разных проектов подписчик может
+ * получить не в порядке seq, поэтому "применено" — это число применённых изменений, а не последний seq.
+ * Очередь подписчика ограничена (capacity): когда она полна, публикующий ждёт, пока подписчик её разберёт
+ * (backpressure на запись, счётчик stalls в Lag). Поэтому handler и resync не должны писать в ProjectRepository.
+ * Подписчик обрабатывает ленту в своём потоке, асинхронно к записям.
+ * Если поток подписчика остановился (Error в handler'е или неудачная пересинхронизация), ожидающие
+ * его запросы получают IllegalStateException, а не висят.
+ */
+public final class ChangeFeed {
+
+    private static final int MAX_BATCH = 256;
+    /** Ёмкость очереди подписчика по умолчанию. */
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Отставание подписчика: pending — опубликованные, но ещё не применённые изменения, oldestPending — возраст
+     * самого старого из них, maxDelay — наибольшая задержка публикация -> применение за всё время;
+     * lastFailure — последнее исключение handler'а (null, если failures == 0); stoppedBy — причина
+     * остановки потока подписчика (null, пока он работает); stalls — сколько раз публикация ждала места в его очереди.
+     */
+    public record Lag(String subscriber,
+                      long published,
+                      long applied,
+                      long pending,
+                      Duration oldestPending,
+                      Duration maxDelay,
+                      long failures,
+                      Failure lastFailure,
+                      Throwable stoppedBy,
+                      long stalls) { }
+
+    /**
+     * Исключение handler'а на изменении с номером seq в ленте.
+     */
+    public record Failure(long seq, ProjectId projectId, RuntimeException error) { }
+
+    private record Event(long seq, ProjectChange change, long publishedAt) { }
+
+    private final int capacity;
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Подписывает handler на изменения, опубликованные после подписки, и запускает его поток.
+     * Если handler бросил RuntimeException, вызывается resync с тем же изменением: он должен привести
+     * проекцию этого проекта к текущему состоянию агрегата. Изменение считается применённым только после
+     * успешного handler'а или resync (неудача учитывается в failures); если упал и resync, подписчик
+     * останавливается на этом изменении.
+     */
+    public Subscription subscribe(String name, Consumer<ProjectChange> handler, Consumer<ProjectChange> resync) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(handler, "handler");
+        Objects.requireNonNull(resync, "resync");
+        var s = new Subscription(name, handler, resync);
+        subscribers.add(s);
+        // номер читается после добавления: изменение с большим номером публикуется уже с этим подписчиком (см. publish)
+        s.start(published.get());
+        return s;
+    }
+
+    public long published() {
+        return published.get();
+    }
+
+    public List<Lag> lag() {
+        var out = new ArrayList<Lag>(subscribers.size());
+        for (var s : subscribers) {
+            out.add(s.lag());
+        }
+        return List.copyOf(out);
+    }
+
+    boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Номер выдаётся до чтения списка подписчиков: подписчик, не попавший в список, прочитал начало
+     * не раньше этого номера и изменение не ждёт; попавший, но начавший после номера, его пропускает.
+     */
+    void publish(ProjectChange change) {
+        Objects.requireNonNull(change, "change");
+        var e = new Event(published.incrementAndGet(), change, System.nanoTime());
+        for (var s : subscribers) {
+            s.offer(e);
+        }
+    }
+
+    public final class Subscription {
+
+        private final String name;
+        private final Consumer<ProjectChange> handler;
+        private final Consumer<ProjectChange> resync;
+        private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+        /** Свободные места в queue: берёт публикующий, возвращает поток подписчика после применения. */
+        private final Semaphore free = new Semaphore(capacity);
+        private Thread worker;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+        /** Изменения с номером не больше from опубликованы до подписки и пропускаются. */
+        private long from;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition advanced = lock.newCondition();
+        /** from + число применённых изменений после подписки. */
+        private volatile long applied;
+        private volatile Event inFlight;
+        private volatile Throwable stoppedBy;
+
+        private final LongAdder failures = new LongAdder();
+        private volatile Failure lastFailure;
+        private final LongAccumulator maxDelayNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder stalls = new LongAdder();
+
+        private Subscription(String name, Consumer<ProjectChange> handler, Consumer<ProjectChange> resync) {
+            this.name = name;
+            this.handler = handler;
+            this.resync = resync;
+        }
+
+        private void start(long from) {
+            this.from = from;
+            this.applied = from;
+            // worker присваивается до старта: публикующий, увидевший parked, будит уже известный поток
+            this.worker = Thread.ofPlatform().daemon().name("change-feed-" + name).unstarted(this::drain);
+            worker.start();
+        }
+
+        /**
+         * Ставит событие в очередь; если она полна — ждёт места (backpressure). Остановленному подписчику
+         * события не передаются: его ожидающие уже получают IllegalStateException.
+         */
+        private void offer(Event e) {
+            if (!free.tryAcquire()) {
+                stalls.increment();
+                free.acquireUninterruptibly();
+            }
+            if (!running) {
+                free.release();
+                return;
+            }
+            queue.offer(e);
+            if (parked) {
+                LockSupport.unpark(worker);
+            }
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Ждёт, пока подписчик применит всё, что было опубликовано до вызова (read-your-writes для проекции).
+         * Из потока самого подписчика возвращается сразу.
+         *
+         * @throws IllegalStateException если поток подписчика остановился раньше, чем применил нужное изменение
+         */
+        public void awaitCaughtUp() {
+            long target = published.get();
+            if (applied >= target || Thread.currentThread() == worker) {
+                return;
+            }
+            lock.lock();
+            try {
+                while (applied < target) {
+                    var stopped = stoppedBy;
+                    if (stopped != null) {
+                        throw new IllegalStateException("Change feed subscriber '" + name + "' stopped after "
+                                + applied + " applied changes: " + stopped, stopped);
+                    }
+                    advanced.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public Lag lag() {
+            long done = applied;
+            long total = published.get();
+            var head = inFlight;
+            if (head == null) {
+                head = queue.peek();
+            }
+            long oldest = head == null ? 0 : Math.max(0, System.nanoTime() - head.publishedAt());
+            return new Lag(name, total, done, Math.max(0, total - done),
+                    Duration.ofNanos(oldest), Duration.ofNanos(maxDelayNanos.get()), failures.sum(), lastFailure, stoppedBy,
+                    stalls.sum());
+        }
+
+        private void drain() {
+            try {
+                drainLoop();
+            } catch (Throwable t) {
+                stoppedBy = t;
+                throw t;
+            } finally {
+                inFlight = null;
+                running = false;
+                // ждущие места публикации проходят и видят running == false
+                free.release(capacity);
+                signalAdvanced();
+            }
+        }
+
+        private void drainLoop() {
+            var batch = new ArrayList<Event>(MAX_BATCH);
+            while (true) {
+                if (!take(batch)) {
+                    return;
+                }
+                long done = applied;
+                for (var e : batch) {
+                    if (e.seq() <= from) {
+                        continue;
+                    }
+                    inFlight = e;
+                    try {
+                        handler.accept(e.change());
+                    } catch (RuntimeException ex) {
+                        lastFailure = new Failure(e.seq(), e.change().projectId(), ex);
+                        failures.increment();
+                        resync(e, ex);
+                    }
+                    maxDelayNanos.accumulate(System.nanoTime() - e.publishedAt());
+                    applied = ++done;
+                }
+                inFlight = null;
+                free.release(batch.size());
+                batch.clear();
+                signalAdvanced();
+            }
+        }
+
+        /**
+         * Забирает в batch до MAX_BATCH событий, засыпая на пустой очереди; false — поток прерван.
+         * parked пишется до повторной проверки очереди, а публикующий читает его после offer:
+         * событие, поставленное во время засыпания, либо увидено проверкой, либо будит поток.
+         */
+        private boolean take(List<Event> batch) {
+            Event e;
+            while ((e = queue.poll()) == null) {
+                parked = true;
+                if (queue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                if (Thread.interrupted()) {
+                    return false;
+                }
+            }
+            do {
+                batch.add(e);
+            } while (batch.size() < MAX_BATCH && (e = queue.poll()) != null);
+            return true;
+        }
+
+        /**
+         * Handler упал посреди изменения: проекция проекта могла разойтись с агрегатом, пропускать его нельзя.
+         */
+        private void resync(Event e, RuntimeException cause) {
+            try {
+                resync.accept(e.change());
+            } catch (RuntimeException ex) {
+                ex.addSuppressed(cause);
+                throw ex;
+            }
+        }
+
+        private void signalAdvanced() {
+            lock.lock();
+            try {
+                advanced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
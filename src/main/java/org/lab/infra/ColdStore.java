@@ -0,0 +1,67 @@
+package org.lab.infra;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Холодное хранилище завершённой работы, вынесенной из агрегата Project:
+ * тикеты CLOSED milestones и CLOSED баги. Записи неизменяемы, доступ — по id.
+ * Реализации: heap (ColdStore.inMemory()) и файл (org.lab.infra.storage.FileColdStore).
+ */
+public interface ColdStore {
+
+    static ColdStore inMemory() {
+        return new HeapColdStore();
+    }
+
+    /**
+     * Сохраняет тикеты; к возврату они durable (для файловой реализации), поэтому агрегат можно публиковать без них.
+     * Повторная запись того же тикета заменяет прежнюю.
+     */
+    void putTickets(Collection<Ticket> tickets);
+
+    /**
+     * Как putTickets: пакет durable к возврату одной записью.
+     */
+    void putBugs(Collection<BugReport> bugs);
+
+    default void putBug(BugReport bug) {
+        putBugs(List.of(bug));
+    }
+
+    Optional<Ticket> findTicket(TicketId id);
+
+    Optional<BugReport> findBug(BugReportId id);
+
+    void forEachTicket(Consumer<Ticket> action);
+
+    void forEachBug(Consumer<BugReport> action);
+
+    int ticketCount();
+
+    int bugCount();
+
+    /**
+     * Записи, сохранённые к моменту вызова (пакеты, которые пишутся в этот момент, в вид не попадают);
+     * для согласованного экспорта вместе с ProjectRepository.openSnapshot. Сущность, записанная повторно
+     * после вызова, из вида пропадает: вынос закрытых сущностей пишет каждую один раз.
+     */
+    View view();
+
+    interface View {
+        boolean containsTicket(TicketId id);
+
+        boolean containsBug(BugReportId id);
+
+        void forEachTicket(Consumer<Ticket> action);
+
+        void forEachBug(Consumer<BugReport> action);
+    }
+}
@@ -0,0 +1,180 @@
+package org.lab.infra;
+
+import org.lab.domain.DomainResult;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * COMBINING (flat combining): заявка встаёт в очередь своего stripe'а; поток, взявший замок, применяет всю очередь
+ * (и чужие заявки тоже), остальные спят, пока их заявку не выполнят. Замок берётся один раз на пачку,
+ * а журнал, diff, публикация и переиндексация делаются один раз на проект, а не на каждый updater.
+ */
+final class CombiningUpdate implements UpdateStrategy {
+
+    /** Сколько заявок combiner забирает за проход (чтобы не обслуживать чужие бесконечно). */
+    private static final int MAX_COMBINED = 256;
+    /** Страховочный таймаут ожидания заявки: combiner будит ждущих сам, таймаут нужен только при гонке. */
+    private static final long PARK_NANOS = 50_000L;
+
+    private final StripedLocks stripes;
+    private final ProjectCommits commits;
+    private final List<ConcurrentLinkedQueue<Request>> queues;
+
+    CombiningUpdate(StripedLocks stripes, ProjectCommits commits) {
+        this.stripes = Objects.requireNonNull(stripes, "stripes");
+        this.commits = Objects.requireNonNull(commits, "commits");
+        var out = new ArrayList<ConcurrentLinkedQueue<Request>>(stripes.count());
+        for (int i = 0; i < stripes.count(); i++) {
+            out.add(new ConcurrentLinkedQueue<>());
+        }
+        this.queues = List.copyOf(out);
+    }
+
+    /**
+     * Заявка. result/failure/commit пишет combiner до volatile-записи done,
+     * ожидающий читает их после чтения done (и сам ждёт durability своей записи — вне замка).
+     */
+    private static final class Request {
+        final ProjectId id;
+        final Function<Project, DomainResult<Project>> updater;
+        final Thread waiter = Thread.currentThread();
+        DomainResult<Project> result;
+        RuntimeException failure;
+        RepositoryJournal.Commit commit = RepositoryJournal.Commit.DURABLE;
+        volatile boolean done;
+
+        Request(ProjectId id, Function<Project, DomainResult<Project>> updater) {
+            this.id = id;
+            this.updater = updater;
+        }
+    }
+
+    @Override
+    public DomainResult<Project> update(ProjectId id, Function<Project, DomainResult<Project>> updater) {
+        int i = stripes.indexOf(id);
+        var stripe = stripes.at(i);
+        var queue = queues.get(i);
+        var request = new Request(id, updater);
+        queue.add(request);
+        while (!request.done) {
+            if (stripe.tryLock()) {
+                try {
+                    // предыдущий combiner мог обслужить заявку между проверкой done и захватом замка
+                    if (request.done) {
+                        break;
+                    }
+                    combine(queue, request);
+                } finally {
+                    stripe.unlock();
+                }
+                // заявки, вставшие после прохода, ждут: следующий combiner — самая старая из них
+                var next = queue.peek();
+                if (next != null) {
+                    LockSupport.unpark(next.waiter);
+                }
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        if (request.failure != null) {
+            throw request.failure;
+        }
+        request.commit.awaitDurable();
+        return request.result;
+    }
+
+    /**
+     * Забирает из очереди не больше MAX_COMBINED заявок, применяет их по проектам в порядке поступления
+     * и будит владельцев. Своя заявка может не попасть в проход (очередь длиннее предела) —
+     * тогда вызывающий снова пробует замок, а время одного прохода под замком остаётся ограниченным.
+     * Забранные заявки в очереди больше нет, поэтому каждая помечается выполненной при любом исходе прохода.
+     */
+    private void combine(ConcurrentLinkedQueue<Request> queue, Request own) {
+        var taken = new ArrayList<Request>();
+        boolean sameProject = true;
+        Request r;
+        while (taken.size() < MAX_COMBINED && (r = queue.poll()) != null) {
+            sameProject &= r.id.equals(own.id);
+            taken.add(r);
+        }
+        if (taken.isEmpty()) {
+            return;
+        }
+        try {
+            if (sameProject) {
+                apply(own.id, taken);
+            } else {
+                var byProject = new LinkedHashMap<ProjectId, List<Request>>();
+                for (var c : taken) {
+                    byProject.computeIfAbsent(c.id, k -> new ArrayList<>()).add(c);
+                }
+                byProject.forEach(this::apply);
+            }
+        } finally {
+            for (var c : taken) {
+                c.done = true;
+                if (c != own) {
+                    LockSupport.unpark(c.waiter);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updater'ы одного проекта применяются последовательно к промежуточному состоянию: каждый получает
+     * свою версию (предыдущая + 1) и свой DomainResult, неуспешный не меняет состояние для следующих.
+     * Публикуется только итог пачки; если публикация не удалась, успешные заявки получают её исключение.
+     * Если не удалось прочитать сам проект (загрузка из store), исключение получает каждая заявка пачки.
+     */
+    private void apply(ProjectId id, List<Request> batch) {
+        Project base;
+        try {
+            base = commits.current(id);
+        } catch (RuntimeException e) {
+            for (var r : batch) {
+                r.failure = e;
+            }
+            return;
+        }
+        if (base == null) {
+            for (var r : batch) {
+                r.result = UpdateStrategy.notFound(id);
+            }
+            return;
+        }
+        var last = base;
+        for (var r : batch) {
+            try {
+                r.result = UpdateStrategy.applyUpdater(id, last, r.updater);
+                if (r.result.isSuccess()) {
+                    last = r.result.orElseThrow();
+                }
+            } catch (RuntimeException e) {
+                r.failure = e;
+            }
+        }
+        if (last == base) {
+            return;
+        }
+        try {
+            var commit = commits.commit(base, last);
+            for (var r : batch) {
+                r.commit = commit;
+            }
+        } catch (RuntimeException e) {
+            for (var r : batch) {
+                if (r.failure == null && r.result.isSuccess()) {
+                    r.failure = e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.lab.infra;
+
+/**
+ * Подписчик на изменения сущностей репозитория (проекции, аналитика).
+ * Вызывается синхронно внутри атомарного изменения по id, поэтому изменения одной сущности
+ * приходят в порядке применения; реализация должна быть быстрой и не обращаться к тому же репозиторию.
+ */
+@FunctionalInterface
+public interface EntityListener<T> {
+
+    /**
+     * before == null — вставка, after == null — удаление.
+     */
+    void changed(T before, T after);
+}
@@ -0,0 +1,88 @@
+package org.lab.infra;
+
+import java.util.Objects;
+
+/**
+ * TicketRepository/BugReportRepository как асинхронные проекции агрегатов: их обновляет подписчик ленты
+ * ProjectRepository.changes(), а не код, который меняет проект. Запросы проекций ждут, пока подписчик
+ * применит всё опубликованное до запроса, поэтому изменение, подтверждённое вызывающему, в них уже видно.
+ * Сущность, удалённая из агрегата при выносе в cold, остаётся в проекции в своей вынесенной версии.
+ * Если применение изменения упало, проект пересинхронизируется из текущей версии агрегата (resync).
+ */
+public final class EntityProjections {
+
+    private final ProjectRepository projects;
+    private final TicketRepository tickets;
+    private final BugReportRepository bugs;
+    private final ColdStore cold;
+    private final ChangeFeed.Subscription subscription;
+
+    private EntityProjections(ProjectRepository projects, TicketRepository tickets, BugReportRepository bugs, ColdStore cold) {
+        this.projects = projects;
+        this.tickets = tickets;
+        this.bugs = bugs;
+        this.cold = cold;
+        this.subscription = projects.changes().subscribe("entity-projections", this::apply, this::resync);
+    }
+
+    /**
+     * Подписывает проекции на ленту projects (до начала обслуживания запросов и до восстановления из журнала).
+     */
+    public static EntityProjections follow(ProjectRepository projects,
+                                           TicketRepository tickets,
+                                           BugReportRepository bugs,
+                                           ColdStore cold) {
+        Objects.requireNonNull(projects, "projects");
+        Objects.requireNonNull(tickets, "tickets");
+        Objects.requireNonNull(bugs, "bugs");
+        Objects.requireNonNull(cold, "cold");
+        var p = new EntityProjections(projects, tickets, bugs, cold);
+        tickets.followQueries(p.subscription);
+        bugs.followQueries(p.subscription);
+        return p;
+    }
+
+    public ChangeFeed.Lag lag() {
+        return subscription.lag();
+    }
+
+    private void apply(ProjectChange change) {
+        for (var t : change.upsertedTickets()) {
+            tickets.upsert(t);
+        }
+        applyRemovals(change);
+        for (var b : change.upsertedBugs()) {
+            bugs.upsert(b);
+        }
+    }
+
+    /**
+     * Удаления из упавшего изменения применяются заново (они идемпотентны), затем все тикеты и баги проекта
+     * берутся из его текущей версии. Более поздние изменения проекта ещё в ленте и будут применены после.
+     */
+    private void resync(ProjectChange change) {
+        applyRemovals(change);
+        projects.findById(change.projectId()).ifPresent(p -> {
+            for (var t : p.tickets().values()) {
+                tickets.upsert(t);
+            }
+            for (var b : p.bugReports().values()) {
+                bugs.upsert(b);
+            }
+        });
+    }
+
+    private void applyRemovals(ProjectChange change) {
+        for (var id : change.removedTickets()) {
+            cold.findTicket(id).ifPresent(tickets::upsert);
+        }
+        for (var id : change.removedBugs()) {
+            var archived = cold.findBug(id);
+            if (archived.isPresent()) {
+                bugs.upsert(archived.get());
+            } else {
+                bugs.delete(id);
+            }
+        }
+    }
+}
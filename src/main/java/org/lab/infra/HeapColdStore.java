@@ -0,0 +1,131 @@
+package org.lab.infra;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Холодные записи в heap: без журнала им не нужна долговечность, важно лишь, что они вне копий агрегата.
+ * Каждая запись помечена номером пакета; view() запоминает номер последнего записанного.
+ */
+final class HeapColdStore implements ColdStore {
+
+    private record Stamped<T>(long batch, T value) { }
+
+    private final ConcurrentHashMap<TicketId, Stamped<Ticket>> tickets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<BugReportId, Stamped<BugReport>> bugs = new ConcurrentHashMap<>();
+
+    /** Пакет попадает в map целиком до того, как view() увидит его номер. */
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private long batches;
+
+    @Override
+    public void putTickets(Collection<Ticket> batch) {
+        Objects.requireNonNull(batch, "tickets");
+        batchLock.lock();
+        try {
+            long n = ++batches;
+            for (var t : batch) {
+                tickets.put(t.id(), new Stamped<>(n, t));
+            }
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    @Override
+    public void putBugs(Collection<BugReport> batch) {
+        Objects.requireNonNull(batch, "bugs");
+        batchLock.lock();
+        try {
+            long n = ++batches;
+            for (var b : batch) {
+                bugs.put(b.id(), new Stamped<>(n, b));
+            }
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Ticket> findTicket(TicketId id) {
+        Objects.requireNonNull(id, "id");
+        return Optional.ofNullable(tickets.get(id)).map(Stamped::value);
+    }
+
+    @Override
+    public Optional<BugReport> findBug(BugReportId id) {
+        Objects.requireNonNull(id, "id");
+        return Optional.ofNullable(bugs.get(id)).map(Stamped::value);
+    }
+
+    @Override
+    public void forEachTicket(Consumer<Ticket> action) {
+        tickets.values().forEach(s -> action.accept(s.value()));
+    }
+
+    @Override
+    public void forEachBug(Consumer<BugReport> action) {
+        bugs.values().forEach(s -> action.accept(s.value()));
+    }
+
+    @Override
+    public int ticketCount() {
+        return tickets.size();
+    }
+
+    @Override
+    public int bugCount() {
+        return bugs.size();
+    }
+
+    @Override
+    public View view() {
+        long mark;
+        batchLock.lock();
+        try {
+            mark = batches;
+        } finally {
+            batchLock.unlock();
+        }
+        return new View() {
+            @Override
+            public boolean containsTicket(TicketId id) {
+                var s = tickets.get(id);
+                return s != null && s.batch() <= mark;
+            }
+
+            @Override
+            public boolean containsBug(BugReportId id) {
+                var s = bugs.get(id);
+                return s != null && s.batch() <= mark;
+            }
+
+            @Override
+            public void forEachTicket(Consumer<Ticket> action) {
+                for (var s : tickets.values()) {
+                    if (s.batch() <= mark) {
+                        action.accept(s.value());
+                    }
+                }
+            }
+
+            @Override
+            public void forEachBug(Consumer<BugReport> action) {
+                for (var s : bugs.values()) {
+                    if (s.batch() <= mark) {
+                        action.accept(s.value());
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package org.lab.infra;
+
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.UserId;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Тикеты как heap-записи в ConcurrentHashMap + вторичный индекс по assignee.
+ */
+final class HeapTicketStore implements TicketStore {
+
+    private final ConcurrentHashMap<TicketId, Ticket> byId = new ConcurrentHashMap<>();
+    private final SecondaryIndex<UserId, TicketId> byAssignee = new SecondaryIndex<>(Comparator.naturalOrder());
+
+    @Override
+    public Ticket get(TicketId id) {
+        return byId.get(id);
+    }
+
+    @Override
+    public Ticket compute(TicketId id, UnaryOperator<Ticket> update) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(update, "update");
+        // compute сериализует изменения одного тикета, поэтому индекс меняется согласованно с byId
+        return byId.compute(id, (k, prev) -> {
+            var next = Objects.requireNonNull(update.apply(prev), "update result");
+            if (next != prev) {
+                if (!next.id().equals(id)) {
+                    throw new IllegalArgumentException("update changed ticket id: " + id + " -> " + next.id());
+                }
+                reindexAssignees(prev, next);
+            }
+            return next;
+        });
+    }
+
+    @Override
+    public List<Ticket> findByAssignee(UserId userId) {
+        return byAssignee.resolve(userId, byId::get, t -> t.assignees().contains(userId));
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    private void reindexAssignees(Ticket prev, Ticket next) {
+        Set<UserId> before = prev == null ? Set.of() : prev.assignees();
+        Set<UserId> after = next.assignees();
+        if (before == after) {
+            return;
+        }
+        for (var u : before) {
+            if (!after.contains(u)) {
+                byAssignee.remove(u, next.id());
+            }
+        }
+        for (var u : after) {
+            if (!before.contains(u)) {
+                byAssignee.add(u, next.id());
+            }
+        }
+    }
+}
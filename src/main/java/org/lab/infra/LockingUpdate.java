@@ -0,0 +1,50 @@
+package org.lab.infra;
+
+import org.lab.domain.DomainResult;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * LOCKING: updater выполняется под stripe-замком проекта; сериализуются только обновления проектов одного stripe'а.
+ */
+final class LockingUpdate implements UpdateStrategy {
+
+    private final StripedLocks stripes;
+    private final ProjectCommits commits;
+
+    LockingUpdate(StripedLocks stripes, ProjectCommits commits) {
+        this.stripes = Objects.requireNonNull(stripes, "stripes");
+        this.commits = Objects.requireNonNull(commits, "commits");
+    }
+
+    @Override
+    public DomainResult<Project> update(ProjectId id, Function<Project, DomainResult<Project>> updater) {
+        var commit = RepositoryJournal.Commit.DURABLE;
+        Project updated;
+        var stripe = stripes.of(id);
+        stripe.lock();
+        try {
+            var current = commits.current(id);
+            if (current == null) {
+                return UpdateStrategy.notFound(id);
+            }
+
+            var updatedRes = UpdateStrategy.applyUpdater(id, current, updater);
+            if (updatedRes.isFailure()) {
+                return updatedRes;
+            }
+
+            updated = updatedRes.orElseThrow();
+            if (updated != current) {
+                commit = commits.commit(current, updated);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        commit.awaitDurable();
+        return DomainResult.ok(updated);
+    }
+}
@@ -0,0 +1,99 @@
+package org.lab.infra;
+
+import org.lab.domain.DomainError;
+import org.lab.domain.DomainResult;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * OPTIMISTIC: updater выполняется без замка над текущим snapshot'ом (Project неизменяем),
+ * результат публикуется versioned CAS'ом. При конфликте — повтор с ограниченным backoff;
+ * после MAX_ATTEMPTS возвращается Conflict.
+ */
+final class OptimisticUpdate implements UpdateStrategy {
+
+    private static final int MAX_ATTEMPTS = 16;
+    private static final int SPIN_ATTEMPTS = 4;
+    private static final long MAX_BACKOFF_NANOS = 1_000_000L;
+
+    private final StripedLocks stripes;
+    private final ProjectCommits commits;
+
+    OptimisticUpdate(StripedLocks stripes, ProjectCommits commits) {
+        this.stripes = Objects.requireNonNull(stripes, "stripes");
+        this.commits = Objects.requireNonNull(commits, "commits");
+    }
+
+    @Override
+    public DomainResult<Project> update(ProjectId id, Function<Project, DomainResult<Project>> updater) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            var current = commits.current(id);
+            if (current == null) {
+                return UpdateStrategy.notFound(id);
+            }
+
+            var updatedRes = UpdateStrategy.applyUpdater(id, current, updater);
+            if (updatedRes.isFailure()) {
+                return updatedRes;
+            }
+
+            var updated = updatedRes.orElseThrow();
+            if (updated == current) {
+                return DomainResult.ok(updated);
+            }
+            var commit = commit(id, current, updated);
+            if (commit != null) {
+                commit.awaitDurable();
+                return DomainResult.ok(updated);
+            }
+            backoff(attempt);
+        }
+        return DomainResult.err(new DomainError.Conflict(
+                "Project was concurrently modified, retries exhausted: " + id
+        ));
+    }
+
+    /**
+     * Публикует updated, если текущая версия всё ещё current; null — проиграл конкурентной записи.
+     * Если версию нужно записать (журнал, хранилище, лента, снимок), проверка версии и фиксация идут
+     * под stripe-замком, но замок держится только на фиксацию, а не на время updater'а: проигравший
+     * не оставляет следов, а записи проекта ложатся в журнал и ленту в порядке версий.
+     */
+    private RepositoryJournal.Commit commit(ProjectId id, Project current, Project updated) {
+        switch (commits.commitLockFree(id, current, updated)) {
+            case COMMITTED -> {
+                return RepositoryJournal.Commit.DURABLE;
+            }
+            case LOST -> {
+                return null;
+            }
+            case LOCK_REQUIRED -> { }
+        }
+        var stripe = stripes.of(id);
+        stripe.lock();
+        try {
+            if (commits.published(id) != current) {
+                return null;
+            }
+            return commits.commit(current, updated);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private static void backoff(int attempt) {
+        if (attempt < SPIN_ATTEMPTS) {
+            for (int i = 0; i < (1 << attempt); i++) {
+                Thread.onSpinWait();
+            }
+            return;
+        }
+        long maxNanos = Math.min(MAX_BACKOFF_NANOS, 1_000L << (attempt - SPIN_ATTEMPTS));
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(maxNanos / 2, maxNanos + 1));
+    }
+}
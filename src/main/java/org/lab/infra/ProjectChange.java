@@ -0,0 +1,182 @@
+package org.lab.infra;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Description;
+import org.lab.domain.Milestone;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.ProjectKey;
+import org.lab.domain.ProjectSummary;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.UserId;
+import org.lab.domain.collect.PersistentMap;
+import org.lab.domain.enums.ProjectRole;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Изменение aggregate root Project между двумя опубликованными версиями:
+ * "шапка" проекта после изменения + изменённые/удалённые участники, milestones, тикеты и баги.
+ * Modern Java:
+ * - Records: неизменяемое описание изменения, пригодное для журнала и для потребителей изменений.
+ * - Diff строится через PersistentMap.diff, т.е. пропорционально числу изменений, а не размеру проекта.
+ */
+public record ProjectChange(
+        Header header,
+        boolean created,
+        Map<UserId, ProjectRole> upsertedMembers,
+        List<UserId> removedMembers,
+        List<Milestone> upsertedMilestones,
+        List<MilestoneId> removedMilestones,
+        List<Ticket> upsertedTickets,
+        List<TicketId> removedTickets,
+        List<BugReport> upsertedBugs,
+        List<BugReportId> removedBugs
+) {
+
+    /**
+     * Скалярные поля Project (без коллекций и производной сводки).
+     */
+    public record Header(
+            ProjectId id,
+            long version,
+            ProjectKey key,
+            String name,
+            Description description,
+            UserId managerId,
+            UserId teamLeadId,
+            Instant createdAt,
+            Instant updatedAt
+    ) {
+        public Header {
+            Objects.requireNonNull(id, "id");
+            Objects.requireNonNull(key, "key");
+            Objects.requireNonNull(name, "name");
+            Objects.requireNonNull(description, "description");
+            Objects.requireNonNull(managerId, "managerId");
+            Objects.requireNonNull(createdAt, "createdAt");
+            Objects.requireNonNull(updatedAt, "updatedAt");
+        }
+
+        public static Header of(Project p) {
+            return new Header(p.id(), p.version(), p.key(), p.name(), p.description(),
+                    p.managerId(), p.teamLeadId(), p.createdAt(), p.updatedAt());
+        }
+    }
+
+    public ProjectChange {
+        Objects.requireNonNull(header, "header");
+        upsertedMembers = Map.copyOf(upsertedMembers);
+        removedMembers = List.copyOf(removedMembers);
+        upsertedMilestones = List.copyOf(upsertedMilestones);
+        removedMilestones = List.copyOf(removedMilestones);
+        upsertedTickets = List.copyOf(upsertedTickets);
+        removedTickets = List.copyOf(removedTickets);
+        upsertedBugs = List.copyOf(upsertedBugs);
+        removedBugs = List.copyOf(removedBugs);
+    }
+
+    public ProjectId projectId() {
+        return header.id();
+    }
+
+    /**
+     * before == null — проект создан (все его элементы попадают в upserted*).
+     */
+    public static ProjectChange between(Project before, Project after) {
+        Objects.requireNonNull(after, "after");
+
+        var members = new HashMap<UserId, ProjectRole>();
+        var removedMembers = new ArrayList<UserId>();
+        diff(before == null ? Map.of() : before.members(), after.members(), members::put, removedMembers::add);
+
+        var milestones = new ArrayList<Milestone>();
+        var removedMilestones = new ArrayList<MilestoneId>();
+        diff(before == null ? Map.of() : before.milestones(), after.milestones(), (k, v) -> milestones.add(v), removedMilestones::add);
+
+        var tickets = new ArrayList<Ticket>();
+        var removedTickets = new ArrayList<TicketId>();
+        diff(before == null ? Map.of() : before.tickets(), after.tickets(), (k, v) -> tickets.add(v), removedTickets::add);
+
+        var bugs = new ArrayList<BugReport>();
+        var removedBugs = new ArrayList<BugReportId>();
+        diff(before == null ? Map.of() : before.bugReports(), after.bugReports(), (k, v) -> bugs.add(v), removedBugs::add);
+
+        return new ProjectChange(Header.of(after), before == null,
+                members, removedMembers,
+                milestones, removedMilestones,
+                tickets, removedTickets,
+                bugs, removedBugs);
+    }
+
+    private static <K, V> void diff(Map<K, V> before,
+                                    Map<K, V> after,
+                                    BiConsumer<K, V> onPut,
+                                    Consumer<K> onRemove) {
+        PersistentMap.diff(PersistentMap.from(before), PersistentMap.from(after), onPut, onRemove);
+    }
+
+    /**
+     * Применяет изменение к base (null — проекта ещё нет) и возвращает новую версию агрегата.
+     * Сводка ProjectSummary выводится из сводки base по разнице коллекций (конструктор Project), без полного пересчёта.
+     */
+    public Project applyTo(Project base) {
+        if (base != null && !base.id().equals(header.id())) {
+            throw new IllegalArgumentException("change for " + header.id() + " applied to " + base.id());
+        }
+
+        var members = base == null ? PersistentMap.<UserId, ProjectRole>empty() : PersistentMap.from(base.members());
+        for (var e : upsertedMembers.entrySet()) {
+            members = members.plus(e.getKey(), e.getValue());
+        }
+        for (var u : removedMembers) {
+            members = members.minus(u);
+        }
+
+        var milestones = base == null ? PersistentMap.<MilestoneId, Milestone>empty() : PersistentMap.from(base.milestones());
+        for (var m : upsertedMilestones) {
+            milestones = milestones.plus(m.id(), m);
+        }
+        for (var mid : removedMilestones) {
+            milestones = milestones.minus(mid);
+        }
+
+        var tickets = base == null ? PersistentMap.<TicketId, Ticket>empty() : PersistentMap.from(base.tickets());
+        for (var t : upsertedTickets) {
+            tickets = tickets.plus(t.id(), t);
+        }
+        for (var tid : removedTickets) {
+            tickets = tickets.minus(tid);
+        }
+
+        var bugs = base == null ? PersistentMap.<BugReportId, BugReport>empty() : PersistentMap.from(base.bugReports());
+        for (var b : upsertedBugs) {
+            bugs = bugs.plus(b.id(), b);
+        }
+        for (var bid : removedBugs) {
+            bugs = bugs.minus(bid);
+        }
+
+        return new Project(
+                header.id(), header.version(), header.key(), header.name(), header.description(),
+                header.managerId(), header.teamLeadId(),
+                members,
+                milestones,
+                tickets,
+                bugs,
+                base == null ? ProjectSummary.EMPTY : base.summary(),
+                header.createdAt(),
+                header.updatedAt()
+        );
+    }
+}
@@ -0,0 +1,40 @@
+package org.lab.infra;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+/**
+ * Общий путь фиксации версии проекта для стратегий UpdateStrategy: чтение текущей версии, журнал, публикация,
+ * лента изменений и индекс участников. Реализуется ProjectRepository; стратегия решает только, как
+ * сериализовать updater'ы и когда повторять.
+ */
+interface ProjectCommits {
+
+    /**
+     * Исход фиксации без stripe-замка: COMMITTED — версия опубликована, LOST — текущая версия уже другая,
+     * LOCK_REQUIRED — версию нужно куда-то записать (журнал, хранилище, лента, снимок) и фиксировать под замком.
+     */
+    enum LockFree { COMMITTED, LOST, LOCK_REQUIRED }
+
+    /**
+     * Текущая версия; ещё не загруженный (или выселенный) проект материализуется из source/store. null — проекта нет.
+     */
+    Project current(ProjectId id);
+
+    /**
+     * Опубликованная в памяти версия без загрузки: под stripe-замком проверяет, что current ещё актуальна
+     * (выселенный проект тоже считается изменённым — повтор перечитает его).
+     */
+    Project published(ProjectId id);
+
+    /**
+     * Фиксирует updated вместо current; вызывается под stripe-замком проекта. Запись в журнал идёт здесь же,
+     * поэтому записи проекта лежат в журнале и ленте в порядке версий; Commit ждут уже после отпускания замка.
+     */
+    RepositoryJournal.Commit commit(Project current, Project updated);
+
+    /**
+     * Публикация чистым CAS, мимо stripe-замка, если версию никуда, кроме памяти, записывать не нужно.
+     */
+    LockFree commitLockFree(ProjectId id, Project current, Project updated);
+}
@@ -6,24 +6,163 @@ import org.lab.domain.Project;
 import org.lab.domain.ProjectId;
 import org.lab.domain.UserId;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public final class ProjectRepository {
 
+    /**
+     * LOCKING — updater выполняется под stripe-замком проекта;
+     * OPTIMISTIC — updater выполняется без замка, публикация через versioned CAS с повтором;
+     * COMBINING — flat combining: updater'ы ждут в очереди stripe'а, владелец замка применяет их пачкой
+     * и публикует по одной версии на проект (для горячих проектов с множеством конкурентных записей).
+     */
+    public enum UpdateMode { LOCKING, OPTIMISTIC, COMBINING }
+
+    /**
+     * Счётчики ограниченного кэша (attachStore): weight — суммарный вес резидентных проектов, capacity — его предел.
+     */
+    public record CacheStats(long hits, long misses, long evictions, int resident, long weight, long capacity) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final String KEY_PREFIX = "PRJ-";
+
     private final ConcurrentHashMap<ProjectId, Project> byId = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, ProjectId> idByKey = new ConcurrentHashMap<>();
+    /** Идущие загрузки из source/store (см. materialize). */
+    private final ConcurrentHashMap<ProjectId, Loading> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Индекс участник -> проекты. Элемент индекса несёт ключ проекта, поэтому списки
+     * сразу лежат в порядке key (без учёта регистра), как раньше давала сортировка в findByMember.
+     */
+    private final SecondaryIndex<UserId, KeyedProject> byMember = new SecondaryIndex<>(KEY_ORDER);
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private record KeyedProject(String key, ProjectId id) { }
+
+    private static final Comparator<KeyedProject> KEY_ORDER = Comparator
+            .comparing(KeyedProject::key, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(KeyedProject::key)
+            .thenComparing(KeyedProject::id);
+
+    /**
+     * Lock striping: мутации разных проектов идут под разными замками и не блокируют друг друга.
+     * Уникальность ключа проверяется глобально через атомарный idByKey.putIfAbsent, а не общим замком.
+     */
+    private final StripedLocks stripes = new StripedLocks(Runtime.getRuntime().availableProcessors() * 4);
     private final AtomicLong keySeq = new AtomicLong(0);
 
+    /** Открытые снимки (openSnapshot) и записи чистым CAS, мимо stripe-замков. */
+    private final SnapshotPins pins = new SnapshotPins();
+
+    private final Commits commits = new Commits();
+    private final UpdateStrategy updates;
+
+    private final ChangeFeed changes = new ChangeFeed();
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
+    private volatile ProjectSource source;
+    private volatile ProjectStore store;
+    private volatile ResidentSet resident;
+
+    public ProjectRepository() {
+        this(UpdateMode.LOCKING);
+    }
+
+    public ProjectRepository(UpdateMode mode) {
+        this.updates = UpdateStrategy.of(Objects.requireNonNull(mode, "mode"), stripes, commits);
+    }
+
+    /**
+     * Подключает журнал: изменение записывается в него под stripe-замком проекта до публикации,
+     * поэтому записи одного проекта лежат в журнале в порядке версий.
+     * С журналом (и с attachStore) OPTIMISTIC-режим фиксирует победителя под тем же замком (updater — по-прежнему
+     * без замка): проигравший не должен оставлять запись в журнале или в хранилище.
+     */
+    public void attachJournal(RepositoryJournal journal) {
+        this.journal = Objects.requireNonNull(journal, "journal");
+    }
+
+    /**
+     * Лента изменений: каждая опубликованная версия (insert, update, restore) — ProjectChange относительно
+     * предыдущей. Пока подписчиков нет, diff не строится; с подписчиками OPTIMISTIC-режим фиксирует победителя
+     * под stripe-замком, иначе два победителя CAS могли бы выдать изменения проекта не в порядке версий.
+     */
+    public ChangeFeed changes() {
+        return changes;
+    }
+
+    /**
+     * Подключает источник ещё не загруженных проектов (до начала обслуживания запросов).
+     * Ключи и участники регистрируются сразу, сами Project материализуются при первом обращении.
+     */
+    public void attachSource(ProjectSource source) {
+        Objects.requireNonNull(source, "source");
+        for (var stub : source.stubs()) {
+            var key = stub.key().value();
+            idByKey.putIfAbsent(key, stub.id());
+            var entry = new KeyedProject(key, stub.id());
+            for (var u : stub.members()) {
+                byMember.add(u, entry);
+            }
+            advanceKeySeq(key);
+        }
+        this.source = source;
+    }
+
+    /**
+     * Ограниченный режим (до начала обслуживания запросов, на пустом репозитории): в памяти остаются проекты
+     * суммарного веса не больше capacity (вес — 1 + тикеты + баги), давно не использованные выселяются,
+     * промах читает проект из store. Каждая публикуемая версия сначала пишется в store (write-through),
+     * поэтому выселение ничего не пишет и не ждёт замков, а update по-прежнему атомарен под stripe-замком.
+     */
+    public void attachStore(ProjectStore store, long capacity) {
+        Objects.requireNonNull(store, "store");
+        var cache = new ResidentSet(capacity);
+        attachSource(store);
+        this.store = store;
+        this.resident = cache;
+    }
+
+    /**
+     * Подключено ли хранилище (attachStore): проекты переживают перезапуск в нём, а не только в журнале.
+     */
+    public boolean hasStore() {
+        return store != null;
+    }
+
+    /**
+     * Барьер для checkpoint'а хранилища: ждёт, пока завершатся записи, уже начатые под stripe-замками.
+     * Запись в журнал и write-through в store идут под одним замком, поэтому после возврата каждое изменение,
+     * записанное в журнал до вызова, уже сохранено в store.
+     */
+    public void awaitStartedWrites() {
+        stripes.awaitHolders();
+    }
+
+    /**
+     * Счётчики кэша; пусто, если хранилище не подключено (все проекты в памяти).
+     */
+    public Optional<CacheStats> cacheStats() {
+        var cache = resident;
+        return cache == null ? Optional.empty() : Optional.of(cache.stats());
+    }
+
     public ProjectId nextId() {
         return ProjectId.newId();
     }
@@ -34,83 +173,472 @@ public final class ProjectRepository {
      */
     public String nextProjectKey() {
         long n = keySeq.incrementAndGet();
-        return String.format(Locale.ROOT, "PRJ-%06d", n);
+        return String.format(Locale.ROOT, KEY_PREFIX + "%06d", n);
     }
 
     public DomainResult<Project> insert(Project project) {
         Objects.requireNonNull(project, "project");
 
-        lock.writeLock().lock();
+        RepositoryJournal.Commit commit;
+        var stripe = stripes.of(project.id());
+        stripe.lock();
         try {
+            if (current(project.id()) != null) {
+                return DomainResult.err(new DomainError.Conflict("Project already exists: " + project.id()));
+            }
             var key = project.key().value();
-            var existingByKey = idByKey.get(key);
+            var existingByKey = idByKey.putIfAbsent(key, project.id());
             if (existingByKey != null && !existingByKey.equals(project.id())) {
                 return DomainResult.err(new DomainError.Conflict("Project key already exists: " + key));
             }
-            if (byId.containsKey(project.id())) {
-                return DomainResult.err(new DomainError.Conflict("Project already exists: " + project.id()));
-            }
 
-            idByKey.put(key, project.id());
-            byId.put(project.id(), project);
-            return DomainResult.ok(project);
+            try {
+                commit = commits.commit(null, project);
+            } catch (RuntimeException e) {
+                idByKey.remove(key, project.id());
+                throw e;
+            }
+            // проект с готовым ключом (импорт): nextProjectKey не должен выдать его снова
+            advanceKeySeq(key);
         } finally {
-            lock.writeLock().unlock();
+            stripe.unlock();
         }
+        commit.awaitDurable();
+        return DomainResult.ok(project);
     }
 
     public Optional<Project> findById(ProjectId id) {
         Objects.requireNonNull(id, "id");
-        return Optional.ofNullable(byId.get(id));
+        return Optional.ofNullable(current(id));
+    }
+
+    /**
+     * Текущие версии всех проектов (для снимка хранилища); порядок не определён.
+     * Project неизменяем, поэтому копирование ссылок не блокирует писателей.
+     * Проекты, ещё не загруженные из source, при этом материализуются;
+     * в ограниченном режиме невыселенные читаются из store, но в кэш не попадают.
+     */
+    public List<Project> findAll() {
+        var st = store;
+        if (st != null) {
+            var out = new ArrayList<Project>(idByKey.size());
+            for (var id : idByKey.values()) {
+                var p = byId.get(id);
+                if (p == null) {
+                    p = st.load(id);
+                }
+                if (p != null) {
+                    out.add(p);
+                }
+            }
+            return List.copyOf(out);
+        }
+        var src = source;
+        if (src != null) {
+            for (var stub : src.stubs()) {
+                current(stub.id());
+            }
+        }
+        return List.copyOf(byId.values());
+    }
+
+    /**
+     * Как findAll, но без списка: проекты передаются action по одному (потоковый экспорт).
+     * Не загруженные в память проекты читаются из store/source по одному и в память репозитория не попадают,
+     * поэтому обход не материализует весь снимок и не вытесняет рабочий набор.
+     */
+    public void forEach(Consumer<Project> action) {
+        Objects.requireNonNull(action, "action");
+        var st = store;
+        if (st != null) {
+            for (var id : idByKey.values()) {
+                var p = byId.get(id);
+                if (p == null) {
+                    p = st.load(id);
+                }
+                if (p != null) {
+                    action.accept(p);
+                }
+            }
+            return;
+        }
+        var src = source;
+        if (src == null) {
+            byId.values().forEach(action);
+            return;
+        }
+        for (var stub : src.stubs()) {
+            var p = byId.get(stub.id());
+            if (p == null) {
+                p = src.load(stub.id());
+            }
+            if (p != null) {
+                action.accept(p);
+            }
+        }
+        // созданные после подключения source: в нём их нет
+        for (var p : byId.values()) {
+            if (!src.contains(p.id())) {
+                action.accept(p);
+            }
+        }
+    }
+
+    /**
+     * Для снимка без материализации: проекты, уже загруженные в память, отдаются в loaded, остальные проекты
+     * source — только id в untouched (их состояние в source актуально: изменение сначала загружает проект).
+     * Проект, загруженный во время обхода, попадает в untouched: его изменения новее checkpoint, снятого до вызова,
+     * и будут проиграны из журнала. Возвращает source (null — все проекты в памяти, untouched не вызывается).
+     */
+    public ProjectSource partitionLoaded(Consumer<Project> loaded, Consumer<ProjectId> untouched) {
+        Objects.requireNonNull(loaded, "loaded");
+        Objects.requireNonNull(untouched, "untouched");
+        var src = source;
+        var seen = src == null ? null : new HashSet<ProjectId>(byId.size() * 2);
+        for (var p : byId.values()) {
+            loaded.accept(p);
+            if (seen != null) {
+                seen.add(p.id());
+            }
+        }
+        if (src != null) {
+            for (var stub : src.stubs()) {
+                if (!seen.contains(stub.id())) {
+                    untouched.accept(stub.id());
+                }
+            }
+        }
+        return src;
+    }
+
+    /**
+     * Согласованный снимок всех проектов для потокового обхода (экспорт) без копии репозитория и без остановки
+     * писателей на время обхода. Точка снимка — короткий проход по всем stripe-замкам, как в awaitStartedWrites:
+     * пока держатся все замки, ни одна запись не идёт, и atPoint (например, отметка cold store) видит то же состояние.
+     * После точки первая запись каждого проекта сначала отдаёт снимку прежнюю версию, и обход выдаёт её вместо
+     * текущей; в heap снимок держит только версии проектов, изменённых за время обхода. Снимок нужно закрыть.
+     */
+    public Snapshot openSnapshot(Runnable atPoint) {
+        Objects.requireNonNull(atPoint, "atPoint");
+        return new Snapshot(pins.open(stripes, atPoint));
+    }
+
+    /**
+     * Состояние проектов в точке openSnapshot. Обход и поиск не загружают проекты в память репозитория.
+     */
+    public final class Snapshot implements AutoCloseable {
+        private final SnapshotPins.Pin pin;
+
+        private Snapshot(SnapshotPins.Pin pin) {
+            this.pin = pin;
+        }
+
+        /**
+         * Каждый проект, существовавший в точке снимка, ровно один раз и в версии этой точки.
+         */
+        public void forEach(Consumer<Project> action) {
+            Objects.requireNonNull(action, "action");
+            ProjectRepository.this.forEach(p -> {
+                var at = pin.at(p);
+                if (at != null) {
+                    action.accept(at);
+                }
+            });
+        }
+
+        public Optional<Project> findById(ProjectId id) {
+            Objects.requireNonNull(id, "id");
+            var p = byId.get(id);
+            if (p == null) {
+                var st = store;
+                var src = st != null ? st : source;
+                p = src != null && src.contains(id) ? src.load(id) : null;
+            }
+            return p == null ? Optional.empty() : Optional.ofNullable(pin.at(p));
+        }
+
+        @Override
+        public void close() {
+            pins.close(pin);
+        }
+    }
+
+    public Optional<ProjectId> findIdByKey(String key) {
+        Objects.requireNonNull(key, "key");
+        return Optional.ofNullable(idByKey.get(key));
+    }
+
+    /**
+     * Восстановление из хранилища: публикует версию проекта без updater'а и без записи в журнал;
+     * подписчики ленты получают её как обычное изменение. Счётчик ключей продвигается, чтобы nextProjectKey не выдал уже занятый ключ.
+     */
+    public void restore(Project project) {
+        Objects.requireNonNull(project, "project");
+
+        var stripe = stripes.of(project.id());
+        stripe.lock();
+        try {
+            var prev = current(project.id());
+            publish(prev, project);
+            if (changes.hasSubscribers()) {
+                changes.publish(ProjectChange.between(prev, project));
+            }
+            idByKey.put(project.key().value(), project.id());
+            reindexMembers(prev, project);
+            advanceKeySeq(project.key().value());
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void advanceKeySeq(String key) {
+        if (!key.startsWith(KEY_PREFIX)) {
+            return;
+        }
+        long n;
+        try {
+            n = Long.parseLong(key.substring(KEY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        keySeq.accumulateAndGet(n, Math::max);
     }
 
     /**
      * Modern Java:
-     * - Stream API: функциональная фильтрация проектов по участнику.
-     * - Возвращает неизменяемые коллекции через Collectors.toUnmodifiableList() (гарантия отсутствия side-effects у вызывающего кода).
+     * - java.util.concurrent: чтение из индекса участник -> проекты, поддерживаемого в insert/update;
+     *   стоимость пропорциональна числу проектов пользователя, а не размеру хранилища.
+     * - Возвращает неизменяемый список (гарантия отсутствия side-effects у вызывающего кода).
      */
     public List<Project> findByMember(UserId userId) {
         Objects.requireNonNull(userId, "userId");
-        return byId.values().stream()
-                .filter(p -> p.members().containsKey(userId))
-                .sorted((a, b) -> a.key().value().compareToIgnoreCase(b.key().value()))
-                .collect(Collectors.toUnmodifiableList());
+        return byMember.resolve(userId, kp -> current(kp.id()), p -> p.members().containsKey(userId));
     }
 
     /**
      * Атомарное обновление aggregate root Project:
      * updater возвращает DomainResult<Project>; сохраняем только при Success.
+     * Как сериализуются updater'ы, решает стратегия режима (UpdateStrategy); фиксация версии у всех общая (Commits).
      */
-    public DomainResult<Project> update(ProjectId id, java.util.function.Function<Project, DomainResult<Project>> updater) {
+    public DomainResult<Project> update(ProjectId id, Function<Project, DomainResult<Project>> updater) {
         Objects.requireNonNull(id, "id");
         Objects.requireNonNull(updater, "updater");
+        return updates.update(id, updater);
+    }
 
-        lock.writeLock().lock();
-        try {
-            var current = byId.get(id);
-            if (current == null) {
-                return DomainResult.err(new DomainError.NotFound("Project", id.toString()));
-            }
+    /**
+     * Текущая версия проекта; ещё не загруженный (или выселенный) проект материализуется из source/store.
+     */
+    private Project current(ProjectId id) {
+        var p = byId.get(id);
+        var cache = resident;
+        if (cache != null) {
+            return p != null ? touch(cache, p) : loadResident(cache, id);
+        }
+        var src = source;
+        if (p != null || src == null || !src.contains(id)) {
+            return p;
+        }
+        return materialize(id, src, null);
+    }
+
+    private static Project touch(ResidentSet cache, Project p) {
+        cache.hit(p.id());
+        return p;
+    }
 
-            var updatedRes = updater.apply(current);
-            if (updatedRes.isFailure()) {
-                return updatedRes;
+    private Project loadResident(ResidentSet cache, ProjectId id) {
+        var st = store;
+        if (!st.contains(id)) {
+            return null;
+        }
+        var loadedHere = new boolean[1];
+        var p = materialize(id, st, loadedHere);
+        if (p == null || !loadedHere[0]) {
+            return p == null ? null : touch(cache, p);
+        }
+        cache.miss();
+        cache.admit(p, byId::remove);
+        return p;
+    }
+
+    /**
+     * Первое обращение к проекту, которого нет в byId: чтение и декодирование идут вне замков (ни stripe,
+     * ни bin-замка byId), параллельные обращения к тому же id ждут одну загрузку (Loading).
+     * Версия, опубликованная во время чтения, отменяет результат (publish помечает загрузку superseded):
+     * прочитанное могло оказаться старше неё, а сама она — уже выселенной. Тогда загрузка повторяется.
+     * loadedHere[0] — результат положил в byId этот вызов.
+     */
+    private Project materialize(ProjectId id, ProjectSource src, boolean[] loadedHere) {
+        while (true) {
+            var p = byId.get(id);
+            if (p != null) {
+                return p;
+            }
+            var mine = new Loading();
+            var other = loading.putIfAbsent(id, mine);
+            if (other != null) {
+                p = other.await();
+                if (p != null || !src.contains(id)) {
+                    return p;
+                }
+                continue;
+            }
+            try {
+                var loaded = src.load(id);
+                var installed = loaded == null
+                        ? null
+                        : byId.compute(id, (k, cur) -> cur != null ? cur : mine.superseded ? null : loaded);
+                mine.result.complete(installed);
+                if (installed == loaded && loadedHere != null) {
+                    loadedHere[0] = loaded != null;
+                }
+                if (installed != null || loaded == null) {
+                    return installed;
+                }
+            } catch (RuntimeException e) {
+                mine.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(id, mine);
             }
+        }
+    }
+
+    /**
+     * Загрузка проекта, которую ждут параллельные первые обращения к нему.
+     */
+    private static final class Loading {
+        final CompletableFuture<Project> result = new CompletableFuture<>();
+        volatile boolean superseded;
 
-            var updated = updatedRes.orElseThrow();
-            if (!updated.id().equals(id)) {
-                return DomainResult.err(new DomainError.InvariantViolation("project.idImmutable", "project id cannot change"));
+        Project await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
             }
+        }
+    }
+
+    /**
+     * Делает версию текущей: с хранилищем — сначала write-through (выселенный проект затем читается из store),
+     * после публикации — учёт веса и выселение лишнего. Идущая загрузка того же проекта помечается superseded
+     * до того, как версия попадёт в byId. Открытые снимки до всего этого получают prev (null — проекта не было).
+     */
+    private void publish(Project prev, Project p) {
+        pins.keep(p.id(), prev);
+        var st = store;
+        if (st != null) {
+            st.save(p);
+        }
+        var inFlight = loading.get(p.id());
+        if (inFlight != null) {
+            inFlight.superseded = true;
+        }
+        byId.put(p.id(), p);
+        var cache = resident;
+        if (cache != null) {
+            cache.admit(p, byId::remove);
+        }
+    }
+
+    /**
+     * Общий путь фиксации версии: insert и все стратегии UpdateStrategy публикуют через него.
+     */
+    private final class Commits implements ProjectCommits {
+
+        @Override
+        public Project current(ProjectId id) {
+            return ProjectRepository.this.current(id);
+        }
+
+        @Override
+        public Project published(ProjectId id) {
+            return byId.get(id);
+        }
+
+        @Override
+        public RepositoryJournal.Commit commit(Project current, Project updated) {
+            var journaled = journalChange(current, updated);
+            publish(current, updated);
+            emit(journaled);
+            reindexMembers(current, updated);
+            return journaled.commit();
+        }
 
-            if (!updated.key().value().equals(current.key().value())) {
-                return DomainResult.err(new DomainError.InvariantViolation("project.keyImmutable", "project key cannot change"));
+        /**
+         * Без журнала, хранилища, подписчиков ленты и открытых снимков — чистый CAS ConcurrentHashMap.replace.
+         * Открытие снимка дожидается таких записей, а запись, увидевшая открытый снимок, идёт под замок (SnapshotPins).
+         */
+        @Override
+        public LockFree commitLockFree(ProjectId id, Project current, Project updated) {
+            if (journal != RepositoryJournal.NONE || store != null || changes.hasSubscribers() || !pins.isEmpty()) {
+                return LockFree.LOCK_REQUIRED;
             }
+            if (!pins.enterLockFree()) {
+                return LockFree.LOCK_REQUIRED;
+            }
+            try {
+                if (!byId.replace(id, current, updated)) {
+                    return LockFree.LOST;
+                }
+                // участники в модели только добавляются, поэтому порядок reindex у двух победителей CAS не важен
+                reindexMembers(current, updated);
+                return LockFree.COMMITTED;
+            } finally {
+                pins.exitLockFree();
+            }
+        }
+    }
 
-            byId.put(id, updated);
-            return DomainResult.ok(updated);
-        } finally {
-            lock.writeLock().unlock();
+    /**
+     * Изменение, записанное в журнал: change == null, если diff никому не нужен; commit ждут после отпускания замка.
+     */
+    private record Journaled(ProjectChange change, RepositoryJournal.Commit commit) {
+        static final Journaled NONE = new Journaled(null, RepositoryJournal.Commit.DURABLE);
+    }
+
+    /**
+     * Diff строится один раз для журнала и ленты и только если он кому-то нужен.
+     */
+    private Journaled journalChange(Project prev, Project next) {
+        var j = journal;
+        if (j == RepositoryJournal.NONE && !changes.hasSubscribers()) {
+            return Journaled.NONE;
         }
+        var change = ProjectChange.between(prev, next);
+        return new Journaled(change, j.projectChanged(change));
     }
 
+    /**
+     * Отдаёт изменение в ленту после публикации версии: подписчик, прочитавший репозиторий, не отстаёт от ленты.
+     */
+    private void emit(Journaled journaled) {
+        if (journaled.change() != null && changes.hasSubscribers()) {
+            changes.publish(journaled.change());
+        }
+    }
+
+    private void reindexMembers(Project prev, Project next) {
+        Map<UserId, ?> before = prev == null ? Map.of() : prev.members();
+        Map<UserId, ?> after = next.members();
+        if (before == after) {
+            return;
+        }
+        var entry = new KeyedProject(next.key().value(), next.id());
+        for (var u : before.keySet()) {
+            if (!after.containsKey(u)) {
+                byMember.remove(u, entry);
+            }
+        }
+        for (var u : after.keySet()) {
+            if (!before.containsKey(u)) {
+                byMember.add(u, entry);
+            }
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package org.lab.infra;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.ProjectKey;
+import org.lab.domain.UserId;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Источник проектов, ещё не загруженных в память (например, отображённый в память снимок).
+ * ProjectRepository держит в памяти только "заглушки" (ключ, участники) и материализует
+ * Project через load при первом обращении по id.
+ */
+public interface ProjectSource {
+
+    /**
+     * То, что нужно репозиторию без загрузки проекта: уникальность ключа и индекс участников.
+     */
+    record Stub(ProjectId id, ProjectKey key, Set<UserId> members) {
+        public Stub {
+            members = Set.copyOf(members);
+        }
+    }
+
+    List<Stub> stubs();
+
+    boolean contains(ProjectId id);
+
+    /**
+     * null — проекта в источнике нет.
+     */
+    Project load(ProjectId id);
+}
@@ -0,0 +1,15 @@
+package org.lab.infra;
+
+import org.lab.domain.Project;
+
+/**
+ * Постоянное хранилище проектов за ограниченным кэшем ProjectRepository (attachStore):
+ * в памяти остаётся рабочий набор, остальные проекты читаются через load при промахе.
+ */
+public interface ProjectStore extends ProjectSource {
+
+    /**
+     * Сохраняет версию проекта вместо прежней; после возврата load возвращает её.
+     */
+    void save(Project project);
+}
@@ -0,0 +1,41 @@
+package org.lab.infra;
+
+import org.lab.domain.User;
+
+/**
+ * Журнал успешных изменений агрегатов (write-ahead): репозитории записывают изменение до публикации
+ * нового состояния, под тем же замком, что и саму запись, поэтому порядок записей в журнале
+ * совпадает с порядком изменений каждого агрегата. Ожидание durability (Commit.awaitDurable) —
+ * уже после отпускания замка: fsync не держит stripe, а вызывающий получает ответ только после него.
+ * TicketRepository/BugReportRepository не журналируются: это проекции, восстанавливаемые из ProjectChange.
+ */
+public interface RepositoryJournal {
+
+    /**
+     * Записанная, но, возможно, ещё не durable запись. Если журнал не смог сделать её durable,
+     * awaitDurable бросает исключение: изменение уже видно в памяти, но его сохранность не подтверждена
+     * (журнал при этом переходит в состояние ошибки и новые записи не принимает).
+     */
+    @FunctionalInterface
+    interface Commit {
+        Commit DURABLE = () -> { };
+
+        void awaitDurable();
+    }
+
+    RepositoryJournal NONE = new RepositoryJournal() {
+        @Override
+        public Commit userInserted(User user) {
+            return Commit.DURABLE;
+        }
+
+        @Override
+        public Commit projectChanged(ProjectChange change) {
+            return Commit.DURABLE;
+        }
+    };
+
+    Commit userInserted(User user);
+
+    Commit projectChanged(ProjectChange change);
+}
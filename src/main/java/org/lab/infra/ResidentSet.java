@@ -0,0 +1,91 @@
+package org.lab.infra;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Учёт резидентных проектов ограниченного кэша ProjectRepository: LRU-порядок, суммарный вес и счётчики.
+ * Вес проекта — 1 + число тикетов + число багов (примерно пропорционален занимаемой памяти).
+ * Порядок обращений ведётся LinkedHashMap(accessOrder) под замком; попадание берёт его через tryLock
+ * и при конкуренции не отмечается — LRU приблизительный, зато чтения не выстраиваются в очередь.
+ */
+final class ResidentSet {
+
+    private final long capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<ProjectId, Long> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ResidentSet(long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity;
+    }
+
+    static long weigh(Project p) {
+        return 1L + p.tickets().size() + p.bugReports().size();
+    }
+
+    void hit(ProjectId id) {
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                lru.get(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Учитывает (новую) версию проекта id и, пока вес превышает capacity, выселяет самые давние проекты,
+     * кроме id: evict вызывается под замком учёта, поэтому удаление из кэша и из учёта атомарны
+     * относительно других admit.
+     */
+    void admit(Project p, Consumer<ProjectId> evict) {
+        Objects.requireNonNull(p, "p");
+        long w = weigh(p);
+        lock.lock();
+        try {
+            var prev = lru.put(p.id(), w);
+            weight += w - (prev == null ? 0 : prev);
+            var it = lru.entrySet().iterator();
+            while (weight > capacity && it.hasNext()) {
+                var eldest = it.next();
+                if (eldest.getKey().equals(p.id())) {
+                    continue;
+                }
+                evict.accept(eldest.getKey());
+                weight -= eldest.getValue();
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ProjectRepository.CacheStats stats() {
+        lock.lock();
+        try {
+            return new ProjectRepository.CacheStats(hits.sum(), misses.sum(), evictions.sum(), lru.size(), weight, capacity);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
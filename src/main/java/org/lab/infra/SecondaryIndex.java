@@ -0,0 +1,71 @@
+package org.lab.infra;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Вторичный индекс "ключ -> упорядоченное множество id" для in-memory репозиториев.
+ * Modern Java:
+ * - java.util.concurrent: ConcurrentHashMap.compute даёт атомарное изменение множества по ключу,
+ *   ConcurrentSkipListSet держит id уже отсортированными (сортировка при каждом запросе не нужна).
+ * - Пустые множества удаляются, чтобы индекс не рос от "исторических" ключей.
+ */
+final class SecondaryIndex<K, I> {
+
+    private final ConcurrentHashMap<K, ConcurrentSkipListSet<I>> byKey = new ConcurrentHashMap<>();
+    private final Comparator<? super I> order;
+
+    SecondaryIndex(Comparator<? super I> order) {
+        this.order = Objects.requireNonNull(order, "order");
+    }
+
+    void add(K key, I id) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(id, "id");
+        byKey.compute(key, (k, ids) -> {
+            var next = ids != null ? ids : new ConcurrentSkipListSet<I>(order);
+            next.add(id);
+            return next;
+        });
+    }
+
+    void remove(K key, I id) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(id, "id");
+        byKey.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Возвращает сущности по ключу в порядке индекса.
+     * Индекс и хранилище читаются не атомарно: между чтением id и lookup сущность могла быть удалена
+     * (lookup вернул null) или уйти под другой ключ. Такие id пропускаются — matches перепроверяет,
+     * что найденная версия всё ещё соответствует key.
+     */
+    <V> List<V> resolve(K key, Function<? super I, ? extends V> lookup, Predicate<? super V> matches) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(lookup, "lookup");
+        Objects.requireNonNull(matches, "matches");
+
+        var ids = byKey.get(key);
+        if (ids == null) {
+            return List.of();
+        }
+        var out = new ArrayList<V>(ids.size());
+        for (var id : ids) {
+            var value = lookup.apply(id);
+            if (value != null && matches.test(value)) {
+                out.add(value);
+            }
+        }
+        return List.copyOf(out);
+    }
+}
@@ -0,0 +1,106 @@
+package org.lab.infra;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Открытые снимки ProjectRepository (openSnapshot) и записи чистым CAS, идущие мимо stripe-замков.
+ * Точка снимка ставится под всеми stripe-замками; записи без замка, начатые до неё, снимок дожидается
+ * счётчиком, а запись, увидевшая открытый снимок, фиксируется под замком.
+ */
+final class SnapshotPins {
+
+    private final CopyOnWriteArrayList<Pin> pins = new CopyOnWriteArrayList<>();
+    private final AtomicInteger lockFreeCommits = new AtomicInteger();
+
+    /**
+     * Ставит точку снимка: atPoint выполняется, пока держатся все замки stripes и ни одна запись не идёт.
+     * Снимок нужно закрыть (close).
+     */
+    Pin open(StripedLocks stripes, Runnable atPoint) {
+        var pin = new Pin();
+        pins.add(pin);
+        try {
+            // записи чистым CAS идут мимо замков: начатые до появления pin дожидаемся, следующие идут под замок
+            while (lockFreeCommits.get() != 0) {
+                Thread.onSpinWait();
+            }
+            stripes.lockAll();
+            try {
+                pin.active = true;
+                atPoint.run();
+            } finally {
+                stripes.unlockAll();
+            }
+        } catch (RuntimeException | Error e) {
+            pins.remove(pin);
+            throw e;
+        }
+        return pin;
+    }
+
+    void close(Pin pin) {
+        pins.remove(pin);
+    }
+
+    boolean isEmpty() {
+        return pins.isEmpty();
+    }
+
+    /**
+     * Вызывается записью проекта под его stripe-замком до store и byId: открытые снимки сохраняют prev
+     * (null — проекта не было).
+     */
+    void keep(ProjectId id, Project prev) {
+        for (var pin : pins) {
+            pin.keep(id, prev);
+        }
+    }
+
+    /**
+     * Начинает запись мимо stripe-замков; false — снимок открыт, фиксировать под замком.
+     * После true запись обязана вызвать exitLockFree.
+     */
+    boolean enterLockFree() {
+        lockFreeCommits.incrementAndGet();
+        if (pins.isEmpty()) {
+            return true;
+        }
+        lockFreeCommits.decrementAndGet();
+        return false;
+    }
+
+    void exitLockFree() {
+        lockFreeCommits.decrementAndGet();
+    }
+
+    /**
+     * Версии проектов в точке снимка, вытесненные записями после неё. Запись проекта пишет сюда под своим
+     * stripe-замком до store и byId, поэтому прочитавший текущую версию, а затем before, не пропустит замену.
+     */
+    static final class Pin {
+        private record Before(Project version) { }
+
+        private final ConcurrentHashMap<ProjectId, Before> before = new ConcurrentHashMap<>();
+        /** Ставится под всеми stripe-замками: записи до точки снимка ничего не сохраняют. */
+        private volatile boolean active;
+
+        private void keep(ProjectId id, Project prev) {
+            if (active) {
+                before.putIfAbsent(id, new Before(prev));
+            }
+        }
+
+        /**
+         * Версия в точке снимка по прочитанной позже текущей; null — проект создан после неё.
+         */
+        Project at(Project current) {
+            var b = before.get(current.id());
+            return b == null ? current : b.version();
+        }
+    }
+}
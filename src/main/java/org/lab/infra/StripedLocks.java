@@ -0,0 +1,64 @@
+package org.lab.infra;
+
+import org.lab.domain.ProjectId;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock striping ProjectRepository: мутации разных проектов идут под разными замками и не блокируют друг друга.
+ * Число замков — степень двойки, проект попадает в stripe по перемешанному hashCode id.
+ */
+final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+
+    StripedLocks(int minCount) {
+        int n = Integer.highestOneBit(Math.max(1, minCount - 1)) << 1;
+        stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    int count() {
+        return stripes.length;
+    }
+
+    int indexOf(ProjectId id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    ReentrantLock of(ProjectId id) {
+        return stripes[indexOf(id)];
+    }
+
+    ReentrantLock at(int index) {
+        return stripes[index];
+    }
+
+    /**
+     * Ждёт, пока отпустят замки все записи, начатые до вызова (по одному stripe'у за раз, не останавливая остальные).
+     */
+    void awaitHolders() {
+        for (var stripe : stripes) {
+            stripe.lock();
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Берёт все замки в порядке индексов: пока они держатся, ни одна запись не идёт. Отпускать через unlockAll.
+     */
+    void lockAll() {
+        for (var stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (var stripe : stripes) {
+            stripe.unlock();
+        }
+    }
+}
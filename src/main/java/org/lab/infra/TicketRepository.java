@@ -11,35 +11,100 @@ import org.lab.domain.enums.TicketStatus;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Репозиторий тикетов поверх TicketStore: heap-записи по умолчанию
+ * или off-heap хранилище (OffHeapTicketStore) для больших объёмов.
+ */
 public final class TicketRepository {
 
-    private final ConcurrentHashMap<TicketId, Ticket> byId = new ConcurrentHashMap<>();
+    private final TicketStore store;
+    private final WarmupGate warmup = new WarmupGate();
+    private final List<EntityListener<Ticket>> listeners = new CopyOnWriteArrayList<>();
+
+    public TicketRepository() {
+        this(new HeapTicketStore());
+    }
+
+    public TicketRepository(TicketStore store) {
+        this.store = Objects.requireNonNull(store, "store");
+    }
 
     public TicketId nextId() {
         return TicketId.newId();
     }
 
+    /**
+     * Запросы ждут warmup (фоновая догрузка после старта); записи — нет.
+     */
+    public void holdQueriesUntil(CompletableFuture<?> warmup) {
+        this.warmup.holdUntil(warmup);
+    }
+
+    /**
+     * Запросы видят всё, что было опубликовано в ленту до их начала (см. EntityProjections).
+     */
+    public void followQueries(ChangeFeed.Subscription feed) {
+        this.warmup.follow(feed);
+    }
+
+    /**
+     * Ждёт того же, что и запросы репозитория (прогрев и ленту): для проекций, которые наполняются
+     * из его слушателей (AnalyticsStore). Не вызывать под замком, который берут слушатели.
+     */
+    public void awaitQueryable() {
+        warmup.await();
+    }
+
+    public void addListener(EntityListener<Ticket> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public DomainResult<Ticket> insert(Ticket ticket) {
+        Objects.requireNonNull(ticket, "ticket");
+
+        final var conflict = new AtomicBoolean(false);
+        store.compute(ticket.id(), prev -> {
+            if (prev != null) {
+                conflict.set(true);
+                return prev;
+            }
+            publish(null, ticket);
+            return ticket;
+        });
+        if (conflict.get()) {
+            return DomainResult.err(new DomainError.Conflict("Ticket already exists: " + ticket.id()));
+        }
+        return DomainResult.ok(ticket);
+    }
+
     public DomainResult<Ticket> upsert(Ticket ticket) {
         Objects.requireNonNull(ticket, "ticket");
-        byId.put(ticket.id(), ticket);
+        store.compute(ticket.id(), prev -> {
+            publish(prev, ticket);
+            return ticket;
+        });
         return DomainResult.ok(ticket);
     }
 
     /**
      * Modern Java:
-     * - Stream API: функциональные выборки/фильтрации по индексу в памяти.
-     * - Collectors.toUnmodifiableList(): возвращает неизменяемые результаты наружу.
+     * - java.util.concurrent: выборка идёт по поддерживаемому индексу assignee -> id тикетов,
+     *   стоимость пропорциональна числу тикетов пользователя, а не размеру хранилища.
+     * - Возвращает неизменяемый список, уже упорядоченный по id.
      */
     public List<Ticket> findByAssignee(UserId userId) {
         Objects.requireNonNull(userId, "userId");
-        return byId.values().stream()
-                .filter(t -> t.assignees().contains(userId))
-                .sorted((a, b) -> a.id().toString().compareTo(b.id().toString()))
-                .collect(Collectors.toUnmodifiableList());
+        warmup.await();
+        return store.findByAssignee(userId);
     }
 
+    private void publish(Ticket before, Ticket after) {
+        for (var l : listeners) {
+            l.changed(before, after);
+        }
+    }
 }
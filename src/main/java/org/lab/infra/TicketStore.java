@@ -0,0 +1,38 @@
+package org.lab.infra;
+
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.UserId;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище тикетов за TicketRepository: heap (по умолчанию) или off-heap (org.lab.infra.offheap).
+ * Индекс по assignee — часть хранилища: его размер растёт вместе с числом тикетов.
+ * Конкурентность: методы вызываются из любых потоков без внешней синхронизации. Реализация сама сериализует
+ * записи: compute одного id атомарен относительно других compute и чтений (heap — по id,
+ * off-heap — все compute под одним write lock, т.е. один писатель за раз); чтения идут параллельно и
+ * видят тикет и индекс по assignee либо до, либо после compute.
+ */
+public interface TicketStore {
+
+    /**
+     * Тикет по id или null.
+     */
+    Ticket get(TicketId id);
+
+    /**
+     * Атомарно для данного id: update получает текущий тикет (null, если его нет) и возвращает новое значение
+     * с тем же id. Если возвращён тот же экземпляр, хранилище не меняется. Возвращает сохранённое значение.
+     * update выполняется под блокировкой записи хранилища: он не должен обращаться к этому хранилищу.
+     */
+    Ticket compute(TicketId id, UnaryOperator<Ticket> update);
+
+    /**
+     * Тикеты пользователя, упорядоченные по id (неизменяемый список).
+     */
+    List<Ticket> findByAssignee(UserId userId);
+
+    int size();
+}
@@ -0,0 +1,57 @@
+package org.lab.infra;
+
+import org.lab.domain.DomainError;
+import org.lab.domain.DomainResult;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+
+import java.util.function.Function;
+
+/**
+ * Как ProjectRepository.update сериализует updater'ы (см. ProjectRepository.UpdateMode).
+ * Стратегия отвечает за порядок, замки и повторы; чтение текущей версии, журнал, публикация,
+ * лента и индексы — общий путь ProjectCommits, одинаковый для всех режимов.
+ */
+sealed interface UpdateStrategy permits LockingUpdate, OptimisticUpdate, CombiningUpdate {
+
+    DomainResult<Project> update(ProjectId id, Function<Project, DomainResult<Project>> updater);
+
+    static UpdateStrategy of(ProjectRepository.UpdateMode mode, StripedLocks stripes, ProjectCommits commits) {
+        return switch (mode) {
+            case LOCKING -> new LockingUpdate(stripes, commits);
+            case OPTIMISTIC -> new OptimisticUpdate(stripes, commits);
+            case COMBINING -> new CombiningUpdate(stripes, commits);
+        };
+    }
+
+    static DomainResult<Project> notFound(ProjectId id) {
+        return DomainResult.err(new DomainError.NotFound("Project", id.toString()));
+    }
+
+    /**
+     * Запускает updater и проверяет неизменяемость id/key; успешный результат получает версию current + 1.
+     * Идемпотентный результат (тот же экземпляр) возвращается как есть.
+     */
+    static DomainResult<Project> applyUpdater(ProjectId id,
+                                              Project current,
+                                              Function<Project, DomainResult<Project>> updater) {
+        var updatedRes = updater.apply(current);
+        if (updatedRes.isFailure()) {
+            return updatedRes;
+        }
+
+        var updated = updatedRes.orElseThrow();
+        if (!updated.id().equals(id)) {
+            return DomainResult.err(new DomainError.InvariantViolation("project.idImmutable", "project id cannot change"));
+        }
+
+        if (!updated.key().value().equals(current.key().value())) {
+            return DomainResult.err(new DomainError.InvariantViolation("project.keyImmutable", "project key cannot change"));
+        }
+
+        if (updated == current) {
+            return updatedRes;
+        }
+        return DomainResult.ok(updated.withVersion(current.version() + 1));
+    }
+}
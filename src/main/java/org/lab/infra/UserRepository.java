@@ -20,6 +20,15 @@ public final class UserRepository {
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
+
+    /**
+     * Подключает журнал: каждая успешная вставка сначала записывается в него, затем публикуется.
+     */
+    public void attachJournal(RepositoryJournal journal) {
+        this.journal = Objects.requireNonNull(journal, "journal");
+    }
+
     public UserId nextId() {
         return UserId.newId();
     }
@@ -35,6 +44,7 @@ public final class UserRepository {
     public DomainResult<User> insert(User user) {
         Objects.requireNonNull(user, "user");
 
+        RepositoryJournal.Commit commit;
         lock.writeLock().lock();
         try {
             var existingId = idByLogin.get(user.login());
@@ -45,12 +55,35 @@ public final class UserRepository {
                 return DomainResult.err(new DomainError.Conflict("User already exists: " + user.id()));
             }
 
+            commit = journal.userInserted(user);
             idByLogin.put(user.login(), user.id());
             byId.put(user.id(), user);
-            return DomainResult.ok(user);
         } finally {
             lock.writeLock().unlock();
         }
+        commit.awaitDurable();
+        return DomainResult.ok(user);
+    }
+
+    /**
+     * Восстановление из хранилища: без проверок конфликтов и без записи в журнал.
+     */
+    public void restore(User user) {
+        Objects.requireNonNull(user, "user");
+        lock.writeLock().lock();
+        try {
+            idByLogin.put(user.login(), user.id());
+            byId.put(user.id(), user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Все пользователи (для снимка хранилища); порядок не определён.
+     */
+    public List<User> findAll() {
+        return List.copyOf(byId.values());
     }
 
     public Optional<User> findById(UserId id) {
@@ -0,0 +1,34 @@
+package org.lab.infra;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Барьер для запросов к проекции: она после старта ещё догружается в фоне и (с followQueries)
+ * применяет ленту изменений асинхронно. Записи барьер не ждут; когда ждать нечего,
+ * проверка — пара volatile-чтений.
+ */
+final class WarmupGate {
+
+    private volatile CompletableFuture<?> pending = CompletableFuture.completedFuture(null);
+    private volatile ChangeFeed.Subscription feed;
+
+    void holdUntil(CompletableFuture<?> warmup) {
+        this.pending = Objects.requireNonNull(warmup, "warmup");
+    }
+
+    void follow(ChangeFeed.Subscription feed) {
+        this.feed = Objects.requireNonNull(feed, "feed");
+    }
+
+    void await() {
+        var p = pending;
+        if (!p.isDone()) {
+            p.join();
+        }
+        var f = feed;
+        if (f != null) {
+            f.awaitCaughtUp();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.lab.infra.analytics;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.TicketStatusCounts;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.TicketRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночная (struct-of-arrays) проекция тикетов и багов для отчётов по всем проектам.
+ * Колонки: статус (byte), суррогаты проекта/milestone (int), createdAt/updatedAt (epoch millis).
+ * Синхронизируется подписками на TicketRepository/BugReportRepository (attach до загрузки данных);
+ * запросы ждут их прогрева и ленты изменений так же, как запросы самих репозиториев.
+ * Modern Java:
+ * - Примитивные массивы вместо графа record'ов: скан читает только нужные колонки подряд (см. Kernels).
+ * - ReentrantReadWriteLock: отчёты выполняются параллельно, изменения строк — под write lock.
+ */
+public final class AnalyticsStore {
+
+    private static final TicketStatus[] TICKET_STATUSES = TicketStatus.values();
+    private static final byte BUG_CLOSED = (byte) BugStatus.CLOSED.ordinal();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Surrogates<ProjectId> projectIds = new Surrogates<>();
+    private final Surrogates<MilestoneId> milestoneIds = new Surrogates<>();
+
+    private final HashMap<TicketId, Integer> ticketRows = new HashMap<>();
+    private int ticketCount;
+    private byte[] ticketStatus = new byte[0];
+    private int[] ticketProject = new int[0];
+    private int[] ticketMilestone = new int[0];
+    private long[] ticketCreatedAt = new long[0];
+    private long[] ticketUpdatedAt = new long[0];
+
+    private final HashMap<BugReportId, Integer> bugRows = new HashMap<>();
+    private int bugCount;
+    private int[] freeBugRows = new int[16];
+    private int freeBugCount;
+    private byte[] bugStatus = new byte[0];
+    private int[] bugProject = new int[0];
+    private long[] bugCreatedAt = new long[0];
+    private long[] bugUpdatedAt = new long[0];
+
+    /** Ожидание источников перед запросом; до attach ждать нечего. */
+    private volatile Runnable ready = () -> { };
+
+    /**
+     * Подписывается на изменения репозиториев. Уже сохранённые в них сущности не переносятся.
+     * Запросы до чтения колонок ждут repository.awaitQueryable(): строки приходят из слушателей репозиториев,
+     * поэтому после прогрева и ленты они полны. Ожидание — до read lock: слушатели пишут под write lock.
+     */
+    public void attach(TicketRepository tickets, BugReportRepository bugs) {
+        Objects.requireNonNull(tickets, "tickets");
+        Objects.requireNonNull(bugs, "bugs");
+        tickets.addListener((before, after) -> ticketChanged(after));
+        bugs.addListener(this::bugChanged);
+        ready = () -> {
+            tickets.awaitQueryable();
+            bugs.awaitQueryable();
+        };
+    }
+
+    void ticketChanged(Ticket t) {
+        var w = lock.writeLock();
+        w.lock();
+        try {
+            var row = ticketRows.get(t.id());
+            int r;
+            if (row == null) {
+                r = ticketCount++;
+                if (r == ticketStatus.length) {
+                    growTickets();
+                }
+                ticketRows.put(t.id(), r);
+            } else {
+                r = row;
+            }
+            ticketStatus[r] = (byte) t.status().ordinal();
+            ticketProject[r] = projectIds.of(t.projectId());
+            ticketMilestone[r] = milestoneIds.of(t.milestoneId());
+            ticketCreatedAt[r] = t.createdAt().toEpochMilli();
+            ticketUpdatedAt[r] = t.updatedAt().toEpochMilli();
+        } finally {
+            w.unlock();
+        }
+    }
+
+    void bugChanged(BugReport before, BugReport after) {
+        var w = lock.writeLock();
+        w.lock();
+        try {
+            if (after == null) {
+                var row = bugRows.remove(before.id());
+                if (row != null) {
+                    bugStatus[row] = Kernels.FREE;
+                    bugProject[row] = -1;
+                    if (freeBugCount == freeBugRows.length) {
+                        freeBugRows = Arrays.copyOf(freeBugRows, freeBugCount << 1);
+                    }
+                    freeBugRows[freeBugCount++] = row;
+                }
+                return;
+            }
+            var row = bugRows.get(after.id());
+            int r;
+            if (row != null) {
+                r = row;
+            } else if (freeBugCount > 0) {
+                r = freeBugRows[--freeBugCount];
+                bugRows.put(after.id(), r);
+            } else {
+                r = bugCount++;
+                if (r == bugStatus.length) {
+                    growBugs();
+                }
+                bugRows.put(after.id(), r);
+            }
+            bugStatus[r] = (byte) after.status().ordinal();
+            bugProject[r] = projectIds.of(after.projectId());
+            bugCreatedAt[r] = after.createdAt().toEpochMilli();
+            bugUpdatedAt[r] = after.updatedAt().toEpochMilli();
+        } finally {
+            w.unlock();
+        }
+    }
+
+    /**
+     * Тикеты по статусам в проекте (null — по всем проектам).
+     */
+    public TicketStatusCounts ticketStatusCounts(ProjectId projectOrNull) {
+        ready.run();
+        var r = lock.readLock();
+        r.lock();
+        try {
+            int p = projectOrNull == null ? -1 : projectIds.find(projectOrNull);
+            if (projectOrNull != null && p < 0) {
+                return TicketStatusCounts.ZERO;
+            }
+            var c = Kernels.countByStatus(ticketStatus, ticketProject, p, ticketCount, TICKET_STATUSES.length);
+            return new TicketStatusCounts(c[0], c[1], c[2], c[3]);
+        } finally {
+            r.unlock();
+        }
+    }
+
+    /**
+     * "Сколько тикетов в каком статусе" по каждому milestone (проекта или всех проектов).
+     * Фильтр строк векторный; раскладка по группам — скалярная по отобранным строкам
+     * (инкремент по произвольному индексу в Vector API не выражается).
+     */
+    public Map<MilestoneId, TicketStatusCounts> ticketStatusByMilestone(ProjectId projectOrNull) {
+        ready.run();
+        var r = lock.readLock();
+        r.lock();
+        try {
+            int p = projectOrNull == null ? -1 : projectIds.find(projectOrNull);
+            if (projectOrNull != null && p < 0) {
+                return Map.of();
+            }
+            int statuses = TICKET_STATUSES.length;
+            var counts = new int[milestoneIds.size() * statuses];
+            for (int from = 0; from < ticketCount; from += Kernels.BLOCK) {
+                long mask = Kernels.between(ticketStatus, from, (byte) 0, (byte) (statuses - 1));
+                if (p >= 0) {
+                    mask &= Kernels.eq(ticketProject, from, p);
+                }
+                for (; mask != 0; mask &= mask - 1) {
+                    int row = from + Long.numberOfTrailingZeros(mask);
+                    counts[ticketMilestone[row] * statuses + ticketStatus[row]]++;
+                }
+            }
+            var out = new HashMap<MilestoneId, TicketStatusCounts>();
+            for (int m = 0; m < milestoneIds.size(); m++) {
+                int b = m * statuses;
+                if (counts[b] + counts[b + 1] + counts[b + 2] + counts[b + 3] > 0) {
+                    out.put(milestoneIds.key(m), new TicketStatusCounts(counts[b], counts[b + 1], counts[b + 2], counts[b + 3]));
+                }
+            }
+            return Map.copyOf(out);
+        } finally {
+            r.unlock();
+        }
+    }
+
+    /**
+     * Незакрытые баги, созданные раньше now - age, по проектам.
+     */
+    public Map<ProjectId, Long> bugsOpenLongerThan(Duration age, Instant now) {
+        Objects.requireNonNull(age, "age");
+        Objects.requireNonNull(now, "now");
+        ready.run();
+        var r = lock.readLock();
+        r.lock();
+        try {
+            long threshold = now.minus(age).toEpochMilli();
+            var perProject = new long[projectIds.size()];
+            for (int from = 0; from < bugCount; from += Kernels.BLOCK) {
+                long mask = Kernels.between(bugStatus, from, (byte) 0, (byte) (BUG_CLOSED - 1));
+                if (mask == 0) {
+                    continue;
+                }
+                mask &= Kernels.lt(bugCreatedAt, from, threshold);
+                for (; mask != 0; mask &= mask - 1) {
+                    perProject[bugProject[from + Long.numberOfTrailingZeros(mask)]]++;
+                }
+            }
+            var out = new HashMap<ProjectId, Long>();
+            for (int i = 0; i < perProject.length; i++) {
+                if (perProject[i] > 0) {
+                    out.put(projectIds.key(i), perProject[i]);
+                }
+            }
+            return Map.copyOf(out);
+        } finally {
+            r.unlock();
+        }
+    }
+
+    private void growTickets() {
+        int cap = Kernels.roundUp(Math.max(Kernels.BLOCK * 16, ticketStatus.length * 2));
+        int old = ticketStatus.length;
+        ticketStatus = Arrays.copyOf(ticketStatus, cap);
+        Arrays.fill(ticketStatus, old, cap, Kernels.FREE);
+        ticketProject = Arrays.copyOf(ticketProject, cap);
+        ticketMilestone = Arrays.copyOf(ticketMilestone, cap);
+        ticketCreatedAt = Arrays.copyOf(ticketCreatedAt, cap);
+        ticketUpdatedAt = Arrays.copyOf(ticketUpdatedAt, cap);
+    }
+
+    private void growBugs() {
+        int cap = Kernels.roundUp(Math.max(Kernels.BLOCK * 16, bugStatus.length * 2));
+        int old = bugStatus.length;
+        bugStatus = Arrays.copyOf(bugStatus, cap);
+        Arrays.fill(bugStatus, old, cap, Kernels.FREE);
+        bugProject = Arrays.copyOf(bugProject, cap);
+        Arrays.fill(bugProject, old, cap, -1);
+        bugCreatedAt = Arrays.copyOf(bugCreatedAt, cap);
+        bugUpdatedAt = Arrays.copyOf(bugUpdatedAt, cap);
+    }
+
+    /**
+     * Словарь id -> плотный int (индекс в колонках и массивах счётчиков).
+     */
+    private static final class Surrogates<K> {
+        private final HashMap<K, Integer> ids = new HashMap<>();
+        private final List<K> keys = new ArrayList<>();
+
+        int of(K key) {
+            var id = ids.get(key);
+            if (id == null) {
+                id = keys.size();
+                ids.put(key, id);
+                keys.add(key);
+            }
+            return id;
+        }
+
+        int find(K key) {
+            var id = ids.get(key);
+            return id == null ? -1 : id;
+        }
+
+        K key(int id) {
+            return keys.get(id);
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.lab.infra.analytics;
+
+import org.lab.domain.IdGenerator;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Сегмент SegmentFile, отображённый в память (FileChannel.map в shared Arena, освобождается в close).
+ * Строки не декодируются в объекты: запросы (HistoryArchive) читают колонки и статистику блоков прямо из отображения.
+ */
+final class ColumnSegment implements AutoCloseable {
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final Arena arena;
+    private final MemorySegment seg;
+    private final byte kind;
+    private final int rows;
+    private final int blocks;
+    private final int projectCount;
+    private final int milestoneCount;
+    private final long dictionaryOffset;
+    /** По id колонки: смещение данных и статистики; -1 — колонки нет. */
+    private final long[] data = new long[SegmentFile.COLUMN_IDS];
+    private final long[] stats = new long[SegmentFile.COLUMN_IDS];
+    /** Отсортированные id сегмента без колонок SORTED_ID_* (записанного до их появления): строятся при открытии. */
+    private final long[][] sortedIds;
+
+    private ColumnSegment(Path path, Arena arena, MemorySegment seg) throws IOException {
+        this.path = path;
+        this.arena = arena;
+        this.seg = seg;
+        if (seg.byteSize() < SegmentFile.HEADER
+                || seg.get(INT, 0) != SegmentFile.MAGIC
+                || seg.get(ValueLayout.JAVA_BYTE, 4) != SegmentFile.FORMAT) {
+            throw new IOException("Not a column segment (or unsupported format): " + path);
+        }
+        this.kind = seg.get(ValueLayout.JAVA_BYTE, 5);
+        this.rows = seg.get(INT, 8);
+        int blockRows = seg.get(INT, 12);
+        int columns = seg.get(INT, 16);
+        this.projectCount = seg.get(INT, 20);
+        this.milestoneCount = seg.get(INT, 24);
+        this.dictionaryOffset = seg.get(LONG, 28);
+        long directoryOffset = seg.get(LONG, 36);
+        if (blockRows != SegmentFile.BLOCK_ROWS || rows < 0 || columns < 0
+                || directoryOffset + (long) columns * SegmentFile.DIRECTORY_ENTRY != seg.byteSize()) {
+            throw new IOException("Column segment header/directory mismatch: " + path);
+        }
+        this.blocks = (rows + SegmentFile.BLOCK_ROWS - 1) / SegmentFile.BLOCK_ROWS;
+        Arrays.fill(data, -1);
+        Arrays.fill(stats, -1);
+        for (int c = 0; c < columns; c++) {
+            long entry = directoryOffset + (long) c * SegmentFile.DIRECTORY_ENTRY;
+            int id = seg.get(ValueLayout.JAVA_BYTE, entry);
+            if (id >= 0 && id < data.length) {
+                data[id] = seg.get(LONG, entry + 8);
+                stats[id] = seg.get(LONG, entry + 16);
+            }
+        }
+        this.sortedIds = hasColumn(SegmentFile.SORTED_ID_MSB) && hasColumn(SegmentFile.SORTED_ID_LSB)
+                ? null
+                : legacySortedIds();
+    }
+
+    private long[][] legacySortedIds() {
+        var msb = new long[rows];
+        var lsb = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            msb[row] = longAt(SegmentFile.ID_MSB, row);
+            lsb[row] = longAt(SegmentFile.ID_LSB, row);
+        }
+        return SegmentFile.sortedIds(msb, lsb);
+    }
+
+    static ColumnSegment open(Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColumnSegment(path, arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    MemorySegment memory() {
+        return seg;
+    }
+
+    byte kind() {
+        return kind;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int blocks() {
+        return blocks;
+    }
+
+    int projectCount() {
+        return projectCount;
+    }
+
+    int milestoneCount() {
+        return milestoneCount;
+    }
+
+    ProjectId project(int code) {
+        long at = dictionaryOffset + (long) code * 2 * Long.BYTES;
+        return new ProjectId(seg.get(LONG, at), seg.get(LONG, at + Long.BYTES));
+    }
+
+    MilestoneId milestone(int code) {
+        long at = dictionaryOffset + ((long) projectCount + code) * 2 * Long.BYTES;
+        return new MilestoneId(seg.get(LONG, at), seg.get(LONG, at + Long.BYTES));
+    }
+
+    /**
+     * Номер проекта в словаре сегмента или -1 (словарь мал — линейный поиск).
+     */
+    int projectCode(ProjectId id) {
+        for (int i = 0; i < projectCount; i++) {
+            long at = dictionaryOffset + (long) i * 2 * Long.BYTES;
+            if (seg.get(LONG, at) == id.msb() && seg.get(LONG, at + Long.BYTES) == id.lsb()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Есть ли в сегменте строка с этим id: бинарный поиск по отсортированной колонке id, O(log rows).
+     */
+    boolean containsId(long msb, long lsb) {
+        var heap = sortedIds;
+        int lo = 0;
+        int hi = rows - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = heap != null
+                    ? IdGenerator.compare(heap[0][mid], heap[1][mid], msb, lsb)
+                    : IdGenerator.compare(longAt(SegmentFile.SORTED_ID_MSB, mid), longAt(SegmentFile.SORTED_ID_LSB, mid), msb, lsb);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean hasColumn(byte column) {
+        return data[column] >= 0;
+    }
+
+    /**
+     * Смещение значения строки row колонки column шириной width байт.
+     */
+    long at(byte column, int width, int row) {
+        return data[column] + (long) row * width;
+    }
+
+    long min(byte column, int block) {
+        return seg.get(LONG, stats[column] + (long) block * 2 * Long.BYTES);
+    }
+
+    long max(byte column, int block) {
+        return seg.get(LONG, stats[column] + (long) block * 2 * Long.BYTES + Long.BYTES);
+    }
+
+    byte byteAt(byte column, int row) {
+        return seg.get(ValueLayout.JAVA_BYTE, at(column, 1, row));
+    }
+
+    int intAt(byte column, int row) {
+        return seg.get(INT, at(column, Integer.BYTES, row));
+    }
+
+    long longAt(byte column, int row) {
+        return seg.get(LONG, at(column, Long.BYTES, row));
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
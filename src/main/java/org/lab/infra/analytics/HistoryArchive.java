@@ -0,0 +1,275 @@
+package org.lab.infra.analytics;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.TicketStatusCounts;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.MilestoneStatus;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.ColdStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Каталог колоночных сегментов истории: тикеты закрытых milestones и закрытые баги.
+ * export дописывает новые сегменты (уже выгруженные сущности пропускаются — бинарным поиском по отсортированной
+ * колонке id каждого сегмента, без загрузки всех id в heap), отчёты сканируют все сегменты
+ * через отображение в память: блоки отсекаются по min/max колонок, оставшиеся фильтруются SIMD-ядрами (Kernels).
+ * В heap попадают только счётчики результата и небольшие словари id.
+ */
+public final class HistoryArchive implements AutoCloseable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(tickets|bugs)-(\\d+)\\.seg");
+    private static final int TICKET_STATUSES = TicketStatus.values().length;
+    private static final byte BUG_CLOSED = (byte) BugStatus.CLOSED.ordinal();
+
+    /**
+     * Результат отчёта и сколько блоков пришлось прочитать (остальные отсечены по min/max).
+     */
+    public record Report<T>(T value, int blocksScanned, int blocksSkipped) { }
+
+    public record ExportResult(int tickets, int bugs) { }
+
+    private final Path dir;
+    private final CopyOnWriteArrayList<ColumnSegment> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock exportLock = new ReentrantLock();
+    private long nextSeq;
+
+    private HistoryArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Открывает (или создаёт) каталог; недописанные .tmp прошлых выгрузок удаляются.
+     */
+    public static HistoryArchive open(Path dir) throws IOException {
+        Objects.requireNonNull(dir, "dir");
+        Files.createDirectories(dir);
+        var archive = new HistoryArchive(dir);
+        try (var files = Files.list(dir)) {
+            for (var f : files.sorted().toList()) {
+                var name = f.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(f);
+                    continue;
+                }
+                var m = SEGMENT_NAME.matcher(name);
+                if (m.matches()) {
+                    archive.segments.add(ColumnSegment.open(f));
+                    archive.nextSeq = Math.max(archive.nextSeq, Long.parseLong(m.group(2)) + 1);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    /**
+     * Выгружает тикеты закрытых milestones и закрытые баги, которых ещё нет в архиве:
+     * вынесенные из агрегатов (cold) и оставшиеся в projects (состояние до выноса).
+     * Ни агрегаты, ни cold не меняются.
+     */
+    public ExportResult export(Collection<Project> projects, ColdStore cold) throws IOException {
+        Objects.requireNonNull(projects, "projects");
+        Objects.requireNonNull(cold, "cold");
+        exportLock.lock();
+        try {
+            // в наборе — только выгружаемые сейчас: одна сущность может быть и в cold, и в агрегате
+            var newTickets = new HashSet<TicketId>();
+            var newBugs = new HashSet<BugReportId>();
+            var tickets = new ArrayList<Ticket>();
+            var bugs = new ArrayList<BugReport>();
+            cold.forEachTicket(t -> {
+                if (!archived(SegmentFile.TICKETS, t.id().msb(), t.id().lsb()) && newTickets.add(t.id())) {
+                    tickets.add(t);
+                }
+            });
+            cold.forEachBug(b -> {
+                if (!archived(SegmentFile.BUGS, b.id().msb(), b.id().lsb()) && newBugs.add(b.id())) {
+                    bugs.add(b);
+                }
+            });
+            for (var p : projects) {
+                for (var t : p.tickets().values()) {
+                    var ms = p.milestones().get(t.milestoneId());
+                    if (ms != null && ms.status() == MilestoneStatus.CLOSED
+                            && !archived(SegmentFile.TICKETS, t.id().msb(), t.id().lsb()) && newTickets.add(t.id())) {
+                        tickets.add(t);
+                    }
+                }
+                for (var b : p.bugReports().values()) {
+                    if (b.status() == BugStatus.CLOSED
+                            && !archived(SegmentFile.BUGS, b.id().msb(), b.id().lsb()) && newBugs.add(b.id())) {
+                        bugs.add(b);
+                    }
+                }
+            }
+
+            if (!tickets.isEmpty()) {
+                var path = dir.resolve("tickets-%08d.seg".formatted(nextSeq++));
+                SegmentFile.writeTickets(path, tickets);
+                segments.add(ColumnSegment.open(path));
+            }
+            if (!bugs.isEmpty()) {
+                var path = dir.resolve("bugs-%08d.seg".formatted(nextSeq++));
+                SegmentFile.writeBugs(path, bugs);
+                segments.add(ColumnSegment.open(path));
+            }
+            return new ExportResult(tickets.size(), bugs.size());
+        } finally {
+            exportLock.unlock();
+        }
+    }
+
+    private boolean archived(byte kind, long msb, long lsb) {
+        for (var s : segments) {
+            if (s.kind() == kind && s.containsId(msb, lsb)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Тикеты с последним изменением в [from, to) по milestones и статусам (projectOrNull == null — все проекты).
+     */
+    public Report<Map<MilestoneId, TicketStatusCounts>> ticketStatusByMilestone(Instant from, Instant to, ProjectId projectOrNull) {
+        long lo = from.toEpochMilli();
+        long hi = to.toEpochMilli();
+        var totals = new HashMap<MilestoneId, int[]>();
+        int scanned = 0;
+        int skipped = 0;
+        for (var s : segments) {
+            if (s.kind() != SegmentFile.TICKETS) {
+                continue;
+            }
+            int p = projectOrNull == null ? -1 : s.projectCode(projectOrNull);
+            if (projectOrNull != null && p < 0) {
+                skipped += s.blocks();
+                continue;
+            }
+            var mem = s.memory();
+            var counts = new int[s.milestoneCount() * TICKET_STATUSES];
+            for (int b = 0; b < s.blocks(); b++) {
+                if (outside(s, SegmentFile.UPDATED_AT, b, lo, hi - 1)
+                        || (p >= 0 && outside(s, SegmentFile.PROJECT, b, p, p))) {
+                    skipped++;
+                    continue;
+                }
+                scanned++;
+                int end = Math.min(s.rows(), (b + 1) * SegmentFile.BLOCK_ROWS);
+                for (int row = b * SegmentFile.BLOCK_ROWS; row < end; row += Kernels.BLOCK) {
+                    long mask = Kernels.between(mem, s.at(SegmentFile.STATUS, 1, row), (byte) 0, (byte) (TICKET_STATUSES - 1))
+                            & Kernels.inRange(mem, s.at(SegmentFile.UPDATED_AT, Long.BYTES, row), lo, hi);
+                    if (p >= 0) {
+                        mask &= Kernels.eq(mem, s.at(SegmentFile.PROJECT, Integer.BYTES, row), p);
+                    }
+                    for (; mask != 0; mask &= mask - 1) {
+                        int r = row + Long.numberOfTrailingZeros(mask);
+                        counts[s.intAt(SegmentFile.MILESTONE, r) * TICKET_STATUSES + s.byteAt(SegmentFile.STATUS, r)]++;
+                    }
+                }
+            }
+            for (int m = 0; m < s.milestoneCount(); m++) {
+                int base = m * TICKET_STATUSES;
+                if (counts[base] + counts[base + 1] + counts[base + 2] + counts[base + 3] == 0) {
+                    continue;
+                }
+                var acc = totals.computeIfAbsent(s.milestone(m), k -> new int[TICKET_STATUSES]);
+                for (int i = 0; i < TICKET_STATUSES; i++) {
+                    acc[i] += counts[base + i];
+                }
+            }
+        }
+        var out = new HashMap<MilestoneId, TicketStatusCounts>();
+        totals.forEach((m, c) -> out.put(m, new TicketStatusCounts(c[0], c[1], c[2], c[3])));
+        return new Report<>(Map.copyOf(out), scanned, skipped);
+    }
+
+    /**
+     * Баги, закрытые (последнее изменение в статусе CLOSED) в [from, to), по проектам.
+     */
+    public Report<Map<ProjectId, Long>> bugsClosedBetween(Instant from, Instant to) {
+        long lo = from.toEpochMilli();
+        long hi = to.toEpochMilli();
+        var out = new HashMap<ProjectId, Long>();
+        int scanned = 0;
+        int skipped = 0;
+        for (var s : segments) {
+            if (s.kind() != SegmentFile.BUGS) {
+                continue;
+            }
+            var mem = s.memory();
+            var perProject = new long[s.projectCount()];
+            for (int b = 0; b < s.blocks(); b++) {
+                if (outside(s, SegmentFile.UPDATED_AT, b, lo, hi - 1)
+                        || outside(s, SegmentFile.STATUS, b, BUG_CLOSED, BUG_CLOSED)) {
+                    skipped++;
+                    continue;
+                }
+                scanned++;
+                int end = Math.min(s.rows(), (b + 1) * SegmentFile.BLOCK_ROWS);
+                for (int row = b * SegmentFile.BLOCK_ROWS; row < end; row += Kernels.BLOCK) {
+                    long mask = Kernels.between(mem, s.at(SegmentFile.STATUS, 1, row), BUG_CLOSED, BUG_CLOSED)
+                            & Kernels.inRange(mem, s.at(SegmentFile.UPDATED_AT, Long.BYTES, row), lo, hi);
+                    for (; mask != 0; mask &= mask - 1) {
+                        perProject[s.intAt(SegmentFile.PROJECT, row + Long.numberOfTrailingZeros(mask))]++;
+                    }
+                }
+            }
+            for (int i = 0; i < perProject.length; i++) {
+                if (perProject[i] > 0) {
+                    out.merge(s.project(i), perProject[i], Long::sum);
+                }
+            }
+        }
+        return new Report<>(Map.copyOf(out), scanned, skipped);
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long rowCount() {
+        long n = 0;
+        for (var s : segments) {
+            n += s.rows();
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+        for (var s : segments) {
+            s.close();
+        }
+        segments.clear();
+    }
+
+    /**
+     * Блок не содержит значений из [lo, hi] по статистике колонки.
+     */
+    private static boolean outside(ColumnSegment s, byte column, int block, long lo, long hi) {
+        return s.max(column, block) < lo || s.min(column, block) > hi;
+    }
+}
@@ -0,0 +1,124 @@
+package org.lab.infra.analytics;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+/**
+ * SIMD-фильтры по колонкам. Колонки сканируются блоками по BLOCK строк; результат фильтра — битовая маска блока
+ * (бит i — строка from + i), поэтому предикаты над колонками разной ширины (byte/int/long) соединяются через &.
+ * Ёмкость колонок кратна BLOCK, а пустые строки имеют статус FREE (< 0) — хвостовой скалярный цикл не нужен.
+ * Перегрузки с MemorySegment читают колонки отображённых файлов (ColumnSegment) без копирования в heap.
+ * Modern Java:
+ * - Vector API (jdk.incubator.vector): сравнения по SPECIES_PREFERRED компилируются в SIMD-инструкции платформы,
+ *   VectorMask.toLong упаковывает результат в биты без ветвлений по строкам.
+ */
+final class Kernels {
+
+    /**
+     * Предпочтительная форма вектора, но не шире 512 бит: иначе byte-лейнов больше 64 и VectorMask.toLong
+     * не упаковывает маску блока в long (например, SVE с 1024/2048-битными регистрами).
+     * Одна форма на все species: int/long-лейнов в блоке помещается целое число векторов.
+     */
+    private static final VectorShape SHAPE = ByteVector.SPECIES_PREFERRED.length() <= Long.SIZE
+            ? VectorShape.preferredShape()
+            : VectorShape.S_512_BIT;
+
+    static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED.withShape(SHAPE);
+    static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED.withShape(SHAPE);
+    static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED.withShape(SHAPE);
+
+    /** Строк в блоке: число byte-лейнов (не больше 64 — маска помещается в long). */
+    static final int BLOCK = BYTES.length();
+
+    static {
+        if (BLOCK > Long.SIZE) {
+            throw new ExceptionInInitializerError("Kernels.BLOCK must be <= 64 lanes, got " + BLOCK);
+        }
+    }
+
+    static final byte FREE = -1;
+
+    private Kernels() { }
+
+    static int roundUp(int rows) {
+        return (rows + BLOCK - 1) / BLOCK * BLOCK;
+    }
+
+    /**
+     * Счётчики по статусам [0, statuses) среди строк с project == p (p < 0 — все строки).
+     * Вектор статусов загружается один раз на блок и сравнивается с каждым статусом.
+     */
+    static int[] countByStatus(byte[] status, int[] project, int p, int rows, int statuses) {
+        var counts = new int[statuses];
+        for (int from = 0; from < rows; from += BLOCK) {
+            long rowMask = p < 0 ? -1L : eq(project, from, p);
+            if (rowMask == 0) {
+                continue;
+            }
+            var v = ByteVector.fromArray(BYTES, status, from);
+            for (int s = 0; s < statuses; s++) {
+                counts[s] += Long.bitCount(v.eq((byte) s).toLong() & rowMask);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * lo <= col[i] <= hi.
+     */
+    static long between(byte[] col, int from, byte lo, byte hi) {
+        var v = ByteVector.fromArray(BYTES, col, from);
+        return v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi)).toLong();
+    }
+
+    static long eq(int[] col, int from, int value) {
+        long mask = 0;
+        for (int k = 0; k < BLOCK; k += INTS.length()) {
+            mask |= IntVector.fromArray(INTS, col, from + k).eq(value).toLong() << k;
+        }
+        return mask;
+    }
+
+    static long lt(long[] col, int from, long value) {
+        long mask = 0;
+        for (int k = 0; k < BLOCK; k += LONGS.length()) {
+            mask |= LongVector.fromArray(LONGS, col, from + k).lt(value).toLong() << k;
+        }
+        return mask;
+    }
+
+    // ---------- колонки в MemorySegment (little-endian, смещение at — байт первой строки блока) ----------
+
+    static long between(MemorySegment seg, long at, byte lo, byte hi) {
+        var v = ByteVector.fromMemorySegment(BYTES, seg, at, ByteOrder.LITTLE_ENDIAN);
+        return v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi)).toLong();
+    }
+
+    static long eq(MemorySegment seg, long at, int value) {
+        long mask = 0;
+        for (int k = 0; k < BLOCK; k += INTS.length()) {
+            mask |= IntVector.fromMemorySegment(INTS, seg, at + (long) k * Integer.BYTES, ByteOrder.LITTLE_ENDIAN)
+                    .eq(value).toLong() << k;
+        }
+        return mask;
+    }
+
+    /**
+     * lo <= col[i] < hiExclusive.
+     */
+    static long inRange(MemorySegment seg, long at, long lo, long hiExclusive) {
+        long mask = 0;
+        for (int k = 0; k < BLOCK; k += LONGS.length()) {
+            var v = LongVector.fromMemorySegment(LONGS, seg, at + (long) k * Long.BYTES, ByteOrder.LITTLE_ENDIAN);
+            mask |= v.compare(VectorOperators.GE, lo).and(v.lt(hiExclusive)).toLong() << k;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,321 @@
+package org.lab.infra.analytics;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.IdGenerator;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Неизменяемый колоночный сегмент истории тикетов или багов (читается ColumnSegment).
+ * Формат (little-endian — порядок байт SIMD-загрузок на x86/ARM):
+ * - заголовок HEADER байт: [int magic][byte format][byte kind][short 0][int rows][int blockRows][int columns]
+ *   [int projects][int milestones][long dictionaryOffset][long directoryOffset][int 0];
+ * - словари: ProjectId, затем MilestoneId как [long msb][long lsb]; колонки хранят номер в словаре;
+ * - колонки по отдельности: данные (rows, дополненные до кратного blockRows; статус дополнения FREE),
+ *   затем [long min][long max] на блок по реальным строкам;
+ * - каталог колонок по directoryOffset: [byte id][byte width][short 0][int 0][long dataOffset][long statsOffset].
+ * Строки отсортированы по (проект, updatedAt), поэтому min/max блока отсекают и проект, и период.
+ * Колонки SORTED_ID_MSB/SORTED_ID_LSB — те же id, отсортированные (без знака) независимо от строк:
+ * проверка "сущность уже в сегменте" — бинарный поиск по отображению (сегменты без них индексируются при открытии).
+ * Файл пишется во временный и атомарно переименовывается.
+ */
+public final class SegmentFile {
+
+    static final int MAGIC = 0x504D5347;
+    static final byte FORMAT = 1;
+    static final int HEADER = 48;
+    static final int DIRECTORY_ENTRY = 24;
+    static final int BLOCK_ROWS = 4096;
+
+    static final byte TICKETS = 1;
+    static final byte BUGS = 2;
+
+    static final byte ID_MSB = 0;
+    static final byte ID_LSB = 1;
+    static final byte STATUS = 2;
+    static final byte PROJECT = 3;
+    static final byte MILESTONE = 4;
+    static final byte CREATED_AT = 5;
+    static final byte UPDATED_AT = 6;
+    static final byte SORTED_ID_MSB = 7;
+    static final byte SORTED_ID_LSB = 8;
+    static final int COLUMN_IDS = 9;
+
+    private SegmentFile() { }
+
+    /**
+     * Колонка в процессе записи: значения строк уже в порядке сегмента.
+     */
+    private record Column(byte id, int width, long[] values) { }
+
+    public static void writeTickets(Path path, List<Ticket> tickets) throws IOException {
+        Objects.requireNonNull(tickets, "tickets");
+        var rows = new ArrayList<>(tickets);
+        rows.sort(Comparator.comparing(Ticket::projectId).thenComparing(Ticket::updatedAt));
+
+        var projects = new Dictionary<ProjectId>();
+        var milestones = new Dictionary<MilestoneId>();
+        int n = rows.size();
+        var idMsb = new long[n];
+        var idLsb = new long[n];
+        var status = new long[n];
+        var project = new long[n];
+        var milestone = new long[n];
+        var created = new long[n];
+        var updated = new long[n];
+        for (int i = 0; i < n; i++) {
+            var t = rows.get(i);
+            idMsb[i] = t.id().msb();
+            idLsb[i] = t.id().lsb();
+            status[i] = t.status().ordinal();
+            project[i] = projects.code(t.projectId());
+            milestone[i] = milestones.code(t.milestoneId());
+            created[i] = t.createdAt().toEpochMilli();
+            updated[i] = t.updatedAt().toEpochMilli();
+        }
+        var sorted = sortedIds(idMsb, idLsb);
+        write(path, TICKETS, n, projects, milestones, List.of(
+                new Column(ID_MSB, Long.BYTES, idMsb),
+                new Column(ID_LSB, Long.BYTES, idLsb),
+                new Column(STATUS, 1, status),
+                new Column(PROJECT, Integer.BYTES, project),
+                new Column(MILESTONE, Integer.BYTES, milestone),
+                new Column(CREATED_AT, Long.BYTES, created),
+                new Column(UPDATED_AT, Long.BYTES, updated),
+                new Column(SORTED_ID_MSB, Long.BYTES, sorted[0]),
+                new Column(SORTED_ID_LSB, Long.BYTES, sorted[1])));
+    }
+
+    public static void writeBugs(Path path, List<BugReport> bugs) throws IOException {
+        Objects.requireNonNull(bugs, "bugs");
+        var rows = new ArrayList<>(bugs);
+        rows.sort(Comparator.comparing(BugReport::projectId).thenComparing(BugReport::updatedAt));
+
+        var projects = new Dictionary<ProjectId>();
+        int n = rows.size();
+        var idMsb = new long[n];
+        var idLsb = new long[n];
+        var status = new long[n];
+        var project = new long[n];
+        var created = new long[n];
+        var updated = new long[n];
+        for (int i = 0; i < n; i++) {
+            var b = rows.get(i);
+            idMsb[i] = b.id().msb();
+            idLsb[i] = b.id().lsb();
+            status[i] = b.status().ordinal();
+            project[i] = projects.code(b.projectId());
+            created[i] = b.createdAt().toEpochMilli();
+            updated[i] = b.updatedAt().toEpochMilli();
+        }
+        var sorted = sortedIds(idMsb, idLsb);
+        write(path, BUGS, n, projects, new Dictionary<>(), List.of(
+                new Column(ID_MSB, Long.BYTES, idMsb),
+                new Column(ID_LSB, Long.BYTES, idLsb),
+                new Column(STATUS, 1, status),
+                new Column(PROJECT, Integer.BYTES, project),
+                new Column(CREATED_AT, Long.BYTES, created),
+                new Column(UPDATED_AT, Long.BYTES, updated),
+                new Column(SORTED_ID_MSB, Long.BYTES, sorted[0]),
+                new Column(SORTED_ID_LSB, Long.BYTES, sorted[1])));
+    }
+
+    /**
+     * Пары (msb, lsb) в порядке IdGenerator.compare: [0] — msb, [1] — lsb.
+     */
+    static long[][] sortedIds(long[] msb, long[] lsb) {
+        var order = new Integer[msb.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> IdGenerator.compare(msb[a], lsb[a], msb[b], lsb[b]));
+        var out = new long[2][msb.length];
+        for (int i = 0; i < order.length; i++) {
+            out[0][i] = msb[order[i]];
+            out[1][i] = lsb[order[i]];
+        }
+        return out;
+    }
+
+    private static void write(Path path,
+                              byte kind,
+                              int rows,
+                              Dictionary<ProjectId> projects,
+                              Dictionary<MilestoneId> milestones,
+                              List<Column> columns) throws IOException {
+        Objects.requireNonNull(path, "path");
+        int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        int padded = blocks * BLOCK_ROWS;
+
+        var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new Output(channel);
+            out.skip(HEADER);
+
+            long dictionaryOffset = out.position();
+            for (var p : projects.keys) {
+                out.putLong(p.msb());
+                out.putLong(p.lsb());
+            }
+            for (var m : milestones.keys) {
+                out.putLong(m.msb());
+                out.putLong(m.lsb());
+            }
+
+            var dataOffsets = new long[columns.size()];
+            var statsOffsets = new long[columns.size()];
+            for (int c = 0; c < columns.size(); c++) {
+                var col = columns.get(c);
+                out.align(Long.BYTES);
+                dataOffsets[c] = out.position();
+                for (int i = 0; i < padded; i++) {
+                    long v = i < rows ? col.values()[i] : (col.id() == STATUS ? Kernels.FREE : 0);
+                    switch (col.width()) {
+                        case 1 -> out.putByte((byte) v);
+                        case Integer.BYTES -> out.putInt((int) v);
+                        default -> out.putLong(v);
+                    }
+                }
+                out.align(Long.BYTES);
+                statsOffsets[c] = out.position();
+                for (int b = 0; b < blocks; b++) {
+                    long min = Long.MAX_VALUE;
+                    long max = Long.MIN_VALUE;
+                    for (int i = b * BLOCK_ROWS, end = Math.min(rows, i + BLOCK_ROWS); i < end; i++) {
+                        min = Math.min(min, col.values()[i]);
+                        max = Math.max(max, col.values()[i]);
+                    }
+                    out.putLong(min);
+                    out.putLong(max);
+                }
+            }
+
+            long directoryOffset = out.position();
+            for (int c = 0; c < columns.size(); c++) {
+                out.putByte(columns.get(c).id());
+                out.putByte((byte) columns.get(c).width());
+                out.putShort((short) 0);
+                out.putInt(0);
+                out.putLong(dataOffsets[c]);
+                out.putLong(statsOffsets[c]);
+            }
+            out.flush();
+
+            var header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .put(FORMAT)
+                    .put(kind)
+                    .putShort((short) 0)
+                    .putInt(rows)
+                    .putInt(BLOCK_ROWS)
+                    .putInt(columns.size())
+                    .putInt(projects.keys.size())
+                    .putInt(milestones.keys.size())
+                    .putLong(dictionaryOffset)
+                    .putLong(directoryOffset)
+                    .putInt(0)
+                    .flip();
+            long at = 0;
+            while (header.hasRemaining()) {
+                at += channel.write(header, at);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Номера ключей в порядке первого появления.
+     */
+    private static final class Dictionary<K> {
+        private final HashMap<K, Integer> codes = new HashMap<>();
+        private final List<K> keys = new ArrayList<>();
+
+        int code(K key) {
+            return codes.computeIfAbsent(key, k -> {
+                keys.add(k);
+                return keys.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Последовательная запись через буфер; position — смещение в файле.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buf.position();
+        }
+
+        void skip(int bytes) throws IOException {
+            for (int i = 0; i < bytes; i++) {
+                putByte((byte) 0);
+            }
+        }
+
+        void align(int to) throws IOException {
+            while (position() % to != 0) {
+                putByte((byte) 0);
+            }
+        }
+
+        void putByte(byte v) throws IOException {
+            ensure(1);
+            buf.put(v);
+        }
+
+        void putShort(short v) throws IOException {
+            ensure(Short.BYTES);
+            buf.putShort(v);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(Integer.BYTES);
+            buf.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(Long.BYTES);
+            buf.putLong(v);
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                flushed += channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package org.lab.infra.offheap;
+
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.TicketStore;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Тикеты вне heap: поля фиксированной ширины — в слотах слабов (MemorySegment), текст и assignees — в TextArena,
+ * id -> слот — open-addressing таблица, тоже off-heap. Ticket создаётся по запросу как короткоживущее представление,
+ * поэтому число heap-объектов (и работа GC) не растёт с числом тикетов; в heap остаётся только индекс
+ * assignee -> список слотов, размер которого зависит от числа пользователей.
+ * Modern Java:
+ * - FFM (java.lang.foreign): StructLayout описывает слот, смещения полей берутся из layout, а не считаются вручную.
+ * - Shared Arena: память доступна из любых потоков и освобождается детерминированно в close().
+ * Конкурентность: один писатель (write lock) и параллельные читатели (read lock).
+ * Заменённый текст не переиспользуется (см. garbageBytes); слоты не освобождаются — удаления тикетов в репозитории нет.
+ */
+public final class OffHeapTicketStore implements TicketStore, AutoCloseable {
+
+    static final StructLayout SLOT = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("idMsb"),
+            ValueLayout.JAVA_LONG.withName("idLsb"),
+            ValueLayout.JAVA_LONG.withName("projectMsb"),
+            ValueLayout.JAVA_LONG.withName("projectLsb"),
+            ValueLayout.JAVA_LONG.withName("milestoneMsb"),
+            ValueLayout.JAVA_LONG.withName("milestoneLsb"),
+            ValueLayout.JAVA_LONG.withName("createdByMsb"),
+            ValueLayout.JAVA_LONG.withName("createdByLsb"),
+            ValueLayout.JAVA_LONG.withName("createdAtSeconds"),
+            ValueLayout.JAVA_LONG.withName("updatedAtSeconds"),
+            ValueLayout.JAVA_INT.withName("createdAtNanos"),
+            ValueLayout.JAVA_INT.withName("updatedAtNanos"),
+            ValueLayout.JAVA_LONG.withName("title"),
+            ValueLayout.JAVA_LONG.withName("description"),
+            ValueLayout.JAVA_LONG.withName("assignees"),
+            ValueLayout.JAVA_INT.withName("titleLength"),
+            ValueLayout.JAVA_INT.withName("descriptionLength"),
+            ValueLayout.JAVA_INT.withName("assigneeCount"),
+            ValueLayout.JAVA_BYTE.withName("status"),
+            MemoryLayout.paddingLayout(3));
+
+    private static final long ID_MSB = offsetOf("idMsb");
+    private static final long ID_LSB = offsetOf("idLsb");
+    private static final long PROJECT_MSB = offsetOf("projectMsb");
+    private static final long PROJECT_LSB = offsetOf("projectLsb");
+    private static final long MILESTONE_MSB = offsetOf("milestoneMsb");
+    private static final long MILESTONE_LSB = offsetOf("milestoneLsb");
+    private static final long CREATED_BY_MSB = offsetOf("createdByMsb");
+    private static final long CREATED_BY_LSB = offsetOf("createdByLsb");
+    private static final long CREATED_AT_SECONDS = offsetOf("createdAtSeconds");
+    private static final long UPDATED_AT_SECONDS = offsetOf("updatedAtSeconds");
+    private static final long CREATED_AT_NANOS = offsetOf("createdAtNanos");
+    private static final long UPDATED_AT_NANOS = offsetOf("updatedAtNanos");
+    private static final long TITLE = offsetOf("title");
+    private static final long DESCRIPTION = offsetOf("description");
+    private static final long ASSIGNEES = offsetOf("assignees");
+    private static final long TITLE_LENGTH = offsetOf("titleLength");
+    private static final long DESCRIPTION_LENGTH = offsetOf("descriptionLength");
+    private static final long ASSIGNEE_COUNT = offsetOf("assigneeCount");
+    private static final long STATUS = offsetOf("status");
+
+    private static final int SLAB_SHIFT = 13;
+    private static final int SLAB_SLOTS = 1 << SLAB_SHIFT;
+    private static final int INITIAL_TABLE = 1 << 12;
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    private final Arena arena = Arena.ofShared();
+    private final TextArena text = new TextArena(arena);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UserId, SlotList> byAssignee = new HashMap<>();
+
+    private MemorySegment[] slabs = new MemorySegment[16];
+    private int slotCount;
+    /** Open addressing: int (слот + 1), 0 — пусто; удалений нет, поэтому без tombstone. */
+    private MemorySegment table;
+    private int tableMask;
+
+    public OffHeapTicketStore() {
+        this.table = arena.allocate(ValueLayout.JAVA_INT.byteSize() * INITIAL_TABLE, ValueLayout.JAVA_INT.byteAlignment());
+        this.tableMask = INITIAL_TABLE - 1;
+    }
+
+    @Override
+    public Ticket get(TicketId id) {
+        Objects.requireNonNull(id, "id");
+        var r = lock.readLock();
+        r.lock();
+        try {
+            int slot = find(id.msb(), id.lsb());
+            return slot < 0 ? null : view(slot);
+        } finally {
+            r.unlock();
+        }
+    }
+
+    @Override
+    public Ticket compute(TicketId id, UnaryOperator<Ticket> update) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(update, "update");
+        var w = lock.writeLock();
+        w.lock();
+        try {
+            int slot = find(id.msb(), id.lsb());
+            var prev = slot < 0 ? null : view(slot);
+            var next = Objects.requireNonNull(update.apply(prev), "update result");
+            if (next == prev) {
+                return prev;
+            }
+            if (!next.id().equals(id)) {
+                throw new IllegalArgumentException("update changed ticket id: " + id + " -> " + next.id());
+            }
+            if (slot < 0) {
+                slot = allocateSlot();
+                write(slot, null, next);
+                index(slot, id.msb(), id.lsb());
+            } else {
+                write(slot, prev, next);
+            }
+            reindexAssignees(slot, prev, next);
+            return next;
+        } finally {
+            w.unlock();
+        }
+    }
+
+    @Override
+    public List<Ticket> findByAssignee(UserId userId) {
+        Objects.requireNonNull(userId, "userId");
+        var r = lock.readLock();
+        r.lock();
+        try {
+            var slots = byAssignee.get(userId);
+            if (slots == null) {
+                return List.of();
+            }
+            var out = new ArrayList<Ticket>(slots.size());
+            for (int i = 0; i < slots.size(); i++) {
+                out.add(view(slots.get(i)));
+            }
+            out.sort(Comparator.comparing(Ticket::id));
+            return List.copyOf(out);
+        } finally {
+            r.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        var r = lock.readLock();
+        r.lock();
+        try {
+            return slotCount;
+        } finally {
+            r.unlock();
+        }
+    }
+
+    /**
+     * Зарезервированная off-heap память: слабы, таблица id, текстовая арена и списки assignee.
+     */
+    public long offHeapBytes() {
+        var r = lock.readLock();
+        r.lock();
+        try {
+            long slabBytes = 0;
+            for (var s : slabs) {
+                if (s != null) {
+                    slabBytes += s.byteSize();
+                }
+            }
+            long lists = 0;
+            for (var l : byAssignee.values()) {
+                lists += l.byteSize();
+            }
+            return slabBytes + table.byteSize() + text.reservedBytes() + lists;
+        } finally {
+            r.unlock();
+        }
+    }
+
+    /**
+     * Байты текстовой арены, занятые заменёнными значениями.
+     */
+    public long garbageBytes() {
+        var r = lock.readLock();
+        r.lock();
+        try {
+            return text.garbageBytes();
+        } finally {
+            r.unlock();
+        }
+    }
+
+    /**
+     * Освобождает всю off-heap память; дальнейшие вызовы завершаются IllegalStateException.
+     */
+    @Override
+    public void close() {
+        var w = lock.writeLock();
+        w.lock();
+        try {
+            arena.close();
+        } finally {
+            w.unlock();
+        }
+    }
+
+    private Ticket view(int slot) {
+        var s = slabs[slot >>> SLAB_SHIFT];
+        long b = (long) (slot & (SLAB_SLOTS - 1)) * SLOT.byteSize();
+        return new Ticket(
+                new TicketId(s.get(ValueLayout.JAVA_LONG, b + ID_MSB), s.get(ValueLayout.JAVA_LONG, b + ID_LSB)),
+                new ProjectId(s.get(ValueLayout.JAVA_LONG, b + PROJECT_MSB), s.get(ValueLayout.JAVA_LONG, b + PROJECT_LSB)),
+                new MilestoneId(s.get(ValueLayout.JAVA_LONG, b + MILESTONE_MSB), s.get(ValueLayout.JAVA_LONG, b + MILESTONE_LSB)),
+                new Title(text.getUtf8(s.get(ValueLayout.JAVA_LONG, b + TITLE), s.get(ValueLayout.JAVA_INT, b + TITLE_LENGTH))),
+                new Description(text.getUtf8(s.get(ValueLayout.JAVA_LONG, b + DESCRIPTION),
+                        s.get(ValueLayout.JAVA_INT, b + DESCRIPTION_LENGTH))),
+                STATUSES[s.get(ValueLayout.JAVA_BYTE, b + STATUS)],
+                text.getIds(s.get(ValueLayout.JAVA_LONG, b + ASSIGNEES), s.get(ValueLayout.JAVA_INT, b + ASSIGNEE_COUNT)),
+                new UserId(s.get(ValueLayout.JAVA_LONG, b + CREATED_BY_MSB), s.get(ValueLayout.JAVA_LONG, b + CREATED_BY_LSB)),
+                Instant.ofEpochSecond(s.get(ValueLayout.JAVA_LONG, b + CREATED_AT_SECONDS), s.get(ValueLayout.JAVA_INT, b + CREATED_AT_NANOS)),
+                Instant.ofEpochSecond(s.get(ValueLayout.JAVA_LONG, b + UPDATED_AT_SECONDS), s.get(ValueLayout.JAVA_INT, b + UPDATED_AT_NANOS))
+        );
+    }
+
+    /**
+     * Текст и assignees переписываются в арену, только если они изменились относительно prev.
+     */
+    private void write(int slot, Ticket prev, Ticket next) {
+        var s = slabs[slot >>> SLAB_SHIFT];
+        long b = (long) (slot & (SLAB_SLOTS - 1)) * SLOT.byteSize();
+        s.set(ValueLayout.JAVA_LONG, b + ID_MSB, next.id().msb());
+        s.set(ValueLayout.JAVA_LONG, b + ID_LSB, next.id().lsb());
+        s.set(ValueLayout.JAVA_LONG, b + PROJECT_MSB, next.projectId().msb());
+        s.set(ValueLayout.JAVA_LONG, b + PROJECT_LSB, next.projectId().lsb());
+        s.set(ValueLayout.JAVA_LONG, b + MILESTONE_MSB, next.milestoneId().msb());
+        s.set(ValueLayout.JAVA_LONG, b + MILESTONE_LSB, next.milestoneId().lsb());
+        s.set(ValueLayout.JAVA_LONG, b + CREATED_BY_MSB, next.createdBy().msb());
+        s.set(ValueLayout.JAVA_LONG, b + CREATED_BY_LSB, next.createdBy().lsb());
+        s.set(ValueLayout.JAVA_LONG, b + CREATED_AT_SECONDS, next.createdAt().getEpochSecond());
+        s.set(ValueLayout.JAVA_INT, b + CREATED_AT_NANOS, next.createdAt().getNano());
+        s.set(ValueLayout.JAVA_LONG, b + UPDATED_AT_SECONDS, next.updatedAt().getEpochSecond());
+        s.set(ValueLayout.JAVA_INT, b + UPDATED_AT_NANOS, next.updatedAt().getNano());
+        s.set(ValueLayout.JAVA_BYTE, b + STATUS, (byte) next.status().ordinal());
+
+        if (prev == null || !prev.title().equals(next.title())) {
+            writeText(s, b + TITLE, b + TITLE_LENGTH, prev != null, next.title().value());
+        }
+        if (prev == null || !prev.description().equals(next.description())) {
+            writeText(s, b + DESCRIPTION, b + DESCRIPTION_LENGTH, prev != null, next.description().value());
+        }
+        if (prev == null || !prev.assignees().equals(next.assignees())) {
+            if (prev != null) {
+                text.release(s.get(ValueLayout.JAVA_INT, b + ASSIGNEE_COUNT) * 2L * Long.BYTES);
+            }
+            s.set(ValueLayout.JAVA_LONG, b + ASSIGNEES, text.putIds(next.assignees()));
+            s.set(ValueLayout.JAVA_INT, b + ASSIGNEE_COUNT, next.assignees().size());
+        }
+    }
+
+    private void writeText(MemorySegment s, long refAt, long lengthAt, boolean replacing, String value) {
+        if (replacing) {
+            text.release(s.get(ValueLayout.JAVA_INT, lengthAt));
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        s.set(ValueLayout.JAVA_LONG, refAt, text.putBytes(bytes));
+        s.set(ValueLayout.JAVA_INT, lengthAt, bytes.length);
+    }
+
+    private int allocateSlot() {
+        int slot = slotCount;
+        int slab = slot >>> SLAB_SHIFT;
+        if (slab == slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabs.length << 1);
+        }
+        if (slabs[slab] == null) {
+            slabs[slab] = arena.allocate(SLOT.byteSize() * SLAB_SLOTS, SLOT.byteAlignment());
+        }
+        slotCount++;
+        return slot;
+    }
+
+    private int find(long msb, long lsb) {
+        for (int i = hash(msb, lsb) & tableMask; ; i = (i + 1) & tableMask) {
+            int v = table.getAtIndex(ValueLayout.JAVA_INT, i);
+            if (v == 0) {
+                return -1;
+            }
+            int slot = v - 1;
+            var s = slabs[slot >>> SLAB_SHIFT];
+            long b = (long) (slot & (SLAB_SLOTS - 1)) * SLOT.byteSize();
+            if (s.get(ValueLayout.JAVA_LONG, b + ID_MSB) == msb && s.get(ValueLayout.JAVA_LONG, b + ID_LSB) == lsb) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Заполнение таблицы держится не выше 1/2: при линейном пробировании цепочки остаются короткими.
+     */
+    private void index(int slot, long msb, long lsb) {
+        if ((long) slotCount * 2 > tableMask + 1L) {
+            rehash((tableMask + 1) << 1);
+        }
+        insert(table, tableMask, hash(msb, lsb), slot);
+    }
+
+    private void rehash(int capacity) {
+        var next = arena.allocate(ValueLayout.JAVA_INT.byteSize() * capacity, ValueLayout.JAVA_INT.byteAlignment());
+        int mask = capacity - 1;
+        for (int i = 0; i <= tableMask; i++) {
+            int v = table.getAtIndex(ValueLayout.JAVA_INT, i);
+            if (v != 0) {
+                int slot = v - 1;
+                var s = slabs[slot >>> SLAB_SHIFT];
+                long b = (long) (slot & (SLAB_SLOTS - 1)) * SLOT.byteSize();
+                insert(next, mask, hash(s.get(ValueLayout.JAVA_LONG, b + ID_MSB), s.get(ValueLayout.JAVA_LONG, b + ID_LSB)), slot);
+            }
+        }
+        table = next;
+        tableMask = mask;
+    }
+
+    private static void insert(MemorySegment table, int mask, int hash, int slot) {
+        int i = hash & mask;
+        while (table.getAtIndex(ValueLayout.JAVA_INT, i) != 0) {
+            i = (i + 1) & mask;
+        }
+        table.setAtIndex(ValueLayout.JAVA_INT, i, slot + 1);
+    }
+
+    private void reindexAssignees(int slot, Ticket prev, Ticket next) {
+        Set<UserId> before = prev == null ? Set.of() : prev.assignees();
+        Set<UserId> after = next.assignees();
+        for (var u : before) {
+            if (!after.contains(u)) {
+                var slots = byAssignee.get(u);
+                if (slots != null && slots.remove(slot) && slots.size() == 0) {
+                    byAssignee.remove(u);
+                }
+            }
+        }
+        for (var u : after) {
+            if (!before.contains(u)) {
+                byAssignee.computeIfAbsent(u, k -> new SlotList(arena)).add(slot);
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long offsetOf(String field) {
+        return SLOT.byteOffset(MemoryLayout.PathElement.groupElement(field));
+    }
+
+    /**
+     * Растущий off-heap массив номеров слотов; прежний сегмент остаётся в арене до close.
+     */
+    private static final class SlotList {
+        private final Arena arena;
+        private MemorySegment ints;
+        private int size;
+
+        SlotList(Arena arena) {
+            this.arena = arena;
+            this.ints = arena.allocate(ValueLayout.JAVA_INT.byteSize() * 8, ValueLayout.JAVA_INT.byteAlignment());
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return ints.getAtIndex(ValueLayout.JAVA_INT, i);
+        }
+
+        long byteSize() {
+            return ints.byteSize();
+        }
+
+        void add(int slot) {
+            if (size * ValueLayout.JAVA_INT.byteSize() == ints.byteSize()) {
+                var next = arena.allocate(ints.byteSize() << 1, ValueLayout.JAVA_INT.byteAlignment());
+                next.copyFrom(ints);
+                ints = next;
+            }
+            ints.setAtIndex(ValueLayout.JAVA_INT, size++, slot);
+        }
+
+        boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (get(i) == slot) {
+                    ints.setAtIndex(ValueLayout.JAVA_INT, i, get(--size));
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.lab.infra.offheap;
+
+import org.lab.domain.UserId;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Append-only область для данных переменной длины (UTF-8 текст, списки id) в off-heap чанках.
+ * Ссылка — long: [int номер чанка][int смещение]; длина хранится у владельца ссылки.
+ * Заменённые значения не освобождаются (учитываются в garbageBytes) — память возвращается целиком при закрытии арены.
+ * Не потокобезопасна: писатель один (под замком хранилища).
+ */
+final class TextArena {
+
+    private static final int CHUNK = 1 << 20;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+
+    private final Arena arena;
+    private MemorySegment[] chunks = new MemorySegment[8];
+    private int chunkCount;
+    private long used;
+    private long reserved;
+    private long garbage;
+
+    TextArena(Arena arena) {
+        this.arena = arena;
+    }
+
+    long putBytes(byte[] bytes) {
+        if (bytes.length == 0) {
+            return 0;
+        }
+        long ref = reserve(bytes.length);
+        MemorySegment.copy(bytes, 0, chunk(ref), ValueLayout.JAVA_BYTE, offset(ref), bytes.length);
+        return ref;
+    }
+
+    String getUtf8(long ref, int len) {
+        if (len == 0) {
+            return "";
+        }
+        var bytes = new byte[len];
+        MemorySegment.copy(chunk(ref), ValueLayout.JAVA_BYTE, offset(ref), bytes, 0, len);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long putIds(Set<UserId> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long ref = reserve(ids.size() * 2L * Long.BYTES);
+        var seg = chunk(ref);
+        long at = offset(ref);
+        for (var id : ids) {
+            seg.set(LONG, at, id.msb());
+            seg.set(LONG, at + Long.BYTES, id.lsb());
+            at += 2L * Long.BYTES;
+        }
+        return ref;
+    }
+
+    Set<UserId> getIds(long ref, int count) {
+        if (count == 0) {
+            return Set.of();
+        }
+        var seg = chunk(ref);
+        long at = offset(ref);
+        var out = new UserId[count];
+        for (int i = 0; i < count; i++) {
+            out[i] = new UserId(seg.get(LONG, at), seg.get(LONG, at + Long.BYTES));
+            at += 2L * Long.BYTES;
+        }
+        return Set.of(out);
+    }
+
+    /**
+     * Значение по ссылке больше не используется.
+     */
+    void release(long bytes) {
+        garbage += bytes;
+    }
+
+    long reservedBytes() {
+        return reserved;
+    }
+
+    long garbageBytes() {
+        return garbage;
+    }
+
+    /**
+     * Значение не пересекает границу чанка; большие значения получают отдельный чанк своего размера.
+     */
+    private long reserve(long len) {
+        var last = chunkCount == 0 ? null : chunks[chunkCount - 1];
+        if (last == null || used + len > last.byteSize()) {
+            var next = arena.allocate(Math.max(CHUNK, len), Long.BYTES);
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount << 1);
+            }
+            chunks[chunkCount++] = next;
+            reserved += next.byteSize();
+            used = 0;
+        }
+        long ref = ((long) (chunkCount - 1) << 32) | used;
+        used += len;
+        return ref;
+    }
+
+    private MemorySegment chunk(long ref) {
+        return chunks[(int) (ref >>> 32)];
+    }
+
+    private static long offset(long ref) {
+        return ref & 0xFFFF_FFFFL;
+    }
+}
@@ -0,0 +1,493 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.DateRange;
+import org.lab.domain.Description;
+import org.lab.domain.Milestone;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.ProjectKey;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.MilestoneStatus;
+import org.lab.domain.enums.ProjectRole;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.ProjectChange;
+import org.lab.infra.ProjectSource;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Компактное бинарное представление доменных записей для журнала и снимков.
+ * - id: два long (msb/lsb), без строкового UUID;
+ * - enum: один байт (ordinal);
+ * - строки: varint-длина + UTF-8;
+ * - Instant: epochSecond + nano; nullable-поля предваряются байтом-флагом.
+ * Декодирование доверяет данным (они прошли валидацию при записи и защищены CRC кадра),
+ * поэтому value objects собираются конструкторами, без повторной валидации.
+ * Версия кодека (VERSION) записывается в заголовок журнала и снимка; читатель отказывается
+ * от версий, которых не знает. Любое изменение раскладки записей — только с новой версией.
+ * Запись идёт через ByteSink (свой direct-буфер либо ByteSink.over(ByteBuffer/MemorySegment)),
+ * чтение — из ByteBuffer (для MemorySegment: segment.asByteBuffer()).
+ */
+public final class BinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    private BinaryCodec() { }
+
+    public static boolean supports(int version) {
+        return version == VERSION;
+    }
+
+    // ---------- primitives ----------
+
+    public static void writeString(ByteSink out, String s) {
+        out.putUtf8(s);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int len = readVarInt(in);
+        if (len > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+            in.position(in.position() + len);
+        } else {
+            var bytes = new byte[len];
+            in.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    public static int readVarInt(ByteBuffer in) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    public static void writeInstant(ByteSink out, Instant t) {
+        out.putLong(t.getEpochSecond());
+        out.putInt(t.getNano());
+    }
+
+    public static Instant readInstant(ByteBuffer in) {
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        int ordinal = in.get() & 0xFF;
+        if (ordinal >= values.length) {
+            throw new IllegalStateException("unknown " + values.getClass().getComponentType().getSimpleName() + " ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static final ProjectRole[] ROLES = ProjectRole.values();
+    private static final MilestoneStatus[] MILESTONE_STATUSES = MilestoneStatus.values();
+    private static final TicketStatus[] TICKET_STATUSES = TicketStatus.values();
+    private static final BugStatus[] BUG_STATUSES = BugStatus.values();
+
+    // ---------- ids ----------
+
+    public static void writeUserId(ByteSink out, UserId id) {
+        out.putLong(id.msb());
+        out.putLong(id.lsb());
+    }
+
+    public static UserId readUserId(ByteBuffer in) {
+        return new UserId(in.getLong(), in.getLong());
+    }
+
+    private static void writeNullableUserId(ByteSink out, UserId id) {
+        if (id == null) {
+            out.putByte(0);
+            return;
+        }
+        out.putByte(1);
+        writeUserId(out, id);
+    }
+
+    private static UserId readNullableUserId(ByteBuffer in) {
+        return in.get() == 0 ? null : readUserId(in);
+    }
+
+    public static void writeProjectId(ByteSink out, ProjectId id) {
+        out.putLong(id.msb());
+        out.putLong(id.lsb());
+    }
+
+    public static ProjectId readProjectId(ByteBuffer in) {
+        return new ProjectId(in.getLong(), in.getLong());
+    }
+
+    private static void writeMilestoneId(ByteSink out, MilestoneId id) {
+        out.putLong(id.msb());
+        out.putLong(id.lsb());
+    }
+
+    private static MilestoneId readMilestoneId(ByteBuffer in) {
+        return new MilestoneId(in.getLong(), in.getLong());
+    }
+
+    private static void writeTicketId(ByteSink out, TicketId id) {
+        out.putLong(id.msb());
+        out.putLong(id.lsb());
+    }
+
+    private static TicketId readTicketId(ByteBuffer in) {
+        return new TicketId(in.getLong(), in.getLong());
+    }
+
+    private static void writeBugReportId(ByteSink out, BugReportId id) {
+        out.putLong(id.msb());
+        out.putLong(id.lsb());
+    }
+
+    private static BugReportId readBugReportId(ByteBuffer in) {
+        return new BugReportId(in.getLong(), in.getLong());
+    }
+
+    // ---------- entities ----------
+
+    public static void writeUser(ByteSink out, User u) {
+        writeUserId(out, u.id());
+        writeString(out, u.login());
+        writeString(out, u.displayName());
+        writeInstant(out, u.registeredAt());
+    }
+
+    public static User readUser(ByteBuffer in) {
+        return new User(readUserId(in), readString(in), readString(in), readInstant(in));
+    }
+
+    public static void writeMilestone(ByteSink out, Milestone m) {
+        writeMilestoneId(out, m.id());
+        writeProjectId(out, m.projectId());
+        writeString(out, m.name());
+        out.putLong(m.range().start().toEpochDay());
+        out.putLong(m.range().end().toEpochDay());
+        out.putByte(m.status().ordinal());
+        writeInstant(out, m.createdAt());
+        writeInstant(out, m.updatedAt());
+    }
+
+    public static Milestone readMilestone(ByteBuffer in) {
+        var id = readMilestoneId(in);
+        var projectId = readProjectId(in);
+        var name = readString(in);
+        var range = new DateRange(LocalDate.ofEpochDay(in.getLong()), LocalDate.ofEpochDay(in.getLong()));
+        var status = readEnum(in, MILESTONE_STATUSES);
+        return new Milestone(id, projectId, name, range, status, readInstant(in), readInstant(in));
+    }
+
+    public static void writeTicket(ByteSink out, Ticket t) {
+        writeTicketId(out, t.id());
+        writeProjectId(out, t.projectId());
+        writeMilestoneId(out, t.milestoneId());
+        writeString(out, t.title().value());
+        writeString(out, t.description().value());
+        out.putByte(t.status().ordinal());
+        out.putVarInt(t.assignees().size());
+        for (var a : t.assignees()) {
+            writeUserId(out, a);
+        }
+        writeUserId(out, t.createdBy());
+        writeInstant(out, t.createdAt());
+        writeInstant(out, t.updatedAt());
+    }
+
+    public static Ticket readTicket(ByteBuffer in) {
+        var id = readTicketId(in);
+        var projectId = readProjectId(in);
+        var milestoneId = readMilestoneId(in);
+        var title = new Title(readString(in));
+        var description = new Description(readString(in));
+        var status = readEnum(in, TICKET_STATUSES);
+        int n = readVarInt(in);
+        Set<UserId> assignees;
+        if (n == 0) {
+            assignees = Set.of();
+        } else {
+            var tmp = new HashSet<UserId>(n * 2);
+            for (int i = 0; i < n; i++) {
+                tmp.add(readUserId(in));
+            }
+            assignees = Set.copyOf(tmp);
+        }
+        var createdBy = readUserId(in);
+        return new Ticket(id, projectId, milestoneId, title, description, status, assignees,
+                createdBy, readInstant(in), readInstant(in));
+    }
+
+    public static void writeBugReport(ByteSink out, BugReport b) {
+        writeBugReportId(out, b.id());
+        writeProjectId(out, b.projectId());
+        writeString(out, b.title().value());
+        writeString(out, b.description().value());
+        out.putByte(b.status().ordinal());
+        writeUserId(out, b.createdBy());
+        writeNullableUserId(out, b.assignedTo());
+        writeNullableUserId(out, b.fixedBy());
+        writeNullableUserId(out, b.testedBy());
+        writeInstant(out, b.createdAt());
+        writeInstant(out, b.updatedAt());
+    }
+
+    public static BugReport readBugReport(ByteBuffer in) {
+        var id = readBugReportId(in);
+        var projectId = readProjectId(in);
+        var title = new Title(readString(in));
+        var description = new Description(readString(in));
+        var status = readEnum(in, BUG_STATUSES);
+        var createdBy = readUserId(in);
+        var assignedTo = readNullableUserId(in);
+        var fixedBy = readNullableUserId(in);
+        var testedBy = readNullableUserId(in);
+        return new BugReport(id, projectId, title, description, status, createdBy,
+                assignedTo, fixedBy, testedBy, readInstant(in), readInstant(in));
+    }
+
+    // ---------- project change ----------
+
+    public static void writeHeader(ByteSink out, ProjectChange.Header h) {
+        writeProjectId(out, h.id());
+        out.putLong(h.version());
+        writeString(out, h.key().value());
+        writeString(out, h.name());
+        writeString(out, h.description().value());
+        writeUserId(out, h.managerId());
+        writeNullableUserId(out, h.teamLeadId());
+        writeInstant(out, h.createdAt());
+        writeInstant(out, h.updatedAt());
+    }
+
+    public static ProjectChange.Header readHeader(ByteBuffer in) {
+        var id = readProjectId(in);
+        long version = in.getLong();
+        var key = new ProjectKey(readString(in));
+        var name = readString(in);
+        var description = new Description(readString(in));
+        var managerId = readUserId(in);
+        var teamLeadId = readNullableUserId(in);
+        return new ProjectChange.Header(id, version, key, name, description, managerId, teamLeadId,
+                readInstant(in), readInstant(in));
+    }
+
+    /**
+     * Полное состояние проекта (для снимка): шапка + все участники, milestones, тикеты и баги.
+     * ProjectSummary не хранится — это производные данные, они пересчитываются при чтении.
+     */
+    public static void writeProject(ByteSink out, Project p) {
+        writeHeader(out, ProjectChange.Header.of(p));
+
+        out.putVarInt(p.members().size());
+        p.members().forEach((u, role) -> {
+            writeUserId(out, u);
+            out.putByte(role.ordinal());
+        });
+        out.putVarInt(p.milestones().size());
+        p.milestones().forEach((id, m) -> writeMilestone(out, m));
+        out.putVarInt(p.tickets().size());
+        p.tickets().forEach((id, t) -> writeTicket(out, t));
+        out.putVarInt(p.bugReports().size());
+        p.bugReports().forEach((id, b) -> writeBugReport(out, b));
+    }
+
+    public static Project readProject(ByteBuffer in) {
+        var h = readHeader(in);
+
+        int n = readVarInt(in);
+        var members = new HashMap<UserId, ProjectRole>(n * 2);
+        for (int i = 0; i < n; i++) {
+            members.put(readUserId(in), readEnum(in, ROLES));
+        }
+        n = readVarInt(in);
+        var milestones = new HashMap<MilestoneId, Milestone>(n * 2);
+        for (int i = 0; i < n; i++) {
+            var m = readMilestone(in);
+            milestones.put(m.id(), m);
+        }
+        n = readVarInt(in);
+        var tickets = new HashMap<TicketId, Ticket>(n * 2);
+        for (int i = 0; i < n; i++) {
+            var t = readTicket(in);
+            tickets.put(t.id(), t);
+        }
+        n = readVarInt(in);
+        var bugs = new HashMap<BugReportId, BugReport>(n * 2);
+        for (int i = 0; i < n; i++) {
+            var b = readBugReport(in);
+            bugs.put(b.id(), b);
+        }
+
+        return new Project(h.id(), h.version(), h.key(), h.name(), h.description(),
+                h.managerId(), h.teamLeadId(),
+                members, milestones, tickets, bugs,
+                null,
+                h.createdAt(), h.updatedAt());
+    }
+
+    /**
+     * Только начало кадра writeProject: шапка и участники, без milestones/тикетов/багов.
+     */
+    public static ProjectSource.Stub readProjectStub(ByteBuffer in) {
+        var h = readHeader(in);
+        int n = readVarInt(in);
+        var members = new HashSet<UserId>(n * 2);
+        for (int i = 0; i < n; i++) {
+            members.add(readUserId(in));
+            readEnum(in, ROLES);
+        }
+        return new ProjectSource.Stub(h.id(), h.key(), members);
+    }
+
+    /**
+     * Тикеты и баги из кадра writeProject без сборки Project: шапка, участники и milestones пропускаются
+     * (прогрев проекций не материализует агрегат).
+     */
+    public static void readProjectWork(ByteBuffer in, Consumer<Ticket> tickets, Consumer<BugReport> bugs) {
+        readHeader(in);
+        int n = readVarInt(in);
+        for (int i = 0; i < n; i++) {
+            readUserId(in);
+            readEnum(in, ROLES);
+        }
+        n = readVarInt(in);
+        for (int i = 0; i < n; i++) {
+            readMilestone(in);
+        }
+        n = readVarInt(in);
+        for (int i = 0; i < n; i++) {
+            tickets.accept(readTicket(in));
+        }
+        n = readVarInt(in);
+        for (int i = 0; i < n; i++) {
+            bugs.accept(readBugReport(in));
+        }
+    }
+
+    public static void writeProjectChange(ByteSink out, ProjectChange c) {
+        writeHeader(out, c.header());
+        out.putByte(c.created() ? 1 : 0);
+
+        out.putVarInt(c.upsertedMembers().size());
+        for (var e : c.upsertedMembers().entrySet()) {
+            writeUserId(out, e.getKey());
+            out.putByte(e.getValue().ordinal());
+        }
+        out.putVarInt(c.removedMembers().size());
+        for (var u : c.removedMembers()) {
+            writeUserId(out, u);
+        }
+
+        out.putVarInt(c.upsertedMilestones().size());
+        for (var m : c.upsertedMilestones()) {
+            writeMilestone(out, m);
+        }
+        out.putVarInt(c.removedMilestones().size());
+        for (var m : c.removedMilestones()) {
+            writeMilestoneId(out, m);
+        }
+
+        out.putVarInt(c.upsertedTickets().size());
+        for (var t : c.upsertedTickets()) {
+            writeTicket(out, t);
+        }
+        out.putVarInt(c.removedTickets().size());
+        for (var t : c.removedTickets()) {
+            writeTicketId(out, t);
+        }
+
+        out.putVarInt(c.upsertedBugs().size());
+        for (var b : c.upsertedBugs()) {
+            writeBugReport(out, b);
+        }
+        out.putVarInt(c.removedBugs().size());
+        for (var b : c.removedBugs()) {
+            writeBugReportId(out, b);
+        }
+    }
+
+    public static ProjectChange readProjectChange(ByteBuffer in) {
+        var header = readHeader(in);
+        boolean created = in.get() != 0;
+
+        int n = readVarInt(in);
+        var members = new HashMap<UserId, ProjectRole>(n * 2);
+        for (int i = 0; i < n; i++) {
+            members.put(readUserId(in), readEnum(in, ROLES));
+        }
+        n = readVarInt(in);
+        var removedMembers = new ArrayList<UserId>(n);
+        for (int i = 0; i < n; i++) {
+            removedMembers.add(readUserId(in));
+        }
+
+        n = readVarInt(in);
+        var milestones = new ArrayList<Milestone>(n);
+        for (int i = 0; i < n; i++) {
+            milestones.add(readMilestone(in));
+        }
+        n = readVarInt(in);
+        var removedMilestones = new ArrayList<MilestoneId>(n);
+        for (int i = 0; i < n; i++) {
+            removedMilestones.add(readMilestoneId(in));
+        }
+
+        n = readVarInt(in);
+        var tickets = new ArrayList<Ticket>(n);
+        for (int i = 0; i < n; i++) {
+            tickets.add(readTicket(in));
+        }
+        n = readVarInt(in);
+        var removedTickets = new ArrayList<TicketId>(n);
+        for (int i = 0; i < n; i++) {
+            removedTickets.add(readTicketId(in));
+        }
+
+        n = readVarInt(in);
+        var bugs = new ArrayList<BugReport>(n);
+        for (int i = 0; i < n; i++) {
+            bugs.add(readBugReport(in));
+        }
+        n = readVarInt(in);
+        List<BugReportId> removedBugs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            removedBugs.add(readBugReportId(in));
+        }
+
+        return new ProjectChange(header, created,
+                members, removedMembers,
+                milestones, removedMilestones,
+                tickets, removedTickets,
+                bugs, removedBugs);
+    }
+}
@@ -0,0 +1,173 @@
+package org.lab.infra.storage;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Буфер для кодирования записей хранилища: собственный растущий direct ByteBuffer
+ * или чужая область фиксированного размера (ByteBuffer / MemorySegment).
+ * Modern Java:
+ * - java.nio: direct ByteBuffer пишется в FileChannel без промежуточного копирования в heap.
+ * - FFM: over(MemorySegment) кодирует прямо в off-heap/отображённую память.
+ * - Буфер переиспользуется между записями (clear), поэтому на горячем пути нет аллокаций.
+ */
+public final class ByteSink {
+
+    private ByteBuffer buf;
+    private final boolean growable;
+
+    public ByteSink(int initialCapacity) {
+        this.buf = ByteBuffer.allocateDirect(Math.max(64, initialCapacity)).order(ByteOrder.BIG_ENDIAN);
+        this.growable = true;
+    }
+
+    private ByteSink(ByteBuffer target) {
+        this.buf = target.slice().order(ByteOrder.BIG_ENDIAN);
+        this.growable = false;
+    }
+
+    /**
+     * Запись в target начиная с его текущей позиции; при нехватке места — BufferOverflowException.
+     */
+    public static ByteSink over(ByteBuffer target) {
+        return new ByteSink(Objects.requireNonNull(target, "target"));
+    }
+
+    public static ByteSink over(MemorySegment target) {
+        return new ByteSink(Objects.requireNonNull(target, "target").asByteBuffer());
+    }
+
+    public void clear() {
+        buf.clear();
+    }
+
+    public int size() {
+        return buf.position();
+    }
+
+    /**
+     * Записанные байты [0, size) как отдельное представление (позиция/лимит sink не меняются).
+     */
+    public ByteBuffer written() {
+        return buf.duplicate().flip();
+    }
+
+    public void putByte(int v) {
+        ensure(1);
+        buf.put((byte) v);
+    }
+
+    public void putInt(int v) {
+        ensure(Integer.BYTES);
+        buf.putInt(v);
+    }
+
+    public void putInt(int index, int v) {
+        buf.putInt(index, v);
+    }
+
+    public void putLong(long v) {
+        ensure(Long.BYTES);
+        buf.putLong(v);
+    }
+
+    public void putLong(int index, long v) {
+        buf.putLong(index, v);
+    }
+
+    /**
+     * Unsigned LEB128: длины и счётчики обычно малы и занимают 1 байт.
+     */
+    public void putVarInt(int v) {
+        ensure(5);
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    public void putBytes(byte[] bytes) {
+        ensure(bytes.length);
+        buf.put(bytes);
+    }
+
+    public void putBytes(ByteBuffer src) {
+        ensure(src.remaining());
+        buf.put(src);
+    }
+
+    /**
+     * varint-длина в байтах + UTF-8 без промежуточного byte[] (String.getBytes).
+     * Непарные суррогаты кодируются как '?', как это делает String.getBytes(UTF_8).
+     */
+    public void putUtf8(String s) {
+        int n = s.length();
+        int ascii = 0;
+        while (ascii < n && s.charAt(ascii) < 0x80) {
+            ascii++;
+        }
+        int len = ascii == n ? n : ascii + utf8Length(s, ascii);
+        putVarInt(len);
+        ensure(len);
+        for (int i = 0; i < ascii; i++) {
+            buf.put((byte) s.charAt(i));
+        }
+        for (int i = ascii; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf.put((byte) c);
+            } else if (c < 0x800) {
+                buf.put((byte) (0xC0 | (c >> 6)));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf.put((byte) (0xF0 | (cp >> 18)));
+                    buf.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    buf.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    buf.put((byte) (0x80 | (cp & 0x3F)));
+                } else {
+                    buf.put((byte) '?');
+                }
+            } else {
+                buf.put((byte) (0xE0 | (c >> 12)));
+                buf.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static int utf8Length(String s, int from) {
+        int n = s.length();
+        int len = n - from;
+        for (int i = from; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                len += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                len += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                len += 2;
+            }
+        }
+        return len;
+    }
+
+    private void ensure(int extra) {
+        if (buf.remaining() >= extra || !growable) {
+            return;
+        }
+        int needed = buf.position() + extra;
+        int cap = Math.max(needed, buf.capacity() << 1);
+        var next = ByteBuffer.allocateDirect(cap).order(buf.order());
+        next.put(buf.flip());
+        buf = next;
+    }
+}
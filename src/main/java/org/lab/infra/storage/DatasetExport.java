@@ -0,0 +1,472 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.infra.ColdStore;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Потоковый экспорт данных в CSV или JSONL (по расширению) — для BI и переноса структуры, не резервная копия:
+ * состояние восстанавливается из журнала и снимков (Recovery, Snapshotter).
+ * Строки в формате импорта (поле type, ссылки по key/login/ref), поэтому BulkImport по выгрузке воссоздаёт
+ * пользователей, проекты, участников, milestones, тикеты и баги с названием, описанием и автором.
+ * Дополнительные поля — id, статусы, исполнители, версии, даты, archived=true у вынесенных в cold тикетов и багов
+ * (они идут последними) — только для анализа: импорт их не читает, воссозданные тикеты и баги — NEW
+ * без исполнителей, milestones — OPEN, а вынесенное в cold снова попадает в агрегат.
+ * <p>
+ * include выбирает проекты (CLI — те, где роль актора разрешает Operation.BULK_EXPORT); тикеты и баги
+ * из cold — только выбранных проектов. Пользователи выгружаются все: это справочник логинов, на которые
+ * ссылаются строки, — как и при импорте, где строки user открыты.
+ * <p>
+ * Проекты и cold — из одной точки (ProjectRepository.openSnapshot вместе с ColdStore.view): писатели ждут только
+ * короткий проход по stripe-замкам, а не весь экспорт. Тикет или баг, который в этой точке уже лежит в cold,
+ * пишется один раз — из cold, даже если агрегат ещё не успел его убрать; вынесенный после неё — из агрегата.
+ * Пользователи — текущие на момент обхода. Кодирование — прямо в один буфер фиксированного размера, сброс
+ * в FileChannel; файл появляется под своим именем атомарно, когда экспорт дописан.
+ */
+public final class DatasetExport {
+
+    private static final int BUFFER = 1 << 16;
+    /** Ключи проектов для строк cold: ограниченный LRU, чтобы heap экспорта не рос с числом проектов. */
+    private static final int KEY_CACHE = 1024;
+    /** Значение в кэше ключей для проекта, не прошедшего include (ключ проекта не бывает пустым). */
+    private static final String EXCLUDED = "";
+
+    public enum Format {
+        CSV, JSONL;
+
+        public static Format of(Path file) {
+            var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return JSONL;
+            }
+            throw new IllegalArgumentException("Unknown export format (expected .csv or .jsonl): " + file);
+        }
+    }
+
+    public record Counts(long users,
+                         long projects,
+                         long members,
+                         long milestones,
+                         long tickets,
+                         long bugs,
+                         long archivedTickets,
+                         long archivedBugs,
+                         long bytes) { }
+
+    /**
+     * Колонки в порядке заголовка CSV; поля записи пишутся в порядке возрастания колонки.
+     */
+    private enum Col {
+        TYPE, ID, KEY, NAME, DESCRIPTION, MANAGER, PROJECT, LOGIN, ROLE, REF, START, END,
+        STATUS, MILESTONE, TITLE, AUTHOR, ASSIGNEES, VERSION, CREATED_AT, ARCHIVED;
+
+        final String header = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final Col[] COLS = Col.values();
+
+    private DatasetExport() { }
+
+    public static Counts write(Path path, UserRepository users, ProjectRepository projects, ColdStore cold) throws IOException {
+        return write(path, users, projects, cold, p -> true);
+    }
+
+    public static Counts write(Path path,
+                               UserRepository users,
+                               ProjectRepository projects,
+                               ColdStore cold,
+                               Predicate<Project> include) throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(users, "users");
+        Objects.requireNonNull(projects, "projects");
+        Objects.requireNonNull(cold, "cold");
+        Objects.requireNonNull(include, "include");
+        var format = Format.of(path);
+        var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        Counts counts;
+        try (var channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new Output(channel, format);
+            counts = new Walk(out, users, include).run(projects, cold);
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return counts;
+    }
+
+    /**
+     * Обход данных; логины берутся из UserRepository по id, ключи проектов для записей cold — из снимка.
+     */
+    private static final class Walk {
+        private final Output out;
+        private final UserRepository users;
+        private final Predicate<Project> include;
+        private final Map<ProjectId, String> keys = new LinkedHashMap<>(KEY_CACHE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProjectId, String> eldest) {
+                return size() > KEY_CACHE;
+            }
+        };
+        private ColdStore.View archived;
+        private long userCount;
+        private long projectCount;
+        private long members;
+        private long milestones;
+        private long tickets;
+        private long bugs;
+        private long archivedTickets;
+        private long archivedBugs;
+
+        Walk(Output out, UserRepository users, Predicate<Project> include) {
+            this.out = out;
+            this.users = users;
+            this.include = include;
+        }
+
+        Counts run(ProjectRepository projects, ColdStore cold) {
+            if (out.format == Format.CSV) {
+                out.header();
+            }
+            for (var u : users.findAll()) {
+                user(u);
+            }
+            try (var snapshot = projects.openSnapshot(() -> archived = cold.view())) {
+                snapshot.forEach(p -> {
+                    if (include.test(p)) {
+                        project(p);
+                    }
+                });
+                archived.forEachTicket(t -> {
+                    var key = key(snapshot, t.projectId());
+                    if (key != null) {
+                        ticket(t, key, true);
+                        archivedTickets++;
+                    }
+                });
+                archived.forEachBug(b -> {
+                    var key = key(snapshot, b.projectId());
+                    if (key != null) {
+                        bug(b, key, true);
+                        archivedBugs++;
+                    }
+                });
+            }
+            out.flush();
+            return new Counts(userCount, projectCount, members, milestones, tickets, bugs,
+                    archivedTickets, archivedBugs, out.written);
+        }
+
+        private void user(User u) {
+            out.begin("user");
+            out.field(Col.ID, u.id().toString());
+            out.field(Col.NAME, u.displayName());
+            out.field(Col.LOGIN, u.login());
+            out.field(Col.CREATED_AT, u.registeredAt().toString());
+            out.end();
+            userCount++;
+        }
+
+        private void project(Project p) {
+            var key = p.key().value();
+
+            out.begin("project");
+            out.field(Col.ID, p.id().toString());
+            out.field(Col.KEY, key);
+            out.field(Col.NAME, p.name());
+            out.field(Col.DESCRIPTION, p.description().value());
+            out.field(Col.MANAGER, login(p.managerId()));
+            out.field(Col.VERSION, Long.toString(p.version()));
+            out.field(Col.CREATED_AT, p.createdAt().toString());
+            out.end();
+            projectCount++;
+
+            for (var m : p.members().entrySet()) {
+                out.begin("member");
+                out.field(Col.PROJECT, key);
+                out.field(Col.LOGIN, login(m.getKey()));
+                out.field(Col.ROLE, m.getValue().name().toLowerCase(Locale.ROOT));
+                out.end();
+                members++;
+            }
+            for (var m : p.milestones().values()) {
+                out.begin("milestone");
+                out.field(Col.NAME, m.name());
+                out.field(Col.PROJECT, key);
+                out.field(Col.REF, m.id().toString());
+                out.field(Col.START, m.range().start().toString());
+                out.field(Col.END, m.range().end().toString());
+                out.field(Col.STATUS, m.status().name());
+                out.field(Col.CREATED_AT, m.createdAt().toString());
+                out.end();
+                milestones++;
+            }
+            for (var t : p.tickets().values()) {
+                if (!archived.containsTicket(t.id())) {
+                    ticket(t, key, false);
+                    tickets++;
+                }
+            }
+            for (var b : p.bugReports().values()) {
+                if (!archived.containsBug(b.id())) {
+                    bug(b, key, false);
+                    bugs++;
+                }
+            }
+        }
+
+        private void ticket(Ticket t, String projectKey, boolean archived) {
+            out.begin("ticket");
+            out.field(Col.ID, t.id().toString());
+            out.field(Col.DESCRIPTION, t.description().value());
+            out.field(Col.PROJECT, projectKey);
+            out.field(Col.STATUS, t.status().name());
+            out.field(Col.MILESTONE, t.milestoneId().toString());
+            out.field(Col.TITLE, t.title().value());
+            out.field(Col.AUTHOR, login(t.createdBy()));
+            if (!t.assignees().isEmpty()) {
+                out.open(Col.ASSIGNEES);
+                boolean first = true;
+                for (var a : t.assignees()) {
+                    if (!first) {
+                        out.text(" ");
+                    }
+                    out.text(login(a));
+                    first = false;
+                }
+                out.close();
+            }
+            out.field(Col.CREATED_AT, t.createdAt().toString());
+            archived(archived);
+            out.end();
+        }
+
+        private void bug(BugReport b, String projectKey, boolean archived) {
+            out.begin("bug");
+            out.field(Col.ID, b.id().toString());
+            out.field(Col.DESCRIPTION, b.description().value());
+            out.field(Col.PROJECT, projectKey);
+            out.field(Col.STATUS, b.status().name());
+            out.field(Col.TITLE, b.title().value());
+            out.field(Col.AUTHOR, login(b.createdBy()));
+            if (b.assignedTo() != null) {
+                out.field(Col.ASSIGNEES, login(b.assignedTo()));
+            }
+            out.field(Col.CREATED_AT, b.createdAt().toString());
+            archived(archived);
+            out.end();
+        }
+
+        private void archived(boolean archived) {
+            if (archived) {
+                out.field(Col.ARCHIVED, "true");
+            }
+        }
+
+        private String login(UserId id) {
+            return users.findById(id).map(User::login).orElseGet(id::toString);
+        }
+
+        /**
+         * Ключ проекта записи cold; null — проект не выбран include (или его нет в снимке) и запись не пишется.
+         */
+        private String key(ProjectRepository.Snapshot snapshot, ProjectId id) {
+            var k = keys.get(id);
+            if (k == null) {
+                k = snapshot.findById(id).filter(include).map(p -> p.key().value()).orElse(EXCLUDED);
+                keys.put(id, k);
+            }
+            return k.equals(EXCLUDED) ? null : k;
+        }
+    }
+
+    /**
+     * Запись строк текстом прямо в буфер: UTF-8 и экранирование посимвольно, без промежуточных строк записи.
+     * Ошибка канала пробрасывается как UncheckedIOException (обход идёт через Consumer), write разворачивает её.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final Format format;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+        private long written;
+        private int column;
+        private boolean quoted;
+
+        Output(FileChannel channel, Format format) {
+            this.channel = channel;
+            this.format = format;
+        }
+
+        void header() {
+            for (var c : COLS) {
+                if (c.ordinal() > 0) {
+                    ascii(',');
+                }
+                text(c.header);
+            }
+            ascii('\n');
+        }
+
+        void begin(String type) {
+            if (format == Format.JSONL) {
+                text("{\"type\":\"");
+                text(type);
+                ascii('"');
+            } else {
+                text(type);
+            }
+            column = 0;
+        }
+
+        void field(Col col, String value) {
+            open(col);
+            text(value);
+            close();
+        }
+
+        /**
+         * Начинает значение колонки col: дальше text(...) пишет его части, close() — завершает.
+         * В CSV значение всегда в кавычках — так не нужен предварительный просмотр на запятые и переводы строк.
+         */
+        void open(Col col) {
+            if (col.ordinal() <= column) {
+                throw new IllegalStateException("column " + col + " out of order");
+            }
+            if (format == Format.JSONL) {
+                text(",\"");
+                text(col.header);
+                text("\":\"");
+            } else {
+                while (column < col.ordinal()) {
+                    ascii(',');
+                    column++;
+                }
+                ascii('"');
+            }
+            column = col.ordinal();
+            quoted = true;
+        }
+
+        void close() {
+            ascii('"');
+            quoted = false;
+        }
+
+        void end() {
+            if (format == Format.JSONL) {
+                ascii('}');
+            } else {
+                while (column < COLS.length - 1) {
+                    ascii(',');
+                    column++;
+                }
+            }
+            ascii('\n');
+        }
+
+        /**
+         * Текст; внутри значения — с экранированием формата (CSV: "" для кавычки, JSON: \-escape).
+         */
+        void text(String s) {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        ascii(format == Format.JSONL ? '\\' : '"');
+                        ascii('"');
+                        continue;
+                    }
+                    if (format == Format.JSONL && (c == '\\' || c < 0x20)) {
+                        escapeJson(c);
+                        continue;
+                    }
+                }
+                if (c < 0x80) {
+                    ascii(c);
+                } else if (c < 0x800) {
+                    ensure(2);
+                    buf.put((byte) (0xC0 | (c >> 6)));
+                    buf.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    ensure(4);
+                    buf.put((byte) (0xF0 | (cp >> 18)));
+                    buf.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    buf.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    buf.put((byte) (0x80 | (cp & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    ascii('?');
+                } else {
+                    ensure(3);
+                    buf.put((byte) (0xE0 | (c >> 12)));
+                    buf.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buf.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        private void escapeJson(char c) {
+            ascii('\\');
+            switch (c) {
+                case '\\' -> ascii('\\');
+                case '\n' -> ascii('n');
+                case '\r' -> ascii('r');
+                case '\t' -> ascii('t');
+                default -> {
+                    ascii('u');
+                    for (int shift = 12; shift >= 0; shift -= 4) {
+                        ascii(Character.forDigit((c >> shift) & 0xF, 16));
+                    }
+                }
+            }
+        }
+
+        private void ascii(char c) {
+            ensure(1);
+            buf.put((byte) c);
+        }
+
+        private void ensure(int bytes) {
+            if (buf.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() {
+            buf.flip();
+            try {
+                while (buf.hasRemaining()) {
+                    written += channel.write(buf);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buf.clear();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.infra.ColdStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Холодное хранилище в append-only файле: заголовок [int magic][byte версия BinaryCodec], далее кадры
+ * [int len][int crc32c][byte type][payload] (len — длина type..payload, crc покрывает len и type..payload), как в FileJournal.
+ * В heap — только индекс id -> (смещение, длина) кадра; сами записи читаются позиционно при обращении.
+ * Пакет записывается одним write и force до возврата. При открытии отбрасывается только оборванный хвост;
+ * испорченный кадр, за которым есть целые, — ошибка открытия со смещением: вынесенные сущности есть
+ * только здесь (из агрегатов они уже удалены), и отбросить их вместе с хвостом значило бы потерять навсегда.
+ */
+public final class FileColdStore implements ColdStore, AutoCloseable {
+
+    private static final byte TICKET = 1;
+    private static final byte BUG = 2;
+
+    private static final int MAGIC = 0x504D4353;
+    private static final int FILE_HEADER = Integer.BYTES + 1;
+    private static final int FRAME_HEADER = Frames.HEADER;
+    /** Индекс хранит длину кадра в младших LENGTH_BITS битах, смещение — в старших. */
+    private static final int LENGTH_BITS = 24;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ConcurrentHashMap<TicketId, Long> tickets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<BugReportId, Long> bugs = new ConcurrentHashMap<>();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ByteSink sink = new ByteSink(4096);
+    private final CRC32C crc = new CRC32C();
+    /** Конец записанных пакетов; сдвигается после обновления индекса, поэтому view() видит пакеты целиком. */
+    private volatile long position;
+
+    private FileColdStore(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Открывает (или создаёт) файл и строит индекс по его кадрам.
+     */
+    public static FileColdStore open(Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        var channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            var store = new FileColdStore(path, channel);
+            store.position = store.load();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long load() throws IOException {
+        if (channel.size() < FILE_HEADER) {
+            channel.truncate(0);
+            var header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).put(BinaryCodec.VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            return FILE_HEADER;
+        }
+        var head = ByteBuffer.allocate(FILE_HEADER);
+        readFully(head, 0);
+        int version = head.get(Integer.BYTES);
+        if (head.getInt(0) != MAGIC || !BinaryCodec.supports(version)) {
+            throw new IOException("Not a cold store (or unsupported codec version " + version + "): " + path);
+        }
+
+        long size = channel.size();
+        long pos = FILE_HEADER;
+        var frame = ByteBuffer.allocate(FRAME_HEADER);
+        var body = ByteBuffer.allocate(4096);
+        var check = new CRC32C();
+        while (pos + FRAME_HEADER <= size) {
+            frame.clear();
+            readFully(frame, pos);
+            int len = frame.getInt(0);
+            if (len < 1 || len >= 1 << LENGTH_BITS || pos + FRAME_HEADER + len > size) {
+                if (isTornTail(pos, size)) {
+                    break;
+                }
+                throw corrupted(pos, "invalid frame length " + len);
+            }
+            if (body.capacity() < len) {
+                body = ByteBuffer.allocate(Math.max(len, body.capacity() * 2));
+            }
+            body.clear().limit(len);
+            readFully(body, pos + FRAME_HEADER);
+            body.flip();
+            if (Frames.checksum(check, len, body.duplicate()) != frame.getInt(Integer.BYTES)) {
+                if (isTornTail(pos, size)) {
+                    break;
+                }
+                throw corrupted(pos, "CRC mismatch");
+            }
+            long ref = ref(pos + FRAME_HEADER, len);
+            switch (body.get()) {
+                case TICKET -> tickets.put(BinaryCodec.readTicket(body).id(), ref);
+                case BUG -> bugs.put(BinaryCodec.readBugReport(body).id(), ref);
+                default -> throw new IOException("Unknown cold store record type at offset " + pos + ": " + path);
+            }
+            pos += FRAME_HEADER + len;
+        }
+        if (pos < size) {
+            channel.truncate(pos);
+            channel.force(true);
+        }
+        return pos;
+    }
+
+    private boolean isTornTail(long frameStart, long size) throws IOException {
+        return !Frames.hasFrameAfter(channel, frameStart + 1, size, 1, (1 << LENGTH_BITS) - 1);
+    }
+
+    private IOException corrupted(long offset, String reason) {
+        return new IOException("Corrupted cold store frame at offset " + offset + " (" + reason
+                + ") with intact frames after it: " + path);
+    }
+
+    @Override
+    public void putTickets(Collection<Ticket> batch) {
+        Objects.requireNonNull(batch, "tickets");
+        if (batch.isEmpty()) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            sink.clear();
+            var refs = new long[batch.size()];
+            int i = 0;
+            for (var t : batch) {
+                refs[i++] = frame(TICKET, out -> BinaryCodec.writeTicket(out, t));
+            }
+            long at = write();
+            i = 0;
+            for (var t : batch) {
+                tickets.put(t.id(), refs[i++] + (at << LENGTH_BITS));
+            }
+            position = at + sink.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void putBugs(Collection<BugReport> batch) {
+        Objects.requireNonNull(batch, "bugs");
+        if (batch.isEmpty()) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            sink.clear();
+            var refs = new long[batch.size()];
+            int i = 0;
+            for (var b : batch) {
+                refs[i++] = frame(BUG, out -> BinaryCodec.writeBugReport(out, b));
+            }
+            long at = write();
+            i = 0;
+            for (var b : batch) {
+                bugs.put(b.id(), refs[i++] + (at << LENGTH_BITS));
+            }
+            position = at + sink.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Дописывает кадр в sink; возвращает ссылку на него относительно начала пакета.
+     */
+    private long frame(byte type, Consumer<ByteSink> payload) {
+        int start = sink.size();
+        sink.putInt(0);
+        sink.putInt(0);
+        sink.putByte(type);
+        payload.accept(sink);
+        int len = sink.size() - start - FRAME_HEADER;
+        if (len >= 1 << LENGTH_BITS) {
+            throw new IllegalArgumentException("Cold store record too large: " + len + " bytes");
+        }
+        sink.putInt(start, len);
+        sink.putInt(start + Integer.BYTES, Frames.checksum(crc, len, sink.written().position(start + FRAME_HEADER)));
+        return ref(start + FRAME_HEADER, len);
+    }
+
+    /**
+     * Пишет пакет из sink в конец файла и делает его durable; возвращает смещение пакета.
+     * position сдвигает вызывающий, когда пакет в индексе. При ошибке файл откатывается к прежнему концу.
+     */
+    private long write() {
+        var batch = sink.written();
+        long at = position;
+        try {
+            long end = at;
+            while (batch.hasRemaining()) {
+                end += channel.write(batch, end);
+            }
+            channel.force(false);
+            return at;
+        } catch (IOException e) {
+            try {
+                channel.truncate(at);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Ticket> findTicket(TicketId id) {
+        Objects.requireNonNull(id, "id");
+        var ref = tickets.get(id);
+        return ref == null ? Optional.empty() : Optional.of(BinaryCodec.readTicket(read(ref)));
+    }
+
+    @Override
+    public Optional<BugReport> findBug(BugReportId id) {
+        Objects.requireNonNull(id, "id");
+        var ref = bugs.get(id);
+        return ref == null ? Optional.empty() : Optional.of(BinaryCodec.readBugReport(read(ref)));
+    }
+
+    @Override
+    public void forEachTicket(Consumer<Ticket> action) {
+        for (var ref : List.copyOf(tickets.values())) {
+            action.accept(BinaryCodec.readTicket(read(ref)));
+        }
+    }
+
+    @Override
+    public void forEachBug(Consumer<BugReport> action) {
+        for (var ref : List.copyOf(bugs.values())) {
+            action.accept(BinaryCodec.readBugReport(read(ref)));
+        }
+    }
+
+    @Override
+    public int ticketCount() {
+        return tickets.size();
+    }
+
+    @Override
+    public int bugCount() {
+        return bugs.size();
+    }
+
+    @Override
+    public View view() {
+        long mark = position;
+        return new View() {
+            @Override
+            public boolean containsTicket(TicketId id) {
+                return before(tickets.get(id), mark);
+            }
+
+            @Override
+            public boolean containsBug(BugReportId id) {
+                return before(bugs.get(id), mark);
+            }
+
+            @Override
+            public void forEachTicket(Consumer<Ticket> action) {
+                for (long ref : tickets.values()) {
+                    if (before(ref, mark)) {
+                        action.accept(BinaryCodec.readTicket(read(ref)));
+                    }
+                }
+            }
+
+            @Override
+            public void forEachBug(Consumer<BugReport> action) {
+                for (long ref : bugs.values()) {
+                    if (before(ref, mark)) {
+                        action.accept(BinaryCodec.readBugReport(read(ref)));
+                    }
+                }
+            }
+        };
+    }
+
+    private static boolean before(Long ref, long mark) {
+        return ref != null && ref >>> LENGTH_BITS < mark;
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static long ref(long offset, int len) {
+        return offset << LENGTH_BITS | len;
+    }
+
+    /**
+     * Тело кадра по ссылке индекса, позиция — после байта типа (позиционное чтение потокобезопасно).
+     */
+    private ByteBuffer read(long ref) {
+        var body = ByteBuffer.allocate((int) (ref & ((1 << LENGTH_BITS) - 1)));
+        try {
+            readFully(body, ref >>> LENGTH_BITS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return body.flip().position(1);
+    }
+
+    private void readFully(ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of cold store at offset " + pos + ": " + path);
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,702 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.User;
+import org.lab.infra.ProjectChange;
+import org.lab.infra.RepositoryJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only журнал изменений репозиториев из сегментов: первый — файл path, следующие — path.<seq>,
+ * где seq (20 цифр) — последняя запись перед сегментом. Кадр, не помещающийся в segmentBytes, открывает
+ * новый сегмент; старый перед этим сбрасывается на диск. Сегменты, целиком покрытые надёжно записанным
+ * снимком, удаляются (deleteSegmentsCoveredBy, вызывает Snapshotter): после этого старт возможен только с такого снимка.
+ * Заголовок сегмента: [int magic][byte версия BinaryCodec]; далее кадры
+ * [int len][int crc32c][long seq][byte type][payload]: len — длина seq..payload, crc покрывает len и seq..payload (Frames).
+ * Modern Java:
+ * - java.nio: FileChannel с позиционной записью и force(false) (fsync данных без метаданных).
+ * - Sealed FsyncPolicy + pattern matching for switch: выбор момента durability (per-write / group / periodic).
+ * - Оборванный хвост (испорченный кадр, после которого нет ни одного целого) при открытии отбрасывается
+ *   truncate'ом; повреждение, за которым есть целые кадры, — ошибка открытия со смещением
+ *   (такие кадры уже могли быть подтверждены, молча терять их нельзя).
+ * Ошибка fsync переводит журнал в состояние failed: ожидающие durability и все последующие записи
+ * получают UncheckedIOException (fail-stop — уже записанные кадры могли не дойти до диска).
+ */
+public final class FileJournal implements RepositoryJournal, AutoCloseable {
+
+    static final byte USER_INSERTED = 1;
+    static final byte PROJECT_CHANGED = 2;
+
+    private static final int MAGIC = 0x504D4A4C;
+    private static final int FILE_HEADER = Integer.BYTES + 1;
+    private static final int FRAME_HEADER = Frames.HEADER;
+    private static final int RECORD_PREFIX = Long.BYTES + 1;
+
+    /** Размер сегмента по умолчанию. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    /**
+     * Позиция в журнале: seq последней записи и смещение сразу за ней в её сегменте.
+     */
+    public record Checkpoint(long seq, long offset) {
+        public static final Checkpoint START = new Checkpoint(0, 0);
+
+        public Checkpoint {
+            if (seq < 0 || offset < 0) {
+                throw new IllegalArgumentException("seq/offset must be >= 0");
+            }
+        }
+    }
+
+    /**
+     * Получатель записей при открытии журнала (в порядке seq).
+     */
+    public interface Replay {
+        void userInserted(long seq, User user);
+
+        void projectChanged(long seq, ProjectChange change);
+    }
+
+    /**
+     * Файл сегмента; base — seq последней записи перед ним (записи сегмента начинаются с base + 1).
+     */
+    private record Segment(long base, Path path) { }
+
+    private final Path path;
+    private final long segmentBytes;
+    private final FsyncPolicy policy;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /** Под appendLock; последний — активный сегмент, в который идёт дозапись. */
+    private final List<Segment> segments;
+    /** Меняется ротацией под appendLock; fsync читает его без замка (forceActive). */
+    private volatile FileChannel channel;
+    private final ByteSink sink = new ByteSink(4096);
+    private final CRC32C crc = new CRC32C();
+    private long lastSeq;
+    private long position;
+    private volatile long writtenSeq;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition pending = syncLock.newCondition();
+    private final Condition synced = syncLock.newCondition();
+    private long durableSeq;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private final Thread syncer;
+
+    private FileJournal(Path path, long segmentBytes, List<Segment> segments, FileChannel channel,
+                        FsyncPolicy policy, long lastSeq, long position) {
+        this.path = path;
+        this.segmentBytes = segmentBytes;
+        this.segments = segments;
+        this.channel = channel;
+        this.policy = policy;
+        this.lastSeq = lastSeq;
+        this.position = position;
+        this.writtenSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        this.syncer = switch (policy) {
+            case FsyncPolicy.PerWrite p -> null;
+            case FsyncPolicy.GroupCommit g -> Thread.ofPlatform().daemon().name("journal-group-commit").start(this::syncLoop);
+            case FsyncPolicy.Periodic p -> Thread.ofPlatform().daemon().name("journal-periodic-sync").start(this::syncLoop);
+        };
+    }
+
+    /**
+     * Открывает (или создаёт) журнал, проигрывает существующие записи в replay и готовит его к дозаписи.
+     */
+    public static FileJournal open(Path path, FsyncPolicy policy, Replay replay) throws IOException {
+        return open(path, policy, replay, Checkpoint.START);
+    }
+
+    /**
+     * Как open(path, policy, replay), но проигрывает только хвост после from (например, после снимка).
+     * Если from не указывает на границу записи (журнал заменён/обрезан), проигрываются все сохранившиеся сегменты:
+     * получатель записей должен быть идемпотентен к уже применённым изменениям.
+     */
+    public static FileJournal open(Path path, FsyncPolicy policy, Replay replay, Checkpoint from) throws IOException {
+        return open(path, policy, replay, from, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Как open(path, policy, replay, from) с размером сегмента segmentBytes.
+     * Если записи сразу после from уже удалены вместе с сегментами, открытие падает с IOException.
+     */
+    public static FileJournal open(Path path, FsyncPolicy policy, Replay replay, Checkpoint from, long segmentBytes)
+            throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(policy, "policy");
+        Objects.requireNonNull(replay, "replay");
+        Objects.requireNonNull(from, "from");
+        if (segmentBytes < FILE_HEADER + FRAME_HEADER + RECORD_PREFIX) {
+            throw new IllegalArgumentException("segmentBytes is too small: " + segmentBytes);
+        }
+
+        var segments = listSegments(path);
+        int first = -1;
+        for (int i = 0; i < segments.size() && segments.get(i).base() <= from.seq(); i++) {
+            first = i;
+        }
+        if (first < 0) {
+            throw new IOException("Journal records after seq " + from.seq() + " were deleted (oldest segment starts after seq "
+                    + segments.getFirst().base() + "): " + path);
+        }
+
+        FileChannel channel = null;
+        try {
+            var segment = segments.get(first);
+            channel = openSegment(segment);
+            long start = openHeader(channel, segment.path());
+            Checkpoint at;
+            if (segment.base() == from.seq()) {
+                // сегмент начат после from: проигрывается целиком
+                at = new Checkpoint(from.seq(), start);
+            } else if (from.offset() >= start && isRecordBoundary(channel, from)) {
+                at = from;
+            } else {
+                if (first != 0) {
+                    channel.close();
+                    channel = null;
+                    first = 0;
+                    segment = segments.getFirst();
+                    channel = openSegment(segment);
+                    start = openHeader(channel, segment.path());
+                }
+                at = new Checkpoint(segment.base(), start);
+            }
+
+            for (int i = first; ; i++) {
+                boolean last = i == segments.size() - 1;
+                var tail = replay(channel, segments.get(i).path(), replay, at, last);
+                if (last) {
+                    return new FileJournal(path, segmentBytes, segments, channel, policy, tail.lastSeq(), tail.end());
+                }
+                channel.close();
+                channel = null;
+                var next = segments.get(i + 1);
+                if (tail.lastSeq() != next.base()) {
+                    throw new IOException("Journal segment " + next.path() + " starts after seq " + next.base()
+                            + ", previous segment ends at seq " + tail.lastSeq());
+                }
+                channel = openSegment(next);
+                at = new Checkpoint(next.base(), openHeader(channel, next.path()));
+            }
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            throw e;
+        }
+    }
+
+    private static FileChannel openSegment(Segment segment) throws IOException {
+        return FileChannel.open(segment.path(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static Path segmentPath(Path path, long base) {
+        return base == 0 ? path : path.resolveSibling(path.getFileName() + "." + String.format("%020d", base));
+    }
+
+    /**
+     * Сегменты журнала path по возрастанию base; если их нет — один (ещё не созданный) файл path.
+     */
+    private static List<Segment> listSegments(Path path) throws IOException {
+        var out = new ArrayList<Segment>();
+        if (Files.exists(path)) {
+            out.add(new Segment(0, path));
+        }
+        var prefix = path.getFileName() + ".";
+        var dir = path.toAbsolutePath().getParent();
+        if (dir != null && Files.isDirectory(dir)) {
+            try (var files = Files.list(dir)) {
+                for (var f : (Iterable<Path>) files::iterator) {
+                    var name = f.getFileName().toString();
+                    if (name.length() == prefix.length() + 20 && name.startsWith(prefix)
+                            && name.chars().skip(prefix.length()).allMatch(Character::isDigit)) {
+                        out.add(new Segment(Long.parseLong(name.substring(prefix.length())), path.resolveSibling(name)));
+                    }
+                }
+            }
+        }
+        if (out.isEmpty()) {
+            out.add(new Segment(0, path));
+        }
+        out.sort(Comparator.comparingLong(Segment::base));
+        return out;
+    }
+
+    private record Tail(long lastSeq, long end) { }
+
+    /**
+     * Пишет заголовок в новый файл или проверяет magic и версию кодека существующего; возвращает начало кадров.
+     * Чужой файл не трогается: открытие падает с IOException.
+     */
+    private static long openHeader(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        if (size < FILE_HEADER) {
+            // короче заголовка бывает только пустой файл или оборванная запись самого заголовка
+            var partial = ByteBuffer.allocate((int) size);
+            readFully(channel, partial, 0);
+            var expected = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).put(BinaryCodec.VERSION).flip().limit((int) size);
+            if (!partial.flip().equals(expected)) {
+                throw new IOException("Not a journal: " + path);
+            }
+            channel.truncate(0);
+            writeHeader(channel);
+            return FILE_HEADER;
+        }
+        var head = ByteBuffer.allocate(FILE_HEADER);
+        readFully(channel, head, 0);
+        if (head.getInt(0) != MAGIC) {
+            throw new IOException("Not a journal: " + path);
+        }
+        int version = head.get(Integer.BYTES);
+        if (!BinaryCodec.supports(version)) {
+            throw new IOException("Unsupported journal codec version " + version + ": " + path);
+        }
+        return FILE_HEADER;
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        var header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).put(BinaryCodec.VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    private static boolean isRecordBoundary(FileChannel channel, Checkpoint from) throws IOException {
+        long size = channel.size();
+        if (from.offset() >= size) {
+            return from.offset() == size;
+        }
+        if (from.offset() + FRAME_HEADER + Long.BYTES > size) {
+            return false;
+        }
+        var probe = ByteBuffer.allocate(FRAME_HEADER + Long.BYTES);
+        readFully(channel, probe, from.offset());
+        return probe.getLong(FRAME_HEADER) == from.seq() + 1;
+    }
+
+    /**
+     * Проигрывает кадры от from. Неполный заголовок кадра в конце файла обрезается. Кадр с неверной длиной
+     * (в том числе уходящей за конец файла) или CRC обрезается вместе с остатком файла, только если после него
+     * нет ни одного целого кадра (оборванная дозапись, хвост из нулей); иначе — IOException со смещением:
+     * это повреждение уже подтверждённых записей, а не незавершённая дозапись.
+     * Оборванная дозапись бывает только в последнем сегменте (last): предыдущие сброшены на диск при ротации.
+     */
+    private static Tail replay(FileChannel channel, Path path, Replay replay, Checkpoint from, boolean last) throws IOException {
+        long size = channel.size();
+        long pos = from.offset();
+        long lastSeq = from.seq();
+        var head = ByteBuffer.allocate(FRAME_HEADER);
+        var body = ByteBuffer.allocate(4096);
+        var crc = new CRC32C();
+
+        while (pos + FRAME_HEADER <= size) {
+            head.clear();
+            readFully(channel, head, pos);
+            head.flip();
+            int len = head.getInt();
+            int expectedCrc = head.getInt();
+            if (len < RECORD_PREFIX || pos + FRAME_HEADER + len > size) {
+                if (last && isTornTail(channel, pos, size)) {
+                    break;
+                }
+                throw corrupted(path, pos, "invalid frame length " + len);
+            }
+            if (body.capacity() < len) {
+                body = ByteBuffer.allocate(Math.max(len, body.capacity() * 2));
+            }
+            body.clear().limit(len);
+            readFully(channel, body, pos + FRAME_HEADER);
+            body.flip();
+            if (Frames.checksum(crc, len, body.duplicate()) != expectedCrc) {
+                if (last && isTornTail(channel, pos, size)) {
+                    break;
+                }
+                throw corrupted(path, pos, "CRC mismatch");
+            }
+
+            long seq = body.getLong();
+            byte type = body.get();
+            switch (type) {
+                case USER_INSERTED -> replay.userInserted(seq, BinaryCodec.readUser(body));
+                case PROJECT_CHANGED -> replay.projectChanged(seq, BinaryCodec.readProjectChange(body));
+                default -> throw new IOException("Unknown journal record type " + type + " at offset " + pos);
+            }
+            lastSeq = seq;
+            pos += FRAME_HEADER + len;
+        }
+
+        if (pos < size) {
+            if (!last) {
+                throw corrupted(path, pos, "incomplete frame in a rotated segment");
+            }
+            channel.truncate(pos);
+            channel.force(true);
+        }
+        return new Tail(lastSeq, pos);
+    }
+
+    private static boolean isTornTail(FileChannel channel, long frameStart, long size) throws IOException {
+        return !Frames.hasFrameAfter(channel, frameStart + 1, size, RECORD_PREFIX, Integer.MAX_VALUE);
+    }
+
+    private static IOException corrupted(Path path, long offset, String reason) {
+        return new IOException("Corrupted journal frame at offset " + offset + " (" + reason
+                + ") with intact frames after it: " + path);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of journal at offset " + pos);
+            }
+            pos += n;
+        }
+    }
+
+    @Override
+    public Commit userInserted(User user) {
+        Objects.requireNonNull(user, "user");
+        return append(USER_INSERTED, out -> BinaryCodec.writeUser(out, user));
+    }
+
+    @Override
+    public Commit projectChanged(ProjectChange change) {
+        Objects.requireNonNull(change, "change");
+        return append(PROJECT_CHANGED, out -> BinaryCodec.writeProjectChange(out, change));
+    }
+
+    /**
+     * Записывает кадр (без fsync) и возвращает Commit, который ждёт durability в смысле policy.
+     * Ошибка записи откатывает файл к последнему целому кадру и пробрасывается вызывающему
+     * (репозиторий в этом случае не публикует изменение).
+     */
+    private Commit append(byte type, Consumer<ByteSink> payload) {
+        long seq;
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            var failed = failure;
+            if (failed != null) {
+                throw new UncheckedIOException("Journal failed", failed);
+            }
+            seq = lastSeq + 1;
+            sink.clear();
+            sink.putInt(0);
+            sink.putInt(0);
+            sink.putLong(seq);
+            sink.putByte(type);
+            payload.accept(sink);
+
+            int len = sink.size() - FRAME_HEADER;
+            sink.putInt(0, len);
+            sink.putInt(Integer.BYTES, Frames.checksum(crc, len, sink.written().position(FRAME_HEADER)));
+
+            var frame = sink.written();
+            if (position > FILE_HEADER && position + frame.remaining() > segmentBytes) {
+                rotate();
+            }
+            long at = position;
+            try {
+                while (frame.hasRemaining()) {
+                    at += channel.write(frame, at);
+                }
+            } catch (IOException e) {
+                truncateQuietly(position, e);
+                throw new UncheckedIOException(e);
+            }
+            position = at;
+            lastSeq = seq;
+            writtenSeq = seq;
+        } finally {
+            appendLock.unlock();
+        }
+
+        return switch (policy) {
+            case FsyncPolicy.PerWrite p -> this::force;
+            case FsyncPolicy.GroupCommit g -> () -> awaitDurable(seq);
+            case FsyncPolicy.Periodic p -> Commit.DURABLE;
+        };
+    }
+
+    /**
+     * Открывает новый сегмент после lastSeq (под appendLock). Старый сбрасывается на диск до переключения,
+     * поэтому его записи durable, а fsync дальше касается только нового сегмента.
+     * Ошибка создания оставляет дозапись в старом сегменте; ошибка fsync старого — fail-stop, как в force.
+     */
+    private void rotate() {
+        var old = channel;
+        try {
+            old.force(false);
+        } catch (IOException e) {
+            markFailed(e);
+            throw new UncheckedIOException(e);
+        }
+        var next = new Segment(lastSeq, segmentPath(path, lastSeq));
+        FileChannel created;
+        try {
+            created = FileChannel.open(next.path(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                writeHeader(created);
+            } catch (IOException e) {
+                created.close();
+                Files.deleteIfExists(next.path());
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        channel = created;
+        segments.add(next);
+        position = FILE_HEADER;
+        try {
+            old.close();
+        } catch (IOException ignored) {
+            // записи старого сегмента уже на диске
+        }
+    }
+
+    /**
+     * fsync активного сегмента. Если ротация закрыла сегмент во время fsync, он уже сброшен ею —
+     * тогда сбрасывается следующий.
+     */
+    private void forceActive() throws IOException {
+        while (true) {
+            var ch = channel;
+            try {
+                ch.force(false);
+                return;
+            } catch (ClosedChannelException e) {
+                if (ch == channel) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет сегменты, все записи которых не новее checkpoint; активный сегмент не удаляется.
+     * Вызывать только после того, как снимок с этим checkpoint надёжно записан: старт без него станет невозможен.
+     * Возвращает число удалённых сегментов.
+     */
+    public int deleteSegmentsCoveredBy(Checkpoint checkpoint) throws IOException {
+        Objects.requireNonNull(checkpoint, "checkpoint");
+        var covered = new ArrayList<Segment>();
+        appendLock.lock();
+        try {
+            while (segments.size() > 1 && segments.get(1).base() <= checkpoint.seq()) {
+                covered.add(segments.removeFirst());
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        for (var segment : covered) {
+            Files.deleteIfExists(segment.path());
+        }
+        return covered.size();
+    }
+
+    private void truncateQuietly(long size, IOException cause) {
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void force() {
+        var failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Journal failed", failed);
+        }
+        try {
+            forceActive();
+        } catch (IOException e) {
+            markFailed(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Первая ошибка fsync фиксируется навсегда: после неё нельзя утверждать, что какой-либо
+     * ещё не подтверждённый кадр на диске, поэтому журнал перестаёт принимать записи.
+     */
+    private void markFailed(IOException e) {
+        syncLock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Ошибка, после которой журнал перестал принимать записи, или null.
+     */
+    public IOException failure() {
+        return failure;
+    }
+
+    private void awaitDurable(long seq) {
+        syncLock.lock();
+        try {
+            pending.signal();
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal failed", failure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Journal closed before record " + seq + " became durable");
+                }
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Фоновый fsync. GroupCommit: ждёт появления новых записей, выдерживает window
+     * (чтобы в один force попало больше писателей) и будит всех, чьи записи покрыты.
+     * Periodic: force раз в interval, если с прошлого раза что-то записано.
+     */
+    private void syncLoop() {
+        long delayNanos = switch (policy) {
+            case FsyncPolicy.GroupCommit(var window) -> window.toNanos();
+            case FsyncPolicy.Periodic(var interval) -> interval.toNanos();
+            case FsyncPolicy.PerWrite p -> 0L;
+        };
+        boolean group = policy instanceof FsyncPolicy.GroupCommit;
+
+        while (true) {
+            syncLock.lock();
+            try {
+                if (group) {
+                    while (!closed && writtenSeq <= durableSeq) {
+                        pending.awaitUninterruptibly();
+                    }
+                } else if (!closed) {
+                    try {
+                        pending.await(delayNanos, TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (writtenSeq <= durableSeq) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+            } finally {
+                syncLock.unlock();
+            }
+
+            if (group && delayNanos > 0 && !closed) {
+                LockSupport.parkNanos(delayNanos);
+            }
+
+            long target = writtenSeq;
+            try {
+                forceActive();
+            } catch (IOException e) {
+                markFailed(e);
+                return;
+            }
+
+            syncLock.lock();
+            try {
+                durableSeq = Math.max(durableSeq, target);
+                synced.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+
+    public long lastSeq() {
+        appendLock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Текущая позиция, уже сброшенная на диск: всё, что записано до неё, durable.
+     * Снимок состояния, сделанный после вызова, покрывает как минимум эти записи.
+     */
+    public Checkpoint checkpoint() {
+        Checkpoint cp;
+        appendLock.lock();
+        try {
+            cp = new Checkpoint(lastSeq, position);
+        } finally {
+            appendLock.unlock();
+        }
+        force();
+        return cp;
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (syncer != null) {
+            syncLock.lock();
+            try {
+                pending.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+            try {
+                syncer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
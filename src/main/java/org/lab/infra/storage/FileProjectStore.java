@@ -0,0 +1,240 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.infra.ProjectStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Проекты по файлу на проект: <dir>/<uuid>.prj = [int magic][byte версия BinaryCodec][BinaryCodec.writeProject].
+ * .prj — версия на момент последнего sync (checkpoint'а): на неё журнал проигрывает свой хвост, поэтому save её
+ * не трогает. save пишет во временный файл и атомарно переименовывает его в <uuid>.next без fsync —
+ * до checkpoint'а долговечность изменений обеспечивает журнал; load читает .next, если он есть.
+ * sync() перед checkpoint'ом сбрасывает каждый .next на диск и только затем переименовывает его поверх .prj.
+ * После сбоя .next может быть пустым или недописанным, поэтому open его удаляет: версии после checkpoint'а
+ * восстанавливаются из журнала поверх целого .prj.
+ * В памяти — только множество id (contains без обращения к диску) и id ещё не сброшенных файлов.
+ */
+public final class FileProjectStore implements ProjectStore {
+
+    private static final int MAGIC = 0x504D5052;
+    private static final int FILE_HEADER = Integer.BYTES + 1;
+    private static final String SUFFIX = ".prj";
+    private static final String PENDING = ".next";
+    private static final String CHECKPOINT = "checkpoint.snap";
+    /** Для stubs читается только начало файла: шапка и участники обычно помещаются сюда. */
+    private static final int STUB_PREFIX = 4096;
+
+    private final Path dir;
+    private final Set<ProjectId> ids = ConcurrentHashMap.newKeySet();
+    private final Set<ProjectId> unsynced = ConcurrentHashMap.newKeySet();
+    /** save и шаг sync одного проекта не пересекаются: иначе sync мог бы переименовать поверх .prj несброшенный .next. */
+    private final ReentrantLock[] fileLocks = newLocks(64);
+    private final ThreadLocal<ByteSink> sinks = ThreadLocal.withInitial(() -> new ByteSink(64 * 1024));
+
+    private FileProjectStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Открывает (или создаёт) каталог; недописанные .tmp и несброшенные .next прошлых запусков удаляются.
+     */
+    public static FileProjectStore open(Path dir) throws IOException {
+        Objects.requireNonNull(dir, "dir");
+        Files.createDirectories(dir);
+        var store = new FileProjectStore(dir);
+        try (var files = Files.list(dir)) {
+            for (var f : files.toList()) {
+                var name = f.getFileName().toString();
+                if (name.endsWith(".tmp") || name.endsWith(PENDING)) {
+                    Files.deleteIfExists(f);
+                } else if (name.endsWith(SUFFIX)) {
+                    var uuid = UUID.fromString(name.substring(0, name.length() - SUFFIX.length()));
+                    store.ids.add(new ProjectId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+                }
+            }
+        }
+        return store;
+    }
+
+    @Override
+    public List<Stub> stubs() {
+        var out = new ArrayList<Stub>(ids.size());
+        for (var id : ids) {
+            out.add(readStub(id));
+        }
+        return out;
+    }
+
+    @Override
+    public boolean contains(ProjectId id) {
+        return ids.contains(id);
+    }
+
+    @Override
+    public Project load(ProjectId id) {
+        Objects.requireNonNull(id, "id");
+        if (!ids.contains(id)) {
+            return null;
+        }
+        try {
+            return BinaryCodec.readProject(body(readCurrent(id), id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(Project project) {
+        Objects.requireNonNull(project, "project");
+        var sink = sinks.get();
+        sink.clear();
+        sink.putInt(MAGIC);
+        sink.putByte(BinaryCodec.VERSION);
+        BinaryCodec.writeProject(sink, project);
+
+        var id = project.id();
+        var target = pending(id);
+        var tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        var lock = lockFor(id);
+        lock.lock();
+        try {
+            try (var channel = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var bytes = sink.written();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            unsynced.add(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        ids.add(id);
+    }
+
+    /**
+     * Для каждого проекта, сохранённого с прошлого sync: fsync его .next и переименование поверх .prj,
+     * затем fsync каталога (переименования). До переименования .prj остаётся прежней целой версией.
+     * save во время sync не теряется: его id остаётся в unsynced до следующего вызова.
+     */
+    public void sync() throws IOException {
+        for (var id : List.copyOf(unsynced)) {
+            var lock = lockFor(id);
+            lock.lock();
+            try {
+                if (!unsynced.contains(id)) {
+                    continue;
+                }
+                var next = pending(id);
+                try (var channel = FileChannel.open(next, StandardOpenOption.READ)) {
+                    channel.force(true);
+                }
+                Files.move(next, file(id), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                // после переименования: load, не нашедший id в unsynced, читает уже новую .prj
+                unsynced.remove(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+        try (var channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Файл checkpoint'а хранилища: снимок без проектов (пользователи и позиция журнала, см. Snapshotter.checkpoints),
+     * до которой все изменения проектов уже в хранилище.
+     */
+    public Path checkpointPath() {
+        return dir.resolve(CHECKPOINT);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private Stub readStub(ProjectId id) {
+        // stubs читаются при подключении хранилища, когда .next уже удалены open
+        try (var channel = FileChannel.open(file(id), StandardOpenOption.READ)) {
+            var prefix = ByteBuffer.allocate((int) Math.min(channel.size(), STUB_PREFIX));
+            while (prefix.hasRemaining()) {
+                if (channel.read(prefix) < 0) {
+                    break;
+                }
+            }
+            try {
+                return BinaryCodec.readProjectStub(body(prefix.array(), id));
+            } catch (BufferUnderflowException e) {
+                // много участников: шапка не уместилась в префикс
+                return BinaryCodec.readProjectStub(body(Files.readAllBytes(file(id)), id));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer body(byte[] bytes, ProjectId id) throws IOException {
+        var in = ByteBuffer.wrap(bytes);
+        if (bytes.length < FILE_HEADER || in.getInt() != MAGIC || !BinaryCodec.supports(in.get())) {
+            throw new IOException("Not a project file (or unsupported codec version): " + file(id));
+        }
+        return in;
+    }
+
+    /**
+     * Текущая версия: .next, если проект сохранялся после sync. Если sync успел переименовать .next
+     * между проверкой и чтением, та же версия уже лежит в .prj.
+     */
+    private byte[] readCurrent(ProjectId id) throws IOException {
+        if (unsynced.contains(id)) {
+            try {
+                return Files.readAllBytes(pending(id));
+            } catch (NoSuchFileException e) {
+                // уже переименован sync'ом
+            }
+        }
+        return Files.readAllBytes(file(id));
+    }
+
+    private Path file(ProjectId id) {
+        return dir.resolve(new UUID(id.msb(), id.lsb()) + SUFFIX);
+    }
+
+    private Path pending(ProjectId id) {
+        return dir.resolve(new UUID(id.msb(), id.lsb()) + PENDING);
+    }
+
+    private ReentrantLock lockFor(ProjectId id) {
+        int h = id.hashCode();
+        return fileLocks[(h ^ (h >>> 16)) & (fileLocks.length - 1)];
+    }
+
+    private static ReentrantLock[] newLocks(int n) {
+        var out = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            out[i] = new ReentrantLock();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,82 @@
+package org.lab.infra.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * Кадры append-only файлов хранилища (FileJournal, FileColdStore): [int len][int crc32c][len байт тела].
+ * crc покрывает и len, и тело: испорченная длина, оставшаяся в пределах файла, тоже не проходит проверку.
+ * При открытии файла испорченный кадр отбрасывается вместе с остатком файла, только если это оборванный хвост —
+ * после него нет ни одного целого кадра. Иначе за ним лежат уже подтверждённые записи, и открытие должно упасть.
+ */
+final class Frames {
+
+    static final int HEADER = Integer.BYTES + Integer.BYTES;
+
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    private Frames() { }
+
+    /**
+     * CRC32C длины (big-endian) и тела; body читается от position до limit.
+     */
+    static int checksum(CRC32C crc, int len, ByteBuffer body) {
+        crc.reset();
+        crc.update(len >>> 24);
+        crc.update(len >>> 16);
+        crc.update(len >>> 8);
+        crc.update(len);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Есть ли в [from, size) целый кадр с длиной в [minLen, maxLen] и совпавшим crc. Перебираются все смещения:
+     * граница следующего кадра после испорченного неизвестна. Вызывается только при открытии и только на
+     * испорченном кадре; на настоящем оборванном хвосте перебор короткий, на повреждении посреди файла
+     * останавливается на первом же целом кадре после него.
+     */
+    static boolean hasFrameAfter(FileChannel channel, long from, long size, int minLen, int maxLen) throws IOException {
+        var window = ByteBuffer.allocate(SCAN_WINDOW);
+        long windowStart = from;
+        window.limit(0);
+        var crc = new CRC32C();
+        for (long p = from; p + HEADER + minLen <= size; p++) {
+            if (p + HEADER > windowStart + window.limit()) {
+                windowStart = p;
+                window.clear().limit((int) Math.min(SCAN_WINDOW, size - p));
+                readFully(channel, window, p);
+                window.flip();
+            }
+            int at = (int) (p - windowStart);
+            int len = window.getInt(at);
+            if (len < minLen || len > maxLen || p + HEADER + len > size) {
+                continue;
+            }
+            ByteBuffer body;
+            if (at + HEADER + len <= window.limit()) {
+                body = window.duplicate().position(at + HEADER).limit(at + HEADER + len);
+            } else {
+                body = ByteBuffer.allocate(len);
+                readFully(channel, body, p + HEADER);
+                body.flip();
+            }
+            if (checksum(crc, len, body) == window.getInt(at + Integer.BYTES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at offset " + pos);
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.lab.infra.storage;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Когда запись журнала становится durable.
+ * - PerWrite: force после каждой записи, вызов возвращается уже после fsync.
+ * - GroupCommit: писатели ждут общий fsync; один force покрывает все записи, накопленные за window.
+ * - Periodic: фоновый force раз в interval; вызов не ждёт диска (при сбое теряется не более interval).
+ */
+public sealed interface FsyncPolicy {
+
+    record PerWrite() implements FsyncPolicy { }
+
+    record GroupCommit(Duration window) implements FsyncPolicy {
+        public GroupCommit {
+            Objects.requireNonNull(window, "window");
+            if (window.isNegative()) {
+                throw new IllegalArgumentException("window must be >= 0");
+            }
+        }
+    }
+
+    record Periodic(Duration interval) implements FsyncPolicy {
+        public Periodic {
+            Objects.requireNonNull(interval, "interval");
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be > 0");
+            }
+        }
+    }
+
+    /**
+     * Формат: per-write | group[:millis] | periodic[:millis].
+     */
+    static FsyncPolicy parse(String raw) {
+        Objects.requireNonNull(raw, "raw");
+        var parts = raw.trim().toLowerCase(Locale.ROOT).split(":", 2);
+        return switch (parts[0]) {
+            case "per-write", "always" -> new PerWrite();
+            case "group" -> new GroupCommit(Duration.ofMillis(parts.length > 1 ? Long.parseLong(parts[1]) : 2));
+            case "periodic" -> new Periodic(Duration.ofMillis(parts.length > 1 ? Long.parseLong(parts[1]) : 1000));
+            default -> throw new IllegalArgumentException("unknown fsync policy: " + raw);
+        };
+    }
+}
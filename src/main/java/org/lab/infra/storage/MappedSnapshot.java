@@ -0,0 +1,208 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.BugReport;
+import org.lab.domain.IdGenerator;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.User;
+import org.lab.infra.ProjectSource;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Снимок, открытый только на чтение через FileChannel.map и обслуживаемый лениво.
+ * Открытие читает заголовок, пользователей и "заглушки" проектов (шапка + участники);
+ * тикеты, баги и milestones проекта декодируются только в load при первом обращении
+ * (или, без сборки Project, в forEachTicketAndBug и при копировании кадра в новый снимок).
+ * Modern Java:
+ * - FFM (java.lang.foreign): MemorySegment отображает весь файл (без лимита 2 ГБ у MappedByteBuffer).
+ * - Индекс фиксированной ширины, отсортированный по id: бинарный поиск прямо по отображённой памяти, без HashMap в heap.
+ */
+public final class MappedSnapshot implements ProjectSource {
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Path path;
+    private final MemorySegment seg;
+    private final FileJournal.Checkpoint checkpoint;
+    private final long indexOffset;
+    private final int userCount;
+    private final int projectCount;
+    private volatile List<Stub> stubs;
+
+    private MappedSnapshot(Path path, MemorySegment seg) throws IOException {
+        this.path = path;
+        this.seg = seg;
+        if (seg.byteSize() < SnapshotFile.FILE_HEADER
+                || seg.get(INT, 0) != SnapshotFile.MAGIC
+                || seg.get(ValueLayout.JAVA_BYTE, Integer.BYTES) != SnapshotFile.FORMAT
+                || !BinaryCodec.supports(seg.get(ValueLayout.JAVA_BYTE, Integer.BYTES + 1))) {
+            throw new IOException("Not a snapshot file (or unsupported format/codec version): " + path);
+        }
+        long at = Integer.BYTES + 2;
+        this.checkpoint = new FileJournal.Checkpoint(seg.get(LONG, at), seg.get(LONG, at + Long.BYTES));
+        this.indexOffset = seg.get(LONG, at + 2L * Long.BYTES);
+        this.userCount = seg.get(INT, at + 3L * Long.BYTES);
+        this.projectCount = seg.get(INT, at + 3L * Long.BYTES + Integer.BYTES);
+        if (userCount < 0 || projectCount < 0
+                || indexOffset < SnapshotFile.FILE_HEADER
+                || indexOffset + (long) projectCount * SnapshotFile.INDEX_ENTRY != seg.byteSize()) {
+            throw new IOException("Snapshot header/index mismatch (truncated file?): " + path);
+        }
+    }
+
+    /**
+     * Arena.ofAuto: отображение живёт, пока на снимок есть ссылки, и освобождается GC
+     * (буферы закрываемых shared-арен нельзя отдавать в CRC32C).
+     */
+    public static MappedSnapshot open(Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var seg = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            return new MappedSnapshot(path, seg);
+        }
+    }
+
+    public FileJournal.Checkpoint checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Пользователи лежат первыми кадрами снимка и декодируются целиком (их немного).
+     */
+    public List<User> users() {
+        var out = new ArrayList<User>(userCount);
+        long pos = SnapshotFile.FILE_HEADER;
+        for (int i = 0; i < userCount; i++) {
+            int len = seg.get(INT, pos);
+            var buf = frame(pos + SnapshotFile.FRAME_HEADER, len, seg.get(INT, pos + Integer.BYTES));
+            if (buf.get() != SnapshotFile.USER) {
+                throw new IllegalStateException("Expected USER record at offset " + pos + " in " + path);
+            }
+            out.add(BinaryCodec.readUser(buf));
+            pos += SnapshotFile.FRAME_HEADER + len;
+        }
+        return List.copyOf(out);
+    }
+
+    /**
+     * Заглушки декодируются один раз (параллельно) из начала каждого кадра проекта; CRC кадра здесь
+     * не проверяется, чтобы не читать весь файл — полная проверка выполняется в load.
+     */
+    @Override
+    public List<Stub> stubs() {
+        var s = stubs;
+        if (s == null) {
+            var arr = new Stub[projectCount];
+            IntStream.range(0, projectCount).parallel().forEach(i -> {
+                long entry = indexOffset + (long) i * SnapshotFile.INDEX_ENTRY;
+                long frameOffset = seg.get(LONG, entry + 2L * Long.BYTES);
+                int len = seg.get(INT, entry + 3L * Long.BYTES);
+                var buf = seg.asSlice(frameOffset, len).asByteBuffer();
+                buf.get();
+                arr[i] = BinaryCodec.readProjectStub(buf);
+            });
+            s = List.of(arr);
+            stubs = s;
+        }
+        return s;
+    }
+
+    @Override
+    public boolean contains(ProjectId id) {
+        Objects.requireNonNull(id, "id");
+        return find(id) >= 0;
+    }
+
+    @Override
+    public Project load(ProjectId id) {
+        Objects.requireNonNull(id, "id");
+        int i = find(id);
+        if (i < 0) {
+            return null;
+        }
+        long entry = indexOffset + (long) i * SnapshotFile.INDEX_ENTRY;
+        return BinaryCodec.readProject(projectFrame(seg.get(LONG, entry + 2L * Long.BYTES), seg.get(INT, entry + 3L * Long.BYTES)));
+    }
+
+    /**
+     * Тикеты и баги всех проектов снимка прямо из кадров (параллельно, с проверкой CRC):
+     * проекты при этом не материализуются. Получатели должны быть потокобезопасны.
+     */
+    public void forEachTicketAndBug(Consumer<Ticket> tickets, Consumer<BugReport> bugs) {
+        Objects.requireNonNull(tickets, "tickets");
+        Objects.requireNonNull(bugs, "bugs");
+        IntStream.range(0, projectCount).parallel().forEach(i -> {
+            long entry = indexOffset + (long) i * SnapshotFile.INDEX_ENTRY;
+            var buf = projectFrame(seg.get(LONG, entry + 2L * Long.BYTES), seg.get(INT, entry + 3L * Long.BYTES));
+            BinaryCodec.readProjectWork(buf, tickets, bugs);
+        });
+    }
+
+    /**
+     * Кадр проекта целиком, с заголовком [len][crc] — для копирования в новый снимок без декодирования;
+     * null — проекта в снимке нет. CRC не проверяется: он копируется вместе с кадром и проверится при чтении.
+     */
+    ByteBuffer rawFrame(ProjectId id) {
+        int i = find(id);
+        if (i < 0) {
+            return null;
+        }
+        long entry = indexOffset + (long) i * SnapshotFile.INDEX_ENTRY;
+        long frameOffset = seg.get(LONG, entry + 2L * Long.BYTES);
+        int len = seg.get(INT, entry + 3L * Long.BYTES);
+        return seg.asSlice(frameOffset - SnapshotFile.FRAME_HEADER, SnapshotFile.FRAME_HEADER + len).asByteBuffer();
+    }
+
+    private ByteBuffer projectFrame(long frameOffset, int len) {
+        var buf = frame(frameOffset, len, seg.get(INT, frameOffset - Integer.BYTES));
+        if (buf.get() != SnapshotFile.PROJECT) {
+            throw new IllegalStateException("Expected PROJECT record at offset " + frameOffset + " in " + path);
+        }
+        return buf;
+    }
+
+    private int find(ProjectId id) {
+        int lo = 0;
+        int hi = projectCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long entry = indexOffset + (long) mid * SnapshotFile.INDEX_ENTRY;
+            int c = IdGenerator.compare(seg.get(LONG, entry), seg.get(LONG, entry + Long.BYTES), id.msb(), id.lsb());
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer frame(long offset, int len, int expectedCrc) {
+        var buf = seg.asSlice(offset, len).asByteBuffer();
+        var crc = new CRC32C();
+        crc.update(buf.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IllegalStateException("CRC mismatch at offset " + offset + " in " + path);
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,149 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.User;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.ColdStore;
+import org.lab.infra.ProjectChange;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.TicketRepository;
+import org.lab.infra.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Восстановление in-memory репозиториев при старте: последний снимок (если есть) + хвост журнала.
+ * Снимок подключается лениво (MappedSnapshot как ProjectSource): проекты материализуются при первом обращении,
+ * поэтому команды принимаются сразу после проигрывания хвоста.
+ * TicketRepository/BugReportRepository — проекции по всем проектам (включая вынесенную в ColdStore работу):
+ * хвост журнала доходит до них через ленту ProjectRepository (EntityProjections.follow вызывается до open),
+ * снимок догружается в фоне, а их запросы до конца прогрева ждут его (записи — нет).
+ * С хранилищем проектов (ProjectRepository.attachStore) снимок — его checkpoint без проектов (Snapshotter.checkpoints):
+ * из него берутся пользователи и позиция журнала, проекты читаются из хранилища. Хранилище может быть новее
+ * журнала: записи хвоста пропускаются по версии, поэтому проекции так же прогреваются в фоне — из хранилища,
+ * по одному проекту и мимо кэша.
+ */
+public final class Recovery {
+
+    private Recovery() { }
+
+    /**
+     * Проигрывает журнал в пустые репозитории и подключает его к ним для последующих записей.
+     */
+    public static FileJournal open(Path path,
+                                   FsyncPolicy policy,
+                                   UserRepository users,
+                                   ProjectRepository projects,
+                                   TicketRepository tickets,
+                                   BugReportRepository bugs) throws IOException {
+        return open(path, null, policy, users, projects, tickets, bugs, ColdStore.inMemory());
+    }
+
+    /**
+     * Подключает снимок snapshotPath (null, отсутствующий файл или снимок другого формата — старт
+     * с пустого состояния и полный журнал), затем проигрывает только записи журнала после позиции снимка.
+     * Если к projects подключено хранилище, snapshotPath — его checkpoint: проекты из снимка не подключаются.
+     * cold — уже открытое холодное хранилище: из него прогрев берёт вынесенные из агрегатов сущности.
+     */
+    public static FileJournal open(Path journalPath,
+                                   Path snapshotPath,
+                                   FsyncPolicy policy,
+                                   UserRepository users,
+                                   ProjectRepository projects,
+                                   TicketRepository tickets,
+                                   BugReportRepository bugs,
+                                   ColdStore cold) throws IOException {
+        Objects.requireNonNull(users, "users");
+        Objects.requireNonNull(projects, "projects");
+        Objects.requireNonNull(tickets, "tickets");
+        Objects.requireNonNull(bugs, "bugs");
+        Objects.requireNonNull(cold, "cold");
+
+        var from = FileJournal.Checkpoint.START;
+        MappedSnapshot snapshot = null;
+        if (snapshotPath != null && Files.exists(snapshotPath) && SnapshotFile.isSupported(snapshotPath)) {
+            snapshot = MappedSnapshot.open(snapshotPath);
+            if (projects.hasStore() && !snapshot.stubs().isEmpty()) {
+                throw new IOException("Not a project store checkpoint (contains projects): " + snapshotPath);
+            }
+            snapshot.users().forEach(users::restore);
+            if (!projects.hasStore()) {
+                projects.attachSource(snapshot);
+            }
+            from = snapshot.checkpoint();
+        }
+
+        var journal = FileJournal.open(journalPath, policy, new FileJournal.Replay() {
+            @Override
+            public void userInserted(long seq, User user) {
+                users.restore(user);
+            }
+
+            @Override
+            public void projectChanged(long seq, ProjectChange change) {
+                apply(change, projects);
+            }
+        }, from);
+
+        users.attachJournal(journal);
+        projects.attachJournal(journal);
+
+        CompletableFuture<Void> warmup = null;
+        if (projects.hasStore()) {
+            warmup = CompletableFuture.runAsync(() -> warmFromStore(projects, tickets, bugs, cold));
+        } else if (snapshot != null) {
+            var source = snapshot;
+            warmup = CompletableFuture.runAsync(() -> warm(source, tickets, bugs, cold));
+        }
+        if (warmup != null) {
+            tickets.holdQueriesUntil(warmup);
+            bugs.holdQueriesUntil(warmup);
+        }
+        return journal;
+    }
+
+    /**
+     * Заполняет проекции тикетами и багами прямо из кадров снимка (проекты в репозиторий не загружаются),
+     * причём только отсутствующими в них сущностями: присутствующие уже записаны хвостом журнала
+     * или командами после старта и не старее снимка. Вынесенных из агрегатов сущностей в снимке нет — они берутся из cold.
+     */
+    private static void warm(MappedSnapshot snapshot,
+                             TicketRepository tickets,
+                             BugReportRepository bugs,
+                             ColdStore cold) {
+        snapshot.forEachTicketAndBug(tickets::insert, bugs::insert);
+        cold.forEachTicket(tickets::insert);
+        cold.forEachBug(bugs::insert);
+    }
+
+    /**
+     * Как warm, но источник — хранилище проектов: ProjectRepository.forEach читает невыселенные проекты
+     * по одному и не кладёт их в кэш, так что прогрев не вытесняет рабочий набор.
+     */
+    private static void warmFromStore(ProjectRepository projects,
+                                      TicketRepository tickets,
+                                      BugReportRepository bugs,
+                                      ColdStore cold) {
+        projects.forEach(p -> {
+            p.tickets().values().forEach(tickets::insert);
+            p.bugReports().values().forEach(bugs::insert);
+        });
+        cold.forEachTicket(tickets::insert);
+        cold.forEachBug(bugs::insert);
+    }
+
+    /**
+     * Изменение с версией не новее уже восстановленной (снимок сделан позже checkpoint) пропускается.
+     * Проекции restore не трогает: их обновляет подписчик ленты.
+     */
+    static void apply(ProjectChange change, ProjectRepository projects) {
+        var base = projects.findById(change.projectId()).orElse(null);
+        if (base != null && base.version() >= change.header().version()) {
+            return;
+        }
+        projects.restore(change.applyTo(base));
+    }
+}
@@ -0,0 +1,206 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Снимок состояния репозиториев на момент позиции журнала.
+ * Формат (все числа big-endian):
+ * - заголовок: [int magic][byte format][byte версия BinaryCodec][long journalSeq][long journalOffset][long indexOffset]
+ *   [int users][int projects];
+ * - кадры [int len][int crc32c][byte type][payload]: сначала все USER, затем PROJECT, затем END;
+ * - индекс проектов по indexOffset: записи фиксированной ширины [long msb][long lsb][long frameOffset][int frameLen],
+ *   отсортированные по ProjectId — поиск проекта бинарный, без чтения остального файла (см. MappedSnapshot).
+ * Файл пишется во временный и атомарно переименовывается: читатель видит либо старый, либо полный новый снимок.
+ * Не изменённые с прошлого снимка проекты переносятся копированием их кадров из отображённого base, без декодирования.
+ */
+public final class SnapshotFile {
+
+    static final int MAGIC = 0x504D534E;
+    static final byte FORMAT = 3;
+    static final int FILE_HEADER = Integer.BYTES + 1 + 1 + Long.BYTES * 3 + Integer.BYTES * 2;
+    static final int FRAME_HEADER = Integer.BYTES + Integer.BYTES;
+    static final int INDEX_ENTRY = Long.BYTES * 3 + Integer.BYTES;
+
+    static final byte USER = 1;
+    static final byte PROJECT = 2;
+    static final byte END = 0x7F;
+
+    private static final int FLUSH_THRESHOLD = 1 << 20;
+
+    private record IndexEntry(ProjectId id, long frameOffset, int frameLength) { }
+
+    private SnapshotFile() { }
+
+    public static void write(Path path, FileJournal.Checkpoint checkpoint, List<User> users, List<Project> projects) throws IOException {
+        write(path, checkpoint, users, projects, null, List.of());
+    }
+
+    /**
+     * Как write(path, checkpoint, users, projects), но проекты fromBase берутся готовыми кадрами из base
+     * (их состояние в base актуально). Ни один id не должен встречаться одновременно в projects и fromBase.
+     */
+    public static void write(Path path,
+                             FileJournal.Checkpoint checkpoint,
+                             List<User> users,
+                             List<Project> projects,
+                             MappedSnapshot base,
+                             List<ProjectId> fromBase) throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(checkpoint, "checkpoint");
+        Objects.requireNonNull(users, "users");
+        Objects.requireNonNull(projects, "projects");
+        Objects.requireNonNull(fromBase, "fromBase");
+        if (base == null && !fromBase.isEmpty()) {
+            throw new IllegalArgumentException("fromBase requires a base snapshot");
+        }
+
+        var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (var channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new Output(channel, new ByteSink(FLUSH_THRESHOLD + (FLUSH_THRESHOLD >> 2)));
+            var sink = out.sink;
+            sink.putBytes(ByteBuffer.allocate(FILE_HEADER));
+
+            for (var u : users) {
+                int start = out.beginFrame(USER);
+                BinaryCodec.writeUser(sink, u);
+                out.endFrame(start);
+            }
+            var index = new ArrayList<IndexEntry>(projects.size() + fromBase.size());
+            for (var p : projects) {
+                int start = out.beginFrame(PROJECT);
+                long frameOffset = out.flushed + start + FRAME_HEADER;
+                BinaryCodec.writeProject(sink, p);
+                int len = out.endFrame(start);
+                index.add(new IndexEntry(p.id(), frameOffset, len));
+            }
+            for (var id : fromBase) {
+                var raw = base.rawFrame(id);
+                if (raw == null) {
+                    throw new IllegalArgumentException("Project " + id + " is not in the base snapshot");
+                }
+                long frameOffset = out.flushed + sink.size() + FRAME_HEADER;
+                int len = raw.remaining() - FRAME_HEADER;
+                sink.putBytes(raw);
+                out.flushIfFull();
+                index.add(new IndexEntry(id, frameOffset, len));
+            }
+            out.endFrame(out.beginFrame(END));
+
+            index.sort(Comparator.comparing(IndexEntry::id));
+            long indexOffset = out.flushed + sink.size();
+            for (var e : index) {
+                sink.putLong(e.id().msb());
+                sink.putLong(e.id().lsb());
+                sink.putLong(e.frameOffset());
+                sink.putInt(e.frameLength());
+                out.flushIfFull();
+            }
+            out.flush();
+
+            var header = ByteBuffer.allocate(FILE_HEADER)
+                    .putInt(MAGIC)
+                    .put(FORMAT)
+                    .put(BinaryCodec.VERSION)
+                    .putLong(checkpoint.seq())
+                    .putLong(checkpoint.offset())
+                    .putLong(indexOffset)
+                    .putInt(users.size())
+                    .putInt(index.size())
+                    .flip();
+            long at = 0;
+            while (header.hasRemaining()) {
+                at += channel.write(header, at);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Последовательная запись кадров через переиспользуемый буфер; flushed — сколько байт уже в файле.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteSink sink;
+        private final CRC32C crc = new CRC32C();
+        private long flushed;
+
+        Output(FileChannel channel, ByteSink sink) {
+            this.channel = channel;
+            this.sink = sink;
+        }
+
+        int beginFrame(byte type) {
+            int start = sink.size();
+            sink.putInt(0);
+            sink.putInt(0);
+            sink.putByte(type);
+            return start;
+        }
+
+        /**
+         * Дописывает длину/CRC и возвращает длину кадра (без заголовка).
+         */
+        int endFrame(int start) throws IOException {
+            crc.reset();
+            crc.update(sink.written().position(start + FRAME_HEADER));
+            int len = sink.size() - start - FRAME_HEADER;
+            sink.putInt(start, len);
+            sink.putInt(start + Integer.BYTES, (int) crc.getValue());
+            flushIfFull();
+            return len;
+        }
+
+        void flushIfFull() throws IOException {
+            if (sink.size() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            var buf = sink.written();
+            while (buf.hasRemaining()) {
+                flushed += channel.write(buf);
+            }
+            sink.clear();
+        }
+    }
+
+    /**
+     * Файл — снимок поддерживаемого формата? Снимок другого формата можно только игнорировать:
+     * состояние восстанавливается из журнала, а снимок перезаписывается при следующем сохранении.
+     */
+    public static boolean isSupported(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FILE_HEADER) {
+                return false;
+            }
+            var head = ByteBuffer.allocate(Integer.BYTES + 2);
+            while (head.hasRemaining()) {
+                if (channel.read(head, head.position()) < 0) {
+                    return false;
+                }
+            }
+            return head.getInt(0) == MAGIC
+                    && head.get(Integer.BYTES) == FORMAT
+                    && BinaryCodec.supports(head.get(Integer.BYTES + 1));
+        }
+    }
+}
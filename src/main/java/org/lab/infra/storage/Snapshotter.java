@@ -0,0 +1,163 @@
+package org.lab.infra.storage;
+
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Периодический снимок состояния в фоне.
+ * Писатели не останавливаются: снимок копирует ссылки на текущие неизменяемые Project/User,
+ * взятые после checkpoint журнала. Состояние в снимке может быть новее checkpoint —
+ * при восстановлении такие записи хвоста пропускаются по версии проекта.
+ * Проекты, не загружавшиеся из отображённого снимка с момента старта, не материализуются:
+ * их кадры копируются из него как есть.
+ * С хранилищем проектов (checkpoints) снимок проекты не содержит: он фиксирует пользователей и позицию журнала,
+ * до которой все изменения проектов уже сброшены в хранилище, — старт проигрывает журнал только после неё.
+ * После записи снимка удаляются сегменты журнала, целиком покрытые его checkpoint.
+ * Ошибка фонового снимка не останавливает расписание: она сохраняется в lastFailure() для отчёта наверху.
+ */
+public final class Snapshotter implements AutoCloseable {
+
+    private final Path path;
+    private final FileJournal journal;
+    private final UserRepository users;
+    private final ProjectRepository projects;
+    private final FileProjectStore store;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long snapshotSeq = -1;
+    private volatile Failure lastFailure;
+
+    /**
+     * Последняя ошибка фонового снимка; count — число неудачных попыток с момента старта.
+     */
+    public record Failure(Instant at, long count, Exception error) { }
+
+    private Snapshotter(Path path, FileJournal journal, UserRepository users, ProjectRepository projects, FileProjectStore store) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.journal = Objects.requireNonNull(journal, "journal");
+        this.users = Objects.requireNonNull(users, "users");
+        this.projects = Objects.requireNonNull(projects, "projects");
+        this.store = store;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("snapshot-writer").factory());
+    }
+
+    public static Snapshotter start(Path path,
+                                    Duration interval,
+                                    FileJournal journal,
+                                    UserRepository users,
+                                    ProjectRepository projects) {
+        return schedule(new Snapshotter(path, journal, users, projects, null), interval);
+    }
+
+    /**
+     * Checkpoint'ы хранилища проектов (projects подключён к store через attachStore) в store.checkpointPath().
+     */
+    public static Snapshotter checkpoints(FileProjectStore store,
+                                          Duration interval,
+                                          FileJournal journal,
+                                          UserRepository users,
+                                          ProjectRepository projects) {
+        Objects.requireNonNull(store, "store");
+        return schedule(new Snapshotter(store.checkpointPath(), journal, users, projects, store), interval);
+    }
+
+    private static Snapshotter schedule(Snapshotter s, Duration interval) {
+        Objects.requireNonNull(interval, "interval");
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be > 0");
+        }
+        long millis = interval.toMillis();
+        s.scheduler.scheduleWithFixedDelay(s::snapshotInBackground, millis, millis, TimeUnit.MILLISECONDS);
+        return s;
+    }
+
+    private void snapshotInBackground() {
+        try {
+            snapshotNow();
+        } catch (IOException | RuntimeException e) {
+            // следующая попытка будет по расписанию; журнал остаётся источником истины
+            var prev = lastFailure;
+            lastFailure = new Failure(Instant.now(), prev == null ? 1 : prev.count() + 1, e);
+        }
+    }
+
+    public Optional<Failure> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    /**
+     * Пишет снимок (или checkpoint хранилища), если с прошлого в журнале появились записи.
+     */
+    public FileJournal.Checkpoint snapshotNow() throws IOException {
+        writeLock.lock();
+        try {
+            var cp = journal.checkpoint();
+            if (cp.seq() == snapshotSeq) {
+                return cp;
+            }
+            if (store != null) {
+                // всё, что в журнале до cp, дописывается в store под stripe-замками: дождаться и сбросить на диск
+                projects.awaitStartedWrites();
+                store.sync();
+                SnapshotFile.write(path, cp, users.findAll(), List.of());
+                return written(cp);
+            }
+            var loaded = new ArrayList<Project>();
+            var untouched = new ArrayList<ProjectId>();
+            var source = projects.partitionLoaded(loaded::add, untouched::add);
+            if (source instanceof MappedSnapshot base) {
+                SnapshotFile.write(path, cp, users.findAll(), loaded, base, untouched);
+            } else {
+                for (var id : untouched) {
+                    var p = source.load(id);
+                    if (p != null) {
+                        loaded.add(p);
+                    }
+                }
+                SnapshotFile.write(path, cp, users.findAll(), loaded);
+            }
+            return written(cp);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Снимок с checkpoint cp записан и сброшен на диск: сегменты журнала до cp больше не нужны для старта.
+     */
+    private FileJournal.Checkpoint written(FileJournal.Checkpoint cp) throws IOException {
+        snapshotSeq = cp.seq();
+        journal.deleteSegmentsCoveredBy(cp);
+        return cp;
+    }
+
+    /**
+     * Останавливает расписание и делает финальный снимок (следующий старт проиграет пустой хвост).
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotNow();
+    }
+}
@@ -0,0 +1,385 @@
+package org.lab.app;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.domain.BugReport;
+import org.lab.domain.Project;
+import org.lab.domain.Ticket;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.MilestoneStatus;
+import org.lab.domain.enums.ProjectRole;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.ColdStore;
+import org.lab.infra.EntityProjections;
+import org.lab.infra.ProjectChange;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.RepositoryJournal;
+import org.lab.infra.TicketRepository;
+import org.lab.infra.UserRepository;
+import org.lab.infra.storage.DatasetExport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkImportTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private static final String CSV = """
+            type,login,name,key,description,manager,project,role,ref,start,end,milestone,title,author
+            user,alice,Alice,,,,,,,,,,,
+            user,bob,Bob,,,,,,,,,,,
+            user,carol,Carol,,,,,,,,,,,
+            project,,Импорт,IMP,"описание, с запятой",alice,,,,,,,,
+            member,bob,,,,,IMP,developer,,,,,,
+            member,carol,,,,,IMP,tester,,,,,,
+            member,alice,,,,,IMP,manager,,,,,,
+            milestone,,Спринт 1,,,,IMP,,s1,2026-05-01,2026-05-31,,,
+            ticket,,,,"многострочное
+            описание",,IMP,,,,,s1,Первый,alice
+            ticket,,,,,,IMP,,,,,s1,Второй,alice
+            bug,,,,,,IMP,,,,,,Баг,carol
+            """;
+
+    private static final String JSONL = """
+            {"type":"user","login":"alice","name":"Alice"}
+            {"type":"user","login":"bob","name":"Bob"}
+            {"type":"user","login":"carol","name":"Carol"}
+            {"type":"project","key":"IMP","name":"Импорт","description":"описание, с запятой","manager":"alice"}
+            {"type":"member","project":"IMP","login":"bob","role":"developer"}
+            {"type":"member","project":"IMP","login":"carol","role":"tester"}
+            {"type":"member","project":"IMP","login":"alice","role":"manager"}
+            {"type":"milestone","project":"IMP","ref":"s1","name":"Спринт 1","start":"2026-05-01","end":"2026-05-31"}
+            {"type":"ticket","project":"IMP","milestone":"s1","title":"Первый","description":"многострочное\\nописание","author":"alice"}
+            {"type":"ticket","project":"IMP","milestone":"s1","title":"Второй","description":null,"author":"alice"}
+            {"type":"bug","project":"IMP","title":"Баг","author":"carol"}
+            """;
+
+    /**
+     * Репозитории в памяти; журнал проектов считает записи. Импортирует заранее зарегистрированный актор.
+     */
+    private static final class Fixture {
+        final UserRepository users = new UserRepository();
+        final ProjectRepository projects = new ProjectRepository(ProjectRepository.UpdateMode.LOCKING);
+        final AtomicInteger journaled = new AtomicInteger();
+        final BulkImport importer = new BulkImport(users, projects);
+
+        Fixture() {
+            projects.attachJournal(new RepositoryJournal() {
+                @Override
+                public Commit userInserted(User user) {
+                    return Commit.DURABLE;
+                }
+
+                @Override
+                public Commit projectChanged(ProjectChange change) {
+                    journaled.incrementAndGet();
+                    return Commit.DURABLE;
+                }
+            });
+        }
+
+        UserId user(String login) {
+            return users.insert(User.register(users.nextId(), login, login, NOW).orElseThrow()).orElseThrow().id();
+        }
+
+        UserId login(String login) {
+            return users.findByLogin(login).orElseThrow().id();
+        }
+
+        BulkImport.Report run(UserId actor, BulkImport.Format format, String text) throws IOException {
+            return importer.run(actor, new BufferedReader(new StringReader(text)), format, p -> { });
+        }
+
+        Project project(String key) {
+            return projects.findById(projects.findIdByKey(key).orElseThrow()).orElseThrow();
+        }
+    }
+
+    /**
+     * Актор — пользователь из этого же файла: он зарегистрирован заранее, поэтому его строка user
+     * отклоняется как дубликат логина, а остальное импортируется.
+     */
+    private static Fixture importedBy(String actor, BulkImport.Format format, String text) throws IOException {
+        var f = new Fixture();
+        var report = f.run(f.user(actor), format, text);
+        assertEquals(1, report.progress().failed(), String.valueOf(report.errors()));
+        return f;
+    }
+
+    @Test
+    void csvAndJsonlImportTheSameDataset() throws IOException {
+        var csv = importedBy("alice", BulkImport.Format.CSV, CSV);
+        var jsonl = importedBy("alice", BulkImport.Format.JSONL, JSONL);
+
+        var p = csv.project("IMP");
+        var expected = structure(p, csv.users);
+        assertEquals("описание, с запятой", p.description().value());
+        assertEquals(List.of("Спринт 1 / Второй:  (alice)", "Спринт 1 / Первый: многострочное\nописание (alice)"), expected.get("tickets"));
+        assertEquals(Map.of("alice", ProjectRole.MANAGER, "bob", ProjectRole.DEVELOPER, "carol", ProjectRole.TESTER), expected.get("members"));
+        assertEquals(List.of("Баг:  (carol)"), expected.get("bugs"));
+        assertEquals(expected, structure(jsonl.project("IMP"), jsonl.users));
+    }
+
+    /**
+     * Ошибка строки попадает в отчёт с её номером (для CSV — с учётом заголовка и многострочных полей)
+     * и не мешает остальным строкам.
+     */
+    @Test
+    void rowErrorsAreReportedByLineAndTheRestIsImported() throws IOException {
+        var f = new Fixture();
+        var alice = f.user("alice");
+        f.user("bob");
+        var text = """
+                {"type":"project","key":"ERR","name":"Ошибки","manager":"alice"}
+                {"type":"member","project":"ERR","login":"bob","role":"developer"}
+                {"type":"milestone","project":"ERR","ref":"m","name":"M","start":"2026-05-01","end":"2026-05-31"}
+                {"type":"comment","text":"?"}
+                {"type":"member","project":"ERR","login":"nobody","role":"developer"}
+                {"type":"member","project":"ERR","login":"bob","role":"owner"}
+                {"type":"milestone","project":"ERR","ref":"bad","name":"B","start":"2026-06-31","end":"2026-07-01"}
+                {"type":"ticket","project":"NOPE","milestone":"m","title":"T","author":"alice"}
+                {"type":"ticket","project":"ERR","milestone":"missing","title":"T","author":"alice"}
+                {"type":"ticket","project":"ERR","milestone":"m","title":"","author":"alice"}
+                {"type":"ticket","project":"ERR","milestone":"m","title":"Хороший","author":"alice"
+                {"type":"ticket","project":"ERR","milestone":"m","title":"Хороший","author":"bob"}
+                {"type":"milestone","project":"ERR","ref":"m","name":"Дубль","start":"2026-05-01","end":"2026-05-31"}
+                """;
+
+        var report = f.run(alice, BulkImport.Format.JSONL, text);
+
+        var failedLines = report.errors().stream().map(BulkImport.RowError::line).toList();
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 13L), failedLines, String.valueOf(report.errors()));
+        assertEquals(13, report.progress().rows());
+        assertEquals(9, report.progress().failed());
+        assertTrue(report.errors().get(1).message().contains("nobody"), report.errors().get(1).message());
+
+        var p = f.project("ERR");
+        assertEquals(ProjectRole.DEVELOPER, p.members().get(f.login("bob")));
+        assertEquals(1, p.milestones().size());
+        assertEquals(List.of("Хороший"), p.tickets().values().stream().map(t -> t.title().value()).toList());
+
+        var csv = f.run(alice, BulkImport.Format.CSV, """
+                type,project,ref,name,start,end,milestone,title,description,author
+                milestone,ERR,c,CSV,2026-06-01,2026-06-30,,,,
+                ticket,ERR,,,,,c,Из CSV,"описание
+                в две строки",bob
+                ticket,ERR,,,,,c,,,bob
+                """);
+        assertEquals(1, csv.errors().size(), String.valueOf(csv.errors()));
+        assertEquals(5, csv.errors().getFirst().line(), "номер строки учитывает заголовок и перевод строки в кавычках");
+        assertTrue(csv.errors().getFirst().message().contains("title"), csv.errors().getFirst().message());
+        assertEquals(2, f.project("ERR").tickets().size());
+    }
+
+    /**
+     * Подряд идущие тикеты одного milestone и автора — один createTickets: отказ всему пакету (автор не участник)
+     * получают все его строки, а вся группа проекта за пачку — одна версия и одна запись журнала.
+     */
+    @Test
+    void consecutiveTicketsAreOneCreateTicketsAndAGroupIsOneVersion() throws IOException {
+        var f = new Fixture();
+        var alice = f.user("alice");
+        f.user("bob");
+        f.user("eve");
+        var text = new StringBuilder("""
+                {"type":"project","key":"RUN","name":"Серии","manager":"alice"}
+                {"type":"member","project":"RUN","login":"bob","role":"developer"}
+                {"type":"milestone","project":"RUN","ref":"m","name":"M","start":"2026-05-01","end":"2026-05-31"}
+                {"type":"ticket","project":"RUN","milestone":"m","title":"E1","author":"eve"}
+                {"type":"ticket","project":"RUN","milestone":"m","title":"E2","author":"eve"}
+                {"type":"ticket","project":"RUN","milestone":"m","title":"B1","author":"bob"}
+                {"type":"ticket","project":"RUN","milestone":"m","title":"E3","author":"eve"}
+                """);
+        for (int i = 0; i < 100; i++) {
+            text.append("{\"type\":\"ticket\",\"project\":\"RUN\",\"milestone\":\"m\",\"title\":\"A").append(i)
+                    .append("\",\"author\":\"alice\"}\n");
+        }
+
+        var report = f.run(alice, BulkImport.Format.JSONL, text.toString());
+
+        assertEquals(List.of(4L, 5L, 7L), report.errors().stream().map(BulkImport.RowError::line).toList());
+        for (var e : report.errors()) {
+            assertTrue(e.message().contains("ticket.creatorMustBeMember"), e.message());
+        }
+        var p = f.project("RUN");
+        assertEquals(101, p.tickets().size());
+        assertEquals(1, p.version(), "insert и одна версия на группу");
+        assertEquals(2, f.journaled.get());
+    }
+
+    /**
+     * Права проверяются по группе проекта: не-менеджер не может дописывать в проект, строки группы
+     * отклоняются с AccessDenied, а проект и журнал не меняются; проект можно создать только на себя.
+     */
+    @Test
+    void importIntoAProjectNeedsTheManagerRole() throws IOException {
+        var f = new Fixture();
+        var alice = f.user("alice");
+        var bob = f.user("bob");
+        f.run(alice, BulkImport.Format.JSONL, """
+                {"type":"project","key":"OWN","name":"Чужой","manager":"alice"}
+                {"type":"member","project":"OWN","login":"bob","role":"developer"}
+                {"type":"milestone","project":"OWN","ref":"m","name":"M","start":"2026-05-01","end":"2026-05-31"}
+                """);
+        var before = f.project("OWN");
+        int journaled = f.journaled.get();
+
+        var report = f.run(bob, BulkImport.Format.JSONL, """
+                {"type":"project","key":"ALICE2","name":"На чужое имя","manager":"alice"}
+                {"type":"member","project":"OWN","login":"bob","role":"tester"}
+                {"type":"milestone","project":"OWN","ref":"m2","name":"M2","start":"2026-06-01","end":"2026-06-30"}
+                {"type":"bug","project":"OWN","title":"Баг","author":"bob"}
+                {"type":"project","key":"BOB","name":"Свой","manager":"bob"}
+                {"type":"milestone","project":"BOB","ref":"m","name":"Свой","start":"2026-05-01","end":"2026-05-31"}
+                """);
+
+        var lines = new ArrayList<Long>();
+        for (var e : report.errors()) {
+            lines.add(e.line());
+            if (e.line() > 1) {
+                assertTrue(e.message().startsWith("Access denied: role=DEVELOPER, op=BULK_IMPORT"), e.message());
+            }
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L), lines, String.valueOf(report.errors()));
+        assertTrue(f.projects.findIdByKey("ALICE2").isEmpty());
+        assertEquals(before.version(), f.project("OWN").version());
+        assertEquals(before.members(), f.project("OWN").members());
+        assertEquals(journaled + 2, f.journaled.get(), "только свой проект BOB: insert и группа");
+        assertEquals(1, f.project("BOB").milestones().size());
+
+        assertThrows(IllegalArgumentException.class, () -> f.run(UserId.newId(), BulkImport.Format.CSV, CSV));
+    }
+
+    /**
+     * Выгрузка DatasetExport импортируется обратно: структура (пользователи, проекты, участники, milestones,
+     * тикеты и баги с названием, описанием и автором, включая вынесенные в cold) совпадает, а состояние —
+     * нет: экспорт для BI, и импорт создаёт тикеты и баги NEW без исполнителей, milestones OPEN, без cold.
+     */
+    @Test
+    void exportedDatasetReimportsStructureButNotState() throws IOException {
+        var users = new UserRepository();
+        var projects = new ProjectRepository(ProjectRepository.UpdateMode.LOCKING);
+        var tickets = new TicketRepository();
+        var bugs = new BugReportRepository();
+        var cold = ColdStore.inMemory();
+        EntityProjections.follow(projects, tickets, bugs, cold);
+        var service = new ProjectManagementService(users, projects, tickets, bugs, cold, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        var alice = service.register("alice", "Alice").toOptional().orElseThrow().id();
+        var bob = service.register("bob", "Bob").toOptional().orElseThrow().id();
+        var carol = service.register("carol", "Carol").toOptional().orElseThrow().id();
+        var pid = service.createProject(alice, "Экспорт", "описание \"в кавычках\"").toOptional().orElseThrow().id();
+        service.addDeveloper(alice, pid, bob);
+        service.addTester(alice, pid, carol);
+        var m1 = service.createMilestone(alice, pid, "Закрытый", LocalDate.of(2026, 5, 1), LocalDate.of(2026, 5, 31)).toOptional().orElseThrow().id();
+        service.activateMilestone(alice, pid, m1);
+        var done = service.createTicket(alice, pid, m1, "Сделан", "многострочное\nописание").toOptional().orElseThrow().id();
+        service.assignDeveloperToTicket(alice, pid, done, bob);
+        service.acceptTicket(bob, pid, done);
+        service.startTicket(bob, pid, done);
+        service.completeTicket(bob, pid, done);
+        service.closeMilestone(alice, pid, m1);
+        var m2 = service.createMilestone(alice, pid, "Текущий", LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 30)).toOptional().orElseThrow().id();
+        service.activateMilestone(alice, pid, m2);
+        var live = service.createTicket(alice, pid, m2, "В работе", "").toOptional().orElseThrow().id();
+        service.assignDeveloperToTicket(alice, pid, live, bob);
+        service.acceptTicket(bob, pid, live);
+        var closedBug = service.createBugReport(carol, pid, "Закрытый баг", "").toOptional().orElseThrow().id();
+        service.fixBugReport(bob, pid, closedBug);
+        service.testBugReport(carol, pid, closedBug);
+        service.closeBugReport(carol, pid, closedBug);
+        service.createBugReport(carol, pid, "Открытый баг", "шаги").toOptional().orElseThrow();
+
+        var source = projects.findById(pid).orElseThrow();
+        assertEquals(1, cold.ticketCount());
+        assertEquals(1, cold.bugCount());
+        var archivedTickets = new ArrayList<Ticket>();
+        var archivedBugs = new ArrayList<BugReport>();
+        cold.forEachTicket(archivedTickets::add);
+        cold.forEachBug(archivedBugs::add);
+        var expected = structure(source, Stream.concat(source.tickets().values().stream(), archivedTickets.stream()).toList(),
+                Stream.concat(source.bugReports().values().stream(), archivedBugs.stream()).toList(), users);
+
+        for (var name : List.of("all.jsonl", "all.csv")) {
+            var file = dir.resolve(name);
+            var counts = DatasetExport.write(file, users, projects, cold);
+            assertEquals(1, counts.archivedTickets());
+            assertEquals(1, counts.archivedBugs());
+
+            var f = new Fixture();
+            var report = f.importer.run(f.user("alice"), file, p -> { });
+            assertEquals(1, report.progress().failed(), "только строка user самого актора: " + report.errors());
+
+            var target = f.project(source.key().value());
+            assertEquals(expected, structure(target, f.users), name);
+            for (var m : target.milestones().values()) {
+                assertEquals(MilestoneStatus.OPEN, m.status(), name);
+            }
+            for (var t : target.tickets().values()) {
+                assertEquals(TicketStatus.NEW, t.status(), name);
+                assertTrue(t.assignees().isEmpty(), name);
+            }
+            for (var b : target.bugReports().values()) {
+                assertEquals(BugStatus.NEW, b.status(), name);
+                assertNull(b.assignedTo(), name);
+            }
+        }
+    }
+
+    private static Map<String, Object> structure(Project p, UserRepository users) {
+        return structure(p, List.copyOf(p.tickets().values()), List.copyOf(p.bugReports().values()), users);
+    }
+
+    /**
+     * То, что импорт воссоздаёт из выгрузки: ссылки — по логинам и именам, без id, статусов и дат.
+     */
+    private static Map<String, Object> structure(Project p, List<Ticket> tickets, List<BugReport> bugs, UserRepository users) {
+        var out = new TreeMap<String, Object>();
+        out.put("key", p.key().value());
+        out.put("name", p.name());
+        out.put("description", p.description().value());
+        out.put("manager", login(users, p.managerId()));
+        var members = new TreeMap<String, ProjectRole>();
+        p.members().forEach((u, r) -> members.put(login(users, u), r));
+        out.put("members", members);
+        out.put("milestones", p.milestones().values().stream()
+                .map(m -> m.name() + " " + m.range().start() + ".." + m.range().end()).sorted().toList());
+        out.put("tickets", tickets.stream()
+                .map(t -> p.milestones().get(t.milestoneId()).name() + " / " + t.title().value() + ": "
+                        + t.description().value() + " (" + login(users, t.createdBy()) + ")")
+                .sorted().toList());
+        out.put("bugs", bugs.stream()
+                .map(b -> b.title().value() + ": " + b.description().value() + " (" + login(users, b.createdBy()) + ")")
+                .sorted().toList());
+        return out;
+    }
+
+    private static String login(UserRepository users, UserId id) {
+        return users.findById(id).orElseThrow().login();
+    }
+}
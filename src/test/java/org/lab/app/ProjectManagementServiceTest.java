@@ -0,0 +1,298 @@
+package org.lab.app;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.DomainError;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.ProjectSummary;
+import org.lab.domain.TicketId;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.ColdStore;
+import org.lab.infra.EntityProjections;
+import org.lab.infra.ProjectChange;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.RepositoryJournal;
+import org.lab.infra.TicketRepository;
+import org.lab.infra.UserRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectManagementServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+
+    /**
+     * Сервис со всеми репозиториями в памяти; журнал проектов только считает записи.
+     */
+    private static final class Fixture {
+        final UserRepository users = new UserRepository();
+        final ProjectRepository projects;
+        final TicketRepository tickets = new TicketRepository();
+        final BugReportRepository bugs = new BugReportRepository();
+        final ColdStore cold = ColdStore.inMemory();
+        final AtomicInteger journaled = new AtomicInteger();
+        final ProjectManagementService service;
+
+        Fixture(ProjectRepository.UpdateMode mode) {
+            projects = new ProjectRepository(mode);
+            projects.attachJournal(new RepositoryJournal() {
+                @Override
+                public Commit userInserted(User user) {
+                    return Commit.DURABLE;
+                }
+
+                @Override
+                public Commit projectChanged(ProjectChange change) {
+                    journaled.incrementAndGet();
+                    return Commit.DURABLE;
+                }
+            });
+            EntityProjections.follow(projects, tickets, bugs, cold);
+            service = new ProjectManagementService(users, projects, tickets, bugs, cold, Clock.fixed(NOW, ZoneOffset.UTC));
+        }
+
+        UserId user(String login) {
+            return ok(service.register(login, login)).id();
+        }
+
+        long version(ProjectId id) {
+            return projects.findById(id).orElseThrow().version();
+        }
+    }
+
+    private static <T> T ok(Result<T> r) {
+        assertTrue(r.isSuccess(), String.valueOf(r.failureOrNull()));
+        return r.toOptional().orElseThrow();
+    }
+
+    /**
+     * Отказ в доступе проверяется внутри projects.update: во всех режимах он не даёт новой версии,
+     * записи в журнал и события в ленте, а вызывающий получает AccessDenied.
+     */
+    @Test
+    void deniedActorLeavesVersionJournalAndFeedUnchanged() {
+        for (var mode : ProjectRepository.UpdateMode.values()) {
+            var f = new Fixture(mode);
+            var manager = f.user("manager");
+            var dev = f.user("dev");
+            var outsider = f.user("outsider");
+            var pid = ok(f.service.createProject(manager, "Проект", "")).id();
+            ok(f.service.addDeveloper(manager, pid, dev));
+            var mid = ok(f.service.createMilestone(manager, pid, "M1", LocalDate.of(2026, 5, 1), LocalDate.of(2026, 6, 30))).id();
+            ok(f.service.activateMilestone(manager, pid, mid));
+            var tid = ok(f.service.createTicket(manager, pid, mid, "Тикет", "")).id();
+
+            long version = f.version(pid);
+            int journaled = f.journaled.get();
+            long published = f.projects.changes().published();
+
+            List<Supplier<Result<?>>> denied = List.of(
+                    () -> f.service.addDeveloper(outsider, pid, outsider),
+                    () -> f.service.createMilestone(dev, pid, "M2", LocalDate.of(2026, 7, 1), LocalDate.of(2026, 7, 31)),
+                    () -> f.service.closeMilestone(dev, pid, mid),
+                    () -> f.service.createTicket(outsider, pid, mid, "Чужой", ""),
+                    () -> f.service.createTickets(dev, pid, mid, List.of(new NewTicket("A", ""), new NewTicket("B", ""))),
+                    () -> f.service.assignDeveloperToTicket(dev, pid, tid, dev),
+                    () -> f.service.acceptTickets(manager, pid, List.of(tid)),
+                    () -> f.service.fixBugReports(manager, pid, List.of())
+            );
+            for (var command : denied) {
+                var r = command.get();
+                assertTrue(r.failureOrNull() instanceof AccessDenied, mode + ": " + r.failureOrNull());
+                assertEquals(version, f.version(pid), mode + ": version");
+                assertEquals(journaled, f.journaled.get(), mode + ": journal");
+                assertEquals(published, f.projects.changes().published(), mode + ": feed");
+            }
+
+            // разрешённая команда после отказов публикуется как обычно: ровно одна версия
+            ok(f.service.assignDeveloperToTicket(manager, pid, tid, dev));
+            assertEquals(version + 1, f.version(pid), mode.name());
+            assertEquals(journaled + 1, f.journaled.get(), mode.name());
+            assertEquals(published + 1, f.projects.changes().published(), mode.name());
+        }
+    }
+
+    /**
+     * Пакетное создание — один projects.update: одна версия, одна запись журнала и одно событие ленты
+     * на весь пакет; невалидные элементы отклоняются по отдельности, не отменяя остальные.
+     */
+    @Test
+    void createTicketsPublishesOneVersionForTheWholeBatch() {
+        for (var mode : ProjectRepository.UpdateMode.values()) {
+            var f = new Fixture(mode);
+            var manager = f.user("manager");
+            var pid = ok(f.service.createProject(manager, "Проект", "")).id();
+            var mid = ok(f.service.createMilestone(manager, pid, "M1", LocalDate.of(2026, 5, 1), LocalDate.of(2026, 6, 30))).id();
+            ok(f.service.activateMilestone(manager, pid, mid));
+
+            long version = f.version(pid);
+            int journaled = f.journaled.get();
+            long published = f.projects.changes().published();
+
+            var results = ok(f.service.createTickets(manager, pid, mid, List.of(
+                    new NewTicket("A", ""), new NewTicket("", "пустой заголовок"), new NewTicket("B", "описание"))));
+
+            assertEquals(3, results.size());
+            assertEquals("A", ok(results.get(0)).title());
+            assertTrue(results.get(1).failureOrNull() instanceof FailureCause.Domain, mode.name());
+            assertEquals("B", ok(results.get(2)).title());
+            assertEquals(version + 1, f.version(pid), mode.name());
+            assertEquals(journaled + 1, f.journaled.get(), mode.name());
+            assertEquals(published + 1, f.projects.changes().published(), mode.name());
+
+            var p = f.projects.findById(pid).orElseThrow();
+            assertEquals(2, p.tickets().size());
+            assertEquals(ProjectSummary.of(p.milestones(), p.tickets()), p.summary());
+        }
+    }
+
+    @Test
+    void createTicketsIntoClosedOrMissingMilestoneFailsWithoutPublishing() {
+        var f = new Fixture(ProjectRepository.UpdateMode.LOCKING);
+        var manager = f.user("manager");
+        var pid = ok(f.service.createProject(manager, "Проект", "")).id();
+        var mid = ok(f.service.createMilestone(manager, pid, "M1", LocalDate.of(2026, 5, 1), LocalDate.of(2026, 6, 30))).id();
+        ok(f.service.activateMilestone(manager, pid, mid));
+        ok(f.service.closeMilestone(manager, pid, mid));
+
+        long version = f.version(pid);
+        int journaled = f.journaled.get();
+        var items = List.of(new NewTicket("A", ""), new NewTicket("B", ""));
+        for (var target : List.of(mid, MilestoneId.newId())) {
+            var r = f.service.createTickets(manager, pid, target, items);
+            assertTrue(r.failureOrNull() instanceof FailureCause.Domain, String.valueOf(r.failureOrNull()));
+            assertEquals(version, f.version(pid));
+            assertEquals(journaled, f.journaled.get());
+        }
+    }
+
+    /**
+     * Пакетные команды: результат по каждому id в порядке входа (повторы, смесь успехов и отказов),
+     * одна версия, одна запись журнала и одно событие ленты на пакет; id, уже вынесенные в cold,
+     * отклоняются как архивные, а не как несуществующие.
+     */
+    @Test
+    void batchCommandsReportPerItemAndPublishOncePerBatch() {
+        for (var mode : ProjectRepository.UpdateMode.values()) {
+            var f = new Fixture(mode);
+            var manager = f.user("manager");
+            var dev = f.user("dev");
+            var tester = f.user("tester");
+            var pid = ok(f.service.createProject(manager, "Проект", "")).id();
+            ok(f.service.addDeveloper(manager, pid, dev));
+            ok(f.service.addTester(manager, pid, tester));
+
+            // тикет закрытого milestone уходит в cold
+            var m1 = ok(f.service.createMilestone(manager, pid, "M1", LocalDate.of(2026, 5, 1), LocalDate.of(2026, 5, 31))).id();
+            ok(f.service.activateMilestone(manager, pid, m1));
+            var archived = ok(f.service.createTicket(manager, pid, m1, "Старый", "")).id();
+            ok(f.service.assignDeveloperToTicket(manager, pid, archived, dev));
+            ok(f.service.acceptTicket(dev, pid, archived));
+            ok(f.service.startTicket(dev, pid, archived));
+            ok(f.service.completeTicket(dev, pid, archived));
+            ok(f.service.closeMilestone(manager, pid, m1));
+            assertTrue(f.cold.findTicket(archived).isPresent(), mode.name());
+
+            var m2 = ok(f.service.createMilestone(manager, pid, "M2", LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 30))).id();
+            ok(f.service.activateMilestone(manager, pid, m2));
+            var created = ok(f.service.createTickets(manager, pid, m2, List.of(new NewTicket("A", ""), new NewTicket("B", ""))));
+            var a = ok(created.get(0)).id();
+            var b = ok(created.get(1)).id();
+            var missing = TicketId.newId();
+
+            long version = f.version(pid);
+            int journaled = f.journaled.get();
+            long published = f.projects.changes().published();
+
+            var assigned = ok(f.service.assignDeveloperToTickets(manager, pid, List.of(a, b, a, archived, missing), dev));
+            assertEquals(5, assigned.size());
+            assertEquals(Set.of(dev), ok(assigned.get(0)).assignees());
+            assertEquals(Set.of(dev), ok(assigned.get(1)).assignees());
+            assertEquals(Set.of(dev), ok(assigned.get(2)).assignees());
+            assertDomainError("ticket.archived", assigned.get(3));
+            assertTrue(domainError(assigned.get(4)) instanceof DomainError.NotFound, mode.name());
+            assertEquals(version + 1, f.version(pid), mode.name());
+            assertEquals(journaled + 1, f.journaled.get(), mode.name());
+            assertEquals(published + 1, f.projects.changes().published(), mode.name());
+
+            var accepted = ok(f.service.acceptTickets(dev, pid, List.of(a, a, b)));
+            assertEquals(TicketStatus.ACCEPTED, ok(accepted.get(0)).status());
+            assertTrue(domainError(accepted.get(1)) instanceof DomainError.InvalidTransition, mode.name());
+            assertEquals(TicketStatus.ACCEPTED, ok(accepted.get(2)).status());
+            assertEquals(version + 2, f.version(pid), mode.name());
+            assertEquals(journaled + 2, f.journaled.get(), mode.name());
+            assertEquals(published + 2, f.projects.changes().published(), mode.name());
+
+            // пакет без успешных элементов ничего не публикует
+            var none = ok(f.service.startTickets(dev, pid, List.of(archived, missing)));
+            assertDomainError("ticket.archived", none.get(0));
+            assertEquals(version + 2, f.version(pid), mode.name());
+            assertEquals(journaled + 2, f.journaled.get(), mode.name());
+        }
+    }
+
+    /**
+     * Закрытие багов пакетом: одна версия закрывает, ещё одна убирает вынесенные в cold;
+     * после этого их id в пакетах отклоняются как архивные.
+     */
+    @Test
+    void closedBugBatchIsArchivedAndReportedAsArchived() {
+        for (var mode : ProjectRepository.UpdateMode.values()) {
+            var f = new Fixture(mode);
+            var manager = f.user("manager");
+            var dev = f.user("dev");
+            var tester = f.user("tester");
+            var pid = ok(f.service.createProject(manager, "Проект", "")).id();
+            ok(f.service.addDeveloper(manager, pid, dev));
+            ok(f.service.addTester(manager, pid, tester));
+            var b1 = ok(f.service.createBugReport(tester, pid, "B1", "")).id();
+            var b2 = ok(f.service.createBugReport(tester, pid, "B2", "")).id();
+
+            long version = f.version(pid);
+            int journaled = f.journaled.get();
+            var fixed = ok(f.service.fixBugReports(dev, pid, List.of(b1, b2, b1)));
+            assertEquals(BugStatus.FIXED, ok(fixed.get(0)).status());
+            assertEquals(BugStatus.FIXED, ok(fixed.get(1)).status());
+            assertTrue(fixed.get(2).isFailure(), mode.name());
+            assertEquals(version + 1, f.version(pid), mode.name());
+            ok(f.service.testBugReports(tester, pid, List.of(b1)));
+            assertEquals(version + 2, f.version(pid), mode.name());
+
+            var closed = ok(f.service.closeBugReports(tester, pid, List.of(b1, b2)));
+            assertEquals(BugStatus.CLOSED, ok(closed.get(0)).status());
+            assertTrue(closed.get(1).isFailure(), "FIXED, но не TESTED");
+            assertEquals(version + 4, f.version(pid), mode + ": закрытие и вынос — две версии");
+            assertEquals(journaled + 4, f.journaled.get(), mode.name());
+            assertTrue(f.cold.findBug(b1).isPresent(), mode.name());
+            assertFalse(f.projects.findById(pid).orElseThrow().bugReports().containsKey(b1), mode.name());
+
+            var again = ok(f.service.closeBugReports(tester, pid, List.of(b1)));
+            assertDomainError("bug.archived", again.getFirst());
+            assertEquals(version + 4, f.version(pid), mode.name());
+        }
+    }
+
+    private static DomainError domainError(Result<?> r) {
+        return r.failureOrNull() instanceof FailureCause.Domain(var error) ? error : null;
+    }
+
+    private static void assertDomainError(String invariant, Result<?> r) {
+        assertTrue(domainError(r) instanceof DomainError.InvariantViolation v && v.invariant().equals(invariant),
+                String.valueOf(r.failureOrNull()));
+    }
+}
@@ -0,0 +1,126 @@
+package org.lab.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGeneratorTest {
+
+    private static long millisOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    @Test
+    void timeOrderedIdsCarryVersionVariantAndCurrentTime() {
+        var gen = IdGenerator.timeOrdered();
+        long before = System.currentTimeMillis();
+        var id = gen.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        // счётчик может переполниться и сдвинуть метку вперёд, но не больше чем на пару миллисекунд
+        assertTrue(millisOf(id) >= before && millisOf(id) <= after + 2, "timestamp " + millisOf(id));
+    }
+
+    /**
+     * В пределах потока id строго возрастают, в том числе когда за миллисекунду выдаётся больше,
+     * чем вмещает 12-битный счётчик.
+     */
+    @Test
+    void timeOrderedIdsStrictlyIncreaseWithinThread() {
+        var gen = IdGenerator.timeOrdered();
+        var prev = gen.next();
+        for (int i = 0; i < 100_000; i++) {
+            var next = gen.next();
+            assertTrue(IdGenerator.compare(prev, next) < 0, prev + " !< " + next);
+            assertTrue(prev.toString().compareTo(next.toString()) < 0, "string order must match compare()");
+            prev = next;
+        }
+    }
+
+    @Test
+    void timeOrderedIdsAreUniqueAndMonotonicAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        var gen = IdGenerator.timeOrdered();
+        var all = ConcurrentHashMap.<UUID>newKeySet();
+        var start = new CountDownLatch(1);
+        var failures = new ConcurrentHashMap<String, Boolean>();
+        var workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                UUID prev = null;
+                for (int i = 0; i < perThread; i++) {
+                    var id = gen.next();
+                    if (prev != null && IdGenerator.compare(prev, id) >= 0) {
+                        failures.put(prev + " !< " + id, true);
+                    }
+                    all.add(id);
+                    prev = id;
+                }
+            }));
+        }
+        start.countDown();
+        for (var w : workers) {
+            w.join();
+        }
+
+        assertTrue(failures.isEmpty(), "not monotonic: " + failures.keySet());
+        assertEquals(threads * perThread, all.size());
+    }
+
+    /**
+     * Между потоками порядок по времени: id, выданный другим потоком заметно позже, больше.
+     */
+    @Test
+    void idsFromDifferentThreadsFollowWallClockOrder() throws Exception {
+        var gen = IdGenerator.timeOrdered();
+        var ids = new ArrayList<UUID>();
+        for (int i = 0; i < 3; i++) {
+            var holder = new ArrayList<UUID>(1);
+            var t = Thread.ofPlatform().start(() -> holder.add(gen.next()));
+            t.join();
+            ids.add(holder.getFirst());
+            Thread.sleep(5);
+        }
+        var sorted = new ArrayList<>(ids);
+        sorted.sort(IdGenerator::compare);
+        assertEquals(ids, sorted);
+        assertEquals(3, new HashSet<>(ids).size());
+    }
+
+    @Test
+    void compareIsUnsignedOnBothHalves() {
+        var low = new UUID(0x7FFF_FFFF_FFFF_FFFFL, 0);
+        var high = new UUID(0x8000_0000_0000_0000L, 0);
+        assertTrue(IdGenerator.compare(low, high) < 0);
+        assertTrue(low.compareTo(high) > 0, "UUID.compareTo is signed, compare() must not be");
+
+        var a = new UUID(1, 0x7FFF_FFFF_FFFF_FFFFL);
+        var b = new UUID(1, 0x8000_0000_0000_0000L);
+        assertTrue(IdGenerator.compare(a, b) < 0);
+        assertEquals(0, IdGenerator.compare(a, new UUID(1, 0x7FFF_FFFF_FFFF_FFFFL)));
+        assertEquals(List.of(a, b), sortedCopy(List.of(b, a)));
+    }
+
+    private static List<UUID> sortedCopy(List<UUID> ids) {
+        var out = new ArrayList<>(ids);
+        out.sort(IdGenerator::compare);
+        return out;
+    }
+}
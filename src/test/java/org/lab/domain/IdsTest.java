@@ -0,0 +1,89 @@
+package org.lab.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * *Id хранят UUID как два long: преобразование туда и обратно, текстовая форма, равенство и порядок
+ * должны совпадать с прежними (на вложенном UUID).
+ */
+class IdsTest {
+
+    private static final List<UUID> SAMPLES = List.of(
+            new UUID(0, 0),
+            new UUID(0, -1),
+            new UUID(-1, 0),
+            new UUID(0x7FFF_FFFF_FFFF_FFFFL, 0x8000_0000_0000_0000L),
+            new UUID(0x8000_0000_0000_0000L, 0x7FFF_FFFF_FFFF_FFFFL),
+            UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8057"),
+            UUID.randomUUID()
+    );
+
+    @Test
+    void uuidRoundTripsThroughEveryIdType() {
+        for (var u : SAMPLES) {
+            assertEquals(u, new ProjectId(u).value());
+            assertEquals(u, new MilestoneId(u).value());
+            assertEquals(u, new TicketId(u).value());
+            assertEquals(u, new BugReportId(u).value());
+            assertEquals(u, new UserId(u).value());
+
+            var id = new TicketId(u);
+            assertEquals(u.getMostSignificantBits(), id.msb());
+            assertEquals(u.getLeastSignificantBits(), id.lsb());
+            assertEquals(u.toString(), id.toString());
+            assertEquals(id, new TicketId(UUID.fromString(id.toString())));
+        }
+    }
+
+    @Test
+    void equalityAndHashFollowBothHalves() {
+        var u = UUID.fromString("01890a5d-ac96-774b-bcce-b302099a8057");
+        assertEquals(new UserId(u), new UserId(u.getMostSignificantBits(), u.getLeastSignificantBits()));
+        assertEquals(new UserId(u).hashCode(), new UserId(new UUID(u.getMostSignificantBits(), u.getLeastSignificantBits())).hashCode());
+        assertNotEquals(new UserId(u), new UserId(u.getMostSignificantBits(), u.getLeastSignificantBits() + 1));
+        assertNotEquals(new UserId(u), new UserId(u.getMostSignificantBits() + 1, u.getLeastSignificantBits()));
+        // msb и lsb не взаимозаменяемы
+        assertNotEquals(new UserId(1, 2), new UserId(2, 1));
+    }
+
+    @Test
+    void orderMatchesTextOrder() {
+        var ids = new ArrayList<ProjectId>();
+        for (var u : SAMPLES) {
+            ids.add(new ProjectId(u));
+        }
+        for (int i = 0; i < 100; i++) {
+            ids.add(ProjectId.newId());
+        }
+        for (var a : ids) {
+            for (var b : ids) {
+                assertEquals(Integer.signum(a.toString().compareTo(b.toString())), Integer.signum(a.compareTo(b)),
+                        a + " vs " + b);
+            }
+        }
+    }
+
+    @Test
+    void newIdsOfOneThreadAreOrderedByCreation() {
+        var prev = TicketId.newId();
+        for (int i = 0; i < 1_000; i++) {
+            var next = TicketId.newId();
+            assertTrue(prev.compareTo(next) < 0);
+            prev = next;
+        }
+    }
+
+    @Test
+    void nullUuidIsRejected() {
+        assertThrows(NullPointerException.class, () -> new TicketId(null));
+    }
+}
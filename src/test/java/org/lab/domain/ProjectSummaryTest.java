@@ -0,0 +1,141 @@
+package org.lab.domain;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.collect.PersistentMap;
+import org.lab.domain.enums.MilestoneStatus;
+import org.lab.domain.enums.TicketStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProjectSummaryTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+    private static final DateRange RANGE =
+            DateRange.of(LocalDate.of(2026, 5, 1), LocalDate.of(2026, 6, 30)).orElseThrow();
+
+    private static void assertSummaryConsistent(Project p) {
+        assertEquals(ProjectSummary.of(p.milestones(), p.tickets()), p.summary());
+    }
+
+    private static TicketDraft draft(String title) {
+        return new TicketDraft(TicketId.newId(), Title.of(title).orElseThrow(), Description.of("").orElseThrow());
+    }
+
+    /**
+     * Инкрементальная сводка после каждого доменного перехода совпадает с полным пересчётом.
+     */
+    @Test
+    void summaryMatchesFullRecomputeAfterEveryTransition() {
+        var manager = UserId.newId();
+        var dev = UserId.newId();
+        var m1 = MilestoneId.newId();
+        var m2 = MilestoneId.newId();
+        var t1 = TicketId.newId();
+
+        var p = Project.create(ProjectId.newId(), "SUM", "Сводка", "", manager, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        p = p.addDeveloper(dev, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        p = p.createMilestone(m1, "M1", RANGE, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        p = p.createMilestone(m2, "M2", RANGE, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        p = p.activateMilestone(m1, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        assertEquals(m1, p.summary().activeMilestoneId());
+
+        p = p.createTicket(t1, m1, Title.of("Тикет").orElseThrow(), Description.of("").orElseThrow(), manager, NOW)
+                .orElseThrow();
+        assertSummaryConsistent(p);
+        var batch = p.createTickets(m1, List.of(draft("A"), draft("B")), manager, NOW).orElseThrow();
+        p = batch.project();
+        assertSummaryConsistent(p);
+        p = p.createTickets(m2, List.of(draft("C")), manager, NOW).orElseThrow().project();
+        assertSummaryConsistent(p);
+
+        p = p.assignDeveloperToTicket(t1, dev, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        p = p.applyTicketAction(t1, new TicketAction.Accept(dev), NOW).orElseThrow();
+        assertSummaryConsistent(p);
+
+        var others = List.of(batch.results().get(0).orElseThrow().id(), batch.results().get(1).orElseThrow().id());
+        p = p.assignDeveloperToTickets(others, dev, NOW).project();
+        assertSummaryConsistent(p);
+        var m1Tickets = List.of(t1, others.get(0), others.get(1));
+        for (var action : List.<TicketAction>of(new TicketAction.Accept(dev), new TicketAction.Start(dev), new TicketAction.Complete(dev))) {
+            p = p.applyTicketActions(m1Tickets, action, NOW).project();
+            assertSummaryConsistent(p);
+        }
+        assertEquals(3, p.summary().countsFor(m1).total());
+        assertEquals(TicketStatusCounts.ZERO.plus(TicketStatus.DONE, 3), p.summary().countsFor(m1));
+
+        p = p.createBugReport(BugReportId.newId(), Title.of("Баг").orElseThrow(), Description.of("").orElseThrow(), dev, NOW)
+                .orElseThrow();
+        assertSummaryConsistent(p);
+
+        p = p.closeMilestone(m1, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        assertNull(p.summary().activeMilestoneId());
+        p = p.archiveMilestoneTickets(m1).orElseThrow();
+        assertSummaryConsistent(p);
+        assertEquals(0, p.summary().countsFor(m1).total());
+
+        p = p.activateMilestone(m2, NOW).orElseThrow();
+        assertSummaryConsistent(p);
+        assertEquals(m2, p.summary().activeMilestoneId());
+    }
+
+    /**
+     * Сводка, описывающая другие коллекции, не принимается на веру: конструктор выводит её заново.
+     */
+    @Test
+    void foreignSummaryIsRebasedOntoTheProjectCollections() {
+        var manager = UserId.newId();
+        var m1 = MilestoneId.newId();
+        var p = Project.create(ProjectId.newId(), "SUM", "Сводка", "", manager, NOW)
+                .flatMap(x -> x.createMilestone(m1, "M1", RANGE, NOW))
+                .flatMap(x -> x.activateMilestone(m1, NOW))
+                .orElseThrow();
+        p = p.createTickets(m1, List.of(draft("A"), draft("B")), manager, NOW).orElseThrow().project();
+
+        var rebuilt = new Project(
+                p.id(), p.version(), p.key(), p.name(), p.description(),
+                p.managerId(), p.teamLeadId(),
+                p.members(), p.milestones(), p.tickets(), p.bugReports(),
+                ProjectSummary.EMPTY,
+                p.createdAt(), p.updatedAt()
+        );
+        assertSummaryConsistent(rebuilt);
+        assertEquals(m1, rebuilt.summary().activeMilestoneId());
+        assertEquals(2, rebuilt.summary().countsFor(m1).total());
+    }
+
+    @Test
+    void secondActiveMilestoneBehindStaleSummaryIsRejected() {
+        var manager = UserId.newId();
+        var m1 = MilestoneId.newId();
+        var m2 = MilestoneId.newId();
+        var p = Project.create(ProjectId.newId(), "SUM", "Сводка", "", manager, NOW)
+                .flatMap(x -> x.createMilestone(m1, "M1", RANGE, NOW))
+                .flatMap(x -> x.createMilestone(m2, "M2", RANGE, NOW))
+                .flatMap(x -> x.activateMilestone(m1, NOW))
+                .orElseThrow();
+
+        var second = p.milestones().get(m2).withStatus(MilestoneStatus.ACTIVE, NOW);
+        var milestones = PersistentMap.from(p.milestones()).plus(m2, second);
+        var summary = p.summary();
+        assertThrows(IllegalStateException.class, () -> new Project(
+                p.id(), p.version(), p.key(), p.name(), p.description(),
+                p.managerId(), p.teamLeadId(),
+                p.members(), milestones, p.tickets(), p.bugReports(),
+                summary,
+                p.createdAt(), p.updatedAt()
+        ));
+    }
+}
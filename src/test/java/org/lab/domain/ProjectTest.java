@@ -0,0 +1,230 @@
+package org.lab.domain;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.TicketStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+    private static final DateRange RANGE =
+            DateRange.of(LocalDate.of(2026, 5, 1), LocalDate.of(2026, 6, 30)).orElseThrow();
+
+    private static TicketDraft draft(String title) {
+        return draft(TicketId.newId(), title);
+    }
+
+    private static TicketDraft draft(TicketId id, String title) {
+        return new TicketDraft(id, Title.of(title).orElseThrow(), Description.of("").orElseThrow());
+    }
+
+    /**
+     * Параметр description у createTicket/createBugReport — описание тикета или бага, а не проекта:
+     * создание элементов не меняет описание проекта.
+     */
+    @Test
+    void creatingTicketsAndBugsKeepsProjectDescription() {
+        var manager = UserId.newId();
+        var dev = UserId.newId();
+        var milestone = MilestoneId.newId();
+        var range = DateRange.of(LocalDate.of(2026, 5, 1), LocalDate.of(2026, 6, 30)).orElseThrow();
+        var project = Project.create(ProjectId.newId(), "DESC", "Проект", "описание проекта", manager, NOW)
+                .flatMap(p -> p.addDeveloper(dev, NOW))
+                .flatMap(p -> p.createMilestone(milestone, "M1", range, NOW))
+                .orElseThrow();
+        var expected = project.description();
+
+        var withTicket = project.createTicket(TicketId.newId(), milestone,
+                Title.of("Тикет").orElseThrow(), Description.of("описание тикета").orElseThrow(), manager, NOW).orElseThrow();
+        assertEquals(expected, withTicket.description());
+        assertEquals("описание тикета", withTicket.tickets().values().iterator().next().description().value());
+
+        var withBug = withTicket.createBugReport(BugReportId.newId(),
+                Title.of("Баг").orElseThrow(), Description.of("описание бага").orElseThrow(), dev, NOW).orElseThrow();
+        assertEquals(expected, withBug.description());
+        assertEquals("описание бага", withBug.bugReports().values().iterator().next().description().value());
+    }
+
+    /**
+     * Пакет создаёт те же тикеты, что и поэлементные createTicket, но одной новой версией агрегата;
+     * сводка совпадает с полным пересчётом, повторные id (в пакете или в проекте) отклоняются по элементу.
+     */
+    @Test
+    void createTicketsMatchesSingleCreatesInOneAggregate() {
+        var manager = UserId.newId();
+        var milestone = MilestoneId.newId();
+        var existing = TicketId.newId();
+        var project = Project.create(ProjectId.newId(), "BATCH", "Проект", "", manager, NOW)
+                .flatMap(p -> p.createMilestone(milestone, "M1", RANGE, NOW))
+                .flatMap(p -> p.activateMilestone(milestone, NOW))
+                .flatMap(p -> p.createTicket(existing, milestone, Title.of("Был").orElseThrow(), Description.of("").orElseThrow(), manager, NOW))
+                .orElseThrow();
+
+        var a = draft("A");
+        var b = draft("B");
+        var outcome = project.createTickets(milestone,
+                List.of(a, b, draft(a.id(), "A again"), draft(existing, "Был again")), manager, NOW).orElseThrow();
+
+        var results = outcome.results();
+        assertEquals(4, results.size());
+        assertEquals(a.id(), results.get(0).orElseThrow().id());
+        assertEquals(b.id(), results.get(1).orElseThrow().id());
+        assertTrue(results.get(2).errorOrNull() instanceof DomainError.Conflict);
+        assertTrue(results.get(3).errorOrNull() instanceof DomainError.Conflict);
+        assertEquals(2, outcome.succeeded());
+
+        var batched = outcome.project();
+        var sequential = project
+                .createTicket(a.id(), milestone, a.title(), a.description(), manager, NOW)
+                .flatMap(p -> p.createTicket(b.id(), milestone, b.title(), b.description(), manager, NOW))
+                .orElseThrow();
+        assertEquals(sequential.tickets(), batched.tickets());
+        assertEquals("Был", batched.tickets().get(existing).title().value());
+        assertEquals(ProjectSummary.of(batched.milestones(), batched.tickets()), batched.summary());
+        assertEquals(3, batched.summary().countsFor(milestone).total());
+        assertEquals(project.version(), batched.version(), "версию назначает репозиторий, одну на пакет");
+
+        // пакет без созданных тикетов не строит новый агрегат
+        var none = batched.createTickets(milestone, List.of(draft(a.id(), "A")), manager, NOW).orElseThrow();
+        assertSame(batched, none.project());
+        assertSame(batched, batched.createTickets(milestone, List.of(), manager, NOW).orElseThrow().project());
+    }
+
+    /**
+     * Проверки milestone и автора те же, что у createTicket: OPEN и ACTIVE принимают тикеты,
+     * пакет в CLOSED или несуществующий milestone (или от не-участника) отклоняется целиком.
+     */
+    @Test
+    void createTicketsRejectsWholeBatchForClosedOrMissingMilestone() {
+        var manager = UserId.newId();
+        var open = MilestoneId.newId();
+        var closed = MilestoneId.newId();
+        var project = Project.create(ProjectId.newId(), "BATCH", "Проект", "", manager, NOW)
+                .flatMap(p -> p.createMilestone(open, "Open", RANGE, NOW))
+                .flatMap(p -> p.createMilestone(closed, "Closed", RANGE, NOW))
+                .flatMap(p -> p.activateMilestone(closed, NOW))
+                .flatMap(p -> p.closeMilestone(closed, NOW))
+                .orElseThrow();
+        var drafts = List.of(draft("A"), draft("B"));
+
+        var intoClosed = project.createTickets(closed, drafts, manager, NOW);
+        assertTrue(intoClosed.errorOrNull() instanceof DomainError.InvariantViolation v
+                && v.invariant().equals("ticket.milestoneNotClosed"), String.valueOf(intoClosed.errorOrNull()));
+        assertTrue(project.createTicket(TicketId.newId(), closed, drafts.getFirst().title(), drafts.getFirst().description(), manager, NOW)
+                .isFailure());
+
+        var missing = project.createTickets(MilestoneId.newId(), drafts, manager, NOW);
+        assertTrue(missing.errorOrNull() instanceof DomainError.NotFound, String.valueOf(missing.errorOrNull()));
+
+        var outsider = project.createTickets(open, drafts, UserId.newId(), NOW);
+        assertTrue(outsider.errorOrNull() instanceof DomainError.InvariantViolation, String.valueOf(outsider.errorOrNull()));
+
+        var intoOpen = project.createTickets(open, drafts, manager, NOW).orElseThrow();
+        assertEquals(2, intoOpen.succeeded());
+        assertEquals(ProjectSummary.of(intoOpen.project().milestones(), intoOpen.project().tickets()), intoOpen.project().summary());
+        assertTrue(project.tickets().isEmpty());
+    }
+
+    /**
+     * Пакетный переход тикетов: результат по каждому id в порядке входа, повтор id видит результат
+     * предыдущего элемента, неуспешные тикеты не меняются; итог совпадает с поэлементными вызовами.
+     */
+    @Test
+    void ticketBatchReportsPerItemResultsAndAppliesRepeatsInOrder() {
+        var manager = UserId.newId();
+        var dev = UserId.newId();
+        var tester = UserId.newId();
+        var milestone = MilestoneId.newId();
+        var t1 = draft("T1");
+        var t2 = draft("T2");
+        var t3 = draft("T3");
+        var project = Project.create(ProjectId.newId(), "BATCH", "Проект", "", manager, NOW)
+                .flatMap(p -> p.addDeveloper(dev, NOW))
+                .flatMap(p -> p.addTester(tester, NOW))
+                .flatMap(p -> p.createMilestone(milestone, "M1", RANGE, NOW))
+                .flatMap(p -> p.activateMilestone(milestone, NOW))
+                .flatMap(p -> p.createTickets(milestone, List.of(t1, t2, t3), manager, NOW).map(BatchOutcome::project))
+                .orElseThrow();
+
+        var assign = project.assignDeveloperToTickets(List.of(t1.id(), t2.id(), t1.id()), dev, NOW);
+        assertEquals(3, assign.succeeded());
+        var wrongRole = assign.project().assignDeveloperToTickets(List.of(t3.id()), tester, NOW);
+        assertTrue(wrongRole.results().getFirst().errorOrNull() instanceof DomainError.InvariantViolation);
+        assertSame(assign.project(), wrongRole.project(), "пакет без успешных элементов не строит новый агрегат");
+
+        var assigned = assign.project();
+        var missing = TicketId.newId();
+        var accept = assigned.applyTicketActions(List.of(t1.id(), t1.id(), t3.id(), missing, t2.id()), new TicketAction.Accept(dev), NOW);
+        var results = accept.results();
+        assertEquals(5, results.size());
+        assertEquals(TicketStatus.ACCEPTED, results.get(0).orElseThrow().status());
+        assertTrue(results.get(1).errorOrNull() instanceof DomainError.InvalidTransition, "повтор id видит уже принятый тикет");
+        assertTrue(results.get(2).errorOrNull() instanceof DomainError.InvariantViolation, "не назначенный тикет");
+        assertTrue(results.get(3).errorOrNull() instanceof DomainError.NotFound);
+        assertEquals(TicketStatus.ACCEPTED, results.get(4).orElseThrow().status());
+        assertEquals(2, accept.succeeded());
+
+        var batched = accept.project();
+        assertSame(assigned.tickets().get(t3.id()), batched.tickets().get(t3.id()));
+        var sequential = assigned.applyTicketAction(t1.id(), new TicketAction.Accept(dev), NOW)
+                .flatMap(p -> p.applyTicketAction(t2.id(), new TicketAction.Accept(dev), NOW))
+                .orElseThrow();
+        assertEquals(sequential.tickets(), batched.tickets());
+        assertEquals(ProjectSummary.of(batched.milestones(), batched.tickets()), batched.summary());
+        assertEquals(assigned.version(), batched.version());
+    }
+
+    /**
+     * Пакетные переходы багов с тем же контрактом; вынос из агрегата — только CLOSED баги, и только целиком.
+     */
+    @Test
+    void bugBatchReportsPerItemResultsAndArchivesOnlyClosed() {
+        var manager = UserId.newId();
+        var dev = UserId.newId();
+        var tester = UserId.newId();
+        var b1 = BugReportId.newId();
+        var b2 = BugReportId.newId();
+        var project = Project.create(ProjectId.newId(), "BUGS", "Проект", "", manager, NOW)
+                .flatMap(p -> p.addDeveloper(dev, NOW))
+                .flatMap(p -> p.addTester(tester, NOW))
+                .flatMap(p -> p.createBugReport(b1, Title.of("B1").orElseThrow(), Description.of("").orElseThrow(), tester, NOW))
+                .flatMap(p -> p.createBugReport(b2, Title.of("B2").orElseThrow(), Description.of("").orElseThrow(), tester, NOW))
+                .orElseThrow();
+
+        var assign = project.assignBugsToDeveloper(List.of(b1, BugReportId.newId()), dev, NOW);
+        assertEquals(dev, assign.results().get(0).orElseThrow().assignedTo());
+        assertTrue(assign.results().get(1).errorOrNull() instanceof DomainError.NotFound);
+
+        var fixed = assign.project().applyBugReportActions(List.of(b1, b2, b1), new BugReportAction.Fix(dev), NOW);
+        assertEquals(BugStatus.FIXED, fixed.results().get(0).orElseThrow().status());
+        assertEquals(BugStatus.FIXED, fixed.results().get(1).orElseThrow().status());
+        assertTrue(fixed.results().get(2).isFailure(), "повторный Fix видит уже исправленный баг");
+        assertEquals(2, fixed.succeeded());
+
+        var byDev = fixed.project().applyBugReportActions(List.of(b1, b2), new BugReportAction.Test(dev), NOW);
+        assertEquals(0, byDev.succeeded());
+        assertSame(fixed.project(), byDev.project());
+
+        var tested = fixed.project().applyBugReportActions(List.of(b1), new BugReportAction.Test(tester), NOW).project();
+        var closed = tested.applyBugReportActions(List.of(b1, b2), new BugReportAction.Close(tester), NOW);
+        assertEquals(BugStatus.CLOSED, closed.results().get(0).orElseThrow().status());
+        assertTrue(closed.results().get(1).isFailure(), "FIXED, но не TESTED");
+        assertNotSame(tested, closed.project());
+
+        var withClosed = closed.project();
+        assertTrue(withClosed.archiveBugReports(List.of(b1, b2)).errorOrNull() instanceof DomainError.InvariantViolation);
+        assertTrue(withClosed.archiveBugReports(List.of(BugReportId.newId())).errorOrNull() instanceof DomainError.NotFound);
+        var archived = withClosed.archiveBugReports(List.of(b1)).orElseThrow();
+        assertEquals(List.of(b2), List.copyOf(archived.bugReports().keySet()));
+        assertSame(withClosed, withClosed.archiveBugReports(List.of()).orElseThrow());
+    }
+}
@@ -0,0 +1,177 @@
+package org.lab.domain.collect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentMapTest {
+
+    /**
+     * Ключ с заданным hashCode: одинаковый hash даёт CollisionNode, общий префикс — глубокие BitmapNode.
+     */
+    private record Key(int hash, String name) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void collidingKeysAreKeptApart() {
+        var a = new Key(42, "a");
+        var b = new Key(42, "b");
+        var c = new Key(42, "c");
+        PersistentMap<Key, String> m = PersistentMap.<Key, String>empty().plus(a, "1").plus(b, "2").plus(c, "3");
+
+        assertEquals(3, m.size());
+        assertEquals("1", m.get(a));
+        assertEquals("2", m.get(b));
+        assertEquals("3", m.get(c));
+        assertNull(m.get(new Key(42, "d")));
+
+        var replaced = m.plus(b, "22");
+        assertEquals(3, replaced.size());
+        assertEquals("22", replaced.get(b));
+        assertEquals("2", m.get(b), "старая версия не меняется");
+
+        var removed = replaced.minus(a);
+        assertEquals(2, removed.size());
+        assertFalse(removed.containsKey(a));
+        assertEquals(Map.of(b, "22", c, "3"), removed);
+    }
+
+    @Test
+    void collisionNodeSplitsWhenKeyWithOtherHashArrives() {
+        // после spread() у обоих hash одинаковые младшие 5 бит: новый ключ уходит в тот же слот корня
+        var a = new Key(1, "a");
+        var b = new Key(1, "b");
+        var other = new Key(1 | (1 << 5), "other");
+        var m = PersistentMap.<Key, Integer>empty().plus(a, 1).plus(b, 2).plus(other, 3);
+
+        assertEquals(Map.of(a, 1, b, 2, other, 3), m);
+        var back = m.minus(other).minus(b);
+        assertEquals(Map.of(a, 1), back);
+        assertEquals(Map.of(a, 1, other, 3), back.plus(other, 3));
+    }
+
+    @Test
+    void minusCollapsesToEmptyAndSameInstanceWhenAbsent() {
+        var keys = new ArrayList<Key>();
+        for (int i = 0; i < 200; i++) {
+            // 4 ключа на hash: и коллизии, и общие префиксы
+            keys.add(new Key((i / 4) * 1024, "k" + i));
+        }
+        PersistentMap<Key, Integer> m = PersistentMap.empty();
+        for (int i = 0; i < keys.size(); i++) {
+            m = m.plus(keys.get(i), i);
+        }
+        assertEquals(keys.size(), m.size());
+        assertSame(m, m.minus(new Key(7, "absent")));
+
+        for (int i = 0; i < keys.size(); i++) {
+            m = m.minus(keys.get(i));
+            assertEquals(keys.size() - i - 1, m.size());
+            if (i + 1 < keys.size()) {
+                assertEquals(i + 1, m.get(keys.get(i + 1)));
+            }
+        }
+        assertTrue(m.isEmpty());
+        assertFalse(m.entrySet().iterator().hasNext());
+
+        var diff = new Diff();
+        PersistentMap.diff(PersistentMap.empty(), m, diff::put, diff::remove);
+        assertTrue(diff.puts.isEmpty() && diff.removes.isEmpty(), "после полного удаления карта равна пустой");
+    }
+
+    @Test
+    void plusOfSameValueReturnsSameInstance() {
+        var v = new Object();
+        var m = PersistentMap.<String, Object>empty().plus("x", v);
+        assertSame(m, m.plus("x", v));
+        assertSame(m, PersistentMap.from(m));
+    }
+
+    @Test
+    void matchesHashMapModelAndDiffReportsExactChanges() {
+        var rnd = new Random(20260101L);
+        var keys = new ArrayList<Key>();
+        for (int i = 0; i < 300; i++) {
+            // малый набор hash-значений: много коллизий и узлов разной глубины
+            keys.add(new Key(rnd.nextInt(64) << rnd.nextInt(27), "k" + i));
+        }
+        PersistentMap<Key, Object> map = PersistentMap.empty();
+        var model = new HashMap<Key, Object>();
+
+        for (int step = 0; step < 20_000; step++) {
+            var before = map;
+            var beforeModel = new HashMap<>(model);
+
+            int ops = 1 + rnd.nextInt(8);
+            for (int i = 0; i < ops; i++) {
+                var k = keys.get(rnd.nextInt(keys.size()));
+                if (rnd.nextInt(3) == 0) {
+                    map = map.minus(k);
+                    model.remove(k);
+                } else {
+                    var v = new Object();
+                    map = map.plus(k, v);
+                    model.put(k, v);
+                }
+            }
+
+            assertEquals(model.size(), map.size());
+            assertEquals(model, map);
+            int iterated = 0;
+            for (var e : map.entrySet()) {
+                assertSame(model.get(e.getKey()), e.getValue());
+                iterated++;
+            }
+            assertEquals(model.size(), iterated);
+
+            var diff = new Diff();
+            PersistentMap.diff(before, map, diff::put, diff::remove);
+            assertEquals(expectedPuts(beforeModel, model), diff.puts);
+            assertEquals(expectedRemoves(beforeModel, model), diff.removes);
+        }
+    }
+
+    private static Map<Key, Object> expectedPuts(Map<Key, Object> before, Map<Key, Object> after) {
+        var out = new HashMap<Key, Object>();
+        after.forEach((k, v) -> {
+            if (before.get(k) != v) {
+                out.put(k, v);
+            }
+        });
+        return out;
+    }
+
+    private static Set<Key> expectedRemoves(Map<Key, Object> before, Map<Key, Object> after) {
+        var out = new HashSet<>(before.keySet());
+        out.removeAll(after.keySet());
+        return out;
+    }
+
+    private static final class Diff {
+        final Map<Key, Object> puts = new HashMap<>();
+        final Set<Key> removes = new HashSet<>();
+
+        void put(Key k, Object v) {
+            assertNull(puts.put(k, v), "ключ сообщён дважды: " + k);
+        }
+
+        void remove(Key k) {
+            assertTrue(removes.add(k), "ключ удалён дважды: " + k);
+        }
+    }
+}
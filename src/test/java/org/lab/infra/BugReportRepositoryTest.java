@@ -0,0 +1,134 @@
+package org.lab.infra;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Description;
+import org.lab.domain.DomainResult;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BugReportRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+
+    private static BugReport bug(BugReportId id, ProjectId project, BugStatus status, UserId assignee) {
+        return new BugReport(id, project, new Title("bug"), new Description(""), status,
+                UserId.newId(), assignee, null, null, NOW, NOW);
+    }
+
+    private static BugReport with(BugReport b, BugStatus status, UserId assignee) {
+        return bug(b.id(), b.projectId(), status, assignee);
+    }
+
+    private static List<BugReportId> ids(List<BugReport> bugs) {
+        return bugs.stream().map(BugReport::id).toList();
+    }
+
+    @Test
+    void indexesFollowInsertUpdateAndDelete() {
+        var repo = new BugReportRepository();
+        var p1 = ProjectId.newId();
+        var p2 = ProjectId.newId();
+        var dev = UserId.newId();
+        var b1 = bug(BugReportId.newId(), p1, BugStatus.NEW, dev);
+        var b2 = bug(BugReportId.newId(), p1, BugStatus.NEW, null);
+        var b3 = bug(BugReportId.newId(), p2, BugStatus.NEW, dev);
+        repo.insert(b1);
+        repo.insert(b2);
+        repo.insert(b3);
+
+        var sorted = ids(List.of(b1, b2, b3)).stream().sorted(Comparator.naturalOrder()).toList();
+        assertEquals(sorted, ids(repo.findByStatus(BugStatus.NEW)));
+        assertEquals(ids(List.of(b1, b3)).stream().sorted().toList(), ids(repo.findToFix(dev)));
+
+        repo.update(b1.id(), b -> DomainResult.ok(with(b, BugStatus.FIXED, dev)));
+        repo.upsert(with(b2, BugStatus.NEW, dev));
+        repo.delete(b3.id());
+
+        assertEquals(List.of(b1.id()), ids(repo.findByStatus(BugStatus.FIXED)));
+        assertEquals(List.of(b2.id()), ids(repo.findByStatus(BugStatus.NEW)));
+        assertEquals(List.of(b2.id()), ids(repo.findToFix(dev)));
+        assertEquals(ids(List.of(b1, b2)).stream().sorted().toList(), ids(repo.findByAssignedTo(dev)));
+        assertEquals(ids(List.of(b1, b2)).stream().sorted().toList(), ids(repo.findByProject(p1)));
+        assertEquals(List.of(), repo.findByProject(p2));
+    }
+
+    /**
+     * Баг, сменивший статус между чтением индекса и byId.get, не должен вернуться под прежним статусом:
+     * findByStatus(NEW) никогда не отдаёт FIXED.
+     */
+    @Test
+    void concurrentTransitionsNeverReturnBugUnderStaleStatusOrAssignee() {
+        var repo = new BugReportRepository();
+        var project = ProjectId.newId();
+        var dev = UserId.newId();
+        var other = UserId.newId();
+        var bugs = new ArrayList<BugReport>();
+        for (int i = 0; i < 64; i++) {
+            var b = bug(BugReportId.newId(), project, BugStatus.NEW, dev);
+            bugs.add(b);
+            repo.insert(b);
+        }
+
+        var stop = new AtomicBoolean();
+        var failure = new AtomicReference<String>();
+        var writer = Thread.ofPlatform().start(() -> {
+            for (int round = 0; round < 2_000; round++) {
+                boolean back = round % 2 == 1;
+                for (var b : bugs) {
+                    repo.update(b.id(), cur -> DomainResult.ok(back
+                            ? with(cur, BugStatus.NEW, dev)
+                            : with(cur, BugStatus.FIXED, other)));
+                }
+            }
+            stop.set(true);
+        });
+        var readers = new ArrayList<Thread>();
+        readers.add(Thread.ofPlatform().start(() -> {
+            while (!stop.get() && failure.get() == null) {
+                for (var b : repo.findByStatus(BugStatus.NEW)) {
+                    if (b.status() != BugStatus.NEW) {
+                        failure.compareAndSet(null, "findByStatus(NEW) returned " + b.status());
+                    }
+                }
+            }
+        }));
+        readers.add(Thread.ofPlatform().start(() -> {
+            while (!stop.get() && failure.get() == null) {
+                for (var b : repo.findToFix(dev)) {
+                    if (b.status() != BugStatus.NEW || !dev.equals(b.assignedTo())) {
+                        failure.compareAndSet(null, "findToFix returned " + b.status() + "/" + b.assignedTo());
+                    }
+                }
+            }
+        }));
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            writer.join();
+            for (var t : readers) {
+                t.join();
+            }
+        });
+
+        assertNull(failure.get());
+        assertEquals(bugs.size(), repo.findByStatus(BugStatus.NEW).size());
+        assertEquals(bugs.size(), repo.findToFix(dev).size());
+        assertTrue(repo.findByStatus(BugStatus.FIXED).isEmpty());
+        assertTrue(repo.findByAssignedTo(other).isEmpty());
+    }
+}
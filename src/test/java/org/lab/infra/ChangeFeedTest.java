@@ -0,0 +1,234 @@
+package org.lab.infra;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.UserId;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTest {
+
+    private static final Duration LIMIT = Duration.ofSeconds(10);
+
+    private static ProjectChange created(String key) {
+        var p = Project.create(ProjectId.newId(), key, key, "", UserId.newId(), Instant.parse("2026-01-01T00:00:00Z")).orElseThrow();
+        return ProjectChange.between(null, p);
+    }
+
+    private static boolean isBad(ProjectChange c) {
+        return c.header().key().value().startsWith("BAD");
+    }
+
+    @Test
+    void handlerFailureIsResyncedCountedAndExposedWithoutStoppingTheFeed() {
+        var feed = new ChangeFeed();
+        var seen = new CopyOnWriteArrayList<ProjectChange>();
+        var resynced = new CopyOnWriteArrayList<ProjectChange>();
+        var boom = new IllegalStateException("boom");
+        var sub = feed.subscribe("test", c -> {
+            seen.add(c);
+            if (isBad(c)) {
+                throw boom;
+            }
+        }, resynced::add);
+
+        var ok = created("OK-1");
+        var bad = created("BAD-1");
+        var after = created("OK-2");
+        feed.publish(ok);
+        sub.awaitCaughtUp();
+        assertNull(sub.lag().lastFailure());
+
+        feed.publish(bad);
+        feed.publish(after);
+        sub.awaitCaughtUp();
+
+        assertEquals(List.of(ok, bad, after), seen);
+        assertEquals(List.of(bad), resynced);
+        var lag = sub.lag();
+        assertEquals(3, lag.applied());
+        assertEquals(0, lag.pending());
+        assertEquals(1, lag.failures());
+        assertEquals(2, lag.lastFailure().seq());
+        assertEquals(bad.projectId(), lag.lastFailure().projectId());
+        assertSame(boom, lag.lastFailure().error());
+        assertNull(lag.stoppedBy());
+    }
+
+    @Test
+    void failedResyncStopsSubscriberAndWaitersSeeIt() {
+        var feed = new ChangeFeed();
+        var resyncError = new IllegalStateException("resync failed");
+        var sub = feed.subscribe("test", c -> {
+            if (isBad(c)) {
+                throw new IllegalArgumentException("handler failed");
+            }
+        }, c -> {
+            throw resyncError;
+        });
+
+        feed.publish(created("OK-1"));
+        feed.publish(created("BAD-1"));
+        feed.publish(created("OK-2"));
+
+        var e = assertTimeoutPreemptively(LIMIT, () -> assertThrows(IllegalStateException.class, sub::awaitCaughtUp));
+        assertSame(resyncError, e.getCause());
+        var lag = sub.lag();
+        assertEquals(1, lag.applied(), "упавшее изменение не считается применённым");
+        assertSame(resyncError, lag.stoppedBy());
+    }
+
+    @Test
+    void errorInHandlerStopsSubscriberInsteadOfHangingQueries() {
+        var feed = new ChangeFeed();
+        var fatal = new AssertionError("fatal");
+        var sub = feed.subscribe("test", c -> {
+            if (isBad(c)) {
+                throw fatal;
+            }
+        }, c -> { });
+
+        feed.publish(created("BAD-1"));
+
+        var e = assertTimeoutPreemptively(LIMIT, () -> assertThrows(IllegalStateException.class, sub::awaitCaughtUp));
+        assertSame(fatal, e.getCause());
+        assertEquals(0, sub.lag().applied());
+        assertSame(fatal, sub.lag().stoppedBy());
+    }
+
+    /**
+     * Полная очередь подписчика задерживает публикацию (backpressure), а не растёт без предела;
+     * когда подписчик её разбирает, все изменения применяются, и у каждого проекта — в порядке публикации.
+     */
+    @Test
+    void fullQueueBlocksPublisherUntilSubscriberDrains() throws Exception {
+        int capacity = 4;
+        var feed = new ChangeFeed(capacity);
+        var gate = new CountDownLatch(1);
+        var seen = new CopyOnWriteArrayList<ProjectChange>();
+        var sub = feed.subscribe("slow", c -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add(c);
+        }, c -> { });
+
+        var changes = new ArrayList<ProjectChange>();
+        for (int i = 0; i < 3 * capacity; i++) {
+            changes.add(created("P-" + i));
+        }
+        var done = new CountDownLatch(1);
+        var publisher = Thread.ofPlatform().start(() -> {
+            changes.forEach(feed::publish);
+            done.countDown();
+        });
+
+        // подписчик держит первое изменение, ещё capacity ждут в очереди: дальше публикация стоит
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS), "публикация не должна обгонять подписчика больше чем на capacity");
+        assertTrue(sub.lag().stalls() > 0);
+        assertTrue(feed.published() <= capacity + 2, "published=" + feed.published());
+
+        gate.countDown();
+        assertTimeoutPreemptively(LIMIT, () -> {
+            done.await();
+            publisher.join();
+            sub.awaitCaughtUp();
+        });
+        assertEquals(changes, seen);
+        assertEquals(0, sub.lag().pending());
+    }
+
+    @Test
+    void stoppedSubscriberDoesNotBlockPublishers() {
+        var feed = new ChangeFeed(2);
+        var sub = feed.subscribe("dead", c -> {
+            throw new AssertionError("fatal");
+        }, c -> { });
+
+        assertTimeoutPreemptively(LIMIT, () -> {
+            for (int i = 0; i < 20; i++) {
+                feed.publish(created("P-" + i));
+            }
+        });
+        assertEquals(20, feed.published());
+        assertThrows(IllegalStateException.class, sub::awaitCaughtUp);
+    }
+
+    /**
+     * Публикации без общего замка идут параллельно с подпиской: подписчик применяет ровно изменения,
+     * опубликованные после неё, awaitCaughtUp не зависает, а изменения одного проекта идут в порядке публикации.
+     */
+    @Test
+    void concurrentPublishersAndLateSubscriberStayConsistent() throws Exception {
+        var feed = new ChangeFeed(64);
+        int publishers = 4;
+        int perPublisher = 2_000;
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        var byProject = new HashMap<ProjectId, List<ProjectChange>>();
+        for (int t = 0; t < publishers; t++) {
+            var p = Project.create(ProjectId.newId(), "PUB-" + t, "PUB-" + t, "", UserId.newId(),
+                    Instant.parse("2026-01-01T00:00:00Z")).orElseThrow();
+            var mine = new ArrayList<ProjectChange>();
+            for (int i = 0; i < perPublisher; i++) {
+                mine.add(ProjectChange.between(null, p.withVersion(i)));
+            }
+            byProject.put(p.id(), mine);
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                mine.forEach(feed::publish);
+            }));
+        }
+
+        var seen = new ConcurrentHashMap<ProjectId, List<ProjectChange>>();
+        var earlySub = feed.subscribe("early", c -> seen.computeIfAbsent(c.projectId(), k -> new ArrayList<>()).add(c), c -> { });
+        start.countDown();
+        Thread.sleep(1);
+        var late = new AtomicLong();
+        long before = feed.published();
+        var lateSub = feed.subscribe("late", c -> late.incrementAndGet(), c -> { });
+        long after = feed.published();
+
+        for (var t : threads) {
+            t.join();
+        }
+        assertTimeoutPreemptively(LIMIT, () -> {
+            earlySub.awaitCaughtUp();
+            lateSub.awaitCaughtUp();
+        });
+        long total = (long) publishers * perPublisher;
+        assertEquals(total, feed.published());
+        assertEquals(byProject, seen, "каждое изменение ровно один раз, у проекта — в порядке публикации");
+        assertEquals(total, earlySub.lag().applied());
+        assertEquals(total, lateSub.lag().applied());
+        long lateFrom = total - late.get();
+        assertTrue(lateFrom >= before && lateFrom <= after,
+                "поздний подписчик получает только изменения после подписки: from=" + lateFrom);
+        assertEquals(0, lateSub.lag().pending());
+    }
+}
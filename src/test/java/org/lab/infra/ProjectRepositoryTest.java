@@ -0,0 +1,563 @@
+package org.lab.infra;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.DomainError;
+import org.lab.domain.DomainResult;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+
+    /**
+     * Много потоков обновляют два проекта одного и разных stripe'ов: каждое успешное обновление даёт ровно одну версию,
+     * и ни одна заявка не теряется и не применяется дважды (combiner берёт не больше MAX_COMBINED за проход).
+     */
+    @Test
+    void combiningAppliesEveryUpdateExactlyOnce() throws Exception {
+        var repo = new ProjectRepository(ProjectRepository.UpdateMode.COMBINING);
+        var a = insert(repo, "A");
+        var b = insert(repo, "B");
+        int threads = 8;
+        int perThread = 1_500;
+        var applied = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; t++) {
+                var target = t % 2 == 0 ? a : b;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        var r = repo.update(target, p -> {
+                            applied.incrementAndGet();
+                            return p.addDeveloper(UserId.newId(), NOW);
+                        });
+                        assertTrue(r.isSuccess());
+                    }
+                }));
+            }
+            for (var f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int perProject = threads / 2 * perThread;
+        assertEquals(threads * perThread, applied.get(), "каждый updater вызван ровно один раз");
+        for (var id : new ProjectId[]{a, b}) {
+            var p = repo.findById(id).orElseThrow();
+            assertEquals(perProject, p.version());
+            assertEquals(perProject + 1, p.members().size());
+        }
+    }
+
+    @Test
+    void forEachStreamsSourceProjectsWithoutLoadingThemIntoMemory() {
+        var stored = new HashMap<ProjectId, Project>();
+        for (var key : List.of("S1", "S2", "S3")) {
+            var p = Project.create(ProjectId.newId(), key, key, "", UserId.newId(), NOW).orElseThrow();
+            stored.put(p.id(), p);
+        }
+        var loads = new AtomicInteger();
+        var source = new ProjectSource() {
+            @Override
+            public List<Stub> stubs() {
+                return stored.values().stream().map(p -> new Stub(p.id(), p.key(), p.members().keySet())).toList();
+            }
+
+            @Override
+            public boolean contains(ProjectId id) {
+                return stored.containsKey(id);
+            }
+
+            @Override
+            public Project load(ProjectId id) {
+                loads.incrementAndGet();
+                return stored.get(id);
+            }
+        };
+        var repo = new ProjectRepository();
+        repo.attachSource(source);
+        var touched = stored.keySet().iterator().next();
+        var updated = repo.update(touched, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+        var created = insert(repo, "NEW");
+        assertEquals(1, loads.get());
+
+        var seen = new HashMap<ProjectId, Project>();
+        repo.forEach(p -> assertNull(seen.put(p.id(), p), "проект отдан дважды: " + p.id()));
+
+        assertEquals(4, seen.size());
+        assertSame(updated, seen.get(touched), "загруженный проект отдаётся в текущей версии");
+        assertTrue(seen.containsKey(created));
+        assertEquals(3, loads.get(), "незагруженные читаются из source по одному");
+
+        repo.forEach(p -> { });
+        assertEquals(5, loads.get(), "и не остаются в памяти репозитория");
+    }
+
+    /**
+     * Чтение проекта из source идёт вне замков map: пока один проект декодируется, другие доступны,
+     * а параллельные первые обращения к нему ждут одну загрузку.
+     */
+    @Test
+    void slowFirstLoadDoesNotBlockOtherProjectsAndDecodesOnce() throws Exception {
+        var slow = Project.create(ProjectId.newId(), "SLOW", "SLOW", "", UserId.newId(), NOW).orElseThrow();
+        var fast = Project.create(ProjectId.newId(), "FAST", "FAST", "", UserId.newId(), NOW).orElseThrow();
+        var stored = Map.of(slow.id(), slow, fast.id(), fast);
+        var loads = new ConcurrentHashMap<ProjectId, AtomicInteger>();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var source = new ProjectSource() {
+            @Override
+            public List<Stub> stubs() {
+                return stored.values().stream().map(p -> new Stub(p.id(), p.key(), p.members().keySet())).toList();
+            }
+
+            @Override
+            public boolean contains(ProjectId id) {
+                return stored.containsKey(id);
+            }
+
+            @Override
+            public Project load(ProjectId id) {
+                loads.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+                if (id.equals(slow.id())) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return stored.get(id);
+            }
+        };
+        var repo = new ProjectRepository();
+        repo.attachSource(source);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            var first = pool.submit(() -> repo.findById(slow.id()).orElseThrow());
+            started.await();
+            var second = pool.submit(() -> repo.findById(slow.id()).orElseThrow());
+
+            assertSame(fast, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> repo.findById(fast.id()).orElseThrow()));
+            assertSame(fast, repo.update(fast.id(), p -> DomainResult.ok(p)).orElseThrow());
+
+            release.countDown();
+            assertSame(slow, first.get());
+            assertSame(slow, second.get());
+            assertEquals(1, loads.get(slow.id()).get(), "параллельные первые обращения декодируют проект один раз");
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Проект не читается из store во время прохода combiner'а: заявки, забранные из очереди, не остаются
+     * ждать вечно — каждая получает исключение загрузки, а следующая загрузка снова идёт в store.
+     */
+    @Test
+    void storeFailureDuringCombinedPassFailsEveryTakenRequest() throws Exception {
+        var p = Project.create(ProjectId.newId(), "BROKEN", "BROKEN", "", UserId.newId(), NOW).orElseThrow();
+        int threads = 6;
+        var arrived = new CountDownLatch(threads);
+        var broken = new AtomicBoolean(true);
+        var store = new ProjectStore() {
+            @Override
+            public List<Stub> stubs() {
+                return List.of(new Stub(p.id(), p.key(), p.members().keySet()));
+            }
+
+            @Override
+            public boolean contains(ProjectId id) {
+                return id.equals(p.id());
+            }
+
+            @Override
+            public Project load(ProjectId id) {
+                if (!broken.get()) {
+                    return p;
+                }
+                try {
+                    // остальные заявки успевают встать в очередь к этому проходу
+                    arrived.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new UncheckedIOException(new IOException("disk gone"));
+            }
+
+            @Override
+            public void save(Project project) {
+            }
+        };
+        var repo = new ProjectRepository(ProjectRepository.UpdateMode.COMBINING);
+        repo.attachStore(store, 16);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            var futures = new ArrayList<Future<Throwable>>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    arrived.countDown();
+                    try {
+                        repo.update(p.id(), q -> q.addDeveloper(UserId.newId(), NOW));
+                        return null;
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            for (var f : futures) {
+                var failure = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> f.get());
+                assertTrue(failure instanceof UncheckedIOException, "заявка получила ошибку store: " + failure);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        broken.set(false);
+        assertEquals(1, repo.update(p.id(), q -> q.addDeveloper(UserId.newId(), NOW)).orElseThrow().version());
+    }
+
+    /**
+     * С подписчиком ленты OPTIMISTIC-режим остаётся оптимистичным: updater, застрявший без замка, не задерживает
+     * чужую запись того же проекта, а затем проигрывает и повторяется. Лента получает версии проекта по порядку.
+     */
+    @Test
+    void optimisticModeWithFeedRunsUpdatersOutsideTheLockAndKeepsVersionOrder() throws Exception {
+        var repo = new ProjectRepository(ProjectRepository.UpdateMode.OPTIMISTIC);
+        var versions = new CopyOnWriteArrayList<Long>();
+        var sub = repo.changes().subscribe("versions", c -> versions.add(c.header().version()), c -> { });
+        var id = insert(repo, "OPT");
+
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            var slow = pool.submit(() -> repo.update(id, p -> {
+                if (calls.incrementAndGet() == 1) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return p.addDeveloper(UserId.newId(), NOW);
+            }));
+            entered.await();
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> repo.update(id, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow());
+            release.countDown();
+            assertEquals(2, slow.get().orElseThrow().version());
+            assertEquals(2, calls.get(), "проигравший CAS updater повторён над новой версией");
+
+            var futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        repo.update(id, p -> p.addDeveloper(UserId.newId(), NOW));
+                    }
+                }));
+            }
+            for (var f : futures) {
+                f.get();
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+
+        sub.awaitCaughtUp();
+        long last = repo.findById(id).orElseThrow().version();
+        var expected = new ArrayList<Long>();
+        for (long v = 0; v <= last; v++) {
+            expected.add(v);
+        }
+        assertEquals(expected, versions);
+    }
+
+    /**
+     * Снимок отдаёт проекты в версиях точки openSnapshot: изменённые после неё — прежней версией,
+     * созданные после неё не попадают вовсе. Без журнала и ленты OPTIMISTIC-запись тоже не обходит снимок.
+     */
+    @Test
+    void snapshotKeepsVersionsOfItsPointWhileWritersContinue() {
+        for (var mode : ProjectRepository.UpdateMode.values()) {
+            var repo = new ProjectRepository(mode);
+            var a = insert(repo, "A");
+            var b = insert(repo, "B");
+            var atPoint = new AtomicInteger();
+
+            try (var snapshot = repo.openSnapshot(atPoint::incrementAndGet)) {
+                repo.update(a, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+                repo.update(a, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+                var c = insert(repo, "C");
+
+                var seen = new HashMap<ProjectId, Long>();
+                snapshot.forEach(p -> assertNull(seen.put(p.id(), p.version())));
+                assertEquals(Map.of(a, 0L, b, 0L), seen, mode.name());
+                assertEquals(0, snapshot.findById(a).orElseThrow().version());
+                assertTrue(snapshot.findById(c).isEmpty());
+            }
+            assertEquals(1, atPoint.get());
+            assertEquals(2, repo.findById(a).orElseThrow().version());
+        }
+    }
+
+    @Test
+    void insertedKeyIsNotHandedOutAgain() {
+        var repo = new ProjectRepository();
+        insert(repo, "PRJ-000007");
+
+        assertEquals("PRJ-000008", repo.nextProjectKey());
+    }
+
+    /**
+     * Индекс участник -> проекты: проекты пользователя идут в порядке ключа без учёта регистра, включая те,
+     * куда его добавили обновлением. При параллельных добавлениях в разные проекты индекс ничего не теряет,
+     * а читатель не видит проекта, где пользователя (ещё) нет, и не видит нарушенного порядка.
+     */
+    @Test
+    void memberIndexFollowsConcurrentMembershipChanges() throws Exception {
+        var repo = new ProjectRepository();
+        var user = UserId.newId();
+        var b = insert(repo, "b-2");
+        var a = insert(repo, "A-1");
+        insert(repo, "C-3");
+        repo.update(b, p -> p.addDeveloper(user, NOW)).orElseThrow();
+        repo.update(a, p -> p.addTester(user, NOW)).orElseThrow();
+        assertEquals(List.of("A-1", "b-2"), repo.findByMember(user).stream().map(p -> p.key().value()).toList());
+
+        var ids = new ArrayList<ProjectId>();
+        for (int i = 0; i < 64; i++) {
+            ids.add(insert(repo, "M-%02d".formatted(i)));
+        }
+        var stop = new AtomicBoolean();
+        var failure = new AtomicReference<String>();
+        var reader = Thread.ofPlatform().start(() -> {
+            while (!stop.get() && failure.get() == null) {
+                String prev = null;
+                for (var p : repo.findByMember(user)) {
+                    if (!p.members().containsKey(user)) {
+                        failure.compareAndSet(null, "project " + p.key() + " returned without the member");
+                    }
+                    var key = p.key().value();
+                    if (prev != null && String.CASE_INSENSITIVE_ORDER.compare(prev, key) > 0) {
+                        failure.compareAndSet(null, "order broken: " + prev + " before " + key);
+                    }
+                    prev = key;
+                }
+            }
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                int from = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = from; i < ids.size(); i += 8) {
+                        var id = ids.get(i);
+                        repo.update(id, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+                        repo.update(id, p -> p.addDeveloper(user, NOW)).orElseThrow();
+                    }
+                }));
+            }
+            for (var f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+            stop.set(true);
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        var found = repo.findByMember(user);
+        assertEquals(ids.size() + 2, found.size());
+        for (var id : ids) {
+            assertEquals(3, repo.findById(id).orElseThrow().members().size());
+        }
+    }
+
+    /**
+     * LOCKING: updater, застрявший под замком одного проекта, не останавливает записи остальных (замок — на stripe,
+     * а не на репозиторий), а параллельные обновления многих проектов не теряются: версия каждого проекта
+     * равна числу его обновлений.
+     */
+    @Test
+    void lockingUpdatesOfOtherProjectsProceedWhileOneStripeIsHeld() throws Exception {
+        var repo = new ProjectRepository(ProjectRepository.UpdateMode.LOCKING);
+        var held = insert(repo, "HELD");
+        var others = new ArrayList<ProjectId>();
+        for (int i = 0; i < 32; i++) {
+            others.add(insert(repo, "O-%02d".formatted(i)));
+        }
+
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var done = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            var slow = pool.submit(() -> repo.update(held, p -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return p.addDeveloper(UserId.newId(), NOW);
+            }));
+            entered.await();
+            var futures = new ArrayList<Future<?>>();
+            for (var id : others) {
+                futures.add(pool.submit(() -> {
+                    repo.update(id, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+                    done.incrementAndGet();
+                }));
+            }
+            // 32 проекта не могут все попасть в stripe удерживаемого (stripe'ов не меньше 4 на ядро)
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (done.get() == 0) {
+                    Thread.sleep(1);
+                }
+            });
+            assertFalse(slow.isDone(), "updater удерживаемого проекта ещё не завершён");
+            release.countDown();
+            assertEquals(1, slow.get().orElseThrow().version());
+            for (var f : futures) {
+                f.get();
+            }
+
+            futures.clear();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int round = 0; round < 50; round++) {
+                        for (var id : others) {
+                            repo.update(id, p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+                        }
+                    }
+                }));
+            }
+            for (var f : futures) {
+                f.get();
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+
+        for (var id : others) {
+            var p = repo.findById(id).orElseThrow();
+            assertEquals(1 + 8 * 50, p.version());
+            assertEquals(2 + 8 * 50, p.members().size());
+        }
+    }
+
+    /**
+     * OPTIMISTIC под конкуренцией за один проект: каждое обновление либо опубликовано ровно одной версией,
+     * либо получило Conflict после исчерпания повторов. Проигравший CAS не оставляет записи в журнале,
+     * а записи проекта лежат в журнале в порядке версий — и без журнала (чистый CAS), и с ним.
+     */
+    @Test
+    void optimisticContentionPublishesEachWinnerOnceAndJournalsOnlyWinners() throws Exception {
+        for (boolean journaled : new boolean[]{false, true}) {
+            var repo = new ProjectRepository(ProjectRepository.UpdateMode.OPTIMISTIC);
+            var versions = new CopyOnWriteArrayList<Long>();
+            if (journaled) {
+                repo.attachJournal(new RepositoryJournal() {
+                    @Override
+                    public Commit userInserted(User user) {
+                        return Commit.DURABLE;
+                    }
+
+                    @Override
+                    public Commit projectChanged(ProjectChange change) {
+                        versions.add(change.header().version());
+                        return Commit.DURABLE;
+                    }
+                });
+            }
+            var id = insert(repo, "HOT");
+            var successes = new AtomicInteger();
+            var conflicts = new AtomicInteger();
+            int threads = 8;
+            int perThread = 300;
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            var r = repo.update(id, p -> p.addDeveloper(UserId.newId(), NOW));
+                            if (r.isSuccess()) {
+                                successes.incrementAndGet();
+                            } else {
+                                assertTrue(r.errorOrNull() instanceof DomainError.Conflict, String.valueOf(r.errorOrNull()));
+                                conflicts.incrementAndGet();
+                            }
+                        }
+                    }));
+                }
+                for (var f : futures) {
+                    f.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            assertEquals(threads * perThread, successes.get() + conflicts.get());
+            var p = repo.findById(id).orElseThrow();
+            assertEquals(successes.get(), p.version());
+            assertEquals(successes.get() + 1, p.members().size());
+            if (journaled) {
+                var expected = new ArrayList<Long>();
+                for (long v = 0; v <= p.version(); v++) {
+                    expected.add(v);
+                }
+                assertEquals(expected, versions);
+            }
+        }
+    }
+
+    private static ProjectId insert(ProjectRepository repo, String key) {
+        var p = Project.create(repo.nextId(), key, key, "", UserId.newId(), NOW).orElseThrow();
+        repo.insert(p).orElseThrow();
+        return p.id();
+    }
+}
@@ -0,0 +1,112 @@
+package org.lab.infra;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.TicketStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T00:00:00Z");
+    private static final ProjectId PROJECT = ProjectId.newId();
+    private static final MilestoneId MILESTONE = MilestoneId.newId();
+
+    private static Ticket ticket(TicketId id, Set<UserId> assignees) {
+        return new Ticket(id, PROJECT, MILESTONE, new Title("t"), new Description(""), TicketStatus.NEW,
+                assignees, UserId.newId(), NOW, NOW);
+    }
+
+    @Test
+    void assigneeIndexFollowsUpsertsInIdOrder() {
+        var repo = new TicketRepository();
+        var a = UserId.newId();
+        var b = UserId.newId();
+        var ids = new ArrayList<TicketId>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(TicketId.newId());
+        }
+        for (var id : ids.reversed()) {
+            repo.insert(ticket(id, Set.of(a)));
+        }
+        repo.upsert(ticket(ids.get(1), Set.of(b)));
+        repo.upsert(ticket(ids.get(3), Set.of(a, b)));
+
+        var sorted = ids.stream().sorted(Comparator.naturalOrder()).toList();
+        assertEquals(sorted.stream().filter(id -> !id.equals(ids.get(1))).toList(),
+                repo.findByAssignee(a).stream().map(Ticket::id).toList());
+        assertEquals(sorted.stream().filter(id -> id.equals(ids.get(1)) || id.equals(ids.get(3))).toList(),
+                repo.findByAssignee(b).stream().map(Ticket::id).toList());
+        assertEquals(List.of(), repo.findByAssignee(UserId.newId()));
+    }
+
+    /**
+     * Индекс и byId читаются не атомарно: тикет, переназначенный между чтением индекса и byId.get,
+     * не должен вернуться под прежним assignee.
+     */
+    @Test
+    void concurrentReassignmentNeverReturnsTicketUnderStaleAssignee() {
+        var repo = new TicketRepository();
+        var a = UserId.newId();
+        var b = UserId.newId();
+        var ids = new ArrayList<TicketId>();
+        for (int i = 0; i < 64; i++) {
+            var id = TicketId.newId();
+            ids.add(id);
+            repo.insert(ticket(id, Set.of(a)));
+        }
+
+        var stop = new AtomicBoolean();
+        var failure = new AtomicReference<String>();
+        var writer = Thread.ofPlatform().start(() -> {
+            for (int round = 0; round < 2_000; round++) {
+                var owner = round % 2 == 0 ? b : a;
+                for (var id : ids) {
+                    repo.upsert(ticket(id, Set.of(owner)));
+                }
+            }
+            stop.set(true);
+        });
+        var readers = new ArrayList<Thread>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                while (!stop.get() && failure.get() == null) {
+                    for (var t : repo.findByAssignee(a)) {
+                        if (!t.assignees().contains(a)) {
+                            failure.compareAndSet(null, "ticket " + t.id() + " returned under a stale assignee");
+                        }
+                    }
+                }
+            }));
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            writer.join();
+            for (var t : readers) {
+                t.join();
+            }
+        });
+
+        assertNull(failure.get());
+        // последний раунд (нечётный) вернул все тикеты пользователю a
+        assertEquals(ids.size(), repo.findByAssignee(a).size());
+        assertTrue(repo.findByAssignee(b).isEmpty());
+    }
+}
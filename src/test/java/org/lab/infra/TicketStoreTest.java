@@ -0,0 +1,202 @@
+package org.lab.infra;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.offheap.OffHeapTicketStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketStoreTest {
+
+    /** Слотов в одном слабе OffHeapTicketStore. */
+    private static final int SLAB_SLOTS = 1 << 13;
+    private static final Instant NOW = Instant.parse("2026-02-01T09:30:00.123456789Z");
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+    private static final String[] TEXTS = {"", "a", "Тикет", "многобайтный текст: ёжик, 漢字, 🚀", "x".repeat(4000)};
+
+    /**
+     * Один и тот же поток изменений в heap- и off-heap-хранилище: тикетов больше двух слабов (граница 8192 слотов)
+     * и нескольких расширений таблицы id, обновления переписывают статус, текст и assignees. Off-heap хранилище
+     * отдаёт те же тикеты и те же списки по assignee, что и heap.
+     */
+    @Test
+    void offHeapStoreRoundTripsLikeHeapStore() {
+        var rnd = new Random(14);
+        var users = Stream.generate(UserId::newId).limit(24).toList();
+        var heap = new HeapTicketStore();
+        try (var offHeap = new OffHeapTicketStore()) {
+            var ids = new ArrayList<TicketId>();
+            int count = 2 * SLAB_SLOTS + 37;
+            for (int i = 0; i < count; i++) {
+                var t = ticket(rnd, users, TicketId.newId(), i);
+                ids.add(t.id());
+                assertEquals(heap.compute(t.id(), prev -> t), offHeap.compute(t.id(), prev -> t));
+            }
+            long garbageBefore = offHeap.garbageBytes();
+            for (int i = 0; i < count; i++) {
+                var id = ids.get(rnd.nextInt(ids.size()));
+                var current = offHeap.get(id);
+                var next = change(rnd, users, current);
+                assertEquals(heap.compute(id, prev -> next), offHeap.compute(id, prev -> next));
+            }
+
+            assertEquals(heap.size(), offHeap.size());
+            for (var id : ids) {
+                assertEquals(heap.get(id), offHeap.get(id));
+            }
+            for (var u : users) {
+                assertEquals(heap.findByAssignee(u), offHeap.findByAssignee(u));
+            }
+            assertNull(offHeap.get(TicketId.newId()));
+            assertEquals(List.of(), offHeap.findByAssignee(UserId.newId()));
+            assertTrue(offHeap.garbageBytes() > garbageBefore, "заменённый текст учитывается как мусор");
+        }
+    }
+
+    /**
+     * Тот же экземпляр из update не меняет хранилище; у нового значения прежние assignee уходят из индекса.
+     */
+    @Test
+    void unchangedUpdateKeepsTicketAndReassignmentMovesIndex() {
+        var rnd = new Random(1);
+        var a = UserId.newId();
+        var b = UserId.newId();
+        try (var store = new OffHeapTicketStore()) {
+            var t = withAssignees(ticket(rnd, List.of(a), TicketId.newId(), 0), Set.of(a));
+            store.compute(t.id(), prev -> t);
+            var stored = store.get(t.id());
+            long garbage = store.garbageBytes();
+
+            assertEquals(t, store.compute(t.id(), prev -> prev));
+            assertEquals(garbage, store.garbageBytes(), "неизменённый тикет не переписывается");
+
+            var moved = withAssignees(stored, Set.of(b));
+            store.compute(t.id(), prev -> moved);
+            assertEquals(List.of(), store.findByAssignee(a));
+            assertEquals(List.of(moved), store.findByAssignee(b));
+        }
+    }
+
+    /**
+     * compute из нескольких потоков не теряет обновлений (один писатель на id / на хранилище), а параллельный
+     * читатель индекса по assignee видит только тикеты, у которых этот assignee действительно есть.
+     */
+    @Test
+    void concurrentComputesAreSerializedAndReadersSeeConsistentIndex() throws Exception {
+        try (var offHeap = new OffHeapTicketStore()) {
+            for (var store : List.<TicketStore>of(new HeapTicketStore(), offHeap)) {
+                var rnd = new Random(7);
+                var a = UserId.newId();
+                var b = UserId.newId();
+                var ids = new ArrayList<TicketId>();
+                for (int i = 0; i < 8; i++) {
+                    var t = withAssignees(ticket(rnd, List.of(a), TicketId.newId(), i), Set.of(a));
+                    store.compute(t.id(), prev -> t);
+                    ids.add(t.id());
+                }
+                var initial = new ArrayList<Ticket>();
+                ids.forEach(id -> initial.add(store.get(id)));
+
+                int writers = 4;
+                int rounds = 500;
+                var stop = new AtomicBoolean();
+                var failures = new CopyOnWriteArrayList<String>();
+                var reader = Thread.ofPlatform().start(() -> {
+                    while (!stop.get()) {
+                        for (var t : store.findByAssignee(a)) {
+                            if (!t.assignees().contains(a)) {
+                                failures.add("index of " + a + " returned " + t.assignees());
+                            }
+                        }
+                    }
+                });
+                var threads = new ArrayList<Thread>();
+                for (int w = 0; w < writers; w++) {
+                    threads.add(Thread.ofPlatform().start(() -> {
+                        for (int r = 0; r < rounds; r++) {
+                            for (var id : ids) {
+                                store.compute(id, prev -> withUpdate(prev, prev.assignees().contains(a) ? b : a));
+                            }
+                        }
+                    }));
+                }
+                for (var t : threads) {
+                    t.join();
+                }
+                stop.set(true);
+                reader.join();
+
+                assertEquals(List.of(), failures);
+                for (int i = 0; i < ids.size(); i++) {
+                    var t = store.get(ids.get(i));
+                    assertEquals(initial.get(i).updatedAt().plusMillis((long) writers * rounds), t.updatedAt(),
+                            "каждый compute применён ровно один раз");
+                    assertEquals(Set.of(a), t.assignees(), "чётное число переключений");
+                }
+                assertEquals(ids.size(), store.findByAssignee(a).size());
+                assertEquals(List.of(), store.findByAssignee(b));
+            }
+        }
+    }
+
+    private static Ticket withUpdate(Ticket t, UserId assignee) {
+        return new Ticket(t.id(), t.projectId(), t.milestoneId(), t.title(), t.description(),
+                t.status(), Set.of(assignee), t.createdBy(), t.createdAt(), t.updatedAt().plusMillis(1));
+    }
+
+    private static Ticket ticket(Random rnd, List<UserId> users, TicketId id, int i) {
+        return new Ticket(id, ProjectId.newId(), MilestoneId.newId(),
+                new Title("t" + i + TEXTS[rnd.nextInt(TEXTS.length - 1)]),
+                new Description(TEXTS[rnd.nextInt(TEXTS.length)]),
+                STATUSES[rnd.nextInt(STATUSES.length)], assignees(rnd, users), users.get(rnd.nextInt(users.size())),
+                NOW.plusNanos(i), NOW.plusSeconds(i));
+    }
+
+    /**
+     * Меняет одно из полей: статус, заголовок, описание или assignees (в том числе на пустой набор).
+     */
+    private static Ticket change(Random rnd, List<UserId> users, Ticket t) {
+        var updated = t.updatedAt().plusMillis(1);
+        return switch (rnd.nextInt(4)) {
+            case 0 -> new Ticket(t.id(), t.projectId(), t.milestoneId(), t.title(), t.description(),
+                    STATUSES[rnd.nextInt(STATUSES.length)], t.assignees(), t.createdBy(), t.createdAt(), updated);
+            case 1 -> new Ticket(t.id(), t.projectId(), t.milestoneId(), new Title(TEXTS[1 + rnd.nextInt(TEXTS.length - 2)] + updated),
+                    t.description(), t.status(), t.assignees(), t.createdBy(), t.createdAt(), updated);
+            case 2 -> new Ticket(t.id(), t.projectId(), t.milestoneId(), t.title(), new Description(TEXTS[rnd.nextInt(TEXTS.length)]),
+                    t.status(), t.assignees(), t.createdBy(), t.createdAt(), updated);
+            default -> withAssignees(t, assignees(rnd, users));
+        };
+    }
+
+    private static Ticket withAssignees(Ticket t, Set<UserId> assignees) {
+        return new Ticket(t.id(), t.projectId(), t.milestoneId(), t.title(), t.description(),
+                t.status(), assignees, t.createdBy(), t.createdAt(), t.updatedAt());
+    }
+
+    private static Set<UserId> assignees(Random rnd, List<UserId> users) {
+        var out = new HashSet<UserId>();
+        for (int n = rnd.nextInt(4); n > 0; n--) {
+            out.add(users.get(rnd.nextInt(users.size())));
+        }
+        return Set.copyOf(out);
+    }
+}
@@ -0,0 +1,176 @@
+package org.lab.infra.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Ticket;
+import org.lab.domain.TicketId;
+import org.lab.domain.TicketStatusCounts;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+import org.lab.domain.enums.TicketStatus;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.TicketRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AnalyticsStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-04-01T00:00:00Z");
+    private static final TicketStatus[] TICKET_STATUSES = TicketStatus.values();
+    private static final BugStatus[] BUG_STATUSES = BugStatus.values();
+
+    @Test
+    void queriesWaitForRepositoryWarmup() throws Exception {
+        var tickets = new TicketRepository();
+        var bugs = new BugReportRepository();
+        var analytics = new AnalyticsStore();
+        analytics.attach(tickets, bugs);
+
+        var warmup = new CompletableFuture<Void>();
+        tickets.holdQueriesUntil(warmup);
+
+        var query = CompletableFuture.supplyAsync(() -> analytics.ticketStatusCounts(null));
+        // join незавершённого warmup регистрирует ожидающего: запрос дошёл до прогрева и стоит на нём
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (warmup.getNumberOfDependents() == 0) {
+                Thread.onSpinWait();
+            }
+        });
+        assertFalse(query.isDone(), "запрос не должен видеть недогретую проекцию");
+
+        tickets.insert(ticket(ProjectId.newId(), MilestoneId.newId(), TicketStatus.NEW));
+        warmup.complete(null);
+
+        assertEquals(new TicketStatusCounts(1, 0, 0, 0), query.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Векторные счётчики совпадают со скалярным подсчётом тех же тикетов: строк на несколько расширений колонок
+     * и не кратно BLOCK (хвост последнего блока — FREE), по всем проектам, с фильтром проекта и по milestone.
+     */
+    @Test
+    void ticketCountsMatchScalarStream() {
+        var rnd = new Random(15);
+        var projects = Stream.generate(ProjectId::newId).limit(5).toList();
+        var milestones = Stream.generate(MilestoneId::newId).limit(7).toList();
+        var analytics = new AnalyticsStore();
+        var current = new LinkedHashMap<TicketId, Ticket>();
+
+        int rows = Kernels.BLOCK * 40 + 3;
+        for (int i = 0; i < rows; i++) {
+            var t = ticket(projects.get(rnd.nextInt(projects.size())), milestones.get(rnd.nextInt(milestones.size())),
+                    TICKET_STATUSES[rnd.nextInt(TICKET_STATUSES.length)]);
+            current.put(t.id(), t);
+            analytics.ticketChanged(t);
+        }
+        // смена статуса переписывает существующую строку
+        var ids = List.copyOf(current.keySet());
+        for (int i = 0; i < rows / 4; i++) {
+            var t = current.get(ids.get(rnd.nextInt(ids.size())));
+            var moved = withStatus(t, TICKET_STATUSES[rnd.nextInt(TICKET_STATUSES.length)]);
+            current.put(moved.id(), moved);
+            analytics.ticketChanged(moved);
+        }
+
+        var all = current.values();
+        assertEquals(counts(all.stream()), analytics.ticketStatusCounts(null));
+        assertEquals(byMilestone(all.stream()), analytics.ticketStatusByMilestone(null));
+        for (var p : projects) {
+            assertEquals(counts(all.stream().filter(t -> t.projectId().equals(p))), analytics.ticketStatusCounts(p));
+            assertEquals(byMilestone(all.stream().filter(t -> t.projectId().equals(p))), analytics.ticketStatusByMilestone(p));
+        }
+        assertEquals(TicketStatusCounts.ZERO, analytics.ticketStatusCounts(ProjectId.newId()));
+    }
+
+    /**
+     * bugsOpenLongerThan совпадает со скалярным фильтром: удалённые баги оставляют FREE-строки посреди колонок,
+     * новые занимают их повторно; граница возраста строгая (createdAt < now - age).
+     */
+    @Test
+    void bugsOpenLongerThanMatchesScalarStream() {
+        var rnd = new Random(16);
+        var projects = Stream.generate(ProjectId::newId).limit(4).toList();
+        var analytics = new AnalyticsStore();
+        var current = new LinkedHashMap<BugReportId, BugReport>();
+        var age = Duration.ofDays(10);
+
+        int rows = Kernels.BLOCK * 24 + 5;
+        for (int i = 0; i < rows; i++) {
+            add(analytics, current, bug(rnd, projects));
+        }
+        var ids = new ArrayList<>(current.keySet());
+        for (int i = 0; i < rows / 3; i++) {
+            var removed = current.remove(ids.remove(rnd.nextInt(ids.size())));
+            analytics.bugChanged(removed, null);
+        }
+        assertEquals(openLongerThan(current.values().stream(), age), analytics.bugsOpenLongerThan(age, NOW));
+
+        for (int i = 0; i < rows / 6; i++) {
+            add(analytics, current, bug(rnd, projects));
+        }
+        // ровно на границе: не старше now - age
+        var edge = new BugReport(BugReportId.newId(), projects.getFirst(), new Title("edge"), new Description(""),
+                BugStatus.NEW, null, null, null, null, NOW.minus(age), NOW);
+        add(analytics, current, edge);
+
+        assertEquals(openLongerThan(current.values().stream(), age), analytics.bugsOpenLongerThan(age, NOW));
+    }
+
+    private static Ticket ticket(ProjectId project, MilestoneId milestone, TicketStatus status) {
+        return new Ticket(TicketId.newId(), project, milestone, new Title("t"), new Description(""),
+                status, Set.of(), UserId.newId(), NOW, NOW);
+    }
+
+    private static Ticket withStatus(Ticket t, TicketStatus status) {
+        return new Ticket(t.id(), t.projectId(), t.milestoneId(), t.title(), t.description(),
+                status, t.assignees(), t.createdBy(), t.createdAt(), NOW);
+    }
+
+    private static BugReport bug(Random rnd, List<ProjectId> projects) {
+        var created = NOW.minus(Duration.ofHours(rnd.nextInt(20 * 24)));
+        return new BugReport(BugReportId.newId(), projects.get(rnd.nextInt(projects.size())), new Title("b"), new Description(""),
+                BUG_STATUSES[rnd.nextInt(BUG_STATUSES.length)], null, null, null, null, created, NOW);
+    }
+
+    private static void add(AnalyticsStore analytics, Map<BugReportId, BugReport> current, BugReport b) {
+        current.put(b.id(), b);
+        analytics.bugChanged(null, b);
+    }
+
+    private static TicketStatusCounts counts(Stream<Ticket> tickets) {
+        var c = new int[TICKET_STATUSES.length];
+        tickets.forEach(t -> c[t.status().ordinal()]++);
+        return new TicketStatusCounts(c[0], c[1], c[2], c[3]);
+    }
+
+    private static Map<MilestoneId, TicketStatusCounts> byMilestone(Stream<Ticket> tickets) {
+        return tickets.collect(Collectors.groupingBy(Ticket::milestoneId, Collectors.collectingAndThen(
+                Collectors.toList(), list -> counts(list.stream()))));
+    }
+
+    private static Map<ProjectId, Long> openLongerThan(Stream<BugReport> bugs, Duration age) {
+        var threshold = NOW.minus(age);
+        return bugs.filter(b -> b.status() != BugStatus.CLOSED && b.createdAt().isBefore(threshold))
+                .collect(Collectors.groupingBy(BugReport::projectId, Collectors.counting()));
+    }
+}
@@ -0,0 +1,79 @@
+package org.lab.infra.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.domain.BugReport;
+import org.lab.domain.BugReportId;
+import org.lab.domain.Description;
+import org.lab.domain.ProjectId;
+import org.lab.domain.Title;
+import org.lab.domain.UserId;
+import org.lab.domain.enums.BugStatus;
+import org.lab.infra.ColdStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryArchiveTest {
+
+    private static final Instant CLOSED_AT = Instant.parse("2026-03-01T12:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private static List<BugReport> closedBugs(int count) {
+        var project = ProjectId.newId();
+        var author = UserId.newId();
+        var out = new ArrayList<BugReport>(count);
+        for (int i = 0; i < count; i++) {
+            out.add(new BugReport(BugReportId.newId(), project, new Title("bug " + i), new Description(""),
+                    BugStatus.CLOSED, author, author, author, author, CLOSED_AT.minusSeconds(3600), CLOSED_AT.plusSeconds(i)));
+        }
+        return out;
+    }
+
+    @Test
+    void exportSkipsAlreadyArchivedBugsAcrossSegmentsAndReopen() throws IOException {
+        var cold = ColdStore.inMemory();
+        cold.putBugs(closedBugs(5_000));
+
+        try (var archive = HistoryArchive.open(dir)) {
+            assertEquals(new HistoryArchive.ExportResult(0, 5_000), archive.export(List.of(), cold));
+            assertEquals(new HistoryArchive.ExportResult(0, 0), archive.export(List.of(), cold));
+
+            cold.putBugs(closedBugs(37));
+            assertEquals(new HistoryArchive.ExportResult(0, 37), archive.export(List.of(), cold));
+            assertEquals(2, archive.segmentCount());
+        }
+
+        try (var archive = HistoryArchive.open(dir)) {
+            assertEquals(new HistoryArchive.ExportResult(0, 0), archive.export(List.of(), cold));
+            var closed = archive.bugsClosedBetween(CLOSED_AT, CLOSED_AT.plusSeconds(10_000)).value();
+            assertEquals(5_037L, closed.values().stream().mapToLong(Long::longValue).sum());
+        }
+    }
+
+    @Test
+    void sortedIdColumnFindsEveryRowAndNothingElse() throws IOException {
+        var bugs = closedBugs(9_000);
+        var path = dir.resolve("bugs-00000000.seg");
+        SegmentFile.writeBugs(path, bugs);
+
+        try (var segment = ColumnSegment.open(path)) {
+            for (var b : bugs) {
+                assertTrue(segment.containsId(b.id().msb(), b.id().lsb()), b.id().toString());
+            }
+            for (int i = 0; i < 1_000; i++) {
+                var absent = BugReportId.newId();
+                assertFalse(segment.containsId(absent.msb(), absent.lsb()));
+            }
+        }
+    }
+}
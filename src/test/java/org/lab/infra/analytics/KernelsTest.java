@@ -0,0 +1,92 @@
+package org.lab.infra.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KernelsTest {
+
+    private static final int BLOCKS = 9;
+    private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Маска блока из скалярного предиката: бит i — строка from + i.
+     */
+    private static long scalar(int from, IntPredicate row) {
+        return IntStream.range(0, Kernels.BLOCK)
+                .filter(i -> row.test(from + i))
+                .mapToLong(i -> 1L << i)
+                .reduce(0, (a, b) -> a | b);
+    }
+
+    /**
+     * Значения из узкого диапазона, чтобы границы сравнений (lo, hi, value) попадались в каждом блоке.
+     */
+    @Test
+    void heapKernelsMatchScalarMasks() {
+        var rnd = new Random(42);
+        int rows = Kernels.BLOCK * BLOCKS;
+        var bytes = new byte[rows];
+        var ints = new int[rows];
+        var longs = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            bytes[i] = (byte) (rnd.nextInt(6) - 1);
+            ints[i] = rnd.nextInt(4) - 1;
+            longs[i] = rnd.nextInt(5) - 2 + (i % 2 == 0 ? 0 : Long.MIN_VALUE / 2);
+        }
+
+        for (int from = 0; from < rows; from += Kernels.BLOCK) {
+            assertEquals(scalar(from, i -> bytes[i] >= 0 && bytes[i] <= 2), Kernels.between(bytes, from, (byte) 0, (byte) 2));
+            assertEquals(scalar(from, i -> ints[i] == 1), Kernels.eq(ints, from, 1));
+            assertEquals(scalar(from, i -> longs[i] < 0), Kernels.lt(longs, from, 0));
+        }
+        var counts = Kernels.countByStatus(bytes, ints, 1, rows, 4);
+        for (int s = 0; s < 4; s++) {
+            int status = s;
+            assertEquals(IntStream.range(0, rows).filter(i -> ints[i] == 1 && bytes[i] == status).count(), counts[s]);
+        }
+    }
+
+    /**
+     * Перегрузки над MemorySegment (little-endian колонки ColumnSegment) дают те же маски, что и скалярный фильтр.
+     */
+    @Test
+    void segmentKernelsMatchScalarMasks() {
+        var rnd = new Random(7);
+        int rows = Kernels.BLOCK * BLOCKS;
+        var bytes = new byte[rows];
+        var ints = new int[rows];
+        var longs = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            bytes[i] = (byte) (rnd.nextInt(6) - 1);
+            ints[i] = rnd.nextInt(4) - 1;
+            longs[i] = 1_000L + rnd.nextInt(10);
+        }
+        try (var arena = Arena.ofConfined()) {
+            var byteSeg = arena.allocate(rows);
+            var intSeg = arena.allocate((long) rows * Integer.BYTES);
+            var longSeg = arena.allocate((long) rows * Long.BYTES);
+            MemorySegment.copy(bytes, 0, byteSeg, ValueLayout.JAVA_BYTE, 0, rows);
+            for (int i = 0; i < rows; i++) {
+                intSeg.setAtIndex(INT_LE, i, ints[i]);
+                longSeg.setAtIndex(LONG_LE, i, longs[i]);
+            }
+
+            for (int from = 0; from < rows; from += Kernels.BLOCK) {
+                assertEquals(scalar(from, i -> bytes[i] >= 1 && bytes[i] <= 3), Kernels.between(byteSeg, from, (byte) 1, (byte) 3));
+                assertEquals(scalar(from, i -> ints[i] == 0), Kernels.eq(intSeg, (long) from * Integer.BYTES, 0));
+                assertEquals(scalar(from, i -> longs[i] >= 1_003L && longs[i] < 1_007L),
+                        Kernels.inRange(longSeg, (long) from * Long.BYTES, 1_003L, 1_007L));
+            }
+        }
+    }
+}
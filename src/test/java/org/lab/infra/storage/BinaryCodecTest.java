@@ -0,0 +1,102 @@
+package org.lab.infra.storage;
+
+import org.junit.jupiter.api.Test;
+import org.lab.domain.BugReportId;
+import org.lab.domain.DateRange;
+import org.lab.domain.Description;
+import org.lab.domain.MilestoneId;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.TicketId;
+import org.lab.domain.Title;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.infra.ProjectChange;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BinaryCodecTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-15T10:00:00.123456789Z");
+
+    /**
+     * Проект со всеми видами вложенных элементов: участники всех ролей, milestone, тикет и баг.
+     */
+    static Project sampleProject(String key) {
+        var manager = UserId.newId();
+        var lead = UserId.newId();
+        var dev = UserId.newId();
+        var milestone = MilestoneId.newId();
+        var range = DateRange.of(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31)).orElseThrow();
+        return Project.create(ProjectId.newId(), key, "Проект " + key, "описание, \"кавычки\"\nи перевод строки", manager, NOW)
+                .flatMap(p -> p.addDeveloper(dev, NOW))
+                .flatMap(p -> p.assignTeamLead(lead, NOW))
+                .flatMap(p -> p.createMilestone(milestone, "M1", range, NOW))
+                .flatMap(p -> p.createTicket(TicketId.newId(), milestone,
+                        Title.of("Тикет").orElseThrow(), Description.of("текст").orElseThrow(), manager, NOW))
+                .flatMap(p -> p.createBugReport(BugReportId.newId(),
+                        Title.of("Баг").orElseThrow(), Description.of("").orElseThrow(), dev, NOW.plusSeconds(1)))
+                .orElseThrow();
+    }
+
+    @Test
+    void userRoundTrip() {
+        var user = User.register(UserId.newId(), "ivan", "Иван Иванов", NOW).orElseThrow();
+        var out = new ByteSink(16);
+        BinaryCodec.writeUser(out, user);
+
+        var in = out.written();
+        assertEquals(user, BinaryCodec.readUser(in));
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void projectRoundTrip() {
+        var project = sampleProject("RT").withVersion(7);
+        var out = new ByteSink(16);
+        BinaryCodec.writeProject(out, project);
+
+        var in = out.written();
+        var read = BinaryCodec.readProject(in);
+        assertEquals(project, read);
+        assertEquals(project.summary(), read.summary());
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void projectChangeRoundTripAppliesToSameProject() {
+        var before = sampleProject("CH").withVersion(1);
+        var after = before.addTester(UserId.newId(), NOW.plusSeconds(5)).orElseThrow().withVersion(2);
+        var change = ProjectChange.between(before, after);
+
+        var out = new ByteSink(16);
+        BinaryCodec.writeProjectChange(out, change);
+        var in = ByteBuffer.wrap(copy(out.written()));
+        var read = BinaryCodec.readProjectChange(in);
+
+        assertEquals(change, read);
+        assertFalse(in.hasRemaining());
+        assertEquals(after, read.applyTo(before));
+    }
+
+    @Test
+    void createdChangeRebuildsWholeProject() {
+        var project = sampleProject("NEW");
+        var out = new ByteSink(16);
+        BinaryCodec.writeProjectChange(out, ProjectChange.between(null, project));
+
+        var read = BinaryCodec.readProjectChange(out.written());
+        assertEquals(project, read.applyTo(null));
+    }
+
+    private static byte[] copy(ByteBuffer buf) {
+        var bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+}
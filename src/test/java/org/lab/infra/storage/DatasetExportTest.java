@@ -0,0 +1,80 @@
+package org.lab.infra.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.infra.ColdStore;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetExportTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Баг уже записан в cold, но агрегат его ещё не убрал (вынос идёт отдельной версией после записи):
+     * в выгрузке он один раз, как archived; тикет, которого в cold нет, — один раз из агрегата.
+     */
+    @Test
+    void entityInColdAndStillInAggregateIsWrittenOnce() throws IOException {
+        var project = BinaryCodecTest.sampleProject("EXP");
+        var projects = new ProjectRepository();
+        projects.insert(project).orElseThrow();
+        var cold = ColdStore.inMemory();
+        var bug = project.bugReports().values().iterator().next();
+        var ticket = project.tickets().values().iterator().next();
+        cold.putBug(bug);
+
+        var file = dir.resolve("all.jsonl");
+        var counts = DatasetExport.write(file, new UserRepository(), projects, cold);
+
+        var lines = Files.readAllLines(file);
+        var bugRows = lines.stream().filter(l -> l.contains(bug.id().toString())).toList();
+        var ticketRows = lines.stream().filter(l -> l.contains(ticket.id().toString())).toList();
+        assertEquals(1, bugRows.size(), String.join("\n", lines));
+        assertTrue(bugRows.getFirst().contains("\"archived\":\"true\""), bugRows.getFirst());
+        assertEquals(1, ticketRows.size());
+        assertEquals(0, counts.bugs());
+        assertEquals(1, counts.archivedBugs());
+        assertEquals(1, counts.tickets());
+    }
+
+    /**
+     * include отбирает проекты: строки невыбранного проекта не пишутся, в том числе его тикеты и баги из cold.
+     */
+    @Test
+    void includeFiltersProjectsAndTheirArchivedRows() throws IOException {
+        var kept = BinaryCodecTest.sampleProject("KEEP");
+        var skipped = BinaryCodecTest.sampleProject("SKIP");
+        var projects = new ProjectRepository();
+        projects.insert(kept).orElseThrow();
+        projects.insert(skipped).orElseThrow();
+        var cold = ColdStore.inMemory();
+        cold.putBug(kept.bugReports().values().iterator().next());
+        cold.putBug(skipped.bugReports().values().iterator().next());
+        cold.putTickets(skipped.tickets().values());
+
+        var file = dir.resolve("kept.csv");
+        var counts = DatasetExport.write(file, new UserRepository(), projects, cold, p -> p.id().equals(kept.id()));
+
+        var text = Files.readString(file);
+        assertFalse(text.contains("SKIP"), text);
+        assertFalse(text.contains(skipped.id().toString()), text);
+        for (var t : skipped.tickets().values()) {
+            assertFalse(text.contains(t.id().toString()), text);
+        }
+        assertTrue(text.contains(kept.id().toString()));
+        assertEquals(1, counts.projects());
+        assertEquals(1, counts.archivedBugs());
+        assertEquals(0, counts.archivedTickets());
+        assertEquals(kept.tickets().size(), counts.tickets());
+    }
+}
@@ -0,0 +1,152 @@
+package org.lab.infra.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.domain.BugReport;
+import org.lab.domain.Ticket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileColdStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private record Written(List<Ticket> tickets, List<BugReport> bugs) { }
+
+    /**
+     * Пишет по тикету и багу count проектов (каждый — отдельным пакетом) и закрывает хранилище.
+     */
+    private static Written write(Path file, int count) throws IOException {
+        var tickets = new ArrayList<Ticket>();
+        var bugs = new ArrayList<BugReport>();
+        try (var store = FileColdStore.open(file)) {
+            for (int i = 0; i < count; i++) {
+                var p = BinaryCodecTest.sampleProject("C" + i);
+                var t = List.copyOf(p.tickets().values());
+                var b = List.copyOf(p.bugReports().values());
+                store.putTickets(t);
+                store.putBugs(b);
+                tickets.addAll(t);
+                bugs.addAll(b);
+            }
+        }
+        return new Written(tickets, bugs);
+    }
+
+    @Test
+    void reopenedStoreServesEveryRecord() throws IOException {
+        var file = dir.resolve("cold.bin");
+        var written = write(file, 3);
+
+        try (var store = FileColdStore.open(file)) {
+            assertEquals(3, store.ticketCount());
+            assertEquals(3, store.bugCount());
+            for (var t : written.tickets()) {
+                assertEquals(t, store.findTicket(t.id()).orElseThrow());
+            }
+            for (var b : written.bugs()) {
+                assertEquals(b, store.findBug(b.id()).orElseThrow());
+            }
+        }
+    }
+
+    @Test
+    void corruptedFrameInTheMiddleFailsOpenAndKeepsFile() throws IOException {
+        var file = dir.resolve("cold.bin");
+        write(file, 3);
+        long second = frameOffsets(file).get(1);
+        long size = Files.size(file);
+
+        flipByte(file, second + 8 + 10);
+
+        var e = assertThrows(IOException.class, () -> FileColdStore.open(file));
+        assertTrue(e.getMessage().contains("offset " + second), e.getMessage());
+        assertEquals(size, Files.size(file), "вынесенные после повреждения сущности не отбрасываются");
+    }
+
+    @Test
+    void lengthPastEndOfFileInTheMiddleFailsOpen() throws IOException {
+        var file = dir.resolve("cold.bin");
+        write(file, 3);
+        long first = frameOffsets(file).getFirst();
+        long size = Files.size(file);
+        try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4).putInt(0, (int) size), first);
+        }
+
+        assertThrows(IOException.class, () -> FileColdStore.open(file));
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        var file = dir.resolve("cold.bin");
+        var written = write(file, 2);
+        long last = frameOffsets(file).getLast();
+        try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(Files.size(file) - 3);
+        }
+
+        try (var store = FileColdStore.open(file)) {
+            assertEquals(last, Files.size(file));
+            assertEquals(2, store.ticketCount());
+            assertEquals(1, store.bugCount());
+            assertEquals(written.bugs().getFirst(), store.findBug(written.bugs().getFirst().id()).orElseThrow());
+        }
+    }
+
+    @Test
+    void viewSkipsBatchesWrittenAfterIt() throws IOException {
+        var file = dir.resolve("cold.bin");
+        var written = write(file, 1);
+        try (var store = FileColdStore.open(file)) {
+            var view = store.view();
+            var later = BinaryCodecTest.sampleProject("LATER");
+            var ticket = later.tickets().values().iterator().next();
+            store.putTickets(later.tickets().values());
+
+            var seen = new ArrayList<Ticket>();
+            view.forEachTicket(seen::add);
+            assertEquals(written.tickets(), seen);
+            assertTrue(view.containsBug(written.bugs().getFirst().id()));
+            assertFalse(view.containsTicket(ticket.id()));
+            assertTrue(store.view().containsTicket(ticket.id()));
+        }
+    }
+
+    /**
+     * Смещения начала кадров: [int magic][byte версия], далее [int len][int crc][len байт].
+     */
+    private static List<Long> frameOffsets(Path file) throws IOException {
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        var out = new ArrayList<Long>();
+        int pos = Integer.BYTES + 1;
+        while (pos + 8 <= bytes.limit()) {
+            out.add((long) pos);
+            pos += 8 + bytes.getInt(pos);
+        }
+        return out;
+    }
+
+    private static void flipByte(Path file, long at) throws IOException {
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var b = ByteBuffer.allocate(1);
+            ch.read(b, at);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            ch.write(b, at);
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package org.lab.infra.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.infra.ProjectChange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileJournalTest {
+
+    private static final Instant NOW = Instant.parse("2026-02-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Всё, что журнал отдал при открытии, в порядке seq.
+     */
+    private static final class Recorded implements FileJournal.Replay {
+        final List<Long> seqs = new ArrayList<>();
+        final List<Object> records = new ArrayList<>();
+
+        @Override
+        public void userInserted(long seq, User user) {
+            seqs.add(seq);
+            records.add(user);
+        }
+
+        @Override
+        public void projectChanged(long seq, ProjectChange change) {
+            seqs.add(seq);
+            records.add(change);
+        }
+    }
+
+    private static User user(int i) {
+        return User.register(UserId.newId(), "user" + i, "Пользователь " + i, NOW).orElseThrow();
+    }
+
+    /**
+     * Пишет count записей (пользователи вперемешку с изменениями проектов) и закрывает журнал.
+     */
+    private List<Object> writeRecords(Path file, FsyncPolicy policy, int count) throws IOException {
+        var written = new ArrayList<Object>();
+        try (var journal = FileJournal.open(file, policy, new Recorded())) {
+            for (int i = 0; i < count; i++) {
+                if (i % 2 == 0) {
+                    var u = user(i);
+                    journal.userInserted(u).awaitDurable();
+                    written.add(u);
+                } else {
+                    var change = ProjectChange.between(null, BinaryCodecTest.sampleProject("P" + i));
+                    journal.projectChanged(change).awaitDurable();
+                    written.add(change);
+                }
+            }
+        }
+        return written;
+    }
+
+    private static FileJournal reopen(Path file, Recorded replay) throws IOException {
+        return FileJournal.open(file, new FsyncPolicy.PerWrite(), replay);
+    }
+
+    @Test
+    void replaysAppendedRecordsAndContinuesSequence() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.GroupCommit(Duration.ZERO), 6);
+
+        var replay = new Recorded();
+        try (var journal = reopen(file, replay)) {
+            assertEquals(written, replay.records);
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), replay.seqs);
+            assertEquals(6, journal.lastSeq());
+
+            journal.userInserted(user(100)).awaitDurable();
+            assertEquals(7, journal.lastSeq());
+        }
+    }
+
+    @Test
+    void tornTailIsTruncatedAndJournalStaysWritable() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.PerWrite(), 5);
+        long fullSize = Files.size(file);
+        long lastFrameStart = frameOffsets(file).getLast();
+
+        // обрыв посреди последнего кадра: заголовок цел, payload — нет
+        truncate(file, fullSize - 3);
+
+        var replay = new Recorded();
+        var extra = user(200);
+        try (var journal = reopen(file, replay)) {
+            assertEquals(written.subList(0, 4), replay.records);
+            assertEquals(lastFrameStart, Files.size(file), "хвост обрезан до границы последнего целого кадра");
+            assertEquals(4, journal.lastSeq());
+            journal.userInserted(extra).awaitDurable();
+        }
+
+        var again = new Recorded();
+        try (var ignored = reopen(file, again)) {
+            var expected = new ArrayList<>(written.subList(0, 4));
+            expected.add(extra);
+            assertEquals(expected, again.records);
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), again.seqs);
+        }
+    }
+
+    @Test
+    void tornFrameHeaderIsTruncated() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.PerWrite(), 3);
+        long lastFrameStart = frameOffsets(file).getLast();
+        truncate(file, lastFrameStart + 5);
+
+        var replay = new Recorded();
+        try (var ignored = reopen(file, replay)) {
+            assertEquals(written.subList(0, 2), replay.records);
+            assertEquals(lastFrameStart, Files.size(file));
+        }
+    }
+
+    @Test
+    void corruptedFrameInTheMiddleFailsOpenAndKeepsFile() throws IOException {
+        var file = dir.resolve("journal.bin");
+        writeRecords(file, new FsyncPolicy.PerWrite(), 4);
+        long third = frameOffsets(file).get(2);
+        long size = Files.size(file);
+
+        // портим байт внутри payload третьего кадра: CRC не сходится, а за ним ещё целый кадр
+        flipByte(file, third + 8 + 10);
+
+        var e = assertThrows(IOException.class, () -> reopen(file, new Recorded()));
+        assertTrue(e.getMessage().contains("offset " + third), e.getMessage());
+        assertEquals(size, Files.size(file), "подтверждённые кадры после повреждения не отбрасываются");
+    }
+
+    @Test
+    void corruptedLengthInTheMiddleFailsOpen() throws IOException {
+        var file = dir.resolve("journal.bin");
+        writeRecords(file, new FsyncPolicy.PerWrite(), 3);
+        long second = frameOffsets(file).get(1);
+        long size = Files.size(file);
+        try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4).putInt(0, 2), second);
+        }
+
+        assertThrows(IOException.class, () -> reopen(file, new Recorded()));
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void lengthPastEndOfFileInTheMiddleFailsOpen() throws IOException {
+        var file = dir.resolve("journal.bin");
+        writeRecords(file, new FsyncPolicy.PerWrite(), 4);
+        long second = frameOffsets(file).get(1);
+        long size = Files.size(file);
+        // длина второго кадра указывает за конец файла: без проверки целых кадров после него хвост был бы обрезан
+        try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4).putInt(0, (int) size), second);
+        }
+
+        var e = assertThrows(IOException.class, () -> reopen(file, new Recorded()));
+        assertTrue(e.getMessage().contains("offset " + second), e.getMessage());
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void tornMultiFrameTailIsTruncated() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.PerWrite(), 3);
+        long size = Files.size(file);
+        // дозапись двух кадров оборвалась: первый недописан, от второго остался мусор
+        var garbage = new byte[40];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = (byte) (i * 37 + 11);
+        }
+        Files.write(file, ByteBuffer.allocate(8 + garbage.length).putInt(200).putInt(12345).put(garbage).array(),
+                StandardOpenOption.APPEND);
+
+        var replay = new Recorded();
+        try (var ignored = reopen(file, replay)) {
+            assertEquals(written, replay.records);
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    void corruptedLastFrameIsTruncated() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.PerWrite(), 4);
+        long last = frameOffsets(file).getLast();
+        flipByte(file, last + 8 + 10);
+
+        var replay = new Recorded();
+        try (var journal = reopen(file, replay)) {
+            assertEquals(written.subList(0, 3), replay.records);
+            assertEquals(last, Files.size(file));
+            assertEquals(3, journal.lastSeq());
+        }
+    }
+
+    @Test
+    void zeroFilledTailIsTruncated() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.PerWrite(), 2);
+        long size = Files.size(file);
+        Files.write(file, new byte[64], StandardOpenOption.APPEND);
+
+        var replay = new Recorded();
+        try (var ignored = reopen(file, replay)) {
+            assertEquals(written, replay.records);
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    void trailingGarbageIsDropped() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = writeRecords(file, new FsyncPolicy.PerWrite(), 2);
+        long size = Files.size(file);
+        Files.write(file, new byte[]{0x7f, 0, 0, 0, 1, 2, 3, 4, 5, 6, 7}, StandardOpenOption.APPEND);
+
+        var replay = new Recorded();
+        try (var ignored = reopen(file, replay)) {
+            assertEquals(written, replay.records);
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    void foreignFileIsRejectedAndLeftIntact() throws IOException {
+        var file = dir.resolve("notes.txt");
+        var content = "не журнал, а чужой файл\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, content);
+
+        assertThrows(IOException.class, () -> reopen(file, new Recorded()));
+        assertArrayEquals(content, Files.readAllBytes(file));
+
+        var shortFile = dir.resolve("short.bin");
+        Files.write(shortFile, new byte[]{1, 2});
+        assertThrows(IOException.class, () -> reopen(shortFile, new Recorded()));
+        assertArrayEquals(new byte[]{1, 2}, Files.readAllBytes(shortFile));
+    }
+
+    @Test
+    void replayFromCheckpointSkipsCoveredRecords() throws IOException {
+        var file = dir.resolve("journal.bin");
+        FileJournal.Checkpoint cp;
+        var later = user(300);
+        try (var journal = FileJournal.open(file, new FsyncPolicy.PerWrite(), new Recorded())) {
+            journal.userInserted(user(1)).awaitDurable();
+            journal.userInserted(user(2)).awaitDurable();
+            cp = journal.checkpoint();
+            journal.userInserted(later).awaitDurable();
+        }
+
+        var replay = new Recorded();
+        try (var ignored = FileJournal.open(file, new FsyncPolicy.PerWrite(), replay, cp)) {
+            assertEquals(List.<Object>of(later), replay.records);
+            assertEquals(List.of(3L), replay.seqs);
+        }
+    }
+
+    private static final long SMALL_SEGMENT = 512;
+
+    private static FileJournal openSegmented(Path file, Recorded replay, FileJournal.Checkpoint from) throws IOException {
+        return FileJournal.open(file, new FsyncPolicy.PerWrite(), replay, from, SMALL_SEGMENT);
+    }
+
+    /**
+     * Файлы журнала file: сам file и сегменты file.<seq> по возрастанию имени.
+     */
+    private static List<Path> segments(Path file) throws IOException {
+        try (var files = Files.list(file.getParent())) {
+            return files.filter(f -> f.getFileName().toString().startsWith(file.getFileName().toString()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Test
+    void rotatesSegmentsAndReplaysAcrossThem() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var written = new ArrayList<Object>();
+        try (var journal = openSegmented(file, new Recorded(), FileJournal.Checkpoint.START)) {
+            for (int i = 0; i < 20; i++) {
+                var u = user(i);
+                journal.userInserted(u).awaitDurable();
+                written.add(u);
+            }
+        }
+        var files = segments(file);
+        assertTrue(files.size() > 2, "ожидалось несколько сегментов: " + files);
+        for (var f : files) {
+            assertTrue(Files.size(f) <= SMALL_SEGMENT, f + " больше размера сегмента");
+        }
+
+        var replay = new Recorded();
+        var extra = user(100);
+        try (var journal = openSegmented(file, replay, FileJournal.Checkpoint.START)) {
+            assertEquals(written, replay.records);
+            assertEquals(LongStream.rangeClosed(1, 20).boxed().toList(), replay.seqs);
+            journal.userInserted(extra).awaitDurable();
+            assertEquals(21, journal.lastSeq());
+        }
+        written.add(extra);
+
+        var again = new Recorded();
+        try (var ignored = openSegmented(file, again, FileJournal.Checkpoint.START)) {
+            assertEquals(written, again.records);
+        }
+    }
+
+    @Test
+    void replayFromCheckpointStartsInTheSegmentHoldingIt() throws IOException {
+        var file = dir.resolve("journal.bin");
+        var checkpoints = new ArrayList<FileJournal.Checkpoint>();
+        try (var journal = openSegmented(file, new Recorded(), FileJournal.Checkpoint.START)) {
+            for (int i = 0; i < 20; i++) {
+                journal.userInserted(user(i)).awaitDurable();
+                checkpoints.add(journal.checkpoint());
+            }
+        }
+
+        // каждая позиция, включая взятые прямо перед ротацией, проигрывает ровно хвост после неё
+        for (var cp : checkpoints) {
+            var replay = new Recorded();
+            try (var ignored = openSegmented(file, replay, cp)) {
+                assertEquals(LongStream.rangeClosed(cp.seq() + 1, 20).boxed().toList(), replay.seqs, "from " + cp);
+            }
+        }
+    }
+
+    @Test
+    void segmentsCoveredByCheckpointAreDeleted() throws IOException {
+        var file = dir.resolve("journal.bin");
+        FileJournal.Checkpoint cp;
+        var later = new ArrayList<Object>();
+        try (var journal = openSegmented(file, new Recorded(), FileJournal.Checkpoint.START)) {
+            for (int i = 0; i < 15; i++) {
+                journal.userInserted(user(i)).awaitDurable();
+            }
+            cp = journal.checkpoint();
+            int before = segments(file).size();
+            int deleted = journal.deleteSegmentsCoveredBy(cp);
+            assertTrue(deleted > 0);
+            assertEquals(before - deleted, segments(file).size());
+            assertTrue(Files.notExists(file), "первый сегмент покрыт checkpoint'ом");
+            assertEquals(0, journal.deleteSegmentsCoveredBy(cp), "повторное удаление ничего не трогает");
+
+            for (int i = 0; i < 3; i++) {
+                var u = user(100 + i);
+                journal.userInserted(u).awaitDurable();
+                later.add(u);
+            }
+        }
+
+        var replay = new Recorded();
+        try (var journal = openSegmented(file, replay, cp)) {
+            assertEquals(later, replay.records);
+            assertEquals(18, journal.lastSeq());
+        }
+        assertTrue(Files.notExists(file), "открытие не создаёт удалённый первый сегмент заново");
+
+        var e = assertThrows(IOException.class, () -> openSegmented(file, new Recorded(), FileJournal.Checkpoint.START));
+        assertTrue(e.getMessage().contains("deleted"), e.getMessage());
+    }
+
+    @Test
+    void activeSegmentIsNeverDeleted() throws IOException {
+        var file = dir.resolve("journal.bin");
+        try (var journal = openSegmented(file, new Recorded(), FileJournal.Checkpoint.START)) {
+            journal.userInserted(user(1)).awaitDurable();
+            assertEquals(0, journal.deleteSegmentsCoveredBy(journal.checkpoint()));
+            assertTrue(Files.exists(file));
+        }
+    }
+
+    @Test
+    void missingMiddleSegmentFailsOpen() throws IOException {
+        var file = dir.resolve("journal.bin");
+        try (var journal = openSegmented(file, new Recorded(), FileJournal.Checkpoint.START)) {
+            for (int i = 0; i < 20; i++) {
+                journal.userInserted(user(i)).awaitDurable();
+            }
+        }
+        var files = segments(file);
+        assertTrue(files.size() > 2);
+        Files.delete(files.get(1));
+
+        assertThrows(IOException.class, () -> openSegmented(file, new Recorded(), FileJournal.Checkpoint.START));
+    }
+
+    @Test
+    void groupCommitRotatesUnderConcurrentWriters() throws Exception {
+        var file = dir.resolve("journal.bin");
+        int threads = 4;
+        int perThread = 50;
+        try (var journal = FileJournal.open(file, new FsyncPolicy.GroupCommit(Duration.ZERO), new Recorded(),
+                FileJournal.Checkpoint.START, SMALL_SEGMENT)) {
+            var workers = new ArrayList<Thread>();
+            var failures = new CopyOnWriteArrayList<Throwable>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                workers.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            journal.userInserted(user(base + i)).awaitDurable();
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for (var w : workers) {
+                w.join();
+            }
+            assertEquals(List.of(), failures);
+            assertNull(journal.failure());
+        }
+
+        var replay = new Recorded();
+        try (var ignored = openSegmented(file, replay, FileJournal.Checkpoint.START)) {
+            assertEquals(LongStream.rangeClosed(1, threads * perThread).boxed().toList(), replay.seqs);
+        }
+        assertTrue(segments(file).size() > 10);
+    }
+
+    /**
+     * Смещения начала кадров: [int magic][byte версия], далее [int len][int crc][len байт].
+     */
+    private static List<Long> frameOffsets(Path file) throws IOException {
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        var out = new ArrayList<Long>();
+        int pos = Integer.BYTES + 1;
+        while (pos + 8 <= bytes.limit()) {
+            out.add((long) pos);
+            pos += 8 + bytes.getInt(pos);
+        }
+        return out;
+    }
+
+    private static void flipByte(Path file, long at) throws IOException {
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var b = ByteBuffer.allocate(1);
+            ch.read(b, at);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            ch.write(b, at);
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(size);
+        }
+    }
+}
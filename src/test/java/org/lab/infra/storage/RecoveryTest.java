@@ -0,0 +1,200 @@
+package org.lab.infra.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.domain.Project;
+import org.lab.domain.ProjectId;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+import org.lab.infra.BugReportRepository;
+import org.lab.infra.ColdStore;
+import org.lab.infra.ProjectChange;
+import org.lab.infra.ProjectRepository;
+import org.lab.infra.ProjectStore;
+import org.lab.infra.TicketRepository;
+import org.lab.infra.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecoveryTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Хранилище проектов, которое запоминает, какие проекты читал поток теста: проигрывание журнала идёт в нём
+     * и читает базу каждой записи, а фоновый прогрев проекций — нет.
+     */
+    private static final class CountingStore implements ProjectStore {
+        final FileProjectStore delegate;
+        final Thread owner = Thread.currentThread();
+        final List<ProjectId> loads = new CopyOnWriteArrayList<>();
+
+        CountingStore(FileProjectStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<Stub> stubs() {
+            return delegate.stubs();
+        }
+
+        @Override
+        public boolean contains(ProjectId id) {
+            return delegate.contains(id);
+        }
+
+        @Override
+        public Project load(ProjectId id) {
+            if (Thread.currentThread() == owner) {
+                loads.add(id);
+            }
+            return delegate.load(id);
+        }
+
+        @Override
+        public void save(Project project) {
+            delegate.save(project);
+        }
+    }
+
+    private record Repos(UserRepository users, ProjectRepository projects, FileJournal journal) { }
+
+    private Repos open(ProjectStore store, Path checkpoint) throws IOException {
+        var users = new UserRepository();
+        var projects = new ProjectRepository();
+        projects.attachStore(store, 1_000);
+        var journal = Recovery.open(dir.resolve("journal.bin"), checkpoint, new FsyncPolicy.PerWrite(),
+                users, projects, new TicketRepository(), new BugReportRepository(), ColdStore.inMemory());
+        return new Repos(users, projects, journal);
+    }
+
+    private static Project project(String key, UserId manager) {
+        return Project.create(ProjectId.newId(), key, key, "", manager, NOW).orElseThrow();
+    }
+
+    @Test
+    void projectStoreCheckpointLimitsReplayToTheTail() throws IOException {
+        var storeDir = dir.resolve("projects");
+        var store = FileProjectStore.open(storeDir);
+        var first = open(store, store.checkpointPath());
+
+        var user = User.register(UserId.newId(), "manager", "Manager", NOW).orElseThrow();
+        first.users().insert(user).orElseThrow();
+        var before = project("PRJ-000001", user.id());
+        first.projects().insert(before).orElseThrow();
+        first.projects().update(before.id(), p -> p.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+
+        // close делает финальный checkpoint — поэтому "после" пишется уже без Snapshotter
+        try (var checkpoints = Snapshotter.checkpoints(store, Duration.ofHours(1),
+                first.journal(), first.users(), first.projects())) {
+            assertEquals(3, checkpoints.snapshotNow().seq());
+        }
+        var after = project("PRJ-000002", user.id());
+        first.projects().insert(after).orElseThrow();
+        first.journal().close();
+
+        var reopened = new CountingStore(FileProjectStore.open(storeDir));
+        var second = open(reopened, store.checkpointPath());
+        try (var ignored = second.journal()) {
+            // after сохранён только в несброшенный .next, который open удалил: он восстанавливается из журнала без чтения
+            assertEquals(List.of(), reopened.loads, "проигрываются только записи после checkpoint'а");
+            assertEquals(List.of(user), second.users().findAll(), "пользователи — из checkpoint'а");
+            assertEquals(before.version() + 1, second.projects().findById(before.id()).orElseThrow().version());
+            assertEquals(after.id(), second.projects().findIdByKey("PRJ-000002").orElseThrow());
+        }
+    }
+
+    /**
+     * Сбой до следующего checkpoint'а может оставить сохранённую после него версию пустой или недописанной:
+     * версия checkpoint'а остаётся целой, а журнал проигрывает хвост поверх неё.
+     */
+    @Test
+    void tornSaveAfterCheckpointKeepsTheCheckpointedVersion() throws IOException {
+        var storeDir = dir.resolve("projects");
+        var store = FileProjectStore.open(storeDir);
+        var first = open(store, store.checkpointPath());
+
+        var user = User.register(UserId.newId(), "manager", "Manager", NOW).orElseThrow();
+        first.users().insert(user).orElseThrow();
+        var p = project("PRJ-000001", user.id());
+        first.projects().insert(p).orElseThrow();
+        try (var checkpoints = Snapshotter.checkpoints(store, Duration.ofHours(1),
+                first.journal(), first.users(), first.projects())) {
+            checkpoints.snapshotNow();
+        }
+        var checkpointed = Files.readAllBytes(storeDir.resolve(fileName(p.id(), ".prj")));
+        var latest = first.projects().update(p.id(), q -> q.addDeveloper(UserId.newId(), NOW)).orElseThrow();
+        first.journal().close();
+
+        assertArrayEquals(checkpointed, Files.readAllBytes(storeDir.resolve(fileName(p.id(), ".prj"))),
+                "save после checkpoint'а не трогает его версию");
+        Files.write(storeDir.resolve(fileName(p.id(), ".next")), new byte[0]);
+
+        var second = open(FileProjectStore.open(storeDir), store.checkpointPath());
+        try (var ignored = second.journal()) {
+            assertEquals(latest, second.projects().findById(p.id()).orElseThrow());
+        }
+    }
+
+    /**
+     * Снимок удаляет сегменты журнала, которые он покрывает; старт со снимка проигрывает только оставшиеся.
+     */
+    @Test
+    void snapshotDeletesCoveredJournalSegments() throws IOException {
+        var journalPath = dir.resolve("journal.bin");
+        var snapshotPath = dir.resolve("state.snap");
+        var users = new UserRepository();
+        var projects = new ProjectRepository();
+        var expected = new ArrayList<User>();
+        try (var journal = FileJournal.open(journalPath, new FsyncPolicy.PerWrite(), new FileJournal.Replay() {
+            @Override
+            public void userInserted(long seq, User user) { }
+
+            @Override
+            public void projectChanged(long seq, ProjectChange change) { }
+        }, FileJournal.Checkpoint.START, 512)) {
+            users.attachJournal(journal);
+            projects.attachJournal(journal);
+            for (int i = 0; i < 20; i++) {
+                var u = User.register(UserId.newId(), "user" + i, "User " + i, NOW).orElseThrow();
+                users.insert(u).orElseThrow();
+                expected.add(u);
+            }
+            try (var snapshots = Snapshotter.start(snapshotPath, Duration.ofHours(1), journal, users, projects)) {
+                assertEquals(20, snapshots.snapshotNow().seq());
+            }
+            assertTrue(Files.notExists(journalPath), "сегменты до снимка удалены");
+            var u = User.register(UserId.newId(), "late", "Late", NOW).orElseThrow();
+            users.insert(u).orElseThrow();
+            expected.add(u);
+        }
+
+        var restored = new UserRepository();
+        try (var ignored = Recovery.open(journalPath, snapshotPath, new FsyncPolicy.PerWrite(), restored,
+                new ProjectRepository(), new TicketRepository(), new BugReportRepository(), ColdStore.inMemory())) {
+            assertEquals(expected.size(), restored.findAll().size());
+            for (var u : expected) {
+                assertEquals(u, restored.findById(u.id()).orElseThrow());
+            }
+        }
+    }
+
+    private static String fileName(ProjectId id, String suffix) {
+        return new UUID(id.msb(), id.lsb()) + suffix;
+    }
+}
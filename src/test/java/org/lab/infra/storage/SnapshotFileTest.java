@@ -0,0 +1,64 @@
+package org.lab.infra.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lab.domain.BugReport;
+import org.lab.domain.Project;
+import org.lab.domain.Ticket;
+import org.lab.domain.User;
+import org.lab.domain.UserId;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void copiesUntouchedFramesFromBaseSnapshot() throws IOException {
+        var a = BinaryCodecTest.sampleProject("A");
+        var b = BinaryCodecTest.sampleProject("B");
+        var c = BinaryCodecTest.sampleProject("C");
+        var user = User.register(UserId.newId(), "u", "U", Instant.parse("2026-01-01T00:00:00Z")).orElseThrow();
+
+        var first = dir.resolve("first.snap");
+        SnapshotFile.write(first, new FileJournal.Checkpoint(3, 100), List.of(user), List.of(a, b, c));
+        var base = MappedSnapshot.open(first);
+
+        // b изменён после первого снимка и пишется заново; a и c переносятся кадрами
+        var b2 = b.addTester(UserId.newId(), Instant.parse("2026-01-20T00:00:00Z")).orElseThrow().withVersion(1);
+        var second = dir.resolve("second.snap");
+        SnapshotFile.write(second, new FileJournal.Checkpoint(4, 200), List.of(user), List.of(b2), base, List.of(a.id(), c.id()));
+
+        var snap = MappedSnapshot.open(second);
+        assertEquals(new FileJournal.Checkpoint(4, 200), snap.checkpoint());
+        assertEquals(List.of(user), snap.users());
+        assertEquals(3, snap.stubs().size());
+        assertEquals(a, snap.load(a.id()));
+        assertEquals(b2, snap.load(b.id()));
+        assertEquals(c, snap.load(c.id()));
+
+        Set<Ticket> tickets = ConcurrentHashMap.newKeySet();
+        Set<BugReport> bugs = ConcurrentHashMap.newKeySet();
+        snap.forEachTicketAndBug(tickets::add, bugs::add);
+        assertEquals(collect(List.of(a, b2, c), Project::tickets), tickets);
+        assertEquals(collect(List.of(a, b2, c), Project::bugReports), bugs);
+    }
+
+    private static <V> Set<V> collect(List<Project> projects, Function<Project, Map<?, V>> values) {
+        var out = new HashSet<V>();
+        projects.forEach(p -> out.addAll(values.apply(p).values()));
+        return out;
+    }
+}